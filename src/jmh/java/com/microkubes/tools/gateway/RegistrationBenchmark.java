@@ -0,0 +1,62 @@
+package com.microkubes.tools.gateway;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * Measures registering an already registered service (the usual case on restart) end to end, against a local stub of
+ * the Kong admin API. Includes the HTTP round trips, so the result mostly reflects the number of requests made.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    @Param({"kong-v0", "kong-v2"})
+    public String adapter;
+
+    private WireMockServer server;
+    private ServiceRegistry registry;
+    private ServiceInfo service;
+
+    @Setup
+    public void setUp() throws ValidationException {
+        server = new WireMockServer(options().dynamicPort());
+        server.start();
+
+        // Kong v0
+        server.stubFor(get(urlEqualTo("/apis/todo")).willReturn(okJson("{\"name\": \"todo\"}")));
+        server.stubFor(patch(urlEqualTo("/apis/todo")).willReturn(okJson("{\"name\": \"todo\"}")));
+        server.stubFor(get(urlEqualTo("/apis/todo/plugins")).willReturn(okJson("{\"data\": []}")));
+        // Kong v2
+        server.stubFor(get(urlEqualTo("/services/todo")).willReturn(okJson("{\"name\": \"todo\"}")));
+        server.stubFor(patch(urlEqualTo("/services/todo")).willReturn(okJson("{\"name\": \"todo\"}")));
+        server.stubFor(get(urlEqualTo("/services/todo/routes"))
+                .willReturn(okJson("{\"data\": [{\"id\": \"route-id\"}]}")));
+        server.stubFor(patch(urlEqualTo("/services/todo/routes/route-id")).willReturn(okJson("{\"id\": \"route-id\"}")));
+        server.stubFor(get(urlEqualTo("/services/todo/plugins")).willReturn(okJson("{\"data\": []}")));
+
+        String url = "http://localhost:" + server.port();
+        registry = "kong-v2".equals(adapter) ? new Kong2ServiceRegistry(url) : new KongServiceRegistry(url);
+        service = RequestBodyBenchmark.benchmarkService("todo");
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public ServiceInfo register() {
+        registry.register(service);
+        return service;
+    }
+}
@@ -0,0 +1,60 @@
+package com.microkubes.tools.gateway;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the JSON request bodies sent to the API Gateway when registering a service: the API of Kong v0
+ * and the service and route of Kong v2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBodyBenchmark {
+
+    private final KongServiceRegistry kongRegistry = new KongServiceRegistry("http://kong:8001");
+    private final Kong2ServiceRegistry kong2Registry = new Kong2ServiceRegistry("http://kong:8001");
+    private ServiceInfo service;
+
+    @Setup
+    public void setUp() throws ValidationException {
+        service = benchmarkService("todo");
+    }
+
+    static ServiceInfo benchmarkService(String name) throws ValidationException {
+        return ServiceInfo.NewService(name)
+                .host(name + ".service.consul")
+                .port(8080)
+                .addPath("/" + name)
+                .addPath("/" + name + "-v2")
+                .setProperty("preserve_host", false)
+                .setProperty("retries", 5)
+                .setProperty("strip_uri", true)
+                .setProperty("upstream_connect_timeout", 60000)
+                .setProperty("upstream_read_timeout", 60000)
+                .setProperty("upstream_send_timeout", 60000)
+                .setProperty("https_only", false)
+                .setProperty("http_if_terminated", false)
+                .getServiceInfo();
+    }
+
+    @Benchmark
+    public JSONObject kongApiBody() throws ValidationException {
+        return kongRegistry.toKongAPIBody(service);
+    }
+
+    @Benchmark
+    public String kong2ServiceBody() throws ValidationException {
+        return kong2Registry.getServiceBody(service);
+    }
+
+    @Benchmark
+    public String kong2RouteBody() {
+        return kong2Registry.getRouteBody(service);
+    }
+}
@@ -0,0 +1,52 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.ServiceRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the startup of an application context with the gateway configuration, found by scanning the
+ * <code>com.microkubes.tools.gateway.spring</code> package (as it was before the auto-configuration) or registered
+ * explicitly through {@link AutoRegister}. The service is registered on a no-op registry, so the result does not
+ * include any HTTP requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayStartupBenchmark {
+
+    @Param({"component-scan", "auto-configuration"})
+    public String startup;
+
+    @Benchmark
+    public int start() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("com.microkubes.gateway.gateway-url", "http://kong:8001");
+            properties.put("com.microkubes.service.name", "todo");
+            properties.put("com.microkubes.service.host", "todo.services.consul");
+            properties.put("com.microkubes.service.port", "8080");
+            properties.put("com.microkubes.service.paths", "/todo");
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+
+            ServiceRegistry registry = service -> {
+            };
+            context.registerBean(ServiceRegistry.class, () -> registry);
+            if ("component-scan".equals(startup)) {
+                context.scan("com.microkubes.tools.gateway.spring");
+            } else {
+                context.register(AutoRegister.class);
+            }
+            context.refresh();
+            return context.getBeanDefinitionCount();
+        }
+    }
+}
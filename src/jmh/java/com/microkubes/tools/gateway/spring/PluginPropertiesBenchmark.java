@@ -0,0 +1,50 @@
+package com.microkubes.tools.gateway.spring;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading the plugin properties from a large environment (as in pods with thousands of environment
+ * variables), of which 2% configure plugins.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PluginPropertiesBenchmark {
+
+    @Param({"10000"})
+    public int environmentSize;
+
+    private StandardEnvironment environment;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> variables = new HashMap<>();
+        for (int i = 0; i < environmentSize; i++) {
+            if (i % 50 == 0) {
+                variables.put("com_microkubes_service_plugins_plugin-" + (i % 20) + "_config_max__age_" + i, "3600");
+            } else if (i % 3 == 0) {
+                variables.put("SERVICE_" + i + "_PORT_8080_TCP_ADDR", "10.0.0." + (i % 256));
+            } else if (i % 3 == 1) {
+                variables.put("com_example_setting_" + i, "value-" + i);
+            } else {
+                variables.put("KUBERNETES_SERVICE_" + i, "value-" + i);
+            }
+        }
+        environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("environment", variables));
+    }
+
+    @Benchmark
+    public Map<String, String> loadPluginProperties() {
+        return ServicePluginsConfig.getNormalizedPluginsProperties(environment);
+    }
+}
@@ -0,0 +1,57 @@
+package com.microkubes.tools.gateway.spring;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the plugin configuration loading of {@link ServicePluginsConfig}: normalizing the names of the plugin
+ * environment variables, and building the plugins from the normalized properties, for large environments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServicePluginsBenchmark {
+
+    /**
+     * The number of plugin properties in the environment.
+     */
+    @Param({"100", "1000"})
+    public int properties;
+
+    private List<String> names;
+    private Map<String, String> normalized;
+
+    @Setup
+    public void setUp() {
+        names = new ArrayList<>();
+        normalized = new TreeMap<>();
+        for (int i = 0; i < properties; i++) {
+            String name = "com_microkubes_service_plugins_plugin-" + (i % 20) + "_config_some__property_" + i;
+            names.add(name);
+            normalized.put(ServicePluginsConfig.normalizePropertyName(name), "value-" + i);
+        }
+    }
+
+    @Benchmark
+    public void normalizePropertyName(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(ServicePluginsConfig.normalizePropertyName(name));
+        }
+    }
+
+    @Benchmark
+    public ServicePluginsConfig buildPlugins() {
+        ServicePluginsConfig config = new ServicePluginsConfig();
+        config.buildPlugins(normalized);
+        return config;
+    }
+}
@@ -0,0 +1,43 @@
+package com.microkubes.tools.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-request cost of the revocation check with one million revoked tokens, for tokens that were not
+ * revoked (the common case, answered by the Bloom filter) and for revoked tokens (confirmed by the exact set).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RevocationListBenchmark {
+
+    private final RevocationList revocationList = new RevocationList(1000000, 0.01, 3600);
+    private String revokedJti;
+    private String validJti;
+
+    @Setup
+    public void setUp() {
+        long expiresAt = System.currentTimeMillis() / 1000 + 3600;
+        for (int i = 0; i < 1000000; i++) {
+            revokedJti = UUID.randomUUID().toString();
+            revocationList.revoke(revokedJti, expiresAt);
+        }
+        validJti = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public boolean checkValidToken() {
+        return revocationList.isRevoked(validJti);
+    }
+
+    @Benchmark
+    public boolean checkRevokedToken() {
+        return revocationList.isRevoked(revokedJti);
+    }
+}
@@ -0,0 +1,111 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Auth;
+import com.microkubes.tools.security.AuthCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compact {@link AuthCodec} and {@link AuthHolderCodec} with Java serialization of {@link Auth} and
+ * {@link SpringOauth2AuthHolder}. The encoded sizes are checked by <code>AuthHolderCodecTest</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthCodecBenchmark {
+
+    private final AuthCodec authCodec = new AuthCodec(Arrays.asList("user", "admin", "system"), false);
+    private final AuthHolderCodec holderCodec = new AuthHolderCodec(authCodec);
+
+    private Auth auth;
+    private SpringOauth2AuthHolder holder;
+    private byte[] compactAuth;
+    private byte[] serializedAuth;
+    private byte[] compactHolder;
+    private byte[] serializedHolder;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("username", "john.doe@example.com");
+        claims.put("userId", "5c8a2b9e1f4d3a0012345678");
+        claims.put("roles", "user,admin");
+        claims.put("organizations", "microkubes");
+        claims.put("namespaces", "default,staging");
+        claims.put("scope", "api:read api:write");
+        claims.put("client_id", "microkubes-client");
+        holder = (SpringOauth2AuthHolder) new CustomClaimsTokenConverter().extractAuthentication(claims);
+        auth = holder.getAuth();
+
+        compactAuth = authCodec.encode(auth);
+        serializedAuth = serialize(auth);
+        compactHolder = holderCodec.encode(holder);
+        serializedHolder = serialize(holder);
+    }
+
+    @Benchmark
+    public byte[] encodeAuthCompact() {
+        return authCodec.encode(auth);
+    }
+
+    @Benchmark
+    public byte[] encodeAuthSerialization() throws IOException {
+        return serialize(auth);
+    }
+
+    @Benchmark
+    public Auth decodeAuthCompact() {
+        return authCodec.decode(compactAuth);
+    }
+
+    @Benchmark
+    public Object decodeAuthSerialization() throws IOException, ClassNotFoundException {
+        return deserialize(serializedAuth);
+    }
+
+    @Benchmark
+    public byte[] encodeHolderCompact() {
+        return holderCodec.encode(holder);
+    }
+
+    @Benchmark
+    public byte[] encodeHolderSerialization() throws IOException {
+        return serialize(holder);
+    }
+
+    @Benchmark
+    public SpringOauth2AuthHolder decodeHolderCompact() {
+        return holderCodec.decode(compactHolder);
+    }
+
+    @Benchmark
+    public Object decodeHolderSerialization() throws IOException, ClassNotFoundException {
+        return deserialize(serializedHolder);
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.microkubes.tools.security.spring;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CustomClaimsTokenConverter#extractAuthentication(Map)} for tokens with a growing number of roles,
+ * organizations and namespaces, on one and on four threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClaimsConversionBenchmark {
+
+    /**
+     * The number of values in each of the roles, organizations and namespaces claims.
+     */
+    @Param({"1", "10", "100"})
+    public int values;
+
+    private final CustomClaimsTokenConverter converter = new CustomClaimsTokenConverter();
+    private Map<String, Object> claims;
+
+    @Setup
+    public void setUp() {
+        claims = new HashMap<>();
+        claims.put("username", "john.doe@example.com");
+        claims.put("userId", "5c8a2b9e1f4d3a0012345678");
+        claims.put("roles", list("role", values));
+        claims.put("organizations", list("org", values));
+        claims.put("namespaces", list("ns", values));
+        claims.put("scope", "api:read api:write");
+        claims.put("client_id", "microkubes-client");
+        claims.put("exp", 1900000000L);
+        claims.put("jti", "7d4f3c1a-2b9e-4f4d-8a00-123456789abc");
+    }
+
+    private static String list(String prefix, int count) {
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                list.append(',');
+            }
+            list.append(prefix).append('-').append(i);
+        }
+        return list.toString();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public OAuth2Authentication extractAuthentication() {
+        return converter.extractAuthentication(claims);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public OAuth2Authentication extractAuthentication4Threads() {
+        return converter.extractAuthentication(claims);
+    }
+}
@@ -0,0 +1,101 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.JwtClaimsDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.RsaSigner;
+import org.springframework.security.oauth2.common.util.JsonParser;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JWT payload decoding of {@link JwtAccessTokenConverter} (full JSON to map) with the streaming
+ * {@link JwtClaimsDecoder} that materializes only the Microkubes claims, for small and large tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtDecodeBenchmark {
+
+    @Param({"small", "large"})
+    public String tokenSize;
+
+    private String token;
+    private final JsonParser jsonParser = JsonParserFactory.create();
+    private final JwtClaimsDecoder streamingDecoder = StreamingJwtAccessTokenConverter.claimsDecoder(null);
+    private CurrentConverter currentConverter;
+    private StreamingJwtAccessTokenConverter streamingConverter;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        KeyPair keyPair = kpg.generateKeyPair();
+
+        token = JwtHelper.encode(claims("large".equals(tokenSize) ? 200 : 0),
+                new RsaSigner((RSAPrivateKey) keyPair.getPrivate())).getEncoded();
+
+        currentConverter = new CurrentConverter();
+        currentConverter.setKeyPair(keyPair);
+        streamingConverter = new StreamingJwtAccessTokenConverter(streamingDecoder);
+        streamingConverter.setKeyPair(keyPair);
+    }
+
+    @Benchmark
+    public Map<String, Object> payloadCurrent() {
+        return jsonParser.parseMap(JwtHelper.decode(token).getClaims());
+    }
+
+    @Benchmark
+    public Map<String, Object> payloadStreaming() {
+        return streamingDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Map<String, Object> verifyAndDecodeCurrent() {
+        return currentConverter.decode(token);
+    }
+
+    @Benchmark
+    public Map<String, Object> verifyAndDecodeStreaming() {
+        return streamingConverter.decode(token);
+    }
+
+    /**
+     * Builds a JWT claims set with the Microkubes claims and the given number of additional custom claims.
+     *
+     * @param customClaims the number of custom claims to add.
+     * @return the claims as JSON.
+     */
+    static String claims(int customClaims) {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < customClaims; i++) {
+            json.append("\"custom_").append(i).append("\":{\"values\":[\"value-").append(i)
+                    .append("-a\",\"value-").append(i).append("-b\"],\"enabled\":true,\"weight\":").append(i).append("},");
+        }
+        json.append("\"username\":\"john.doe@example.com\",\"userId\":\"5c9a1d3e2f\",")
+                .append("\"roles\":\"user,admin\",\"organizations\":\"org1,org2\",\"namespaces\":\"ns1\",")
+                .append("\"scope\":[\"api:read\",\"api:write\"],\"aud\":\"todo\",\"client_id\":\"web\",")
+                .append("\"jti\":\"8d1c7b2a-44e5-4a8b-9c1f-3e2d1a0b9c8d\",\"exp\":1900000000}");
+        return json.toString();
+    }
+
+    /**
+     * Exposes the decoding of the default {@link JwtAccessTokenConverter}.
+     */
+    static class CurrentConverter extends JwtAccessTokenConverter {
+        @Override
+        protected Map<String, Object> decode(String token) {
+            return super.decode(token);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Ed25519PrivateKey;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.jwt.crypto.sign.RsaSigner;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.springframework.security.jwt.crypto.sign.Signer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token signing and verification throughput per algorithm. <code>RS256-spring</code> is the spring-security-jwt
+ * {@link RsaSigner}/{@link RsaVerifier} pair, which looks up and initializes a new {@link java.security.Signature}
+ * for every call; the others use {@link JwsSigner} and {@link JwsVerifier}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningBenchmark {
+
+    @Param({"RS256-spring", "RS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private Signer signer;
+    private SignatureVerifier verifier;
+    private byte[] content;
+    private byte[] signature;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        switch (algorithm) {
+            case "RS256-spring": {
+                KeyPair keyPair = generate("RSA", 2048);
+                signer = new RsaSigner((RSAPrivateKey) keyPair.getPrivate());
+                verifier = new RsaVerifier((RSAPublicKey) keyPair.getPublic());
+                break;
+            }
+            case "RS256":
+                use(generate("RSA", 2048));
+                break;
+            case "ES256":
+                use(generate("EC", 256));
+                break;
+            case "EdDSA": {
+                Ed25519PrivateKey privateKey = Ed25519PrivateKey.generate(new SecureRandom());
+                use(new KeyPair(privateKey.getPublicKey(), privateKey));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException(algorithm);
+        }
+        content = ("eyJhbGciOiJSUzI1NiIsInR5cCI6IkpXVCJ9.eyJ1c2VybmFtZSI6ImpvaG4uZG9lQGV4YW1wbGUuY29tIiwidXNlcklkIjoiNW" +
+                "M4YTJiOWUxZjRkM2EwMDEyMzQ1Njc4Iiwicm9sZXMiOiJ1c2VyLGFkbWluIiwiZXhwIjoxOTAwMDAwMDAwfQ")
+                .getBytes(StandardCharsets.US_ASCII);
+        signature = signer.sign(content);
+    }
+
+    private void use(KeyPair keyPair) {
+        signer = new JwsSigner(keyPair.getPrivate());
+        verifier = new JwsVerifier(keyPair.getPublic());
+    }
+
+    private static KeyPair generate(String algorithm, int size) throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        generator.initialize(size);
+        return generator.generateKeyPair();
+    }
+
+    @Benchmark
+    public byte[] sign() {
+        return signer.sign(content);
+    }
+
+    @Benchmark
+    public SignatureVerifier verify() {
+        verifier.verify(content, signature);
+        return verifier;
+    }
+}
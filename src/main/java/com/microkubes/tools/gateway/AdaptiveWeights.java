@@ -0,0 +1,154 @@
+package com.microkubes.tools.gateway;
+
+/**
+ * Decides the load balancing weight of the service instance from its load, so that the gateway shifts traffic away
+ * from an instance that struggles (for example, on a noisy node).
+ * <p>
+ * Each load signal yields a factor between 0 and 1, and the weight is the product of the factors scaled between the
+ * minimal and the maximal weight:
+ * <ul>
+ * <li>latency: 1 while the latency is within the tolerance of the baseline latency (the lowest latency seen,
+ * slowly drifting towards the current one), then inversely proportional to the latency.</li>
+ * <li>requests in flight: 1 up to the in-flight limit, then inversely proportional to the requests in flight.</li>
+ * <li>CPU load and GC time: 1 up to the threshold, then decreasing linearly to 0 at full load.</li>
+ * </ul>
+ * To prevent flapping, the weight changes only when it differs from the current weight by at least the hysteresis
+ * (or reaches one of the bounds), at most by the maximal step, and not more often than the cooldown allows.
+ */
+public class AdaptiveWeights {
+
+    private static final double BASELINE_DRIFT = 0.01;
+    private static final double MAX_GC_SHARE = 0.25;
+
+    private final int minWeight;
+    private final int maxWeight;
+
+    private int hysteresis = 10;
+    private int maxStep = 20;
+    private long cooldown = 30000;
+    private double latencyTolerance = 1.5;
+    private int maxInFlight = 100;
+    private double cpuThreshold = 0.75;
+    private double gcThreshold = 0.05;
+
+    private int weight;
+    private double baselineLatency;
+    private long lastChange = Long.MIN_VALUE;
+
+    /**
+     * Creates new adaptive weights, starting at the maximal weight.
+     *
+     * @param minWeight the lowest weight of the instance.
+     * @param maxWeight the weight of an instance that is not under pressure.
+     */
+    public AdaptiveWeights(int minWeight, int maxWeight) {
+        this.minWeight = minWeight;
+        this.maxWeight = maxWeight;
+        this.weight = maxWeight;
+    }
+
+    /**
+     * Computes the weight for the sampled load.
+     *
+     * @param sample the current load.
+     * @param now    the current time in milliseconds.
+     * @return the new weight, or the current weight if it should not change.
+     */
+    public synchronized int next(LoadSampler.Sample sample, long now) {
+        int desired = desiredWeight(sample);
+        // small changes are ignored, except for reaching the bounds
+        boolean small = Math.abs(desired - weight) < hysteresis && desired != minWeight && desired != maxWeight;
+        if (desired == weight || small || (lastChange != Long.MIN_VALUE && now - lastChange < cooldown)) {
+            return weight;
+        }
+        weight += Math.max(-maxStep, Math.min(maxStep, desired - weight));
+        lastChange = now;
+        return weight;
+    }
+
+    /**
+     * The weight the instance should have for the given load, without hysteresis and rate limiting.
+     *
+     * @param sample the current load.
+     * @return the desired weight.
+     */
+    int desiredWeight(LoadSampler.Sample sample) {
+        double factor = latencyFactor(sample.getLatency())
+                * (sample.getInFlight() > maxInFlight ? (double) maxInFlight / sample.getInFlight() : 1)
+                * linearFactor(sample.getCpuLoad(), cpuThreshold, 1)
+                * linearFactor(sample.getGcShare(), gcThreshold, MAX_GC_SHARE);
+        return (int) Math.round(minWeight + (maxWeight - minWeight) * factor);
+    }
+
+    private double latencyFactor(double latency) {
+        if (latency <= 0) {
+            return 1;
+        }
+        if (baselineLatency == 0 || latency < baselineLatency) {
+            baselineLatency = latency;
+        } else {
+            baselineLatency += (latency - baselineLatency) * BASELINE_DRIFT;
+        }
+        return Math.min(1, baselineLatency * latencyTolerance / latency);
+    }
+
+    private static double linearFactor(double value, double threshold, double max) {
+        if (value <= threshold) {
+            return 1;
+        }
+        return Math.max(0, 1 - (value - threshold) / (max - threshold));
+    }
+
+    public synchronized int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @param hysteresis the smallest weight change that is applied.
+     */
+    public void setHysteresis(int hysteresis) {
+        this.hysteresis = hysteresis;
+    }
+
+    /**
+     * @param maxStep the largest weight change in a single adjustment.
+     */
+    public void setMaxStep(int maxStep) {
+        this.maxStep = maxStep;
+    }
+
+    /**
+     * @param cooldown the minimal time (in milliseconds) between two weight changes.
+     */
+    public void setCooldown(long cooldown) {
+        this.cooldown = cooldown;
+    }
+
+    /**
+     * @param latencyTolerance how many times the latency may exceed the baseline before the weight is reduced.
+     */
+    public void setLatencyTolerance(double latencyTolerance) {
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    /**
+     * @param maxInFlight the number of requests in flight above which the weight is reduced.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * @param cpuThreshold the CPU load (between 0 and 1) above which the weight is reduced.
+     */
+    public void setCpuThreshold(double cpuThreshold) {
+        this.cpuThreshold = cpuThreshold;
+    }
+
+    /**
+     * @param gcThreshold the share of time in GC (between 0 and 1) above which the weight is reduced.
+     */
+    public void setGcThreshold(double gcThreshold) {
+        this.gcThreshold = gcThreshold;
+    }
+}
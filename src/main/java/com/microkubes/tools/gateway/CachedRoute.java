@@ -0,0 +1,72 @@
+package com.microkubes.tools.gateway;
+
+import java.util.Arrays;
+
+/**
+ * A group of read-only endpoints of the service whose responses are cached on the API Gateway.
+ * <p>
+ * The endpoints are routed separately from the rest of the service, and only the GET and HEAD requests to them are
+ * served from the cache.
+ */
+public class CachedRoute {
+    private final String name;
+    private final String[] paths;
+    private final int ttl;
+    private final String[] contentTypes;
+    private final String[] varyHeaders;
+    private final String[] varyQueryParams;
+
+    /**
+     * Creates new cached route.
+     *
+     * @param name            the name of the route, unique within the service.
+     * @param paths           the paths of the endpoints on the service, as regular expressions matching the whole path.
+     * @param ttl             the time (in seconds) a response is cached for.
+     * @param contentTypes    the content types of the responses that are cached.
+     * @param varyHeaders     the request headers that are part of the cache key.
+     * @param varyQueryParams the query parameters that are part of the cache key. When empty, all query parameters
+     *                        are part of the cache key.
+     */
+    public CachedRoute(String name, String[] paths, int ttl, String[] contentTypes, String[] varyHeaders,
+                       String[] varyQueryParams) {
+        this.name = name;
+        this.paths = paths;
+        this.ttl = ttl;
+        this.contentTypes = contentTypes;
+        this.varyHeaders = varyHeaders;
+        this.varyQueryParams = varyQueryParams;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String[] getPaths() {
+        return paths;
+    }
+
+    public int getTtl() {
+        return ttl;
+    }
+
+    public String[] getContentTypes() {
+        return contentTypes;
+    }
+
+    public String[] getVaryHeaders() {
+        return varyHeaders;
+    }
+
+    public String[] getVaryQueryParams() {
+        return varyQueryParams;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedRoute{" +
+                "name='" + name + '\'' +
+                ", paths=" + Arrays.toString(paths) +
+                ", ttl=" + ttl +
+                '}';
+    }
+}
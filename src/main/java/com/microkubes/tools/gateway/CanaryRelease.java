@@ -0,0 +1,160 @@
+package com.microkubes.tools.gateway;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits the traffic to a service between its versions, for canary releases.
+ * <p>
+ * Every instance registers its target on the service upstream with its version ({@link ServiceInfo#getVersion()}).
+ * The traffic split assigns a share (in percent) of the requests to some of the versions; the rest of the requests are
+ * shared by the other versions. Without a split, every instance gets the same share.
+ * <p>
+ * The split is stored on the API Gateway, so it can be changed from any instance. Each instance applies it by scaling
+ * its own weight ({@link #scaledWeight(int)}): the instances of a version share the requests of the version.
+ */
+public class CanaryRelease {
+
+    /**
+     * The highest weight of a target on the API Gateway.
+     */
+    static final int MAX_WEIGHT = 65535;
+
+    private final ServiceRegistry serviceRegistry;
+    private final ServiceInfo serviceInfo;
+
+    private volatile double scale = 1;
+
+    /**
+     * Creates new canary release.
+     *
+     * @param serviceRegistry the registry the split is stored on.
+     * @param serviceInfo     the service, with the upstream and the version set.
+     */
+    public CanaryRelease(ServiceRegistry serviceRegistry, ServiceInfo serviceInfo) {
+        this.serviceRegistry = serviceRegistry;
+        this.serviceInfo = serviceInfo;
+    }
+
+    /**
+     * @return the share of the requests (in percent) of each version in the split.
+     */
+    public Map<String, Integer> getSplit() {
+        return serviceRegistry.getTrafficSplit(serviceInfo);
+    }
+
+    /**
+     * Sends the given share of the requests to a version. The other versions in the split keep their proportions,
+     * reduced to fit the rest of the requests if needed.
+     *
+     * @param version the version.
+     * @param percent the share of the requests, from 0 to 100.
+     */
+    public void setTraffic(String version, int percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("the share of the requests must be between 0 and 100");
+        }
+        Map<String, Integer> split = new HashMap<>(getSplit());
+        split.remove(version);
+        int others = 0;
+        for (int share : split.values()) {
+            others += share;
+        }
+        if (others > 100 - percent) {
+            for (Map.Entry<String, Integer> entry : split.entrySet()) {
+                entry.setValue(entry.getValue() * (100 - percent) / others);
+            }
+        }
+        split.put(version, percent);
+        serviceRegistry.setTrafficSplit(serviceInfo, split);
+    }
+
+    /**
+     * Sends all requests to the version. The instances of the other versions get no more requests.
+     *
+     * @param version the version to promote.
+     */
+    public void promote(String version) {
+        serviceRegistry.setTrafficSplit(serviceInfo, Collections.singletonMap(version, 100));
+    }
+
+    /**
+     * Sends no more requests to the version. The other versions share all requests.
+     *
+     * @param version the version to roll back.
+     */
+    public void rollback(String version) {
+        serviceRegistry.setTrafficSplit(serviceInfo, Collections.singletonMap(version, 0));
+    }
+
+    /**
+     * Removes the split; every instance gets the same share of the requests again.
+     */
+    public void reset() {
+        serviceRegistry.setTrafficSplit(serviceInfo, Collections.emptyMap());
+    }
+
+    /**
+     * Reads the split and the instances of each version from the API Gateway, and updates the scale of the weight of
+     * this instance.
+     *
+     * @return true if the scale changed.
+     */
+    public boolean refresh() {
+        double next = scale(getSplit(), serviceRegistry.getTargetVersions(serviceInfo), serviceInfo.getVersion());
+        // changes under 1% are rounding of the weights
+        if (Math.abs(next - scale) <= scale * 0.01) {
+            return false;
+        }
+        scale = next;
+        return true;
+    }
+
+    /**
+     * The weight of this instance on the API Gateway, for the share of the requests of its version.
+     *
+     * @param weight the weight of the instance with the same share as every other instance.
+     * @return the scaled weight.
+     */
+    public int scaledWeight(int weight) {
+        if (weight == 0 || scale == 0) {
+            return 0;
+        }
+        return (int) Math.max(1, Math.min(MAX_WEIGHT, Math.round(weight * scale)));
+    }
+
+    /**
+     * The factor applied to the weight of an instance of a version, so the instances of the version get its share of
+     * the requests.
+     *
+     * @param split     the share of the requests of each version in the split.
+     * @param instances the number of instances of each version.
+     * @param version   the version of the instance.
+     * @return the factor; 1 when every instance gets the same share.
+     */
+    static double scale(Map<String, Integer> split, Map<String, Integer> instances, String version) {
+        if (split.isEmpty()) {
+            return 1;
+        }
+        Map<String, Integer> counts = new HashMap<>(instances);
+        // this instance, even if it is not on the API Gateway yet
+        counts.merge(version, 1, Math::max);
+        int total = 0;
+        int listedShare = 0;
+        int unlistedInstances = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            total += entry.getValue();
+            if (!split.containsKey(entry.getKey())) {
+                unlistedInstances += entry.getValue();
+            }
+        }
+        for (int share : split.values()) {
+            listedShare += share;
+        }
+        if (split.containsKey(version)) {
+            return split.get(version) / 100.0 * total / counts.get(version);
+        }
+        return Math.max(0, 100 - listedShare) / 100.0 * total / unlistedInstances;
+    }
+}
@@ -0,0 +1,45 @@
+package com.microkubes.tools.gateway;
+
+import java.util.Map;
+
+/**
+ * Provides {@link ConsulServiceRegistry}, which registers the service instances in the Consul catalog.
+ * <p>
+ * Settings:
+ * <ul>
+ * <li><code>consul-check-ttl</code> - the TTL (in milliseconds) of the health check. Default <code>10000</code>.</li>
+ * <li><code>consul-deregister-after</code> - the time (in milliseconds) after which an instance with a critical
+ * health check is removed. Default <code>60000</code>.</li>
+ * </ul>
+ */
+public class ConsulAdapterProvider implements GatewayAdapterProvider {
+
+    static final String CHECK_TTL = "consul-check-ttl";
+    static final String DEREGISTER_AFTER = "consul-deregister-after";
+
+    @Override
+    public String getName() {
+        return "consul";
+    }
+
+    @Override
+    public ServiceRegistry create(String gatewayUrl, Map<String, String> settings) {
+        ConsulServiceRegistry registry = new ConsulServiceRegistry(gatewayUrl);
+        registry.setCheckTtl(getMillis(settings, CHECK_TTL, 10000));
+        registry.setDeregisterAfter(getMillis(settings, DEREGISTER_AFTER, 60000));
+        return registry;
+    }
+
+    private static long getMillis(Map<String, String> settings, String name, long defaultValue) {
+        String value = settings.get(name);
+        if (value == null || "".equals(value.trim())) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ServiceRegistryException("com.microkubes.gateway." + name + " must be a number of milliseconds: "
+                    + value);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.microkubes.tools.gateway;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Registers the service instances in the Consul catalog, through the HTTP API of the local Consul agent.
+ * <p>
+ * Each instance is registered with a TTL health check, which is passed periodically (every third of the TTL) while the
+ * instance runs. If the instance stops without deregistering, its check turns critical after the TTL, and the instance
+ * is removed from the catalog after the deregistration timeout.
+ * <p>
+ * The instances of a service are watched with {@link #watch(String, Consumer)}. The routes, plugins and cached routes
+ * of the service are API Gateway features and are not registered in Consul.
+ */
+public class ConsulServiceRegistry implements ServiceRegistry, Closeable {
+
+    private final String consulUrl;
+
+    private long checkTtl = 10000;
+    private long deregisterAfter = 60000;
+
+    private final Map<String, ScheduledFuture<?>> heartbeats = new ConcurrentHashMap<>();
+    private final Map<String, Integer> weights = new ConcurrentHashMap<>();
+    private final Set<String> maintenance = ConcurrentHashMap.newKeySet();
+    private final List<ConsulWatch> watches = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    private static Logger logger = LoggerFactory.getLogger(ConsulServiceRegistry.class);
+
+    /**
+     * Builds new {@link ConsulServiceRegistry} with the given URL of the Consul agent.
+     *
+     * @param consulUrl the URL of the HTTP API of the Consul agent, for example <code>http://consul:8500</code>.
+     */
+    public ConsulServiceRegistry(String consulUrl) {
+        this.consulUrl = consulUrl;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "consul-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the TTL (in milliseconds) of the health check of the instances.
+     *
+     * @param checkTtl the TTL of the health check.
+     */
+    public void setCheckTtl(long checkTtl) {
+        this.checkTtl = checkTtl;
+    }
+
+    public long getCheckTtl() {
+        return checkTtl;
+    }
+
+    /**
+     * Sets the time (in milliseconds) after which an instance with a critical health check is removed from the
+     * catalog.
+     *
+     * @param deregisterAfter the deregistration timeout.
+     */
+    public void setDeregisterAfter(long deregisterAfter) {
+        this.deregisterAfter = deregisterAfter;
+    }
+
+    public long getDeregisterAfter() {
+        return deregisterAfter;
+    }
+
+    /**
+     * Registers the instance with its TTL health check, passes the check and keeps passing it.
+     *
+     * @param service the {@link ServiceInfo} to register.
+     */
+    @Override
+    public void register(ServiceInfo service) {
+        String serviceId = getServiceId(service);
+        put("/v1/agent/service/register", getRegistrationBody(service, serviceId));
+        logger.info("Registered instance {} of service {} in Consul.", serviceId, service.getName());
+        passCheck(serviceId);
+        heartbeats.computeIfAbsent(serviceId, id -> scheduler.scheduleAtFixedRate(() -> heartbeat(service),
+                checkTtl / 3, checkTtl / 3, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Sets the weight of the instance in the catalog. With weight 0 the instance is put in maintenance mode, so it is
+     * no longer listed as healthy.
+     *
+     * @param service the service, with the instance host and port.
+     * @param weight  the weight of the instance.
+     */
+    @Override
+    public void setTargetWeight(ServiceInfo service, int weight) {
+        String serviceId = getServiceId(service);
+        if (weight == 0) {
+            if (heartbeats.containsKey(serviceId) && maintenance.add(serviceId)) {
+                put("/v1/agent/service/maintenance/" + serviceId + "?enable=true&reason=draining", null);
+            }
+            return;
+        }
+        weights.put(serviceId, weight);
+        if (!heartbeats.containsKey(serviceId)) {
+            // applied on registration
+            return;
+        }
+        put("/v1/agent/service/register", getRegistrationBody(service, serviceId));
+        if (maintenance.remove(serviceId)) {
+            put("/v1/agent/service/maintenance/" + serviceId + "?enable=false", null);
+        }
+    }
+
+    /**
+     * Deregisters the instance from the catalog and stops passing its health check.
+     *
+     * @param service the service, with the instance host and port.
+     */
+    @Override
+    public void removeTarget(ServiceInfo service) {
+        deregister(getServiceId(service));
+    }
+
+    /**
+     * Watches the healthy instances of a service with blocking queries. The watch is stopped with the registry.
+     *
+     * @param serviceName the name of the service.
+     * @param listener    called with the healthy instances of the service whenever they change.
+     * @return the started watch.
+     */
+    @Override
+    public ConsulWatch watch(String serviceName, Consumer<List<ServiceEndpoint>> listener) {
+        ConsulWatch watch = new ConsulWatch(consulUrl, serviceName, listener);
+        watches.add(watch);
+        watch.start();
+        return watch;
+    }
+
+    /**
+     * Stops the watches, and deregisters the registered instances.
+     */
+    @Override
+    public void close() {
+        for (ConsulWatch watch : watches) {
+            watch.close();
+        }
+        watches.clear();
+        for (String serviceId : heartbeats.keySet()) {
+            try {
+                deregister(serviceId);
+            } catch (ServiceRegistryException e) {
+                logger.warn("Failed to deregister instance {}: {}", serviceId, e.getMessage());
+            }
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * The ID of the instance in the catalog, unique for the service host and port.
+     *
+     * @param service the service.
+     * @return the instance ID.
+     */
+    static String getServiceId(ServiceInfo service) {
+        return service.getName() + "-" + service.getHost() + "-" + service.getPort();
+    }
+
+    private JSONObject getRegistrationBody(ServiceInfo service, String serviceId) {
+        JSONObject body = new JSONObject();
+        body.put("ID", serviceId);
+        body.put("Name", service.getName());
+        body.put("Address", service.getHost());
+        body.put("Port", service.getPort());
+
+        JSONObject meta = new JSONObject();
+        meta.put("protocol", service.getProtocol());
+        meta.put("paths", String.join(",", service.getPaths()));
+        JSONArray tags = new JSONArray();
+        if (service.getVersion() != null) {
+            meta.put("version", service.getVersion());
+            tags.put("version:" + service.getVersion());
+        }
+        body.put("Tags", tags);
+        body.put("Meta", meta);
+
+        Integer weight = weights.get(serviceId);
+        if (weight != null) {
+            JSONObject serviceWeights = new JSONObject();
+            serviceWeights.put("Passing", weight);
+            serviceWeights.put("Warning", 1);
+            body.put("Weights", serviceWeights);
+        }
+
+        JSONObject check = new JSONObject();
+        check.put("CheckID", getCheckId(serviceId));
+        check.put("Name", "Service '" + service.getName() + "' TTL check");
+        check.put("TTL", checkTtl + "ms");
+        check.put("DeregisterCriticalServiceAfter", deregisterAfter + "ms");
+        body.put("Check", check);
+        return body;
+    }
+
+    private void heartbeat(ServiceInfo service) {
+        String serviceId = getServiceId(service);
+        try {
+            if (!passCheck(serviceId)) {
+                // the agent lost the registration, for example on restart
+                logger.info("Instance {} is not registered on the Consul agent, registering again.", serviceId);
+                put("/v1/agent/service/register", getRegistrationBody(service, serviceId));
+                passCheck(serviceId);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to pass the health check of instance {}: {}", serviceId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return false if the agent does not know the check.
+     */
+    private boolean passCheck(String serviceId) {
+        try {
+            HttpResponse<String> response = Unirest.put(getConsulUrl("/v1/agent/check/pass/" + getCheckId(serviceId)))
+                    .asString();
+            if (response.getStatus() == 404) {
+                return false;
+            }
+            if (response.getStatus() != 200) {
+                throw new ServiceRegistryException(response.getStatus() + ": " + response.getBody());
+            }
+            return true;
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException(e);
+        }
+    }
+
+    private void deregister(String serviceId) {
+        ScheduledFuture<?> heartbeat = heartbeats.remove(serviceId);
+        if (heartbeat == null) {
+            return;
+        }
+        heartbeat.cancel(false);
+        maintenance.remove(serviceId);
+        put("/v1/agent/service/deregister/" + serviceId, null);
+        logger.info("Deregistered instance {} from Consul.", serviceId);
+    }
+
+    private void put(String path, JSONObject body) {
+        try {
+            HttpResponse<String> response = body == null ?
+                    Unirest.put(getConsulUrl(path)).asString() :
+                    Unirest.put(getConsulUrl(path))
+                            .header("Content-Type", "application/json")
+                            .body(body)
+                            .asString();
+            if (response.getStatus() != 200) {
+                throw new ServiceRegistryException(response.getStatus() + ": " + response.getBody());
+            }
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException(e);
+        }
+    }
+
+    private static String getCheckId(String serviceId) {
+        return "service:" + serviceId;
+    }
+
+    /**
+     * Gets an URL to a path on the HTTP API of the Consul agent.
+     *
+     * @param path the path on the API.
+     * @return the constructed URL.
+     */
+    protected String getConsulUrl(String path) {
+        return consulUrl + path;
+    }
+
+    public String getConsulUrl() {
+        return consulUrl;
+    }
+}
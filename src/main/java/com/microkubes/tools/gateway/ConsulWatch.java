@@ -0,0 +1,186 @@
+package com.microkubes.tools.gateway;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.JsonNode;
+import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Watches the healthy instances of a service in the Consul catalog with blocking queries.
+ * <p>
+ * Each query waits on the Consul agent until the instances change (or the wait time passes), so a change is delivered
+ * as soon as Consul knows about it, without polling and without the DNS TTLs. The listener is called with the first
+ * list of instances, and then with every changed list, on the thread of the watch.
+ */
+public class ConsulWatch implements Closeable {
+
+    private final String consulUrl;
+    private final String serviceName;
+    private final Consumer<List<ServiceEndpoint>> listener;
+    private final Thread thread;
+
+    private long waitTime = 30000;
+    private long retryDelay = 1000;
+    private volatile boolean running = true;
+
+    private static Logger logger = LoggerFactory.getLogger(ConsulWatch.class);
+
+    /**
+     * Creates new watch. The watch starts with {@link #start()}.
+     *
+     * @param consulUrl   the URL of the HTTP API of the Consul agent.
+     * @param serviceName the name of the watched service.
+     * @param listener    called with the healthy instances of the service whenever they change.
+     */
+    public ConsulWatch(String consulUrl, String serviceName, Consumer<List<ServiceEndpoint>> listener) {
+        this.consulUrl = consulUrl;
+        this.serviceName = serviceName;
+        this.listener = listener;
+        this.thread = new Thread(this::run, "consul-watch-" + serviceName);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Sets the longest time (in milliseconds) a query waits for a change. Must stay below the socket timeout of the
+     * HTTP client (60 seconds by default).
+     *
+     * @param waitTime the wait time.
+     */
+    public void setWaitTime(long waitTime) {
+        this.waitTime = waitTime;
+    }
+
+    /**
+     * Sets the time (in milliseconds) to wait before querying again after a failed query.
+     *
+     * @param retryDelay the retry delay.
+     */
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops the watch. A query in progress is not interrupted, but its result is discarded.
+     */
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void run() {
+        long index = 0;
+        while (running) {
+            try {
+                HttpResponse<JsonNode> response = Unirest.get(consulUrl + "/v1/health/service/{name}")
+                        .routeParam("name", serviceName)
+                        .queryString("passing", "true")
+                        .queryString("index", index)
+                        .queryString("wait", waitTime + "ms")
+                        .asJson();
+                if (response.getStatus() != 200) {
+                    throw new ServiceRegistryException(response.getStatus() + ": " + response.getBody());
+                }
+                long next = getIndex(response);
+                // the index may go backwards, for example when the agent restarts
+                if (next < index) {
+                    next = 0;
+                }
+                if (!running) {
+                    return;
+                }
+                if (next != index) {
+                    listener.accept(toEndpoints(response.getBody().getArray()));
+                }
+                index = next;
+            } catch (UnirestException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Failed to watch service {}: {}", serviceName, e.getMessage());
+                index = 0;
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the index of the result. Without a valid index the next query would not block, so the watch would query
+     * the agent in a loop; a missing index is a failed query instead.
+     *
+     * @param response the response of the health endpoint.
+     * @return the index, greater than 0.
+     * @throws ServiceRegistryException if the index is missing or not valid.
+     */
+    private static long getIndex(HttpResponse<?> response) {
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if ("X-Consul-Index".equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                String value = header.getValue().get(0);
+                try {
+                    long index = Long.parseLong(value);
+                    if (index > 0) {
+                        return index;
+                    }
+                } catch (NumberFormatException e) {
+                    // reported below
+                }
+                throw new ServiceRegistryException("invalid X-Consul-Index: " + value);
+            }
+        }
+        throw new ServiceRegistryException("missing X-Consul-Index");
+    }
+
+    /**
+     * Reads the instances from the response of the health endpoint.
+     *
+     * @param entries the entries of the health endpoint, each with the node and the service of an instance.
+     * @return the instances.
+     */
+    static List<ServiceEndpoint> toEndpoints(JSONArray entries) {
+        List<ServiceEndpoint> endpoints = new ArrayList<>();
+        for (Object item : entries) {
+            JSONObject entry = (JSONObject) item;
+            JSONObject service = entry.getJSONObject("Service");
+            String address = service.optString("Address");
+            if ("".equals(address)) {
+                // the instance was registered without an address; it is reached on the address of its node
+                address = entry.getJSONObject("Node").optString("Address");
+            }
+            JSONArray tags = service.optJSONArray("Tags");
+            String[] tagsArray = new String[tags != null ? tags.length() : 0];
+            for (int i = 0; i < tagsArray.length; i++) {
+                tagsArray[i] = tags.getString(i);
+            }
+            Map<String, String> meta = new HashMap<>();
+            JSONObject metaObject = service.optJSONObject("Meta");
+            if (metaObject != null) {
+                for (String key : metaObject.keySet()) {
+                    meta.put(key, metaObject.optString(key));
+                }
+            }
+            endpoints.add(new ServiceEndpoint(service.getString("ID"), address, service.getInt("Port"), tagsArray,
+                    Collections.unmodifiableMap(meta)));
+        }
+        return endpoints;
+    }
+}
@@ -0,0 +1,57 @@
+package com.microkubes.tools.gateway;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Provides a {@link ServiceRegistry} adapter for an API Gateway.
+ * <p>
+ * The providers are loaded with {@link ServiceLoader}: an adapter is added by listing its provider in
+ * <code>META-INF/services/com.microkubes.tools.gateway.GatewayAdapterProvider</code>, and selected by its name
+ * (<code>com.microkubes.gateway.adapter</code>).
+ */
+public interface GatewayAdapterProvider {
+
+    /**
+     * @return the name of the adapter, for example <code>kong-v2</code>.
+     */
+    String getName();
+
+    /**
+     * Creates the adapter.
+     *
+     * @param gatewayUrl the URL of the admin API of the gateway.
+     * @param settings   the adapter settings: the <code>com.microkubes.gateway</code> properties, without the prefix
+     *                   (for example <code>consul-check-ttl</code>). The adapter applies its own defaults for the
+     *                   missing ones.
+     * @return the service registry.
+     */
+    ServiceRegistry create(String gatewayUrl, Map<String, String> settings);
+
+    /**
+     * Creates the adapter with the default settings.
+     *
+     * @param gatewayUrl the URL of the admin API of the gateway.
+     * @return the service registry.
+     */
+    default ServiceRegistry create(String gatewayUrl) {
+        return create(gatewayUrl, Collections.emptyMap());
+    }
+
+    /**
+     * Finds the provider of the adapter with the given name.
+     *
+     * @param name the name of the adapter.
+     * @return the provider.
+     * @throws ServiceRegistryException if there is no such adapter.
+     */
+    static GatewayAdapterProvider forName(String name) {
+        for (GatewayAdapterProvider provider : ServiceLoader.load(GatewayAdapterProvider.class)) {
+            if (provider.getName().equals(name)) {
+                return provider;
+            }
+        }
+        throw new ServiceRegistryException("Gateway adapter [" + name + "] is not supported");
+    }
+}
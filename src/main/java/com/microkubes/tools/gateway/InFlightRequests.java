@@ -0,0 +1,141 @@
+package com.microkubes.tools.gateway;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests currently being handled by the service, so that the service can wait for them to complete
+ * before it leaves the API Gateway. The number of completed and failed requests and their total time are also
+ * recorded, for sampling the request latency, and optionally the response times in a {@link LatencyHistogram}.
+ */
+public class InFlightRequests {
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyHistogram histogram;
+    private volatile long lastActivity = System.nanoTime();
+
+    /**
+     * Creates new request counter.
+     */
+    public InFlightRequests() {
+        this(null);
+    }
+
+    /**
+     * Creates new request counter that records the response times into the given histogram.
+     *
+     * @param histogram the histogram of the response times (possibly null).
+     */
+    public InFlightRequests(LatencyHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    /**
+     * Marks the start of a request.
+     *
+     * @return the start time of the request, to be passed to {@link #end(long)}.
+     */
+    public long begin() {
+        count.incrementAndGet();
+        long now = System.nanoTime();
+        lastActivity = now;
+        return now;
+    }
+
+    /**
+     * Marks the end of a request started with {@link #begin()}.
+     *
+     * @param start the start time of the request, as returned by {@link #begin()}.
+     */
+    public void end(long start) {
+        end(start, false);
+    }
+
+    /**
+     * Marks the end of a request started with {@link #begin()}.
+     *
+     * @param start  the start time of the request, as returned by {@link #begin()}.
+     * @param failed whether the request failed (with a server error).
+     */
+    public void end(long start, boolean failed) {
+        count.decrementAndGet();
+        long now = System.nanoTime();
+        lastActivity = now;
+        completed.increment();
+        totalTime.add(now - start);
+        if (failed) {
+            this.failed.increment();
+        }
+        if (histogram != null) {
+            histogram.record(now - start);
+        }
+    }
+
+    /**
+     * @return the number of requests currently being handled.
+     */
+    public int get() {
+        return count.get();
+    }
+
+    /**
+     * @return the number of completed requests.
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * @return the number of failed requests.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return the histogram of the response times, or null if the response times are not recorded.
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * @return the total time of the completed requests, in nanoseconds.
+     */
+    public long getTotalTime() {
+        return totalTime.sum();
+    }
+
+    /**
+     * Waits until there are no requests in flight and no request started or ended for the quiet period. The quiet
+     * period covers the time the gateway needs to stop sending requests after the instance weight was changed.
+     *
+     * @param quietPeriod the time (in milliseconds) without any request activity.
+     * @param timeout     the maximal time (in milliseconds) to wait.
+     * @return true if the service became idle, false if the timeout passed first.
+     * @throws InterruptedException if the waiting thread was interrupted.
+     */
+    public boolean awaitIdle(long quietPeriod, long timeout) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+        long quiet = TimeUnit.MILLISECONDS.toNanos(quietPeriod);
+        while (true) {
+            long now = System.nanoTime();
+            long last = lastActivity;
+            long idleSince = last - start > 0 ? last : start;
+            if (count.get() <= 0 && now - idleSince >= quiet) {
+                return true;
+            }
+            if (now - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+}
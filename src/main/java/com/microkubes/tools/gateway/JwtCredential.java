@@ -0,0 +1,74 @@
+package com.microkubes.tools.gateway;
+
+/**
+ * JwtCredential holds the data needed by the API Gateway to validate the JWTs issued on the platform.
+ * <p>
+ * The credential belongs to a gateway consumer and is looked up by the value of the key claim in the token
+ * (usually the <code>iss</code> claim).
+ */
+public class JwtCredential {
+    private String consumer;
+    private String key;
+    private String algorithm;
+    private String publicKey;
+
+    /**
+     * Creates new JWT credential.
+     *
+     * @param consumer  the name of the gateway consumer that owns the credential.
+     * @param key       the value of the key claim that identifies this credential.
+     * @param algorithm the signing algorithm of the tokens (for example <code>RS256</code>).
+     * @param publicKey the PEM encoded public key used to verify the token signatures.
+     */
+    public JwtCredential(String consumer, String key, String algorithm, String publicKey) {
+        this.consumer = consumer;
+        this.key = key;
+        this.algorithm = algorithm;
+        this.publicKey = publicKey;
+    }
+
+    public String getConsumer() {
+        return consumer;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getPublicKey() {
+        return publicKey;
+    }
+
+    /**
+     * Performs validation on the credential data.
+     *
+     * @throws ValidationException if any of the values is missing.
+     */
+    public void validate() throws ValidationException {
+        if (consumer == null || "".equals(consumer)) {
+            throw new ValidationException("consumer cannot be empty or null");
+        }
+        if (key == null || "".equals(key)) {
+            throw new ValidationException("key cannot be empty or null");
+        }
+        if (algorithm == null || "".equals(algorithm)) {
+            throw new ValidationException("algorithm cannot be empty or null");
+        }
+        if (publicKey == null || "".equals(publicKey)) {
+            throw new ValidationException("public key cannot be empty or null");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JwtCredential{" +
+                "consumer='" + consumer + '\'' +
+                ", key='" + key + '\'' +
+                ", algorithm='" + algorithm + '\'' +
+                '}';
+    }
+}
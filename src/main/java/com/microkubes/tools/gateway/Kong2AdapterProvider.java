@@ -0,0 +1,19 @@
+package com.microkubes.tools.gateway;
+
+import java.util.Map;
+
+/**
+ * Provides {@link Kong2ServiceRegistry}, the adapter for Kong 1.x and 2.x.
+ */
+public class Kong2AdapterProvider implements GatewayAdapterProvider {
+
+    @Override
+    public String getName() {
+        return "kong-v2";
+    }
+
+    @Override
+    public ServiceRegistry create(String gatewayUrl, Map<String, String> settings) {
+        return new Kong2ServiceRegistry(gatewayUrl);
+    }
+}
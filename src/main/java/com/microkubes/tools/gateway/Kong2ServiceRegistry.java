@@ -3,12 +3,18 @@ package com.microkubes.tools.gateway;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
 import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.exceptions.UnirestException;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class Kong2ServiceRegistry implements ServiceRegistry {
 
@@ -42,9 +48,14 @@ public class Kong2ServiceRegistry implements ServiceRegistry {
     public void register(ServiceInfo service) {
         try {
             service.validate();
-            addOrUpdateService(service);
+            boolean existing = addOrUpdateService(service);
             logger.info("Service '{}' registered on Kong v2 API Gateway.", service.getName());
             logger.debug("Service registration info: {}", service.toString());
+            registerPlugins(service);
+            if (existing || service.getCachedRoutes().length > 0) {
+                // a new service has no cached routes to remove
+                registerCachedRoutes(service);
+            }
         } catch (Exception e) {
             throw new ServiceRegistryException(e);
         }
@@ -54,14 +65,16 @@ public class Kong2ServiceRegistry implements ServiceRegistry {
      * The logic for adding or updating an exiting service on Kong API Gateway.
      *
      * @param service the definition of the service contained in {@link ServiceInfo}
+     * @return true if the service already existed.
      */
-    private void addOrUpdateService(ServiceInfo service) {
+    private boolean addOrUpdateService(ServiceInfo service) {
         logger.info("Service '{}' checking....", service.getName());
         if (serviceAlreadyExists(service)) {
             updateService(service);
-        } else {
-            addService(service);
+            return true;
         }
+        addService(service);
+        return false;
     }
 
 
@@ -104,6 +117,10 @@ public class Kong2ServiceRegistry implements ServiceRegistry {
                 String responseBody = response.getBody().toString();
                 throw new ServiceRegistryException(String.format("service response: %s", responseBody));
             }
+            if (service.getRoutes().length > 0) {
+                registerRoutes(service, new JSONArray());
+                return;
+            }
             String name = service.getName();
             String path = String.format("/services/%s/routes", name);
             url = getKongUrl(path);
@@ -117,16 +134,16 @@ public class Kong2ServiceRegistry implements ServiceRegistry {
         } catch (Exception e) {
             throw new ServiceRegistryException("Failed on adding new service", e);
         }
-        logger.info("Service '{}' plugins: {}", service.getName(), service.getPlugins());
-        // TODO: add plugins
     }
 
     /**
-     * Updating already existing service entry in Kong Api Gateway and updating / adding / deleting a routes and plugins
+     * Updating already existing service entry in Kong Api Gateway and updating or adding its routes. The plugins are
+     * left as they are.
      *
      * @param service the definition of the service contained in {@link ServiceInfo}
      */
-    private void updateService(ServiceInfo service) {
+    @Override
+    public void updateService(ServiceInfo service) {
         String name = service.getName();
         String path = String.format("/services/%s", name);
         String url = getKongUrl(path);
@@ -142,11 +159,15 @@ public class Kong2ServiceRegistry implements ServiceRegistry {
             url = getKongUrl(path);
             response = Unirest.get(url)
                     .header("Content-Type", "application/json").asJson();
-            JSONArray routeList = response.getBody().getObject().getJSONArray("data");
+            JSONArray routes = response.getBody().getObject().getJSONArray("data");
+            if (service.getRoutes().length > 0) {
+                registerRoutes(service, routes);
+                return;
+            }
+            JSONObject route = findServiceRoute(service, routes);
             body = getRouteBody(service);
-            if (routeList.length() > 0) {
-                JSONObject routeBody = routeList.getJSONObject(0);
-                String id = routeBody.getString("id");
+            if (route != null) {
+                String id = route.getString("id");
                 path = String.format("/services/%s/routes/%s", name, id);
                 url = getKongUrl(path);
                 response = Unirest.patch(url)
@@ -165,14 +186,454 @@ public class Kong2ServiceRegistry implements ServiceRegistry {
                     throw new ServiceRegistryException(String.format("route post response: %s", responseBody));
                 }
             }
+            // the routes of the endpoints, from before the service was routed as a whole
+            for (int i = 0; i < routes.length(); i++) {
+                if (routes.getJSONObject(i).optString("name").startsWith(routePrefix(service))) {
+                    deleteRoute(routes.getJSONObject(i).getString("id"));
+                }
+            }
         } catch (Exception e) {
             throw new ServiceRegistryException("Failed on updating a service", e);
         }
-        logger.info("Service '{}' plugins: {}", service.getName(), service.getPlugins());
-        // TODO: remove all plugins and the plugins as a new resources
     }
 
-    private String getServiceBody(ServiceInfo service) throws ValidationException {
+    /**
+     * Patches only the <code>read_timeout</code> and <code>retries</code> of the Kong service. The routes are not
+     * touched.
+     *
+     * @param service the service, with the settings already updated.
+     */
+    @Override
+    public void updateUpstreamSettings(ServiceInfo service) {
+        JSONObject obj = new JSONObject();
+        obj.put("read_timeout", service.getProperties().get("upstream_read_timeout"));
+        obj.put("retries", service.getProperties().get("retries"));
+        try {
+            HttpResponse<JsonNode> response = Unirest.patch(getKongUrl("/services/" + service.getName()))
+                    .header("Content-Type", "application/json").body(obj.toString()).asJson();
+            if (response.getStatus() != 200) {
+                throw new ServiceRegistryException(String.format("service response: %s", response.getBody()));
+            }
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException("Failed on updating the upstream settings of a service", e);
+        }
+    }
+
+    /**
+     * The route of the whole service, as opposed to the routes of the endpoints and of the cached endpoints.
+     */
+    private JSONObject findServiceRoute(ServiceInfo service, JSONArray routes) {
+        for (int i = 0; i < routes.length(); i++) {
+            JSONObject route = routes.getJSONObject(i);
+            String routeName = route.optString("name");
+            if (!routeName.startsWith(cachedRoutePrefix(service)) && !routeName.startsWith(routePrefix(service))) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static String routePrefix(ServiceInfo service) {
+        return service.getName() + "-routes-";
+    }
+
+    private static String cachedRoutePrefix(ServiceInfo service) {
+        return service.getName() + "-cache-";
+    }
+
+    /**
+     * Adds or updates the routes of the endpoints of the service, then removes the other routes (including the route
+     * of the whole service), except for the cached routes.
+     *
+     * @param service        the service.
+     * @param existingRoutes the routes of the service on Kong.
+     * @throws UnirestException if the request to Kong fails.
+     */
+    private void registerRoutes(ServiceInfo service, JSONArray existingRoutes) throws UnirestException {
+        Set<String> current = new HashSet<>();
+        for (ServiceRoute route : service.getRoutes()) {
+            String routeName = routePrefix(service) + route.getName();
+            current.add(routeName);
+            HttpResponse<JsonNode> response = Unirest
+                    .put(getKongUrl(String.format("/services/%s/routes/%s", service.getName(), routeName)))
+                    .header("Content-Type", "application/json")
+                    .body(getRouteBody(service, routeName, route.getPaths(), route.getMethods()))
+                    .asJson();
+            if (response.getStatus() != 200 && response.getStatus() != 201) {
+                throw new ServiceRegistryException(String.format("route response: %s", response.getBody()));
+            }
+        }
+        // removed only once the new routes are in place
+        for (int i = 0; i < existingRoutes.length(); i++) {
+            JSONObject route = existingRoutes.getJSONObject(i);
+            String routeName = route.optString("name");
+            if (!current.contains(routeName) && !routeName.startsWith(cachedRoutePrefix(service))) {
+                deleteRoute(route.getString("id"));
+            }
+        }
+        logger.info("Service {}: registered {} routes", service.getName(), current.size());
+    }
+
+    private void deleteRoute(String routeId) throws UnirestException {
+        // the plugins of the route are removed with it
+        HttpResponse<String> response = Unirest.delete(getKongUrl("/routes/" + routeId)).asString();
+        if (response.getStatus() != 204 && response.getStatus() != 404) {
+            throw new ServiceRegistryException(String.format("route delete response: %s", response.getBody()));
+        }
+    }
+
+    /**
+     * Adds or updates a route with the <code>proxy-cache</code> plugin for each of the cached endpoints of the service,
+     * and removes the routes of the endpoints that are no longer cached.
+     * <p>
+     * The cached routes match only GET and HEAD requests, so Kong prefers them over the route of the whole service. They
+     * also take precedence over the routes of the endpoints.
+     *
+     * @param service the service.
+     * @throws UnirestException if the request to Kong fails.
+     */
+    protected void registerCachedRoutes(ServiceInfo service) throws UnirestException {
+        String prefix = cachedRoutePrefix(service);
+        HttpResponse<JsonNode> response = Unirest
+                .get(getKongUrl(String.format("/services/%s/routes", service.getName())))
+                .asJson();
+        if (response.getStatus() != 200) {
+            throw new ServiceRegistryException(String.format("routes response: %s", response.getBody()));
+        }
+        Map<String, String> stale = new HashMap<>();
+        for (Object route : response.getBody().getObject().getJSONArray("data")) {
+            if (route instanceof JSONObject && ((JSONObject) route).optString("name").startsWith(prefix)) {
+                stale.put(((JSONObject) route).getString("name"), ((JSONObject) route).getString("id"));
+            }
+        }
+
+        for (CachedRoute cachedRoute : service.getCachedRoutes()) {
+            String routeName = prefix + cachedRoute.getName();
+            stale.remove(routeName);
+            response = Unirest
+                    .put(getKongUrl(String.format("/services/%s/routes/%s", service.getName(), routeName)))
+                    .header("Content-Type", "application/json")
+                    .body(getCachedRouteBody(service, routeName, cachedRoute))
+                    .asJson();
+            if (response.getStatus() != 200 && response.getStatus() != 201) {
+                throw new ServiceRegistryException(String.format("cached route response: %s", response.getBody()));
+            }
+            setProxyCache(routeName, cachedRoute);
+            logger.info("Service {}: caching responses of {}", service.getName(), cachedRoute);
+        }
+
+        for (Map.Entry<String, String> route : stale.entrySet()) {
+            deleteRoute(route.getValue());
+            logger.info("Service {}: removed cached route {}", service.getName(), route.getKey());
+        }
+    }
+
+    private void setProxyCache(String routeName, CachedRoute cachedRoute) throws UnirestException {
+        HttpResponse<JsonNode> response = Unirest
+                .get(getKongUrl(String.format("/routes/%s/plugins", routeName)))
+                .asJson();
+        if (response.getStatus() != 200) {
+            throw new ServiceRegistryException(String.format("plugins response: %s", response.getBody()));
+        }
+        String pluginId = null;
+        for (Object plugin : response.getBody().getObject().getJSONArray("data")) {
+            if (plugin instanceof JSONObject && "proxy-cache".equals(((JSONObject) plugin).getString("name"))) {
+                pluginId = ((JSONObject) plugin).getString("id");
+            }
+        }
+        String body = getProxyCacheBody(cachedRoute);
+        if (pluginId == null) {
+            response = Unirest.post(getKongUrl(String.format("/routes/%s/plugins", routeName)))
+                    .header("Content-Type", "application/json").body(body).asJson();
+        } else {
+            response = Unirest.put(getKongUrl(String.format("/routes/%s/plugins/%s", routeName, pluginId)))
+                    .header("Content-Type", "application/json").body(body).asJson();
+        }
+        if (response.getStatus() != 200 && response.getStatus() != 201) {
+            throw new ServiceRegistryException(String.format("proxy-cache response: %s", response.getBody()));
+        }
+    }
+
+    String getCachedRouteBody(ServiceInfo service, String routeName, CachedRoute cachedRoute) {
+        JSONObject obj = new JSONObject(getRouteBody(service, routeName, cachedRoute.getPaths(),
+                new String[]{"GET", "HEAD"}));
+        obj.put("regex_priority", 1);
+        return obj.toString();
+    }
+
+    /**
+     * The body of a route to some of the endpoints of the service.
+     *
+     * @param service   the service.
+     * @param routeName the name of the route.
+     * @param paths     the paths of the endpoints on the service, as regular expressions.
+     * @param methods   the accepted HTTP methods, or an empty array for any method.
+     * @return the route body.
+     */
+    String getRouteBody(ServiceInfo service, String routeName, String[] paths, String[] methods) {
+        JSONObject obj = new JSONObject(getRouteBody(service));
+        ArrayList<String> routePaths = new ArrayList<>();
+        if (obj.optBoolean("strip_path")) {
+            for (String servicePath : service.getPaths()) {
+                for (String path : paths) {
+                    routePaths.add(toStrippedPath(servicePath, path));
+                }
+            }
+        } else {
+            // the endpoint paths include the service path already
+            for (String path : paths) {
+                routePaths.add(path + "$");
+            }
+        }
+        obj.put("name", routeName);
+        obj.put("paths", routePaths);
+        if (methods.length > 0) {
+            obj.put("methods", methods);
+        }
+        return obj.toString();
+    }
+
+    /**
+     * Only the service path is matched (and stripped), the lookahead matches the path of the endpoint on the service.
+     * For example, <code>/todo(?=/todos/[^/]+$)</code> for the endpoint <code>/todos/[^/]+</code> of the service
+     * on <code>/todo</code>.
+     */
+    private static String toStrippedPath(String servicePath, String path) {
+        if (servicePath.endsWith("/")) {
+            servicePath = servicePath.substring(0, servicePath.length() - 1);
+        }
+        if (servicePath.isEmpty()) {
+            return "/(?=" + path.substring(1) + "$)";
+        }
+        return servicePath + "(?=" + path + "$)";
+    }
+
+    String getProxyCacheBody(CachedRoute cachedRoute) {
+        JSONObject config = new JSONObject();
+        config.put("strategy", "memory");
+        config.put("cache_ttl", cachedRoute.getTtl());
+        config.put("content_type", cachedRoute.getContentTypes());
+        config.put("request_method", new String[]{"GET", "HEAD"});
+        // the cache key has no caller identity of its own, so a response is never served to another caller
+        List<String> varyHeaders = new ArrayList<>();
+        varyHeaders.add("Authorization");
+        for (String header : cachedRoute.getVaryHeaders()) {
+            if (!"Authorization".equalsIgnoreCase(header)) {
+                varyHeaders.add(header);
+            }
+        }
+        config.put("vary_headers", varyHeaders);
+        if (cachedRoute.getVaryQueryParams().length > 0) {
+            config.put("vary_query_params", cachedRoute.getVaryQueryParams());
+        }
+        JSONObject obj = new JSONObject();
+        obj.put("name", "proxy-cache");
+        obj.put("config", config);
+        return obj.toString();
+    }
+
+    /**
+     * Registers the plugins defined for this service. Installed plugins are replaced in place and missing plugins are
+     * installed, so a plugin (like <code>jwt</code>) is never missing on the gateway while the service is registered
+     * again. Only the plugins no longer defined for the service are deleted.
+     *
+     * @param service {@link ServiceInfo} representing the service.
+     */
+    protected void registerPlugins(ServiceInfo service) {
+        logger.debug("Registering plugins for service...");
+        String serviceName = service.getName();
+        try {
+            Map<String, String> installed = getInstalledPlugins(serviceName);
+            if (service.getPlugins() != null) {
+                for (ServicePlugin plugin : service.getPlugins()) {
+                    String pluginId = installed.remove(plugin.getName());
+                    if (pluginId == null) {
+                        registerPlugin(serviceName, plugin);
+                    } else {
+                        replacePlugin(serviceName, pluginId, plugin);
+                    }
+                }
+            }
+            for (String pluginId : installed.values()) {
+                deletePlugin(pluginId);
+            }
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException("Failed on registering plugins", e);
+        }
+    }
+
+    /**
+     * Adds (registers/installs) the plugin for the given service.
+     *
+     * @param serviceName the name of the service.
+     * @param plugin      the plugin to install
+     * @return JsonNode of the Kong response for the new plugin.
+     */
+    protected JsonNode registerPlugin(String serviceName, ServicePlugin plugin) {
+        try {
+            HttpResponse<JsonNode> response = Unirest
+                    .post(getKongUrl(String.format("/services/%s/plugins", serviceName)))
+                    .header("Content-Type", "application/json")
+                    .body(toJson(plugin))
+                    .asJson();
+            if (response.getStatus() != 200 && response.getStatus() != 201) {
+                logger.debug("Failed to install plugin. Response code was: {} {}", response.getStatus(), response.getStatusText());
+                throw new ServiceRegistryException(String.format("plugin response: %s", response.getBody()));
+            }
+            logger.info("Service {}: Installed plugin: {}", serviceName, plugin);
+            return response.getBody();
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException("Failed on adding a plugin", e);
+        }
+    }
+
+    /**
+     * Pushes only the changed plugins: changed plugins that are already installed are replaced in place (so the
+     * plugin is never missing on the gateway), new plugins are installed and removed plugins are deleted.
+     *
+     * @param service the service, with the plugins already updated.
+     * @param delta   the changed and removed plugins.
+     */
+    @Override
+    public void updatePlugins(ServiceInfo service, PluginsDelta delta) {
+        String serviceName = service.getName();
+        try {
+            Map<String, String> installed = getInstalledPlugins(serviceName);
+            for (String name : delta.getRemoved()) {
+                if (installed.containsKey(name)) {
+                    deletePlugin(installed.get(name));
+                }
+            }
+            for (ServicePlugin plugin : delta.getChanged()) {
+                String pluginId = installed.get(plugin.getName());
+                if (pluginId == null) {
+                    registerPlugin(serviceName, plugin);
+                } else {
+                    replacePlugin(serviceName, pluginId, plugin);
+                }
+            }
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException("Failed on updating plugins", e);
+        }
+        logger.info("Service {}: updated plugins {}", serviceName, delta);
+    }
+
+    private Map<String, String> getInstalledPlugins(String serviceName) throws UnirestException {
+        HttpResponse<JsonNode> response = Unirest
+                .get(getKongUrl(String.format("/services/%s/plugins", serviceName)))
+                .asJson();
+        if (response.getStatus() != 200) {
+            throw new ServiceRegistryException(String.format("plugins response: %s", response.getBody()));
+        }
+        Map<String, String> installed = new HashMap<>();
+        for (Object plugin : response.getBody().getObject().getJSONArray("data")) {
+            if (plugin instanceof JSONObject) {
+                installed.put(((JSONObject) plugin).getString("name"), ((JSONObject) plugin).getString("id"));
+            }
+        }
+        return installed;
+    }
+
+    private void replacePlugin(String serviceName, String pluginId, ServicePlugin plugin) throws UnirestException {
+        HttpResponse<JsonNode> response = Unirest
+                .put(getKongUrl(String.format("/services/%s/plugins/%s", serviceName, pluginId)))
+                .header("Content-Type", "application/json")
+                .body(toJson(plugin))
+                .asJson();
+        if (response.getStatus() != 200 && response.getStatus() != 201) {
+            throw new ServiceRegistryException(String.format("plugin replace response: %s", response.getBody()));
+        }
+        logger.debug("Service {}: replaced plugin: {}", serviceName, plugin);
+    }
+
+    private void deletePlugin(String pluginId) throws UnirestException {
+        logger.debug("Removing plugin: {}", pluginId);
+        HttpResponse<String> response = Unirest.delete(getKongUrl(String.format("/plugins/%s", pluginId))).asString();
+        if (response.getStatus() != 200 && response.getStatus() != 204) {
+            throw new ServiceRegistryException(String.format("plugin delete response: %s", response.getBody()));
+        }
+    }
+
+    /**
+     * Sets the weight of this instance on the upstream of the service. The weight is updated in place.
+     *
+     * @param service the service.
+     * @param weight  the new weight of the instance.
+     */
+    @Override
+    public void setTargetWeight(ServiceInfo service, int weight) {
+        String upstream = requireUpstream(service);
+        KongUpstreams.ensureUpstream(kongAdminUrl, upstream);
+        KongUpstreams.setTargetWeight(kongAdminUrl, upstream, service.getTarget(), weight, service.getVersion(),
+                true);
+    }
+
+    @Override
+    public void removeTarget(ServiceInfo service) {
+        KongUpstreams.removeTarget(kongAdminUrl, requireUpstream(service), service.getTarget());
+    }
+
+    @Override
+    public boolean supportsVersions() {
+        return true;
+    }
+
+    /**
+     * Reads the traffic split from the tags of the upstream of the service.
+     *
+     * @param service the service.
+     * @return the share of the requests of each version in the split.
+     */
+    @Override
+    public Map<String, Integer> getTrafficSplit(ServiceInfo service) {
+        return KongUpstreams.getTrafficSplit(kongAdminUrl, requireUpstream(service));
+    }
+
+    /**
+     * Stores the traffic split in the tags of the upstream of the service.
+     *
+     * @param service the service.
+     * @param split   the share of the requests of each version.
+     */
+    @Override
+    public void setTrafficSplit(ServiceInfo service, Map<String, Integer> split) {
+        KongUpstreams.setTrafficSplit(kongAdminUrl, requireUpstream(service), split);
+    }
+
+    /**
+     * Counts the targets with a weight of each version, from the version tags of the targets.
+     *
+     * @param service the service.
+     * @return the number of instances of each version.
+     */
+    @Override
+    public Map<String, Integer> getTargetVersions(ServiceInfo service) {
+        return KongUpstreams.getTargetVersions(kongAdminUrl, requireUpstream(service));
+    }
+
+    private String requireUpstream(ServiceInfo service) {
+        if (service.getUpstream() == null || "".equals(service.getUpstream())) {
+            throw new ServiceRegistryException(String.format("service '%s' has no upstream", service.getName()));
+        }
+        return service.getUpstream();
+    }
+
+    private JSONObject toJson(ServicePlugin plugin) {
+        JSONObject data = new JSONObject();
+        data.put("name", plugin.getName());
+
+        JSONObject config = new JSONObject();
+        data.put("config", config);
+
+        for (Map.Entry<String, String> entry : plugin.getProperties().entrySet()) {
+            if (entry.getKey().startsWith("config.")) {
+                config.put(entry.getKey().substring("config.".length()), entry.getValue());
+            }
+        }
+        return data;
+    }
+
+    String getServiceBody(ServiceInfo service) throws ValidationException {
         JSONObject obj = new JSONObject();
         String name = service.getName();
         String url = getUpstreamUrl(service);
@@ -191,16 +652,25 @@ public class Kong2ServiceRegistry implements ServiceRegistry {
         return obj.toString();
     }
 
-    private String getRouteBody(ServiceInfo service) {
+    String getRouteBody(ServiceInfo service) {
         JSONObject obj = new JSONObject();
         String[] paths = service.getPaths();
         Boolean preserveHost = (Boolean) service.getProperties().get("preserve_host");
         Boolean stripPath = (Boolean) service.getProperties().get("strip_uri");
         Boolean httpsOnly = (Boolean) service.getProperties().get("https_only");
         ArrayList<String> protocols = new ArrayList<>();
-        protocols.add("https");
-        if (!httpsOnly) {
-            protocols.add("http");
+        if (service.isGrpc()) {
+            // the gRPC methods are routed by their full path, which cannot be stripped
+            protocols.add("grpcs");
+            if (!httpsOnly) {
+                protocols.add("grpc");
+            }
+            stripPath = false;
+        } else {
+            protocols.add("https");
+            if (!httpsOnly) {
+                protocols.add("http");
+            }
         }
 
         obj.put("paths", paths);
@@ -215,9 +685,9 @@ public class Kong2ServiceRegistry implements ServiceRegistry {
         if (service.getHost() == null || service.getPort() <= 0 || service.getPort() > 65535) {
             throw new ValidationException("Service host or port missing");
         }
-        String host = service.getHost();
+        String host = service.getUpstream() != null ? service.getUpstream() : service.getHost();
         int port = service.getPort();
-        return String.format("http://%s:%s", host, port);
+        return String.format("%s://%s:%s", service.getProtocol(), host, port);
     }
 
     /**
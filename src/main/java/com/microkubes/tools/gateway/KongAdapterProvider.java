@@ -0,0 +1,19 @@
+package com.microkubes.tools.gateway;
+
+import java.util.Map;
+
+/**
+ * Provides {@link KongServiceRegistry}, the adapter for Kong 0.x.
+ */
+public class KongAdapterProvider implements GatewayAdapterProvider {
+
+    @Override
+    public String getName() {
+        return "kong-v0";
+    }
+
+    @Override
+    public ServiceRegistry create(String gatewayUrl, Map<String, String> settings) {
+        return new KongServiceRegistry(gatewayUrl);
+    }
+}
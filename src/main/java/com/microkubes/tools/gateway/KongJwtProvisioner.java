@@ -0,0 +1,139 @@
+package com.microkubes.tools.gateway;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.JsonNode;
+import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provisions the JWT credential on Kong API Gateway, so the <code>jwt</code> plugin can validate the tokens at the
+ * edge.
+ * <p>
+ * The consumer is created if it does not exist. The credential is added if missing, and updated in place if its
+ * algorithm or public key differ from the configured ones, so tokens are validated without a gap during a key rotation. The consumer endpoints are the same on all supported Kong versions.
+ */
+public class KongJwtProvisioner {
+    private String kongAdminUrl;
+
+    private Logger logger = LoggerFactory.getLogger(KongJwtProvisioner.class);
+
+    /**
+     * Builds new {@link KongJwtProvisioner} with the given URL to the Admin port on the Kong Gateway.
+     *
+     * @param kongAdminUrl the URL to the admin port on the Kong Gateway.
+     */
+    public KongJwtProvisioner(String kongAdminUrl) {
+        this.kongAdminUrl = kongAdminUrl;
+    }
+
+    /**
+     * Makes sure the consumer and the JWT credential exist on Kong and are in sync with the given credential.
+     *
+     * @param credential the {@link JwtCredential} to provision.
+     */
+    public void provision(JwtCredential credential) {
+        try {
+            credential.validate();
+            ensureConsumer(credential.getConsumer());
+            syncCredential(credential);
+        } catch (ValidationException | UnirestException e) {
+            throw new ServiceRegistryException(e);
+        }
+    }
+
+    private void ensureConsumer(String consumer) throws UnirestException {
+        HttpResponse<String> response = Unirest.get(getKongUrl("/consumers/" + consumer)).asString();
+        if (response.getStatus() == 200) {
+            return;
+        }
+        if (response.getStatus() != 404) {
+            throw new ServiceRegistryException(response.getBody());
+        }
+        JSONObject body = new JSONObject();
+        body.put("username", consumer);
+        HttpResponse<JsonNode> created = Unirest.post(getKongUrl("/consumers"))
+                .header("Content-Type", "application/json")
+                .body(body)
+                .asJson();
+        if (created.getStatus() != 201 && created.getStatus() != 409) {
+            throw new ServiceRegistryException(created.getBody().toString());
+        }
+        logger.info("Created Kong consumer '{}'.", consumer);
+    }
+
+    private void syncCredential(JwtCredential credential) throws UnirestException {
+        String path = String.format("/consumers/%s/jwt", credential.getConsumer());
+        HttpResponse<JsonNode> response = Unirest.get(getKongUrl(path)).asJson();
+        if (response.getStatus() != 200) {
+            throw new ServiceRegistryException(response.getBody().toString());
+        }
+        for (Object item : response.getBody().getObject().getJSONArray("data")) {
+            if (!(item instanceof JSONObject) || !credential.getKey().equals(((JSONObject) item).optString("key"))) {
+                continue;
+            }
+            JSONObject existing = (JSONObject) item;
+            if (credential.getAlgorithm().equals(existing.optString("algorithm")) &&
+                    normalizePem(credential.getPublicKey()).equals(normalizePem(existing.optString("rsa_public_key")))) {
+                logger.debug("JWT credential '{}' is up to date.", credential.getKey());
+                return;
+            }
+            updateCredential(path, existing.getString("id"), credential);
+            return;
+        }
+        addCredential(path, credential);
+    }
+
+    private void updateCredential(String path, String credentialId, JwtCredential credential) throws UnirestException {
+        JSONObject body = new JSONObject();
+        body.put("algorithm", credential.getAlgorithm());
+        body.put("rsa_public_key", credential.getPublicKey());
+        HttpResponse<JsonNode> response = Unirest.patch(getKongUrl(path + "/" + credentialId))
+                .header("Content-Type", "application/json")
+                .body(body)
+                .asJson();
+        if (response.getStatus() != 200) {
+            throw new ServiceRegistryException(response.getBody().toString());
+        }
+        logger.info("Updated JWT credential '{}' for consumer '{}'.", credential.getKey(), credential.getConsumer());
+    }
+
+    private void addCredential(String path, JwtCredential credential) throws UnirestException {
+        JSONObject body = new JSONObject();
+        body.put("key", credential.getKey());
+        body.put("algorithm", credential.getAlgorithm());
+        body.put("rsa_public_key", credential.getPublicKey());
+        HttpResponse<JsonNode> response = Unirest.post(getKongUrl(path))
+                .header("Content-Type", "application/json")
+                .body(body)
+                .asJson();
+        if (response.getStatus() != 201) {
+            throw new ServiceRegistryException(response.getBody().toString());
+        }
+        logger.info("Provisioned JWT credential '{}' for consumer '{}'.", credential.getKey(), credential.getConsumer());
+    }
+
+    private static String normalizePem(String pem) {
+        return pem.replaceAll("\\s", "");
+    }
+
+    /**
+     * Gets an URL to a path on the admin endpoint on Kong.
+     *
+     * @param path the path to the admin endpoint for which the whole URL is constructed.
+     * @return the constructed URL.
+     */
+    protected String getKongUrl(String path) {
+        return kongAdminUrl + path;
+    }
+
+    public String getKongAdminUrl() {
+        return kongAdminUrl;
+    }
+
+    public void setKongAdminUrl(String kongAdminUrl) {
+        this.kongAdminUrl = kongAdminUrl;
+    }
+}
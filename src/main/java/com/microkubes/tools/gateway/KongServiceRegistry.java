@@ -8,6 +8,7 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -49,12 +50,46 @@ public class KongServiceRegistry implements ServiceRegistry {
             logger.info("Service '{}' registered on Kong API Gateway.", service.getName());
             logger.debug("Service registration info: {}", service.toString());
             registerPlugins(service);
+            if (service.getRoutes().length > 0) {
+                // an API is routed by its path prefixes only
+                logger.warn("Service '{}': routes per endpoint are not supported by the kong-v0 adapter.",
+                        service.getName());
+            }
+            if (service.getCachedRoutes().length > 0) {
+                // an API has no separate routes to scope the cache to
+                logger.warn("Service '{}': response caching is not supported by the kong-v0 adapter.",
+                        service.getName());
+            }
         } catch (ValidationException e) {
             throw new ServiceRegistryException(e);
         }
     }
 
-    private JSONObject toKongAPIBody(ServiceInfo service) throws ValidationException {
+    /**
+     * Updates the API definition of an already registered service. The plugins are left as they are.
+     *
+     * @param service the definition of the service contained in {@link ServiceInfo}
+     */
+    @Override
+    public void updateService(ServiceInfo service) {
+        try {
+            updateApi(service.getName(), toKongAPIBody(service));
+            logger.info("Service '{}' updated on Kong API Gateway.", service.getName());
+        } catch (ValidationException e) {
+            throw new ServiceRegistryException(e);
+        }
+    }
+
+    @Override
+    public void updateUpstreamSettings(ServiceInfo service) {
+        JSONObject obj = new JSONObject();
+        obj.put("upstream_read_timeout", service.getProperties().get("upstream_read_timeout"));
+        obj.put("retries", service.getProperties().get("retries"));
+        updateApi(service.getName(), obj);
+        logger.info("Upstream settings of service '{}' updated on Kong API Gateway.", service.getName());
+    }
+
+    JSONObject toKongAPIBody(ServiceInfo service) throws ValidationException {
         JSONObject obj = new JSONObject();
 
         obj.put("name", service.getName());
@@ -72,7 +107,13 @@ public class KongServiceRegistry implements ServiceRegistry {
         if (service.getHost() == null || service.getPort() <= 0 || service.getPort() > 65535) {
             throw new ValidationException("Service host or port missing");
         }
-        return String.format("http://%s:%s", service.getHost(), service.getPort());
+        if (service.isGrpc()) {
+            // the APIs of Kong 0.x proxy over HTTP/1.1 only
+            throw new ValidationException(String.format("protocol %s is not supported by the kong-v0 adapter",
+                    service.getProtocol()));
+        }
+        String host = service.getUpstream() != null ? service.getUpstream() : service.getHost();
+        return String.format("%s://%s:%s", service.getProtocol(), host, service.getPort());
     }
 
     private boolean apiAlreadyExists(String apiName) {
@@ -188,6 +229,68 @@ public class KongServiceRegistry implements ServiceRegistry {
         logger.debug("Earlier plugins cleared.");
     }
 
+    /**
+     * Pushes only the changed plugins: changed plugins that are already installed are replaced in place (so the
+     * plugin is never missing on the gateway), new plugins are installed and removed plugins are deleted.
+     *
+     * @param service the service, with the plugins already updated.
+     * @param delta   the changed and removed plugins.
+     */
+    @Override
+    public void updatePlugins(ServiceInfo service, PluginsDelta delta) {
+        String apiName = service.getName();
+        try {
+            Map<String, String> installed = getInstalledPlugins(apiName);
+            for (String name : delta.getRemoved()) {
+                if (installed.containsKey(name)) {
+                    deletePlugin(apiName, installed.get(name));
+                }
+            }
+            for (ServicePlugin plugin : delta.getChanged()) {
+                String pluginId = installed.get(plugin.getName());
+                if (pluginId == null) {
+                    registerPlugin(apiName, plugin);
+                } else {
+                    replacePlugin(apiName, pluginId, plugin);
+                }
+            }
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException(e);
+        }
+        logger.info("API {}: updated plugins {}", apiName, delta);
+    }
+
+    private Map<String, String> getInstalledPlugins(String apiName) throws UnirestException {
+        HttpResponse<JsonNode> response = Unirest
+                .get(getKongUrl(String.format("/apis/%s/plugins", apiName)))
+                .asJson();
+        if (response.getStatus() != 200) {
+            throw new ServiceRegistryException(response.getBody().toString());
+        }
+        Map<String, String> installed = new HashMap<>();
+        for (Object plugin : response.getBody().getObject().getJSONArray("data")) {
+            if (plugin instanceof JSONObject) {
+                installed.put(((JSONObject) plugin).getString("name"), ((JSONObject) plugin).getString("id"));
+            }
+        }
+        return installed;
+    }
+
+    private void replacePlugin(String apiName, String pluginId, ServicePlugin plugin) throws UnirestException {
+        // PUT with the id of an installed plugin replaces its configuration
+        JSONObject pluginData = toJson(plugin);
+        pluginData.put("id", pluginId);
+        HttpResponse<JsonNode> response = Unirest
+                .put(getKongUrl(String.format("/apis/%s/plugins", apiName)))
+                .header("Content-Type", "application/json")
+                .body(pluginData)
+                .asJson();
+        if (response.getStatus() != 200 && response.getStatus() != 201) {
+            throw new ServiceRegistryException(response.getBody().toString());
+        }
+        logger.debug("API {}: replaced plugin: {}", apiName, plugin);
+    }
+
     /**
      * Deletes single plugin for the given service.
      *
@@ -206,19 +309,58 @@ public class KongServiceRegistry implements ServiceRegistry {
 
 
     /**
-     * Registers the plugins defined for this service.
+     * Registers the plugins defined for this service. Installed plugins are replaced in place and missing plugins are
+     * installed, so a plugin (like <code>jwt</code>) is never missing on the gateway while the service is registered
+     * again. Only the plugins no longer defined for the service are deleted.
      *
      * @param service {@link ServiceInfo} representing the service.
      */
     protected void registerPlugins(ServiceInfo service) {
         logger.debug("Registering plugins for service...");
-        clearPlugins(service);
-        if (service.getPlugins() == null || service.getPlugins().length == 0) {
-            return;
+        String apiName = service.getName();
+        try {
+            Map<String, String> installed = getInstalledPlugins(apiName);
+            if (service.getPlugins() != null) {
+                for (ServicePlugin plugin : service.getPlugins()) {
+                    String pluginId = installed.remove(plugin.getName());
+                    if (pluginId == null) {
+                        registerPlugin(apiName, plugin);
+                    } else {
+                        replacePlugin(apiName, pluginId, plugin);
+                    }
+                }
+            }
+            for (String pluginId : installed.values()) {
+                deletePlugin(apiName, pluginId);
+            }
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException(e);
         }
-        for (ServicePlugin plugin : service.getPlugins()) {
-            registerPlugin(service.getName(), plugin);
+    }
+
+    /**
+     * Sets the weight of this instance on the upstream of the service. The weight is added as a new target entry (the latest entry wins).
+     *
+     * @param service the service.
+     * @param weight  the new weight of the instance.
+     */
+    @Override
+    public void setTargetWeight(ServiceInfo service, int weight) {
+        String upstream = requireUpstream(service);
+        KongUpstreams.ensureUpstream(kongAdminUrl, upstream);
+        KongUpstreams.setTargetWeight(kongAdminUrl, upstream, service.getTarget(), weight, null, false);
+    }
+
+    @Override
+    public void removeTarget(ServiceInfo service) {
+        KongUpstreams.removeTarget(kongAdminUrl, requireUpstream(service), service.getTarget());
+    }
+
+    private String requireUpstream(ServiceInfo service) {
+        if (service.getUpstream() == null || "".equals(service.getUpstream())) {
+            throw new ServiceRegistryException(String.format("service '%s' has no upstream", service.getName()));
         }
+        return service.getUpstream();
     }
 
     private JSONObject toJson(ServicePlugin plugin) {
@@ -0,0 +1,238 @@
+package com.microkubes.tools.gateway;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.JsonNode;
+import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manages the load balancing upstreams and targets on Kong. The upstreams Admin API is the same for the Kong versions
+ * supported by {@link KongServiceRegistry} and {@link Kong2ServiceRegistry}, except for updating a target: older
+ * versions keep a history of target entries (the latest entry wins), newer versions update the target in place.
+ */
+final class KongUpstreams {
+
+    private static final String VERSION_TAG = "version:";
+    private static final String SPLIT_TAG = "canary:";
+
+    private static Logger logger = LoggerFactory.getLogger(KongUpstreams.class);
+
+    private KongUpstreams() {
+    }
+
+    /**
+     * Creates the upstream if it does not exist.
+     *
+     * @param kongAdminUrl the URL to the admin port on the Kong Gateway.
+     * @param upstream     the upstream name.
+     */
+    static void ensureUpstream(String kongAdminUrl, String upstream) {
+        try {
+            HttpResponse<String> response = Unirest.get(kongAdminUrl + "/upstreams/" + upstream).asString();
+            if (response.getStatus() == 200) {
+                return;
+            }
+            if (response.getStatus() != 404) {
+                throw new ServiceRegistryException(String.format("upstream response: %s", response.getBody()));
+            }
+            JSONObject body = new JSONObject();
+            body.put("name", upstream);
+            response = Unirest.post(kongAdminUrl + "/upstreams")
+                    .header("Content-Type", "application/json").body(body.toString()).asString();
+            // 409: created concurrently by another instance of the service
+            if (response.getStatus() != 201 && response.getStatus() != 409) {
+                throw new ServiceRegistryException(String.format("upstream create response: %s", response.getBody()));
+            }
+            logger.info("Upstream '{}' created.", upstream);
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException("Failed on creating an upstream", e);
+        }
+    }
+
+    /**
+     * Adds a target with the given weight to the upstream. When <code>updateInPlace</code> is set, an existing target
+     * is updated with PATCH, and added only if it does not exist; otherwise a new target entry is always added.
+     *
+     * @param kongAdminUrl  the URL to the admin port on the Kong Gateway.
+     * @param upstream      the upstream name.
+     * @param target        the target, as <code>host:port</code>.
+     * @param weight        the target weight.
+     * @param version       the version of the target, or null. Versions are supported only by the gateways that
+     *                      update targets in place.
+     * @param updateInPlace whether the gateway updates targets in place.
+     */
+    static void setTargetWeight(String kongAdminUrl, String upstream, String target, int weight, String version,
+                                boolean updateInPlace) {
+        String targetsUrl = String.format("%s/upstreams/%s/targets", kongAdminUrl, upstream);
+        try {
+            if (updateInPlace) {
+                JSONObject body = new JSONObject();
+                body.put("weight", weight);
+                if (version != null) {
+                    body.put("tags", new String[]{VERSION_TAG + version});
+                }
+                HttpResponse<JsonNode> response = Unirest.patch(targetsUrl + "/" + target)
+                        .header("Content-Type", "application/json").body(body.toString()).asJson();
+                if (response.getStatus() == 200) {
+                    logger.debug("Upstream {}: target {} weight set to {}", upstream, target, weight);
+                    return;
+                }
+                if (response.getStatus() != 404 && response.getStatus() != 405) {
+                    throw new ServiceRegistryException(String.format("target update response: %s", response.getBody()));
+                }
+            }
+            JSONObject body = new JSONObject();
+            body.put("target", target);
+            body.put("weight", weight);
+            if (version != null) {
+                body.put("tags", new String[]{VERSION_TAG + version});
+            }
+            HttpResponse<JsonNode> response = Unirest.post(targetsUrl)
+                    .header("Content-Type", "application/json").body(body.toString()).asJson();
+            if (response.getStatus() != 200 && response.getStatus() != 201) {
+                throw new ServiceRegistryException(String.format("target response: %s", response.getBody()));
+            }
+            logger.debug("Upstream {}: target {} weight set to {}", upstream, target, weight);
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException("Failed on setting the target weight", e);
+        }
+    }
+
+    /**
+     * Removes the target from the upstream. Removing a target that does not exist is not an error.
+     *
+     * @param kongAdminUrl the URL to the admin port on the Kong Gateway.
+     * @param upstream     the upstream name.
+     * @param target       the target, as <code>host:port</code>.
+     */
+    static void removeTarget(String kongAdminUrl, String upstream, String target) {
+        try {
+            HttpResponse<String> response = Unirest
+                    .delete(String.format("%s/upstreams/%s/targets/%s", kongAdminUrl, upstream, target)).asString();
+            if (response.getStatus() != 204 && response.getStatus() != 200 && response.getStatus() != 404) {
+                throw new ServiceRegistryException(String.format("target delete response: %s", response.getBody()));
+            }
+            logger.info("Upstream {}: target {} removed.", upstream, target);
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException("Failed on removing a target", e);
+        }
+    }
+
+    /**
+     * Reads the traffic split between versions from the tags of the upstream (<code>canary:&lt;version&gt;=&lt;percent&gt;</code>).
+     *
+     * @param kongAdminUrl the URL to the admin port on the Kong Gateway.
+     * @param upstream     the upstream name.
+     * @return the share of each version; empty if the upstream has no split or does not exist.
+     */
+    static Map<String, Integer> getTrafficSplit(String kongAdminUrl, String upstream) {
+        Map<String, Integer> split = new HashMap<>();
+        for (String tag : getTags(kongAdminUrl, upstream)) {
+            int separator = tag.lastIndexOf('=');
+            if (tag.startsWith(SPLIT_TAG) && separator > 0) {
+                split.put(tag.substring(SPLIT_TAG.length(), separator), Integer.parseInt(tag.substring(separator + 1)));
+            }
+        }
+        return split;
+    }
+
+    /**
+     * Replaces the traffic split in the tags of the upstream. The other tags are kept.
+     *
+     * @param kongAdminUrl the URL to the admin port on the Kong Gateway.
+     * @param upstream     the upstream name.
+     * @param split        the share of each version.
+     */
+    static void setTrafficSplit(String kongAdminUrl, String upstream, Map<String, Integer> split) {
+        ensureUpstream(kongAdminUrl, upstream);
+        List<String> tags = new ArrayList<>();
+        for (String tag : getTags(kongAdminUrl, upstream)) {
+            if (!tag.startsWith(SPLIT_TAG)) {
+                tags.add(tag);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : split.entrySet()) {
+            tags.add(SPLIT_TAG + entry.getKey() + "=" + entry.getValue());
+        }
+        JSONObject body = new JSONObject();
+        body.put("tags", tags);
+        try {
+            HttpResponse<JsonNode> response = Unirest.patch(kongAdminUrl + "/upstreams/" + upstream)
+                    .header("Content-Type", "application/json").body(body.toString()).asJson();
+            if (response.getStatus() != 200) {
+                throw new ServiceRegistryException(String.format("upstream update response: %s", response.getBody()));
+            }
+            logger.info("Upstream {}: traffic split set to {}", upstream, split);
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException("Failed on setting the traffic split", e);
+        }
+    }
+
+    private static List<String> getTags(String kongAdminUrl, String upstream) {
+        List<String> tags = new ArrayList<>();
+        try {
+            HttpResponse<JsonNode> response = Unirest.get(kongAdminUrl + "/upstreams/" + upstream).asJson();
+            if (response.getStatus() == 404) {
+                return tags;
+            }
+            if (response.getStatus() != 200) {
+                throw new ServiceRegistryException(String.format("upstream response: %s", response.getBody()));
+            }
+            JSONArray array = response.getBody().getObject().optJSONArray("tags");
+            for (int i = 0; array != null && i < array.length(); i++) {
+                tags.add(array.getString(i));
+            }
+            return tags;
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException("Failed on reading the upstream", e);
+        }
+    }
+
+    /**
+     * Counts the targets with a weight of each version (<code>version:&lt;version&gt;</code> tag). The targets without
+     * a version are counted under <code>null</code>.
+     *
+     * @param kongAdminUrl the URL to the admin port on the Kong Gateway.
+     * @param upstream     the upstream name.
+     * @return the number of targets of each version.
+     */
+    static Map<String, Integer> getTargetVersions(String kongAdminUrl, String upstream) {
+        Map<String, Integer> versions = new HashMap<>();
+        String url = String.format("%s/upstreams/%s/targets?size=1000", kongAdminUrl, upstream);
+        try {
+            HttpResponse<JsonNode> response = Unirest.get(url).asJson();
+            if (response.getStatus() == 404) {
+                return versions;
+            }
+            if (response.getStatus() != 200) {
+                throw new ServiceRegistryException(String.format("targets response: %s", response.getBody()));
+            }
+            for (Object item : response.getBody().getObject().getJSONArray("data")) {
+                JSONObject target = (JSONObject) item;
+                if (target.optInt("weight") == 0) {
+                    continue;
+                }
+                String version = null;
+                JSONArray tags = target.optJSONArray("tags");
+                for (int i = 0; tags != null && i < tags.length(); i++) {
+                    if (tags.getString(i).startsWith(VERSION_TAG)) {
+                        version = tags.getString(i).substring(VERSION_TAG.length());
+                    }
+                }
+                versions.merge(version, 1, Integer::sum);
+            }
+            return versions;
+        } catch (UnirestException e) {
+            throw new ServiceRegistryException("Failed on reading the targets", e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.microkubes.tools.gateway;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.List;
+
+/**
+ * Samples the local load signals of the service instance: the request latency (as an exponentially weighted moving
+ * average), the number of requests in flight, the CPU load and the share of time spent in GC pauses.
+ * <p>
+ * The latency and the GC time are measured over the interval since the previous sample, so the sampler should be
+ * called at a fixed rate, from a single thread.
+ */
+public class LoadSampler {
+
+    private final InFlightRequests inFlightRequests;
+    private final double alpha;
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private double latency;
+    private long lastCompleted;
+    private long lastTotalTime;
+    private long lastGcTime;
+    private long lastSample;
+
+    /**
+     * Creates new sampler.
+     *
+     * @param inFlightRequests the requests of the service.
+     * @param alpha            the weight of the latest interval in the latency average, between 0 and 1.
+     */
+    public LoadSampler(InFlightRequests inFlightRequests, double alpha) {
+        this.inFlightRequests = inFlightRequests;
+        this.alpha = alpha;
+        this.lastCompleted = inFlightRequests.getCompleted();
+        this.lastTotalTime = inFlightRequests.getTotalTime();
+        this.lastGcTime = gcTime();
+        this.lastSample = System.nanoTime();
+    }
+
+    /**
+     * Samples the load signals.
+     *
+     * @return the current load.
+     */
+    public Sample sample() {
+        long now = System.nanoTime();
+        long completed = inFlightRequests.getCompleted();
+        long totalTime = inFlightRequests.getTotalTime();
+        if (completed > lastCompleted) {
+            double mean = (double) (totalTime - lastTotalTime) / (completed - lastCompleted);
+            latency = latency == 0 ? mean : alpha * mean + (1 - alpha) * latency;
+        }
+        long gcTime = gcTime();
+        double gcShare = now > lastSample ? Math.min(1, (gcTime - lastGcTime) * 1e6 / (now - lastSample)) : 0;
+        lastCompleted = completed;
+        lastTotalTime = totalTime;
+        lastGcTime = gcTime;
+        lastSample = now;
+        return new Sample(latency, inFlightRequests.get(), cpuLoad(), gcShare);
+    }
+
+    @SuppressWarnings("deprecation")
+    private double cpuLoad() {
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            double load = ((com.sun.management.OperatingSystemMXBean) os).getSystemCpuLoad();
+            if (load >= 0) {
+                return load;
+            }
+        }
+        double loadAverage = os.getSystemLoadAverage();
+        return loadAverage < 0 ? 0 : Math.min(1, loadAverage / os.getAvailableProcessors());
+    }
+
+    private long gcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * The load of the service instance at a point in time.
+     */
+    public static class Sample {
+        private final double latency;
+        private final int inFlight;
+        private final double cpuLoad;
+        private final double gcShare;
+
+        /**
+         * @param latency  the average request latency, in nanoseconds (0 if unknown).
+         * @param inFlight the number of requests in flight.
+         * @param cpuLoad  the CPU load, between 0 and 1.
+         * @param gcShare  the share of time spent in GC, between 0 and 1.
+         */
+        public Sample(double latency, int inFlight, double cpuLoad, double gcShare) {
+            this.latency = latency;
+            this.inFlight = inFlight;
+            this.cpuLoad = cpuLoad;
+            this.gcShare = gcShare;
+        }
+
+        public double getLatency() {
+            return latency;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public double getCpuLoad() {
+            return cpuLoad;
+        }
+
+        public double getGcShare() {
+            return gcShare;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("latency %.1f ms, in flight %d, cpu %.0f%%, gc %.1f%%", latency / 1e6, inFlight,
+                    cpuLoad * 100, gcShare * 100);
+        }
+    }
+}
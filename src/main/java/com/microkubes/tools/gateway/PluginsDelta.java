@@ -0,0 +1,109 @@
+package com.microkubes.tools.gateway;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The difference between two plugin configurations of a service: the plugins that were added or changed, and the
+ * names of the plugins that were removed.
+ */
+public class PluginsDelta {
+
+    private final List<ServicePlugin> changed;
+    private final List<String> removed;
+
+    /**
+     * Creates new delta.
+     *
+     * @param changed the added or changed plugins.
+     * @param removed the names of the removed plugins.
+     */
+    public PluginsDelta(Collection<ServicePlugin> changed, Collection<String> removed) {
+        this.changed = Collections.unmodifiableList(new ArrayList<>(changed));
+        this.removed = Collections.unmodifiableList(new ArrayList<>(removed));
+    }
+
+    /**
+     * Computes the delta between the previous and the current plugins.
+     *
+     * @param previous the previous plugins, by name.
+     * @param current  the current plugins, by name.
+     * @return the delta, possibly empty.
+     */
+    public static PluginsDelta between(Map<String, ServicePlugin> previous, Map<String, ServicePlugin> current) {
+        List<ServicePlugin> changed = new ArrayList<>();
+        for (ServicePlugin plugin : current.values()) {
+            if (!plugin.equals(previous.get(plugin.getName()))) {
+                changed.add(plugin);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (String name : previous.keySet()) {
+            if (!current.containsKey(name)) {
+                removed.add(name);
+            }
+        }
+        return new PluginsDelta(changed, removed);
+    }
+
+    /**
+     * Applies this delta to the plugins of the service.
+     *
+     * @param plugins the plugins of the service (possibly null).
+     * @return the plugins with the changed plugins replaced or added, and the removed plugins left out.
+     */
+    public ServicePlugin[] applyTo(ServicePlugin[] plugins) {
+        List<ServicePlugin> result = new ArrayList<>();
+        if (plugins != null) {
+            for (ServicePlugin plugin : plugins) {
+                if (!removed.contains(plugin.getName()) && findChanged(plugin.getName()) == null) {
+                    result.add(plugin);
+                }
+            }
+        }
+        result.addAll(changed);
+        return result.toArray(new ServicePlugin[0]);
+    }
+
+    private ServicePlugin findChanged(String name) {
+        for (ServicePlugin plugin : changed) {
+            if (plugin.getName().equals(name)) {
+                return plugin;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The plugins that were added or whose configuration changed.
+     *
+     * @return the changed plugins.
+     */
+    public List<ServicePlugin> getChanged() {
+        return changed;
+    }
+
+    /**
+     * The names of the plugins that were removed.
+     *
+     * @return the removed plugin names.
+     */
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public boolean isEmpty() {
+        return changed.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "PluginsDelta{" +
+                "changed=" + changed +
+                ", removed=" + removed +
+                '}';
+    }
+}
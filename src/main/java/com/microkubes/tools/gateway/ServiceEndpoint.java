@@ -0,0 +1,61 @@
+package com.microkubes.tools.gateway;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A healthy instance of a service, as listed in the service catalog.
+ */
+public class ServiceEndpoint {
+    private final String id;
+    private final String address;
+    private final int port;
+    private final String[] tags;
+    private final Map<String, String> meta;
+
+    /**
+     * Creates new service endpoint.
+     *
+     * @param id      the ID of the instance in the catalog.
+     * @param address the address the instance is reached on.
+     * @param port    the port the instance listens on.
+     * @param tags    the tags of the instance.
+     * @param meta    the metadata of the instance, like its protocol and version.
+     */
+    public ServiceEndpoint(String id, String address, int port, String[] tags, Map<String, String> meta) {
+        this.id = id;
+        this.address = address;
+        this.port = port;
+        this.tags = tags;
+        this.meta = meta;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String[] getTags() {
+        return tags;
+    }
+
+    public Map<String, String> getMeta() {
+        return meta;
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceEndpoint{" +
+                "id='" + id + '\'' +
+                ", address='" + address + ":" + port + '\'' +
+                ", tags=" + Arrays.toString(tags) +
+                '}';
+    }
+}
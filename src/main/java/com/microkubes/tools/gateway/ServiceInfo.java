@@ -7,13 +7,24 @@ import java.util.*;
  * Usually contains the service name, service host name and port and a list of URL paths for routing.
  */
 public class ServiceInfo {
+    /**
+     * The protocols the API Gateway can use to reach the service.
+     */
+    public static final List<String> PROTOCOLS = Collections.unmodifiableList(
+            Arrays.asList("http", "https", "grpc", "grpcs"));
+
     private String name;
     private String host;
     private int port;
     private String[] paths;
+    private String upstream;
+    private String protocol = "http";
+    private String version;
 
     private Map<String, Object> properties = new HashMap<>();
     private ServicePlugin[] plugins;
+    private ServiceRoute[] routes = new ServiceRoute[0];
+    private CachedRoute[] cachedRoutes = new CachedRoute[0];
 
     /**
      * Constructs new empty {@link ServiceInfo}.
@@ -75,6 +86,64 @@ public class ServiceInfo {
         this.paths = paths;
     }
 
+    /**
+     * The name of the load balancing upstream on the API Gateway. When set, the service is routed through the
+     * upstream, and this instance is one of its targets.
+     *
+     * @return the upstream name, or null if the service is routed directly to its host and port.
+     */
+    public String getUpstream() {
+        return upstream;
+    }
+
+    public void setUpstream(String upstream) {
+        this.upstream = upstream;
+    }
+
+    /**
+     * The protocol the API Gateway uses to reach the service: <code>http</code>, <code>https</code>,
+     * <code>grpc</code> (HTTP/2 over cleartext) or <code>grpcs</code> (HTTP/2 over TLS).
+     *
+     * @return the protocol.
+     */
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    /**
+     * The version of this instance of the service. The instance is tagged with the version on the upstream of the
+     * service, for the traffic split between versions.
+     *
+     * @return the version, or null if the instance is not versioned.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * @return true if the service is a gRPC service.
+     */
+    public boolean isGrpc() {
+        return "grpc".equals(protocol) || "grpcs".equals(protocol);
+    }
+
+    /**
+     * The address of this instance as an upstream target.
+     *
+     * @return the target, as <code>host:port</code>.
+     */
+    public String getTarget() {
+        return host + ":" + port;
+    }
+
     public Map<String, Object> getProperties() {
         return properties;
     }
@@ -87,6 +156,37 @@ public class ServiceInfo {
         return plugins;
     }
 
+    public void setPlugins(ServicePlugin[] plugins) {
+        this.plugins = plugins;
+    }
+
+    /**
+     * The routes to the endpoints of the service. When there are none, every request under the paths of the service is
+     * routed to it.
+     *
+     * @return the routes, or an empty array.
+     */
+    public ServiceRoute[] getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(ServiceRoute[] routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * The endpoints of the service whose responses are cached on the API Gateway.
+     *
+     * @return the cached routes, or an empty array.
+     */
+    public CachedRoute[] getCachedRoutes() {
+        return cachedRoutes;
+    }
+
+    public void setCachedRoutes(CachedRoute[] cachedRoutes) {
+        this.cachedRoutes = cachedRoutes;
+    }
+
     /**
      * Performs validation on the {@link ServiceInfo} data.
      *
@@ -105,6 +205,12 @@ public class ServiceInfo {
         if (paths == null || paths.length == 0) {
             throw new ValidationException("no paths provided for the service");
         }
+        if (!PROTOCOLS.contains(protocol)) {
+            throw new ValidationException("protocol must be one of " + PROTOCOLS);
+        }
+        if (version != null && !version.matches("[A-Za-z0-9._-]+")) {
+            throw new ValidationException("version may contain only letters, digits, '.', '_' and '-'");
+        }
     }
 
     @Override
@@ -114,8 +220,13 @@ public class ServiceInfo {
                 ", host='" + host + '\'' +
                 ", port=" + port +
                 ", paths=" + Arrays.toString(paths) +
+                (upstream != null ? ", upstream='" + upstream + '\'' : "") +
+                ", protocol='" + protocol + '\'' +
+                (version != null ? ", version='" + version + '\'' : "") +
                 ", properties=" + properties +
                 ", plugins=" + (plugins != null ? plugins.length + "" : "none") +
+                (routes.length > 0 ? ", routes=" + Arrays.toString(routes) : "") +
+                (cachedRoutes.length > 0 ? ", cachedRoutes=" + Arrays.toString(cachedRoutes) : "") +
                 '}';
     }
 
@@ -127,8 +238,13 @@ public class ServiceInfo {
         private String host;
         private int port;
         private List<String> paths;
+        private String upstream;
+        private String protocol = "http";
+        private String version;
         private Map<String, Object> properties = new HashMap<>();
         private List<ServicePlugin> plugins = new LinkedList<>();
+        private List<ServiceRoute> routes = new LinkedList<>();
+        private List<CachedRoute> cachedRoutes = new LinkedList<>();
 
         private ServiceInfoBuilder() {
         }
@@ -180,11 +296,67 @@ public class ServiceInfo {
             return this;
         }
 
+        /**
+         * Routes the service through the given load balancing upstream on the API Gateway, with this instance as
+         * one of its targets.
+         *
+         * @param upstream the upstream name.
+         * @return reference to this builder.
+         */
+        public ServiceInfoBuilder upstream(String upstream) {
+            this.upstream = upstream;
+            return this;
+        }
+
+        /**
+         * Sets the protocol the API Gateway uses to reach the service.
+         *
+         * @param protocol one of <code>http</code>, <code>https</code>, <code>grpc</code> or <code>grpcs</code>.
+         * @return reference to this builder.
+         */
+        public ServiceInfoBuilder protocol(String protocol) {
+            this.protocol = protocol;
+            return this;
+        }
+
+        /**
+         * Sets the version of this instance of the service.
+         *
+         * @param version the version, for example <code>1.4.0</code>.
+         * @return reference to this builder.
+         */
+        public ServiceInfoBuilder version(String version) {
+            this.version = version;
+            return this;
+        }
+
         public ServiceInfoBuilder addPlugin(ServicePlugin plugin) {
             this.plugins.add(plugin);
             return this;
         }
 
+        /**
+         * Routes only the requests to the given endpoints to the service, instead of every request under the paths of
+         * the service.
+         *
+         * @param route the route to the endpoints.
+         * @return reference to this builder.
+         */
+        public ServiceInfoBuilder addRoute(ServiceRoute route) {
+            this.routes.add(route);
+            return this;
+        }
+
+        /**
+         * Caches the responses of the given endpoints on the API Gateway.
+         *
+         * @param cachedRoute the cached endpoints.
+         * @return reference to this builder.
+         */
+        public ServiceInfoBuilder addCachedRoute(CachedRoute cachedRoute) {
+            this.cachedRoutes.add(cachedRoute);
+            return this;
+        }
 
         public ServiceInfoBuilder setProperty(String name, Object value) {
             this.properties.put(name, value);
@@ -199,6 +371,11 @@ public class ServiceInfo {
          */
         public ServiceInfo getServiceInfo() throws ValidationException {
             ServiceInfo service = new ServiceInfo(name, host, port, paths.toArray(new String[]{}), properties, plugins.toArray(new ServicePlugin[]{}));
+            service.setUpstream(upstream);
+            service.setProtocol(protocol);
+            service.setVersion(version);
+            service.setRoutes(routes.toArray(new ServiceRoute[]{}));
+            service.setCachedRoutes(cachedRoutes.toArray(new CachedRoute[]{}));
             service.validate();
             return service;
         }
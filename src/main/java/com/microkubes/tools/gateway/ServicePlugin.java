@@ -2,6 +2,7 @@ package com.microkubes.tools.gateway;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Represents a service plugin.
@@ -45,6 +46,23 @@ public class ServicePlugin {
         properties.put(name, value);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ServicePlugin that = (ServicePlugin) o;
+        return Objects.equals(name, that.name) && Objects.equals(properties, that.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, properties);
+    }
+
     @Override
     public String toString() {
         return "ServicePlugin{" +
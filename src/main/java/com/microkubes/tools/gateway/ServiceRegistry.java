@@ -1,5 +1,10 @@
 package com.microkubes.tools.gateway;
 
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
 /**
  * ServiceRegistry is the main interface for interaction with the Service registry on the platform and self-registration
  * of the microservices.
@@ -12,4 +17,134 @@ public interface ServiceRegistry {
      * @param service the definition of the service contained in {@link ServiceInfo}
      */
     void register(ServiceInfo service);
+
+    /**
+     * Pushes a change of the plugin configuration of an already registered service. Only the plugins in the delta are
+     * installed, replaced or removed; the service definition and the other plugins are left as they are.
+     * <p>
+     * The default implementation registers the whole service again.
+     *
+     * @param service the service, with the plugins already updated.
+     * @param delta   the changed and removed plugins.
+     */
+    default void updatePlugins(ServiceInfo service, PluginsDelta delta) {
+        register(service);
+    }
+
+    /**
+     * Pushes a change of the definition (for example, the timeouts) of an already registered service. The plugins of
+     * the service are left as they are.
+     * <p>
+     * The default implementation registers the whole service again.
+     *
+     * @param service the service, with the definition already updated.
+     */
+    default void updateService(ServiceInfo service) {
+        register(service);
+    }
+
+    /**
+     * Pushes the upstream read timeout (<code>upstream_read_timeout</code>) and the retries (<code>retries</code>) of
+     * an already registered service. The rest of the service definition, the routes and the plugins are left as they
+     * are.
+     * <p>
+     * The settings belong to the service, which all instances share: the last instance to push them wins.
+     * <p>
+     * The default implementation pushes the whole service definition with {@link #updateService(ServiceInfo)}.
+     *
+     * @param service the service, with the settings already updated.
+     */
+    default void updateUpstreamSettings(ServiceInfo service) {
+        updateService(service);
+    }
+
+    /**
+     * Sets the load balancing weight of this service instance ({@link ServiceInfo#getTarget()}) on the upstream of
+     * the service ({@link ServiceInfo#getUpstream()}). The upstream and the target are created if they do not exist.
+     * A weight of 0 stops new requests to the instance.
+     * <p>
+     * The default implementation does not support weights.
+     *
+     * @param service the service.
+     * @param weight  the new weight of the instance.
+     */
+    default void setTargetWeight(ServiceInfo service, int weight) {
+        throw new ServiceRegistryException("target weights are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Removes this service instance ({@link ServiceInfo#getTarget()}) from the upstream of the service. The service
+     * itself stays registered for the other instances.
+     * <p>
+     * The default implementation does not support upstream targets.
+     *
+     * @param service the service.
+     */
+    default void removeTarget(ServiceInfo service) {
+        throw new ServiceRegistryException("upstream targets are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Whether the registry stores the versions of the service instances and the traffic split between them
+     * ({@link #getTrafficSplit(ServiceInfo)}, {@link #setTrafficSplit(ServiceInfo, Map)} and
+     * {@link #getTargetVersions(ServiceInfo)}).
+     * <p>
+     * The default implementation does not support versions.
+     *
+     * @return true if versions are supported.
+     */
+    default boolean supportsVersions() {
+        return false;
+    }
+
+    /**
+     * Reads the traffic split between the versions of the service from its upstream.
+     * <p>
+     * The default implementation does not support versions.
+     *
+     * @param service the service.
+     * @return the share of the requests (in percent) of each version in the split; empty if there is no split.
+     * @see CanaryRelease
+     */
+    default Map<String, Integer> getTrafficSplit(ServiceInfo service) {
+        throw new ServiceRegistryException("versions are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Stores the traffic split between the versions of the service on its upstream, replacing the previous split.
+     * <p>
+     * The default implementation does not support versions.
+     *
+     * @param service the service.
+     * @param split   the share of the requests (in percent) of each version; empty to remove the split.
+     */
+    default void setTrafficSplit(ServiceInfo service, Map<String, Integer> split) {
+        throw new ServiceRegistryException("versions are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Counts the instances of each version of the service that receive requests (the targets with a weight).
+     * <p>
+     * The default implementation does not support versions.
+     *
+     * @param service the service.
+     * @return the number of instances of each version.
+     */
+    default Map<String, Integer> getTargetVersions(ServiceInfo service) {
+        throw new ServiceRegistryException("versions are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Watches the healthy instances of a service. The listener is called with the first list of instances, and then
+     * whenever the instances change.
+     * <p>
+     * The default implementation does not support watches.
+     *
+     * @param serviceName the name of the service.
+     * @param listener    called with the healthy instances of the service.
+     * @return the watch, to be closed when no longer needed.
+     */
+    default Closeable watch(String serviceName, Consumer<List<ServiceEndpoint>> listener) {
+        throw new ServiceRegistryException("watches are not supported by " + getClass().getSimpleName());
+    }
 }
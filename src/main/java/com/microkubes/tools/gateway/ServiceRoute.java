@@ -0,0 +1,49 @@
+package com.microkubes.tools.gateway;
+
+import java.util.Arrays;
+
+/**
+ * A route to the service for a group of endpoints that accept the same HTTP methods.
+ * <p>
+ * When a service has routes, the API Gateway forwards only the requests to these endpoints, instead of every request
+ * under the service paths.
+ */
+public class ServiceRoute {
+    private final String name;
+    private final String[] paths;
+    private final String[] methods;
+
+    /**
+     * Creates new route.
+     *
+     * @param name    the name of the route, unique within the service.
+     * @param paths   the paths of the endpoints on the service, as regular expressions matching the whole path.
+     * @param methods the HTTP methods accepted by the endpoints, or an empty array if any method is accepted.
+     */
+    public ServiceRoute(String name, String[] paths, String[] methods) {
+        this.name = name;
+        this.paths = paths;
+        this.methods = methods;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String[] getPaths() {
+        return paths;
+    }
+
+    public String[] getMethods() {
+        return methods;
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceRoute{" +
+                "name='" + name + '\'' +
+                ", paths=" + Arrays.toString(paths) +
+                ", methods=" + Arrays.toString(methods) +
+                '}';
+    }
+}
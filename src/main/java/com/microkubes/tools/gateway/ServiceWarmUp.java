@@ -0,0 +1,261 @@
+package com.microkubes.tools.gateway;
+
+import com.mashape.unirest.http.HttpMethod;
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.HttpRequestWithBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms up the service by sending synthetic requests to its own endpoints, so that the hot code paths are compiled
+ * before the service receives real traffic.
+ * <p>
+ * The requests are sent in iterations (each iteration sends every request once) until the number of iterations is
+ * reached or the duration passes, whichever comes first. Failed requests are counted, but do not stop the warm-up,
+ * unless the service cannot be reached at all.
+ */
+public class ServiceWarmUp {
+
+    private final String baseUrl;
+    private final List<Request> requests;
+    private final int iterations;
+    private final long duration;
+
+    private static Logger logger = LoggerFactory.getLogger(ServiceWarmUp.class);
+
+    /**
+     * Creates new warm-up.
+     *
+     * @param baseUrl    the URL of the local service, for example <code>http://localhost:8080</code>.
+     * @param requests   the requests to send in each iteration.
+     * @param iterations the maximal number of iterations (0 for no limit).
+     * @param duration   the maximal duration in milliseconds (0 for no limit).
+     */
+    public ServiceWarmUp(String baseUrl, List<Request> requests, int iterations, long duration) {
+        if (iterations <= 0 && duration <= 0) {
+            throw new IllegalArgumentException("the warm-up needs a number of iterations or a duration");
+        }
+        this.baseUrl = baseUrl;
+        this.requests = requests;
+        this.iterations = iterations;
+        this.duration = duration;
+    }
+
+    /**
+     * Runs the warm-up and logs the timings.
+     *
+     * @return the timings of the warm-up.
+     */
+    public Report run() {
+        Map<Request, Timing> timings = new LinkedHashMap<>();
+        for (Request request : requests) {
+            timings.put(request, new Timing(request.getName()));
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(duration);
+        int iteration = 0;
+        while ((iterations <= 0 || iteration < iterations) && (duration <= 0 || System.nanoTime() - deadline < 0)) {
+            boolean reachable = false;
+            for (Request request : requests) {
+                reachable |= send(request, timings.get(request));
+            }
+            iteration++;
+            if (!reachable) {
+                logger.warn("Warm-up stopped: the service is not reachable at {}.", baseUrl);
+                break;
+            }
+        }
+        Report report = new Report(iteration, System.nanoTime() - start, new ArrayList<>(timings.values()));
+        logger.info("Warm-up completed: {}", report);
+        return report;
+    }
+
+    private boolean send(Request request, Timing timing) {
+        HttpRequestWithBody httpRequest = new HttpRequestWithBody(HttpMethod.valueOf(request.getMethod()),
+                baseUrl + request.getPath());
+        httpRequest.headers(request.getHeaders());
+        if (request.getBody() != null) {
+            httpRequest.body(request.getBody());
+        }
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpRequest.asString();
+            timing.record(System.nanoTime() - start, response.getStatus() < 400);
+            return true;
+        } catch (UnirestException e) {
+            // the service is not reachable
+            logger.debug("Warm-up request {} failed: {}", request.getName(), e.getMessage());
+            timing.record(System.nanoTime() - start, false);
+            return false;
+        }
+    }
+
+    /**
+     * A synthetic request to one of the service endpoints.
+     */
+    public static class Request {
+        private final String name;
+        private final String method;
+        private final String path;
+        private final String body;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        /**
+         * Creates new warm-up request.
+         *
+         * @param name   the name of the request, used in the report.
+         * @param method the HTTP method.
+         * @param path   the path of the endpoint, including the query string.
+         * @param body   the request body (possibly null).
+         */
+        public Request(String name, String method, String path, String body) {
+            this.name = name;
+            this.method = method.toUpperCase();
+            this.path = path.startsWith("/") ? path : "/" + path;
+            this.body = body;
+        }
+
+        /**
+         * Sets a request header.
+         *
+         * @param name  the header name.
+         * @param value the header value.
+         * @return this request.
+         */
+        public Request header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+    }
+
+    /**
+     * The timings of a single warm-up request.
+     */
+    public static class Timing {
+        private final String name;
+        private int count;
+        private int failures;
+        private long first;
+        private long last;
+        private long total;
+
+        Timing(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, boolean success) {
+            if (count == 0) {
+                first = nanos;
+            }
+            count++;
+            last = nanos;
+            total += nanos;
+            if (!success) {
+                failures++;
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return the time of the first (cold) request, in nanoseconds.
+         */
+        public long getFirst() {
+            return first;
+        }
+
+        /**
+         * @return the time of the last (warm) request, in nanoseconds.
+         */
+        public long getLast() {
+            return last;
+        }
+
+        /**
+         * @return the mean time of the requests, in nanoseconds.
+         */
+        public long getMean() {
+            return count == 0 ? 0 : total / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d requests, %d failed, first %.1f ms, mean %.1f ms, last %.1f ms", name, count,
+                    failures, first / 1e6, getMean() / 1e6, last / 1e6);
+        }
+    }
+
+    /**
+     * The result of the warm-up.
+     */
+    public static class Report {
+        private final int iterations;
+        private final long duration;
+        private final List<Timing> timings;
+
+        Report(int iterations, long duration, List<Timing> timings) {
+            this.iterations = iterations;
+            this.duration = duration;
+            this.timings = Collections.unmodifiableList(timings);
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return the duration of the warm-up, in nanoseconds.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        public List<Timing> getTimings() {
+            return timings;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d iterations in %d ms %s", iterations, TimeUnit.NANOSECONDS.toMillis(duration),
+                    timings);
+        }
+    }
+}
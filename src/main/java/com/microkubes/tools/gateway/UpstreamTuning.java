@@ -0,0 +1,138 @@
+package com.microkubes.tools.gateway;
+
+/**
+ * Derives the upstream read timeout and the number of retries of the service from its measured response times and
+ * failure rate, instead of using the same fixed values for every service.
+ * <p>
+ * The read timeout is the response time at the configured percentile multiplied by the headroom, between the minimal
+ * and the maximal (configured) read timeout.
+ * <p>
+ * The gateway retries a failed request a fixed number of times, so the retry budget (the share of extra requests the
+ * retries may add) is applied to that number: with a failure rate <i>f</i>, <i>n</i> retries add up to
+ * <i>f + f<sup>2</sup> + ... + f<sup>n</sup></i> extra requests, and the number of retries is the largest <i>n</i>
+ * (up to the configured retries) within the budget. When the service fails often, the retries stop amplifying the load.
+ */
+public class UpstreamTuning {
+
+    private final int maxReadTimeout;
+    private final int maxRetries;
+
+    private double percentile = 99.9;
+    private double headroom = 2.0;
+    private int minReadTimeout = 1000;
+    private long minSamples = 1000;
+    private double retryBudget = 0.1;
+
+    /**
+     * Creates new upstream tuning.
+     *
+     * @param maxReadTimeout the highest read timeout, in milliseconds.
+     * @param maxRetries     the highest number of retries.
+     */
+    public UpstreamTuning(int maxReadTimeout, int maxRetries) {
+        this.maxReadTimeout = maxReadTimeout;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Recommends the read timeout and the number of retries for the measured requests.
+     *
+     * @param responseTimes the response times of the requests.
+     * @param failures      the number of failed requests among them.
+     * @return the recommendation, or null if there are not enough requests for a recommendation.
+     */
+    public Recommendation recommend(LatencyHistogram.Snapshot responseTimes, long failures) {
+        long requests = responseTimes.getCount();
+        if (requests < minSamples || requests == 0) {
+            return null;
+        }
+        long latency = (long) Math.ceil(responseTimes.getPercentile(percentile) / 1000.0 * headroom);
+        int readTimeout = (int) Math.max(minReadTimeout, Math.min(maxReadTimeout, latency));
+        return new Recommendation(readTimeout, retriesWithinBudget((double) failures / requests));
+    }
+
+    /**
+     * The largest number of retries (up to the configured retries) whose extra requests stay within the retry budget.
+     *
+     * @param failureRate the share of failed requests, between 0 and 1.
+     * @return the number of retries.
+     */
+    int retriesWithinBudget(double failureRate) {
+        double extra = 0;
+        double term = 1;
+        int retries = 0;
+        while (retries < maxRetries) {
+            term *= failureRate;
+            if (extra + term > retryBudget) {
+                break;
+            }
+            extra += term;
+            retries++;
+        }
+        return retries;
+    }
+
+    /**
+     * @param percentile the percentile of the response times (between 0 and 100) the read timeout is derived from.
+     */
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * @param headroom the multiplier applied to the response time at the percentile.
+     */
+    public void setHeadroom(double headroom) {
+        this.headroom = headroom;
+    }
+
+    /**
+     * @param minReadTimeout the lowest read timeout, in milliseconds.
+     */
+    public void setMinReadTimeout(int minReadTimeout) {
+        this.minReadTimeout = minReadTimeout;
+    }
+
+    /**
+     * @param minSamples the number of requests needed for a recommendation.
+     */
+    public void setMinSamples(long minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * @param retryBudget the share of extra requests (between 0 and 1) the retries may add.
+     */
+    public void setRetryBudget(double retryBudget) {
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * The recommended upstream settings.
+     */
+    public static class Recommendation {
+        private final int readTimeout;
+        private final int retries;
+
+        public Recommendation(int readTimeout, int retries) {
+            this.readTimeout = readTimeout;
+            this.retries = retries;
+        }
+
+        /**
+         * @return the read timeout, in milliseconds.
+         */
+        public int getReadTimeout() {
+            return readTimeout;
+        }
+
+        public int getRetries() {
+            return retries;
+        }
+
+        @Override
+        public String toString() {
+            return "read timeout " + readTimeout + " ms, retries " + retries;
+        }
+    }
+}
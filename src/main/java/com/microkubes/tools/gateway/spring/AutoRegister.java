@@ -1,18 +1,24 @@
 package com.microkubes.tools.gateway.spring;
 
+import com.microkubes.tools.gateway.JwtCredential;
+import com.microkubes.tools.gateway.KongJwtProvisioner;
 import com.microkubes.tools.gateway.ServiceInfo;
 import com.microkubes.tools.gateway.ServiceRegistry;
+import com.microkubes.tools.gateway.ServiceWarmUp;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
 import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Configuration
 @ConditionalOnProperty(prefix = "com.microkubes.gateway", name="gateway-url")
 @Import(ServiceRegistryConfig.class)
-public class AutoRegister {
+public class AutoRegister implements ApplicationListener<ApplicationReadyEvent> {
 
     @Autowired
     private ServiceRegistry serviceRegistry;
@@ -20,8 +26,70 @@ public class AutoRegister {
     @Autowired
     private ServiceInfo serviceInfo;
 
+    @Autowired(required = false)
+    private KongJwtProvisioner jwtProvisioner;
+
+    @Autowired(required = false)
+    private JwtCredential jwtCredential;
+
+    @Autowired(required = false)
+    private TrafficLifecycle trafficLifecycle;
+
+    @Autowired(required = false)
+    private ServiceWarmUp warmUp;
+
+    @Autowired(required = false)
+    private UpstreamTuningRefresher upstreamTuning;
+
+    @Autowired(required = false)
+    private PluginsRefresher pluginsRefresher;
+
+    private final AtomicBoolean registered = new AtomicBoolean();
+
     @PostConstruct
     public void init(){
-        serviceRegistry.register(serviceInfo);
+        if (jwtProvisioner != null && jwtCredential != null) {
+            // the credential must be in place before the jwt plugin starts rejecting requests
+            jwtProvisioner.provision(jwtCredential);
+        }
+        if (warmUp == null) {
+            register();
+        }
+    }
+
+    /**
+     * The warm-up needs the web server, which accepts requests only once the application is ready. The service is
+     * registered after the warm-up completes.
+     *
+     * @param event the application ready event.
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (warmUp != null && !registered.get()) {
+            warmUp.run();
+            register();
+        }
+    }
+
+    private void register() {
+        if (!registered.compareAndSet(false, true)) {
+            return;
+        }
+        if (upstreamTuning != null) {
+            // uses the response times of the warm-up, if there are enough of them
+            upstreamTuning.tune();
+        }
+        if (trafficLifecycle != null) {
+            trafficLifecycle.start();
+        } else {
+            serviceRegistry.register(serviceInfo);
+        }
+        if (upstreamTuning != null) {
+            upstreamTuning.start();
+        }
+        if (pluginsRefresher != null) {
+            // the plugin changes are pushed only to the registered service
+            pluginsRefresher.enable();
+        }
     }
 }
@@ -0,0 +1,41 @@
+package com.microkubes.tools.gateway.spring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the responses of a GET handler method on the API Gateway, so repeated reads are served by the gateway
+ * without reaching the service.
+ * <p>
+ * When the service is registered, the paths of the handler method are routed separately, with the
+ * <code>proxy-cache</code> plugin configured from this annotation.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface GatewayCacheable {
+
+    /**
+     * @return the time (in seconds) a response is cached for.
+     */
+    int ttl() default 300;
+
+    /**
+     * @return the content types of the responses that are cached.
+     */
+    String[] contentTypes() default {"application/json", "application/json;charset=UTF-8"};
+
+    /**
+     * @return the request headers that are part of the cache key, for example <code>Accept-Language</code>. The
+     * <code>Authorization</code> header is always part of the cache key.
+     */
+    String[] varyHeaders() default {};
+
+    /**
+     * @return the query parameters that are part of the cache key. By default, all query parameters are.
+     */
+    String[] varyQueryParams() default {};
+}
@@ -0,0 +1,87 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.InFlightRequests;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Servlet filter counting the requests in flight. Asynchronous requests are counted until they complete. Requests
+ * ending with an exception or a server error (5xx) are counted as failed.
+ */
+public class InFlightRequestsFilter implements Filter {
+
+    private final InFlightRequests inFlightRequests;
+
+    public InFlightRequestsFilter(InFlightRequests inFlightRequests) {
+        this.inFlightRequests = inFlightRequests;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        long start = inFlightRequests.begin();
+        boolean async = false;
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(start));
+                async = true;
+            }
+            failed = isServerError(response);
+        } finally {
+            if (!async) {
+                inFlightRequests.end(start, failed);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private static boolean isServerError(ServletResponse response) {
+        return response instanceof HttpServletResponse && ((HttpServletResponse) response).getStatus() >= 500;
+    }
+
+    private class CompletionListener implements AsyncListener {
+
+        private final long start;
+
+        CompletionListener(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            // also called after a timeout or an error
+            inFlightRequests.end(start, isServerError(event.getSuppliedResponse()));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
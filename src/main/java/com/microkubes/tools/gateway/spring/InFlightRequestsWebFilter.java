@@ -0,0 +1,36 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.InFlightRequests;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * WebFlux filter counting the requests in flight. A request is counted until its handling completes, fails or is
+ * cancelled. Requests ending with an error or a server error (5xx) are counted as failed.
+ */
+public class InFlightRequestsWebFilter implements WebFilter {
+
+    private final InFlightRequests inFlightRequests;
+
+    public InFlightRequestsWebFilter(InFlightRequests inFlightRequests) {
+        this.inFlightRequests = inFlightRequests;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return Mono.defer(() -> {
+            long start = inFlightRequests.begin();
+            return Mono.defer(() -> chain.filter(exchange))
+                    .doFinally(signal -> inFlightRequests.end(start, isFailed(signal, exchange)));
+        });
+    }
+
+    private static boolean isFailed(SignalType signal, ServerWebExchange exchange) {
+        HttpStatus status = exchange.getResponse().getStatusCode();
+        return signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+    }
+}
@@ -0,0 +1,202 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.PluginsDelta;
+import com.microkubes.tools.gateway.ServiceInfo;
+import com.microkubes.tools.gateway.ServicePlugin;
+import com.microkubes.tools.gateway.ServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertiesPropertySource;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the service plugins when the configuration changes, and pushes only the changed plugins to the API Gateway.
+ * <p>
+ * A refresh is requested by a Spring Cloud environment change or refresh event, by a change of the watched plugins
+ * file, or by calling {@link #requestRefresh()}. Requests are debounced: a burst of changes results in a single
+ * update, once no further change was requested for the debounce interval. If pushing the changes fails, the same
+ * changes are pushed again on the next refresh.
+ * <p>
+ * Nothing is pushed before the service is registered: the refreshes requested until {@link #enable()} is called are
+ * pushed then, as a single update.
+ */
+public class PluginsRefresher implements ApplicationListener<ApplicationEvent>, Closeable {
+
+    /**
+     * The Spring Cloud events published after the environment has changed. Matched by name, so Spring Cloud is not
+     * required.
+     */
+    public static final Set<String> REFRESH_EVENTS = new HashSet<>(Arrays.asList(
+            "org.springframework.cloud.context.environment.EnvironmentChangeEvent",
+            "org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent"));
+
+    /**
+     * The name of the property source holding the properties of the watched plugins file.
+     */
+    public static final String PLUGINS_FILE_SOURCE = "microkubesPluginsFile";
+
+    private final ServicePluginsConfig servicePlugins;
+    private final ServiceRegistry serviceRegistry;
+    private final ServiceInfo serviceInfo;
+    private final long debounce;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object pendingLock = new Object();
+    private Map<String, ServicePlugin> pushed;
+    private boolean enabled;
+    private boolean deferred;
+    private ScheduledFuture<?> pending;
+    // accessed only from the scheduler thread
+    private long lastModified;
+
+    private static Logger logger = LoggerFactory.getLogger(PluginsRefresher.class);
+
+    /**
+     * Creates new plugins refresher for a registered service.
+     *
+     * @param servicePlugins  the plugins configuration.
+     * @param serviceRegistry the registry to push the changes to.
+     * @param serviceInfo     the registered service.
+     * @param debounce        the time (in milliseconds) to wait for further changes before pushing them.
+     */
+    public PluginsRefresher(ServicePluginsConfig servicePlugins, ServiceRegistry serviceRegistry,
+                            ServiceInfo serviceInfo, long debounce) {
+        this.servicePlugins = servicePlugins;
+        this.serviceRegistry = serviceRegistry;
+        this.serviceInfo = serviceInfo;
+        this.debounce = debounce;
+        this.pushed = new HashMap<>(servicePlugins.getPlugins());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "plugins-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (REFRESH_EVENTS.contains(event.getClass().getName())) {
+            logger.debug("Environment changed ({}), refreshing plugins.", event.getClass().getSimpleName());
+            requestRefresh();
+        }
+    }
+
+    /**
+     * Watches a properties file with plugin properties (in dot notation). The file takes precedence over the other
+     * property sources, and is checked for changes periodically.
+     *
+     * @param file        the plugins properties file.
+     * @param environment the environment to add the file properties to.
+     * @param interval    how often (in milliseconds) to check the file for changes.
+     */
+    public void watch(File file, ConfigurableEnvironment environment, long interval) {
+        scheduler.scheduleWithFixedDelay(() -> checkFile(file, environment), 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void checkFile(File file, ConfigurableEnvironment environment) {
+        long modified = file.lastModified();
+        if (modified == lastModified) {
+            return;
+        }
+        Properties properties = new Properties();
+        if (modified != 0) {
+            try (Reader reader = new FileReader(file)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                logger.warn("Failed to read plugins file {}: {}", file, e.getMessage());
+                return;
+            }
+        }
+        lastModified = modified;
+        PropertiesPropertySource source = new PropertiesPropertySource(PLUGINS_FILE_SOURCE, properties);
+        if (environment.getPropertySources().contains(PLUGINS_FILE_SOURCE)) {
+            environment.getPropertySources().replace(PLUGINS_FILE_SOURCE, source);
+        } else {
+            environment.getPropertySources().addFirst(source);
+        }
+        logger.debug("Plugins file {} changed.", file);
+        requestRefresh();
+    }
+
+    /**
+     * Requests a refresh of the plugins after the debounce interval. A pending refresh is postponed.
+     */
+    public void requestRefresh() {
+        synchronized (pendingLock) {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            pending = scheduler.schedule(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to update the plugins of service {}: {}", serviceInfo.getName(),
+                            e.getMessage());
+                }
+            }, debounce, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Starts pushing the changes to the API Gateway. Called once the service is registered; the changes requested
+     * before are pushed now.
+     */
+    public synchronized void enable() {
+        enabled = true;
+        if (deferred) {
+            deferred = false;
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to update the plugins of service {}: {}", serviceInfo.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reloads the plugins and pushes the changes since the last successful push to the API Gateway. Before the
+     * service is registered, the refresh is deferred until {@link #enable()}.
+     *
+     * @return the pushed changes (empty if nothing changed or the refresh was deferred).
+     */
+    public synchronized PluginsDelta refresh() {
+        if (!enabled) {
+            // the registration sends the plugins the service was created with, which are the last pushed ones
+            deferred = true;
+            return PluginsDelta.between(pushed, pushed);
+        }
+        Map<String, ServicePlugin> current = servicePlugins.reload();
+        PluginsDelta delta = PluginsDelta.between(pushed, current);
+        if (delta.isEmpty()) {
+            return delta;
+        }
+        serviceInfo.setPlugins(delta.applyTo(serviceInfo.getPlugins()));
+        serviceRegistry.updatePlugins(serviceInfo, delta);
+        pushed = new HashMap<>(current);
+        logger.info("Plugins of service {} updated: {}", serviceInfo.getName(), delta);
+        return delta;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
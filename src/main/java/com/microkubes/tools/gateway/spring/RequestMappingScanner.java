@@ -0,0 +1,394 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.CachedRoute;
+import com.microkubes.tools.gateway.ServiceRoute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Builds the routes of the service ({@link ServiceRoute}) and the routes of the {@link GatewayCacheable} handler
+ * methods ({@link CachedRoute}) from the handler mappings of Spring MVC and WebFlux.
+ * <p>
+ * The paths and methods are read from the handler methods registered on the request mapping handler mappings (the
+ * controllers, including their non-public handler methods, and the actuator endpoints), and from the URL patterns of
+ * the URL handler mappings (like the static resources). The paths are converted to regular expressions for the API
+ * Gateway. The endpoints of other handler mappings, like router functions, cannot be listed: see
+ * {@link #findOpaqueHandlerMappings()}.
+ */
+public class RequestMappingScanner {
+
+    private static final String REGEX_META = "\\.+()[]^$|";
+
+    private static final boolean SERVLET_PRESENT =
+            ClassUtils.isPresent("org.springframework.web.servlet.HandlerMapping", null);
+    private static final boolean REACTIVE_PRESENT =
+            ClassUtils.isPresent("org.springframework.web.reactive.HandlerMapping", null);
+
+    private final ListableBeanFactory beanFactory;
+
+    private static Logger logger = LoggerFactory.getLogger(RequestMappingScanner.class);
+
+    /**
+     * Creates new scanner.
+     *
+     * @param beanFactory the bean factory with the handler mappings of the service.
+     */
+    public RequestMappingScanner(ListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * @return the cached routes of all handler methods.
+     */
+    public CachedRoute[] scanCachedRoutes() {
+        return getCachedRoutes(findHandlers(null));
+    }
+
+    /**
+     * @param controller the controller class.
+     * @return the cached routes of the handler methods of the controller.
+     */
+    public CachedRoute[] scanCachedRoutes(Class<?> controller) {
+        return getCachedRoutes(findHandlers(controller));
+    }
+
+    /**
+     * Builds the smallest set of routes that accept exactly the mapped paths and methods: the methods of all handlers
+     * of a path are merged, and the paths that accept the same methods share a route.
+     * <p>
+     * The routes of GET endpoints accept HEAD too, and every route accepts OPTIONS, as the controllers do. The routes
+     * are complete only if {@link #findOpaqueHandlerMappings()} finds no handler mappings.
+     *
+     * @return the routes of all handler mappings.
+     */
+    public ServiceRoute[] scanRoutes() {
+        return getRoutes(findHandlers(null));
+    }
+
+    /**
+     * @param controller the controller class.
+     * @return the routes of the handler methods of the controller.
+     */
+    public ServiceRoute[] scanRoutes(Class<?> controller) {
+        return getRoutes(findHandlers(controller));
+    }
+
+    /**
+     * Finds the handler mappings whose endpoints cannot be listed, like the router functions or custom handler
+     * mappings. The requests they handle would not be routed by {@link #scanRoutes()}.
+     *
+     * @return the bean names of the handler mappings.
+     */
+    public List<String> findOpaqueHandlerMappings() {
+        List<String> opaque = new ArrayList<>();
+        if (SERVLET_PRESENT) {
+            ServletMappings.findOpaque(beanFactory, opaque);
+        }
+        if (REACTIVE_PRESENT) {
+            ReactiveMappings.findOpaque(beanFactory, opaque);
+        }
+        return opaque;
+    }
+
+    /**
+     * @param controller the controller class, or null for the handlers of all handler mappings.
+     */
+    private List<Handler> findHandlers(Class<?> controller) {
+        List<Handler> handlers = new ArrayList<>();
+        if (SERVLET_PRESENT) {
+            ServletMappings.findHandlers(beanFactory, controller, handlers);
+        }
+        if (REACTIVE_PRESENT) {
+            ReactiveMappings.findHandlers(beanFactory, controller, handlers);
+        }
+        return handlers;
+    }
+
+    private static Handler toHandler(Class<?> beanType, Method method, Set<String> patterns,
+                                     Set<RequestMethod> methods) {
+        List<String> paths = new ArrayList<>();
+        for (String pattern : patterns) {
+            paths.add(toRegex(pattern.startsWith("/") ? pattern : "/" + pattern));
+        }
+        return new Handler(ClassUtils.getUserClass(beanType).getSimpleName() + "." + method.getName(), paths,
+                methods, AnnotatedElementUtils.findMergedAnnotation(method, GatewayCacheable.class));
+    }
+
+    private static Handler toHandler(String name, Collection<String> patterns) {
+        List<String> paths = new ArrayList<>();
+        for (String pattern : patterns) {
+            paths.add(toRegex(pattern.startsWith("/") ? pattern : "/" + pattern));
+        }
+        return new Handler(name, paths, new HashSet<>(), null);
+    }
+
+    private static boolean matches(Class<?> controller, Class<?> beanType) {
+        return controller == null || controller.equals(ClassUtils.getUserClass(beanType));
+    }
+
+    /**
+     * Spring's placeholder for a handler mapping with nothing to map.
+     */
+    private static boolean isEmptyMapping(Object handlerMapping) {
+        return "EmptyHandlerMapping".equals(handlerMapping.getClass().getSimpleName());
+    }
+
+    private CachedRoute[] getCachedRoutes(List<Handler> handlers) {
+        List<CachedRoute> routes = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Handler handler : handlers) {
+            GatewayCacheable cacheable = handler.cacheable;
+            if (cacheable == null) {
+                continue;
+            }
+            if (!handler.methods.isEmpty() && !handler.methods.contains(RequestMethod.GET)) {
+                logger.warn("{} is not a GET handler, the responses are not cached.", handler.name);
+                continue;
+            }
+            // overloaded handler methods
+            String uniqueName = handler.name;
+            for (int i = 2; !names.add(uniqueName); i++) {
+                uniqueName = handler.name + "-" + i;
+            }
+            routes.add(new CachedRoute(uniqueName, handler.paths.toArray(new String[]{}), cacheable.ttl(),
+                    cacheable.contentTypes(), cacheable.varyHeaders(), cacheable.varyQueryParams()));
+        }
+        return routes.toArray(new CachedRoute[]{});
+    }
+
+    private ServiceRoute[] getRoutes(List<Handler> handlers) {
+        // the methods of each path; an empty set accepts any method
+        Map<String, Set<String>> pathMethods = new LinkedHashMap<>();
+        for (Handler handler : handlers) {
+            for (String path : handler.paths) {
+                Set<String> methods = pathMethods.get(path);
+                if (methods != null && methods.isEmpty()) {
+                    continue;
+                }
+                if (handler.methods.isEmpty()) {
+                    pathMethods.put(path, new TreeSet<>());
+                    continue;
+                }
+                if (methods == null) {
+                    methods = new TreeSet<>();
+                    pathMethods.put(path, methods);
+                }
+                for (RequestMethod method : handler.methods) {
+                    methods.add(method.name());
+                }
+                if (methods.contains("GET")) {
+                    methods.add("HEAD");
+                }
+                // CORS preflight requests
+                methods.add("OPTIONS");
+            }
+        }
+
+        Map<Set<String>, List<String>> routePaths = new LinkedHashMap<>();
+        for (Map.Entry<String, Set<String>> entry : pathMethods.entrySet()) {
+            routePaths.computeIfAbsent(entry.getValue(), methods -> new ArrayList<>()).add(entry.getKey());
+        }
+        List<ServiceRoute> routes = new ArrayList<>();
+        for (Map.Entry<Set<String>, List<String>> entry : routePaths.entrySet()) {
+            Set<String> methods = entry.getKey();
+            String name = methods.isEmpty() ? "any" : String.join("-", methods).toLowerCase();
+            routes.add(new ServiceRoute(name, entry.getValue().toArray(new String[]{}),
+                    methods.toArray(new String[]{})));
+        }
+        return routes.toArray(new ServiceRoute[]{});
+    }
+
+    /**
+     * Converts a path pattern of a request mapping to a regular expression matching the same paths, including the
+     * trailing slash.
+     *
+     * @param pattern the path pattern, for example <code>/todos/{id}</code>.
+     * @return the regular expression, for example <code>/todos/[^/]+/?</code>.
+     */
+    static String toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (pattern.startsWith("/**/", i)) {
+                // zero or more directories
+                regex.append("/(?:.*/)?");
+                i += 3;
+            } else if (c == '{') {
+                int end = closingBrace(pattern, i);
+                String variable = pattern.substring(i + 1, end);
+                int colon = variable.indexOf(':');
+                regex.append(colon < 0 ? "[^/]+" : "(?:" + variable.substring(colon + 1) + ")");
+                i = end;
+            } else if (c == '*' && i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                if (REGEX_META.indexOf(c) >= 0) {
+                    regex.append('\\');
+                }
+                regex.append(c);
+            }
+        }
+        if (regex.charAt(regex.length() - 1) != '/' && !pattern.endsWith("**")) {
+            regex.append("/?");
+        }
+        return regex.toString();
+    }
+
+    private static int closingBrace(String pattern, int start) {
+        int depth = 0;
+        for (int i = start; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == '{') {
+                depth++;
+            } else if (pattern.charAt(i) == '}' && --depth == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("unclosed variable in path pattern " + pattern);
+    }
+
+    /**
+     * The handler mappings of Spring MVC; loaded only when Spring MVC is present.
+     */
+    private static class ServletMappings {
+
+        static void findHandlers(ListableBeanFactory beanFactory, Class<?> controller, List<Handler> handlers) {
+            for (Map.Entry<String, org.springframework.web.servlet.HandlerMapping> entry : beanFactory
+                    .getBeansOfType(org.springframework.web.servlet.HandlerMapping.class).entrySet()) {
+                Object mapping = entry.getValue();
+                if (mapping instanceof org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping) {
+                    for (Map.Entry<org.springframework.web.servlet.mvc.method.RequestMappingInfo,
+                            org.springframework.web.method.HandlerMethod> handler :
+                            ((org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping) mapping)
+                                    .getHandlerMethods().entrySet()) {
+                        org.springframework.web.method.HandlerMethod method = handler.getValue();
+                        if (matches(controller, method.getBeanType())) {
+                            handlers.add(toHandler(method.getBeanType(), method.getMethod(),
+                                    handler.getKey().getPatternsCondition().getPatterns(),
+                                    handler.getKey().getMethodsCondition().getMethods()));
+                        }
+                    }
+                } else if (controller == null &&
+                        mapping instanceof org.springframework.web.servlet.handler.AbstractUrlHandlerMapping) {
+                    org.springframework.web.servlet.handler.AbstractUrlHandlerMapping urlMapping =
+                            (org.springframework.web.servlet.handler.AbstractUrlHandlerMapping) mapping;
+                    Set<String> patterns = new TreeSet<>(urlMapping.getHandlerMap().keySet());
+                    if (urlMapping.getRootHandler() != null) {
+                        patterns.add("/");
+                    }
+                    if (!patterns.isEmpty()) {
+                        handlers.add(toHandler(entry.getKey(), patterns));
+                    }
+                }
+            }
+        }
+
+        static void findOpaque(ListableBeanFactory beanFactory, List<String> opaque) {
+            for (Map.Entry<String, org.springframework.web.servlet.HandlerMapping> entry : beanFactory
+                    .getBeansOfType(org.springframework.web.servlet.HandlerMapping.class).entrySet()) {
+                Object mapping = entry.getValue();
+                if (!(mapping instanceof org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping) &&
+                        !(mapping instanceof org.springframework.web.servlet.handler.AbstractUrlHandlerMapping) &&
+                        !isEmptyMapping(mapping)) {
+                    opaque.add(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * The handler mappings of Spring WebFlux; loaded only when Spring WebFlux is present.
+     */
+    private static class ReactiveMappings {
+
+        static void findHandlers(ListableBeanFactory beanFactory, Class<?> controller, List<Handler> handlers) {
+            for (Map.Entry<String, org.springframework.web.reactive.HandlerMapping> entry : beanFactory
+                    .getBeansOfType(org.springframework.web.reactive.HandlerMapping.class).entrySet()) {
+                Object mapping = entry.getValue();
+                if (mapping instanceof org.springframework.web.reactive.result.method.RequestMappingInfoHandlerMapping) {
+                    for (Map.Entry<org.springframework.web.reactive.result.method.RequestMappingInfo,
+                            org.springframework.web.method.HandlerMethod> handler :
+                            ((org.springframework.web.reactive.result.method.RequestMappingInfoHandlerMapping) mapping)
+                                    .getHandlerMethods().entrySet()) {
+                        org.springframework.web.method.HandlerMethod method = handler.getValue();
+                        if (matches(controller, method.getBeanType())) {
+                            handlers.add(toHandler(method.getBeanType(), method.getMethod(),
+                                    patternStrings(handler.getKey().getPatternsCondition().getPatterns()),
+                                    handler.getKey().getMethodsCondition().getMethods()));
+                        }
+                    }
+                } else if (controller == null &&
+                        mapping instanceof org.springframework.web.reactive.handler.AbstractUrlHandlerMapping) {
+                    Set<String> patterns = patternStrings(((org.springframework.web.reactive.handler.AbstractUrlHandlerMapping)
+                            mapping).getHandlerMap().keySet());
+                    if (!patterns.isEmpty()) {
+                        handlers.add(toHandler(entry.getKey(), patterns));
+                    }
+                }
+            }
+        }
+
+        static void findOpaque(ListableBeanFactory beanFactory, List<String> opaque) {
+            boolean routerFunctions = beanFactory.getBeanNamesForType(
+                    org.springframework.web.reactive.function.server.RouterFunction.class).length > 0;
+            for (Map.Entry<String, org.springframework.web.reactive.HandlerMapping> entry : beanFactory
+                    .getBeansOfType(org.springframework.web.reactive.HandlerMapping.class).entrySet()) {
+                Object mapping = entry.getValue();
+                if (mapping instanceof org.springframework.web.reactive.result.method.RequestMappingInfoHandlerMapping ||
+                        mapping instanceof org.springframework.web.reactive.handler.AbstractUrlHandlerMapping ||
+                        isEmptyMapping(mapping)) {
+                    continue;
+                }
+                // the router function mapping is always defined, but maps nothing without router functions
+                if (mapping instanceof org.springframework.web.reactive.function.server.support.RouterFunctionMapping &&
+                        !routerFunctions) {
+                    continue;
+                }
+                opaque.add(entry.getKey());
+            }
+        }
+
+        private static Set<String> patternStrings(Set<org.springframework.web.util.pattern.PathPattern> patterns) {
+            Set<String> strings = new TreeSet<>();
+            for (org.springframework.web.util.pattern.PathPattern pattern : patterns) {
+                strings.add(pattern.getPatternString());
+            }
+            return strings;
+        }
+    }
+
+    /**
+     * A handler method and its request mapping.
+     */
+    private static class Handler {
+        private final String name;
+        private final List<String> paths;
+        private final Set<RequestMethod> methods;
+        private final GatewayCacheable cacheable;
+
+        Handler(String name, List<String> paths, Set<RequestMethod> methods, GatewayCacheable cacheable) {
+            this.name = name;
+            this.paths = paths;
+            this.methods = methods;
+            this.cacheable = cacheable;
+        }
+    }
+}
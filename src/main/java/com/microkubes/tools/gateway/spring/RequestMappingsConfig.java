@@ -0,0 +1,19 @@
+package com.microkubes.tools.gateway.spring;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Routes and cached routes of the service built from the request mappings of its controllers.
+ */
+@Configuration
+@ConditionalOnClass(name = "org.springframework.web.bind.annotation.RequestMapping")
+public class RequestMappingsConfig {
+
+    @Bean
+    public RequestMappingScanner getRequestMappingScanner(ListableBeanFactory beanFactory) {
+        return new RequestMappingScanner(beanFactory);
+    }
+}
@@ -0,0 +1,40 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.InFlightRequests;
+import com.microkubes.tools.gateway.LatencyHistogram;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tracking of the requests handled by the service, needed by the traffic shaping and the upstream tuning.
+ */
+@Configuration
+@ConditionalOnExpression("${com.microkubes.gateway.traffic-shaping:false} or ${com.microkubes.gateway.upstream-tuning:false}")
+public class RequestTrackingConfig {
+
+    @Bean
+    public InFlightRequests getInFlightRequests(ObjectProvider<LatencyHistogram> histogram) {
+        return new InFlightRequests(histogram.getIfAvailable());
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public static class ServletInFlightRequests {
+        @Bean
+        public InFlightRequestsFilter getInFlightRequestsFilter(InFlightRequests inFlightRequests) {
+            return new InFlightRequestsFilter(inFlightRequests);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public static class ReactiveInFlightRequests {
+        @Bean
+        public InFlightRequestsWebFilter getInFlightRequestsWebFilter(InFlightRequests inFlightRequests) {
+            return new InFlightRequestsWebFilter(inFlightRequests);
+        }
+    }
+}
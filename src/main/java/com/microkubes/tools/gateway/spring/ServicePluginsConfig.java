@@ -7,6 +7,7 @@ import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.core.env.AbstractEnvironment;
+import org.springframework.core.env.Environment;
 import org.springframework.core.env.MapPropertySource;
 import org.springframework.core.env.PropertySource;
 import org.springframework.stereotype.Component;
@@ -31,14 +32,17 @@ import java.util.TreeMap;
 public class ServicePluginsConfig implements ApplicationContextAware {
 
     public static final String PLUGINS_PREFIX = "com.microkubes.service.plugins";
-    private static final String PLUGINS_PREFIX_CAMEL_CASE = PLUGINS_PREFIX.replaceAll("\\.", "_");
+    private static final String PLUGINS_PREFIX_CAMEL_CASE = PLUGINS_PREFIX.replace('.', '_');
+    private static final int PLUGINS_PREFIX_SEPARATOR_INDEX = PLUGINS_PREFIX.indexOf('.');
 
-    private Map<String, ServicePlugin> plugins = new HashMap<>();
+    private volatile Map<String, ServicePlugin> plugins = new HashMap<>();
+    private Environment environment;
 
     private static Logger logger = LoggerFactory.getLogger(ServicePluginsConfig.class);
 
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.environment = applicationContext.getEnvironment();
         buildPlugins(getNormalizedPluginsProperties(applicationContext));
         logger.debug("Found {} plugins: {}", plugins.size(), plugins.keySet());
     }
@@ -52,6 +56,19 @@ public class ServicePluginsConfig implements ApplicationContextAware {
         return plugins;
     }
 
+    /**
+     * Reads the plugins from the environment again, replacing the currently configured plugins.
+     *
+     * @return the reloaded plugins.
+     */
+    public synchronized Map<String, ServicePlugin> reload() {
+        Map<String, ServicePlugin> reloaded = new HashMap<>();
+        buildPlugins(getNormalizedPluginsProperties(environment), reloaded);
+        plugins = reloaded;
+        logger.debug("Reloaded {} plugins: {}", reloaded.size(), reloaded.keySet());
+        return reloaded;
+    }
+
     /**
      * Provides a list of normalized properties for processing.
      * <p>
@@ -67,21 +84,29 @@ public class ServicePluginsConfig implements ApplicationContextAware {
      * @return
      */
     private static Map<String, String> getNormalizedPluginsProperties(ApplicationContext applicationContext) {
+        return getNormalizedPluginsProperties(applicationContext.getEnvironment());
+    }
+
+    static Map<String, String> getNormalizedPluginsProperties(Environment env) {
         Map<String, String> propsMap = new TreeMap<>();
-        if (applicationContext.getEnvironment() instanceof AbstractEnvironment) {
-            AbstractEnvironment environment = (AbstractEnvironment) applicationContext.getEnvironment();
+        if (env instanceof AbstractEnvironment) {
+            AbstractEnvironment environment = (AbstractEnvironment) env;
             Iterator<PropertySource<?>> it = environment.getPropertySources().iterator();
             while (it.hasNext()) {
                 PropertySource<?> propertySource = it.next();
                 if (propertySource instanceof MapPropertySource) {
                     MapPropertySource mp = (MapPropertySource) propertySource;
-                    for (String name : mp.getPropertyNames()) {
-                        if (name.startsWith(PLUGINS_PREFIX_CAMEL_CASE)) {
-                            logger.debug("Found ENV Property: {}", name);
-                            propsMap.put(normalizePropertyName(name), environment.getProperty(name));
-                        } else if (name.startsWith(PLUGINS_PREFIX)) {
-                            logger.debug("Found Property: {}", name);
-                            propsMap.put(name, environment.getProperty(name));
+                    for (String name : mp.getSource().keySet()) {
+                        switch (pluginPropertyNotation(name)) {
+                            case '_':
+                                logger.debug("Found ENV Property: {}", name);
+                                propsMap.put(normalizePropertyName(name), environment.getProperty(name));
+                                break;
+                            case '.':
+                                logger.debug("Found Property: {}", name);
+                                propsMap.put(name, environment.getProperty(name));
+                                break;
+                            default:
                         }
                     }
                 }
@@ -90,12 +115,37 @@ public class ServicePluginsConfig implements ApplicationContextAware {
         return propsMap;
     }
 
+    /**
+     * Checks whether the name is a plugin property. Both prefixes start with "com" and differ only in the separator,
+     * so each name is compared with at most one of them, and most names are rejected by the first character.
+     *
+     * @param name the property name.
+     * @return the separator ('_' for ENV variables or '.') of a plugin property, or 0 for other properties.
+     */
+    private static char pluginPropertyNotation(String name) {
+        if (name.length() < PLUGINS_PREFIX.length() || name.charAt(0) != 'c') {
+            return 0;
+        }
+        char separator = name.charAt(PLUGINS_PREFIX_SEPARATOR_INDEX);
+        if (separator == '_') {
+            return name.startsWith(PLUGINS_PREFIX_CAMEL_CASE) ? '_' : 0;
+        }
+        if (separator == '.') {
+            return name.startsWith(PLUGINS_PREFIX) ? '.' : 0;
+        }
+        return 0;
+    }
+
     /**
      * Builds the plugins from the given normalized properties.
      *
      * @param pluginsProperties a map of the names/value for the plugins properties.
      */
     protected void buildPlugins(Map<String, String> pluginsProperties) {
+        buildPlugins(pluginsProperties, plugins);
+    }
+
+    private static void buildPlugins(Map<String, String> pluginsProperties, Map<String, ServicePlugin> plugins) {
         for (Map.Entry<String, String> prop : pluginsProperties.entrySet()) {
             String noPrefixName = stripPrefix(prop.getKey(), PLUGINS_PREFIX + ".").trim();
             if (noPrefixName.equals("")) {
@@ -150,7 +200,7 @@ public class ServicePluginsConfig implements ApplicationContextAware {
      * @return normalized property name.
      */
     public static String normalizePropertyName(String name) {
-        return kebabCaseToUnderscoreNotation(underscoreCaseToDotNotation(name));
+        return normalize(name, true);
     }
 
     /**
@@ -160,7 +210,7 @@ public class ServicePluginsConfig implements ApplicationContextAware {
      * @return the transformed string value into dot notation.
      */
     public static String underscoreCaseToDotNotation(String val) {
-        return val.replaceAll("([^_])(_)([^_])", "$1.$3").replaceAll("([^_])(__)([^_])", "$1_$3");
+        return normalize(val, false);
     }
 
     /**
@@ -170,6 +220,61 @@ public class ServicePluginsConfig implements ApplicationContextAware {
      * @return the transformed value in underscore notation.
      */
     public static String kebabCaseToUnderscoreNotation(String val) {
-        return val.replaceAll("-", "_");
+        return val.replace('-', '_');
+    }
+
+    /**
+     * Converts underscore notation to dot notation in a single pass. Equivalent to
+     * <code>replaceAll("([^_])(_)([^_])", "$1.$3").replaceAll("([^_])(__)([^_])", "$1_$3")</code>.
+     * <p>
+     * A single underscore between two other characters becomes a dot, and a double underscore becomes a single
+     * underscore. As with the regular expressions, the character following a replaced underscore is consumed by the
+     * match and cannot precede another replacement of the same kind: <code>a_b_c</code> becomes <code>a.b_c</code>.
+     *
+     * @param val   the value to convert.
+     * @param kebab whether to also replace dashes with underscores.
+     * @return the converted value (the same instance if nothing changed).
+     */
+    private static String normalize(String val, boolean kebab) {
+        int length = val.length();
+        int i = 0;
+        while (i < length && val.charAt(i) != '_' && (!kebab || val.charAt(i) != '-')) {
+            i++;
+        }
+        if (i == length) {
+            return val;
+        }
+        char[] result = new char[length];
+        val.getChars(0, i, result, 0);
+        int size = i;
+        // end of the last match for a single and a double underscore
+        int singleMatchEnd = -1;
+        int doubleMatchEnd = -1;
+        while (i < length) {
+            char c = val.charAt(i);
+            if (c != '_') {
+                result[size++] = kebab && c == '-' ? '_' : c;
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && val.charAt(i) == '_') {
+                i++;
+            }
+            int run = i - start;
+            boolean enclosed = start > 0 && i < length;
+            if (enclosed && run == 1 && start != singleMatchEnd) {
+                result[size++] = '.';
+                singleMatchEnd = i + Character.charCount(val.codePointAt(i));
+            } else if (enclosed && run == 2 && start != doubleMatchEnd) {
+                result[size++] = '_';
+                doubleMatchEnd = i + Character.charCount(val.codePointAt(i));
+            } else {
+                for (int j = 0; j < run; j++) {
+                    result[size++] = '_';
+                }
+            }
+        }
+        return new String(result, 0, size);
     }
 }
@@ -1,18 +1,35 @@
 package com.microkubes.tools.gateway.spring;
 
 import com.microkubes.tools.gateway.*;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemReader;
+import org.bouncycastle.util.io.pem.PemWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.*;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
 
-import java.lang.reflect.InvocationTargetException;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
-@ComponentScan(basePackages = "com.microkubes.tools.gateway.spring")
+@Import({ServicePluginsConfig.class, RequestTrackingConfig.class, TrafficShapingConfig.class,
+        UpstreamTuningConfig.class, WarmUpConfig.class, RequestMappingsConfig.class})
 @ConditionalOnProperty(prefix = "com.microkubes.gateway", name = "gateway-url")
 public class ServiceRegistryConfig {
 
@@ -27,6 +44,12 @@ public class ServiceRegistryConfig {
     private Integer servicePort;
     @Value("${com.microkubes.service.paths}")
     private String[] servicePaths;
+    @Value("${com.microkubes.service.protocol:http}")
+    private String serviceProtocol;
+    @Value("${com.microkubes.service.mapped-routes:false}")
+    private Boolean mappedRoutes;
+    @Value("${com.microkubes.service.version:}")
+    private String serviceVersion;
 
     // Additional service API configuration properties
     @Value("${com.microkubes.service.preserve-host:false}")
@@ -48,33 +71,71 @@ public class ServiceRegistryConfig {
     @Value("${com.microkubes.gateway.adapter:kong-v0}")
     private String gatewayAdapterName;
 
+    // Routing through an upstream, with a weight per instance
+    @Value("${com.microkubes.gateway.traffic-shaping:false}")
+    private Boolean trafficShaping;
+    @Value("${com.microkubes.gateway.upstream:}")
+    private String upstream;
+
+    // Caching of the GatewayCacheable endpoints
+    @Value("${com.microkubes.gateway.response-caching:true}")
+    private Boolean responseCaching;
+
+    // JWT validation on the API Gateway
+    @Value("${com.microkubes.gateway.jwt-validation:false}")
+    private Boolean jwtValidation;
+    @Value("${com.microkubes.gateway.jwt-consumer:microkubes}")
+    private String jwtConsumer;
+    @Value("${com.microkubes.gateway.jwt-key:microkubes}")
+    private String jwtKey;
+    @Value("${com.microkubes.gateway.jwt-key-claim:iss}")
+    private String jwtKeyClaim;
+    @Value("${com.microkubes.gateway.jwt-algorithm:RS256}")
+    private String jwtAlgorithm;
+    @Value("${com.microkubes.security.public_key.path:}")
+    private String publicKeyPath;
+
+    // Live reload of the plugins configuration
+    @Value("${com.microkubes.gateway.plugins-refresh-debounce:2000}")
+    private Long pluginsRefreshDebounce;
+    @Value("${com.microkubes.gateway.plugins-file:}")
+    private String pluginsFile;
+    @Value("${com.microkubes.gateway.plugins-file-interval:5000}")
+    private Long pluginsFileInterval;
+
     @Autowired
     private ServicePluginsConfig servicePlugins;
 
-    private HashMap<String, Class<? extends ServiceRegistry>> gatewayAdapters = new HashMap<>();
+    private static Logger logger = LoggerFactory.getLogger(ServiceRegistryConfig.class);
 
     @Bean
     @ConditionalOnMissingBean(ServiceRegistry.class)
-    public ServiceRegistry getServiceRegistry() {
-        defineAdapters();
-        Class<? extends ServiceRegistry> adapterClass = gatewayAdapters.get(gatewayAdapterName);
-        try {
-            return adapterClass.getDeclaredConstructor(String.class).newInstance(apiGatewayURL);
-        } catch (Exception e) {
-            throw new ServiceRegistryException("Gateway adapter [" + gatewayAdapterName + "] is not supported");
-        }
+    public ServiceRegistry getServiceRegistry(Environment environment) {
+        // the adapter reads its own settings
+        Map<String, String> settings = Binder.get(environment)
+                .bind("com.microkubes.gateway", Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap());
+        return GatewayAdapterProvider.forName(gatewayAdapterName).create(apiGatewayURL, settings);
     }
 
     @Bean
-    public ServiceInfo getServiceInfo() throws ValidationException {
+    public ServiceInfo getServiceInfo(ObjectProvider<RequestMappingScanner> requestMappingScanner)
+            throws ValidationException {
         ServiceInfo.ServiceInfoBuilder serviceInfo = ServiceInfo
                 .NewService(serviceName)
                 .host(serviceHost)
-                .port(servicePort);
+                .port(servicePort)
+                .protocol(serviceProtocol);
 
         for (String path : servicePaths) {
             serviceInfo.addPath(path);
         }
+        if (trafficShaping) {
+            serviceInfo.upstream(upstream == null || "".equals(upstream) ? serviceName + ".upstream" : upstream);
+        }
+        if (serviceVersion != null && !"".equals(serviceVersion)) {
+            serviceInfo.version(serviceVersion);
+        }
 
         Map<String, Object> properties = new HashMap<>();
         properties.put("preserve_host", preserveHost);
@@ -94,15 +155,86 @@ public class ServiceRegistryConfig {
         for (ServicePlugin plugin : servicePlugins.getPlugins().values()) {
             serviceInfo.addPlugin(plugin);
         }
+        if (jwtValidation && !servicePlugins.getPlugins().containsKey("jwt")) {
+            ServicePlugin jwtPlugin = new ServicePlugin("jwt");
+            jwtPlugin.setProperty("config.key_claim_name", jwtKeyClaim);
+            jwtPlugin.setProperty("config.claims_to_verify", "exp");
+            serviceInfo.addPlugin(jwtPlugin);
+        }
+        RequestMappingScanner scanner = requestMappingScanner.getIfAvailable();
+        if (mappedRoutes) {
+            if (scanner == null) {
+                throw new ValidationException("com.microkubes.service.mapped-routes requires Spring Web");
+            }
+            List<String> opaque = scanner.findOpaqueHandlerMappings();
+            ServiceRoute[] routes = opaque.isEmpty() ? scanner.scanRoutes() : new ServiceRoute[0];
+            if (!opaque.isEmpty()) {
+                logger.warn("The endpoints of the handler mappings {} cannot be listed, every request under {} is " +
+                        "routed to the service.", opaque, Arrays.toString(servicePaths));
+            } else if (routes.length == 0) {
+                logger.warn("No request mappings found, every request under {} is routed to the service.",
+                        Arrays.toString(servicePaths));
+            }
+            for (ServiceRoute route : routes) {
+                serviceInfo.addRoute(route);
+            }
+        }
+        if (responseCaching && scanner != null) {
+            for (CachedRoute cachedRoute : scanner.scanCachedRoutes()) {
+                serviceInfo.addCachedRoute(cachedRoute);
+            }
+        }
 
         return serviceInfo.getServiceInfo();
     }
 
-    private void defineAdapters() {
-        if (gatewayAdapters.size() > 0) {
-            return;
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "com.microkubes.gateway", name = "plugins-refresh", havingValue = "true")
+    public PluginsRefresher getPluginsRefresher(ServiceRegistry serviceRegistry, ServiceInfo serviceInfo,
+                                                ConfigurableEnvironment environment) {
+        PluginsRefresher refresher = new PluginsRefresher(servicePlugins, serviceRegistry, serviceInfo,
+                pluginsRefreshDebounce);
+        if (pluginsFile != null && !"".equals(pluginsFile)) {
+            refresher.watch(new File(pluginsFile), environment, pluginsFileInterval);
+        }
+        return refresher;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "com.microkubes.gateway", name = "jwt-validation", havingValue = "true")
+    public JwtCredential getJwtCredential() throws ValidationException {
+        return new JwtCredential(jwtConsumer, jwtKey, jwtAlgorithm, readPublicKeyPem());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "com.microkubes.gateway", name = "jwt-validation", havingValue = "true")
+    public KongJwtProvisioner getKongJwtProvisioner() {
+        return new KongJwtProvisioner(apiGatewayURL);
+    }
+
+    /**
+     * Reads the public key of the service and re-encodes it as a standard <code>PUBLIC KEY</code> PEM, as expected
+     * by the API Gateway.
+     *
+     * @return the PEM encoded public key.
+     * @throws ValidationException if the public key path is not set or the key cannot be read.
+     */
+    private String readPublicKeyPem() throws ValidationException {
+        if (publicKeyPath == null || "".equals(publicKeyPath)) {
+            throw new ValidationException("com.microkubes.security.public_key.path is required for JWT validation");
+        }
+        try (PemReader reader = new PemReader(new FileReader(publicKeyPath))) {
+            PemObject pem = reader.readPemObject();
+            if (pem == null) {
+                throw new ValidationException("no PEM object found in " + publicKeyPath);
+            }
+            StringWriter out = new StringWriter();
+            try (PemWriter writer = new PemWriter(out)) {
+                writer.writeObject(new PemObject("PUBLIC KEY", pem.getContent()));
+            }
+            return out.toString();
+        } catch (IOException e) {
+            throw new ValidationException("failed to read public key", e);
         }
-        gatewayAdapters.put("kong-v0", KongServiceRegistry.class);
-        gatewayAdapters.put("kong-v2", Kong2ServiceRegistry.class);
     }
 }
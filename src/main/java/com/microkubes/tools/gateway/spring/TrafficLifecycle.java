@@ -0,0 +1,277 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.AdaptiveWeights;
+import com.microkubes.tools.gateway.CanaryRelease;
+import com.microkubes.tools.gateway.InFlightRequests;
+import com.microkubes.tools.gateway.LoadSampler;
+import com.microkubes.tools.gateway.ServiceInfo;
+import com.microkubes.tools.gateway.ServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shapes the traffic to this service instance on the API Gateway during its lifecycle.
+ * <p>
+ * On start, the instance is added to the service upstream with a low weight, which is then increased in steps to the
+ * full weight over the slow-start window, giving the JVM time to warm up before it takes its full share of the
+ * requests. When the application context is closed, the weight is set to 0, the requests in flight are drained and
+ * only then the instance is removed from the upstream.
+ * <p>
+ * With adaptive weights, the weight is adjusted to the load of the instance after the slow start.
+ * <p>
+ * With a canary release, the weight is scaled to the share of the requests of the version of the instance, and scaled
+ * again whenever the traffic split or the instances change.
+ */
+public class TrafficLifecycle implements ApplicationListener<ContextClosedEvent>, Closeable {
+
+    private final ServiceRegistry serviceRegistry;
+    private final ServiceInfo serviceInfo;
+    private final InFlightRequests inFlightRequests;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private int weight = 100;
+    private int slowStartWeight = 10;
+    private long slowStartWindow = 60000;
+    private int slowStartSteps = 10;
+    private long drainQuietPeriod = 5000;
+    private long drainTimeout = 20000;
+
+    private AdaptiveWeights adaptiveWeights;
+    private LoadSampler loadSampler;
+    private long adaptiveInterval;
+
+    private CanaryRelease canary;
+    private long canaryInterval;
+    private Integer canaryTraffic;
+    private int currentWeight;
+
+    private static Logger logger = LoggerFactory.getLogger(TrafficLifecycle.class);
+
+    /**
+     * Creates new traffic lifecycle for a service instance.
+     *
+     * @param serviceRegistry  the registry to register the service and set the instance weights on.
+     * @param serviceInfo      the service, with the upstream set.
+     * @param inFlightRequests the requests in flight, counted by {@link InFlightRequestsFilter} or
+     *                         {@link InFlightRequestsWebFilter}.
+     */
+    public TrafficLifecycle(ServiceRegistry serviceRegistry, ServiceInfo serviceInfo,
+                            InFlightRequests inFlightRequests) {
+        this.serviceRegistry = serviceRegistry;
+        this.serviceInfo = serviceInfo;
+        this.inFlightRequests = inFlightRequests;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "traffic-lifecycle");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds the instance to the upstream with the slow-start weight, registers the service and starts increasing the
+     * weight.
+     */
+    public void start() {
+        if (canary != null) {
+            startCanary();
+        }
+        boolean slowStart = slowStartWindow > 0 && slowStartSteps > 0 && slowStartWeight < weight;
+        currentWeight = slowStart ? slowStartWeight : weight;
+        serviceRegistry.setTargetWeight(serviceInfo, scaled(currentWeight));
+        serviceRegistry.register(serviceInfo);
+        long adaptiveDelay = 0;
+        if (slowStart) {
+            for (int step = 1; step <= slowStartSteps; step++) {
+                int stepWeight = rampWeight(step);
+                scheduler.schedule(() -> applyWeight(stepWeight), slowStartWindow * step / slowStartSteps,
+                        TimeUnit.MILLISECONDS);
+            }
+            adaptiveDelay = slowStartWindow;
+            logger.info("Service {}: slow start from weight {} to {} in {} ms.", serviceInfo.getName(),
+                    slowStartWeight, weight, slowStartWindow);
+        }
+        if (adaptiveWeights != null) {
+            scheduler.scheduleAtFixedRate(this::adaptWeight, adaptiveDelay + adaptiveInterval, adaptiveInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void startCanary() {
+        String version = serviceInfo.getVersion();
+        if (canaryTraffic != null && !canary.getSplit().containsKey(version)) {
+            canary.setTraffic(version, canaryTraffic);
+            logger.info("Service {}: version {} receives {}% of the requests.", serviceInfo.getName(), version,
+                    canaryTraffic);
+        }
+        canary.refresh();
+        scheduler.scheduleWithFixedDelay(this::refreshCanary, canaryInterval, canaryInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshCanary() {
+        try {
+            if (canary.refresh()) {
+                applyWeight(currentWeight);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read the traffic split of service {}: {}", serviceInfo.getName(), e.getMessage());
+        }
+    }
+
+    private int scaled(int weight) {
+        return canary != null ? canary.scaledWeight(weight) : weight;
+    }
+
+    /**
+     * The weight after the given step of the slow start. The weight increases linearly.
+     *
+     * @param step the step, from 1 to the number of steps.
+     * @return the weight of the instance.
+     */
+    int rampWeight(int step) {
+        return slowStartWeight + (int) ((long) (weight - slowStartWeight) * step / slowStartSteps);
+    }
+
+    private synchronized void applyWeight(int stepWeight) {
+        if (draining.get()) {
+            return;
+        }
+        currentWeight = stepWeight;
+        try {
+            serviceRegistry.setTargetWeight(serviceInfo, scaled(stepWeight));
+        } catch (RuntimeException e) {
+            // the next step sets a higher weight anyway
+            logger.warn("Failed to set the weight of service {} to {}: {}", serviceInfo.getName(), stepWeight,
+                    e.getMessage());
+        }
+    }
+
+    private void adaptWeight() {
+        try {
+            LoadSampler.Sample sample = loadSampler.sample();
+            int current = adaptiveWeights.getWeight();
+            int next = adaptiveWeights.next(sample, TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+            if (next != current) {
+                logger.info("Service {}: weight {} -> {} ({}).", serviceInfo.getName(), current, next, sample);
+                applyWeight(next);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to adapt the weight of service {}: {}", serviceInfo.getName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        drain();
+    }
+
+    /**
+     * Stops new requests to this instance, waits for the requests in flight to complete (up to the drain timeout)
+     * and removes the instance from the upstream. Subsequent calls have no effect.
+     */
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            synchronized (this) {
+                // a slow-start step in progress must not override the weight
+                serviceRegistry.setTargetWeight(serviceInfo, 0);
+            }
+            if (!inFlightRequests.awaitIdle(drainQuietPeriod, drainTimeout)) {
+                logger.warn("Service {}: {} requests still in flight after {} ms.", serviceInfo.getName(),
+                        inFlightRequests.get(), drainTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to drain service {}: {}", serviceInfo.getName(), e.getMessage());
+        }
+        try {
+            serviceRegistry.removeTarget(serviceInfo);
+            logger.info("Service {}: target {} drained and removed.", serviceInfo.getName(), serviceInfo.getTarget());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to remove the target of service {}: {}", serviceInfo.getName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Sets the full weight of the instance.
+     *
+     * @param weight the weight after the slow start.
+     */
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Configures the slow start. A window or number of steps of 0 disables the slow start.
+     *
+     * @param initialWeight the weight the instance is registered with.
+     * @param window        the time (in milliseconds) to reach the full weight.
+     * @param steps         the number of weight increases.
+     */
+    public void setSlowStart(int initialWeight, long window, int steps) {
+        this.slowStartWeight = initialWeight;
+        this.slowStartWindow = window;
+        this.slowStartSteps = steps;
+    }
+
+    /**
+     * Configures the draining on shutdown.
+     *
+     * @param quietPeriod the time (in milliseconds) without requests after which the instance is considered drained.
+     * @param timeout     the maximal time (in milliseconds) to wait for the requests in flight.
+     */
+    public void setDrain(long quietPeriod, long timeout) {
+        this.drainQuietPeriod = quietPeriod;
+        this.drainTimeout = timeout;
+    }
+
+    /**
+     * Adjusts the weight of the instance to its load after the slow start.
+     *
+     * @param adaptiveWeights the weight policy; its maximal weight should be the full weight of the instance.
+     * @param loadSampler     the sampler of the instance load.
+     * @param interval        how often (in milliseconds) to sample the load.
+     */
+    public void setAdaptiveWeights(AdaptiveWeights adaptiveWeights, LoadSampler loadSampler, long interval) {
+        this.adaptiveWeights = adaptiveWeights;
+        this.loadSampler = loadSampler;
+        this.adaptiveInterval = interval;
+    }
+
+    /**
+     * Scales the weight of the instance to the share of the requests of its version. Ignored, with a warning, if the
+     * service registry does not support versions.
+     *
+     * @param canary   the canary release of the service.
+     * @param interval how often (in milliseconds) to read the traffic split and the instances of each version.
+     * @param traffic  the share of the requests (in percent) assigned to the version of the instance when it is not
+     *                 in the traffic split yet, or null to leave the split as it is.
+     */
+    public void setCanary(CanaryRelease canary, long interval, Integer traffic) {
+        if (!serviceRegistry.supportsVersions()) {
+            logger.warn("Service {}: versions are not supported by {}, the weight is not split between versions.",
+                    serviceInfo.getName(), serviceRegistry.getClass().getSimpleName());
+            return;
+        }
+        this.canary = canary;
+        this.canaryInterval = interval;
+        this.canaryTraffic = traffic;
+    }
+}
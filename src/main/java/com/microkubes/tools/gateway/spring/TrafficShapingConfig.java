@@ -0,0 +1,97 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.AdaptiveWeights;
+import com.microkubes.tools.gateway.CanaryRelease;
+import com.microkubes.tools.gateway.InFlightRequests;
+import com.microkubes.tools.gateway.LoadSampler;
+import com.microkubes.tools.gateway.ServiceInfo;
+import com.microkubes.tools.gateway.ServiceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Slow start on registration, adaptive weights, canary releases and draining on shutdown of the service instance on
+ * the API Gateway.
+ * The requests in flight are tracked by {@link RequestTrackingConfig}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "com.microkubes.gateway", name = "traffic-shaping", havingValue = "true")
+public class TrafficShapingConfig {
+
+    @Value("${com.microkubes.gateway.target-weight:100}")
+    private Integer weight;
+    @Value("${com.microkubes.gateway.slow-start-weight:10}")
+    private Integer slowStartWeight;
+    @Value("${com.microkubes.gateway.slow-start-window:60000}")
+    private Long slowStartWindow;
+    @Value("${com.microkubes.gateway.slow-start-steps:10}")
+    private Integer slowStartSteps;
+    @Value("${com.microkubes.gateway.drain-quiet-period:5000}")
+    private Long drainQuietPeriod;
+    @Value("${com.microkubes.gateway.drain-timeout:20000}")
+    private Long drainTimeout;
+
+    // Adaptive weights
+    @Value("${com.microkubes.gateway.adaptive-weights:false}")
+    private Boolean adaptiveWeights;
+    @Value("${com.microkubes.gateway.adaptive-weights-interval:5000}")
+    private Long adaptiveInterval;
+    @Value("${com.microkubes.gateway.adaptive-weights-min:10}")
+    private Integer adaptiveMinWeight;
+    @Value("${com.microkubes.gateway.adaptive-weights-hysteresis:10}")
+    private Integer adaptiveHysteresis;
+    @Value("${com.microkubes.gateway.adaptive-weights-max-step:20}")
+    private Integer adaptiveMaxStep;
+    @Value("${com.microkubes.gateway.adaptive-weights-cooldown:30000}")
+    private Long adaptiveCooldown;
+    @Value("${com.microkubes.gateway.adaptive-weights-latency-tolerance:1.5}")
+    private Double latencyTolerance;
+    @Value("${com.microkubes.gateway.adaptive-weights-max-in-flight:100}")
+    private Integer maxInFlight;
+    @Value("${com.microkubes.gateway.adaptive-weights-cpu-threshold:0.75}")
+    private Double cpuThreshold;
+    @Value("${com.microkubes.gateway.adaptive-weights-gc-threshold:0.05}")
+    private Double gcThreshold;
+
+    // Traffic split between versions
+    @Value("${com.microkubes.gateway.canary-traffic:-1}")
+    private Integer canaryTraffic;
+    @Value("${com.microkubes.gateway.canary-interval:5000}")
+    private Long canaryInterval;
+
+    @Bean
+    @ConditionalOnProperty(prefix = "com.microkubes.service", name = "version")
+    public CanaryRelease getCanaryRelease(ServiceRegistry serviceRegistry, ServiceInfo serviceInfo) {
+        return new CanaryRelease(serviceRegistry, serviceInfo);
+    }
+
+    @Bean(destroyMethod = "close")
+    public TrafficLifecycle getTrafficLifecycle(ServiceRegistry serviceRegistry, ServiceInfo serviceInfo,
+                                                InFlightRequests inFlightRequests,
+                                                ObjectProvider<CanaryRelease> canaryRelease) {
+        TrafficLifecycle lifecycle = new TrafficLifecycle(serviceRegistry, serviceInfo, inFlightRequests);
+        lifecycle.setWeight(weight);
+        lifecycle.setSlowStart(slowStartWeight, slowStartWindow, slowStartSteps);
+        lifecycle.setDrain(drainQuietPeriod, drainTimeout);
+        if (adaptiveWeights) {
+            AdaptiveWeights weights = new AdaptiveWeights(adaptiveMinWeight, weight);
+            weights.setHysteresis(adaptiveHysteresis);
+            weights.setMaxStep(adaptiveMaxStep);
+            weights.setCooldown(adaptiveCooldown);
+            weights.setLatencyTolerance(latencyTolerance);
+            weights.setMaxInFlight(maxInFlight);
+            weights.setCpuThreshold(cpuThreshold);
+            weights.setGcThreshold(gcThreshold);
+            // 0.3: the average follows a change of the latency within a few intervals
+            lifecycle.setAdaptiveWeights(weights, new LoadSampler(inFlightRequests, 0.3), adaptiveInterval);
+        }
+        CanaryRelease canary = canaryRelease.getIfAvailable();
+        if (canary != null) {
+            lifecycle.setCanary(canary, canaryInterval, canaryTraffic >= 0 ? canaryTraffic : null);
+        }
+        return lifecycle;
+    }
+}
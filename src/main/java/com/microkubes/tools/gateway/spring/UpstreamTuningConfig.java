@@ -0,0 +1,56 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.InFlightRequests;
+import com.microkubes.tools.gateway.LatencyHistogram;
+import com.microkubes.tools.gateway.ServiceInfo;
+import com.microkubes.tools.gateway.ServiceRegistry;
+import com.microkubes.tools.gateway.UpstreamTuning;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Upstream read timeout and retries derived from the measured response times of the service.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "com.microkubes.gateway", name = "upstream-tuning", havingValue = "true")
+public class UpstreamTuningConfig {
+
+    // the configured values are the upper bounds
+    @Value("${com.microkubes.service.upstream-read-timeout:60000}")
+    private Integer maxReadTimeout;
+    @Value("${com.microkubes.service.retries:5}")
+    private Integer maxRetries;
+
+    @Value("${com.microkubes.gateway.upstream-tuning-percentile:99.9}")
+    private Double percentile;
+    @Value("${com.microkubes.gateway.upstream-tuning-headroom:2.0}")
+    private Double headroom;
+    @Value("${com.microkubes.gateway.upstream-tuning-min-read-timeout:1000}")
+    private Integer minReadTimeout;
+    @Value("${com.microkubes.gateway.upstream-tuning-min-samples:1000}")
+    private Long minSamples;
+    @Value("${com.microkubes.gateway.upstream-tuning-retry-budget:0.1}")
+    private Double retryBudget;
+    @Value("${com.microkubes.gateway.upstream-tuning-interval:60000}")
+    private Long interval;
+
+    @Bean
+    public LatencyHistogram getLatencyHistogram() {
+        return new LatencyHistogram();
+    }
+
+    @Bean(destroyMethod = "close")
+    public UpstreamTuningRefresher getUpstreamTuningRefresher(InFlightRequests inFlightRequests,
+                                                              ServiceRegistry serviceRegistry,
+                                                              ServiceInfo serviceInfo) {
+        UpstreamTuning tuning = new UpstreamTuning(maxReadTimeout, maxRetries);
+        tuning.setPercentile(percentile);
+        tuning.setHeadroom(headroom);
+        tuning.setMinReadTimeout(minReadTimeout);
+        tuning.setMinSamples(minSamples);
+        tuning.setRetryBudget(retryBudget);
+        return new UpstreamTuningRefresher(tuning, inFlightRequests, serviceRegistry, serviceInfo, interval);
+    }
+}
@@ -0,0 +1,145 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.InFlightRequests;
+import com.microkubes.tools.gateway.LatencyHistogram;
+import com.microkubes.tools.gateway.ServiceInfo;
+import com.microkubes.tools.gateway.ServiceRegistry;
+import com.microkubes.tools.gateway.UpstreamTuning;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the upstream read timeout and retries recommended by {@link UpstreamTuning} to the service definition, at
+ * registration and periodically afterwards.
+ * <p>
+ * Each recommendation is made from the requests since the previous one. The requests are accumulated until there are
+ * enough of them, and the service definition is pushed to the API Gateway only when the values change (the read
+ * timeout by more than 20%). Only the read timeout and the retries are pushed, with
+ * {@link ServiceRegistry#updateUpstreamSettings(ServiceInfo)}.
+ * <p>
+ * The values are derived from the response times of this instance, but are set on the service, which all instances
+ * share: with several tuned instances, the last one to push its values wins.
+ */
+public class UpstreamTuningRefresher implements Closeable {
+
+    static final String READ_TIMEOUT = "upstream_read_timeout";
+    static final String RETRIES = "retries";
+    // larger than the 12.5% resolution of the histogram
+    private static final double MIN_CHANGE = 0.2;
+
+    private final UpstreamTuning tuning;
+    private final InFlightRequests requests;
+    private final ServiceRegistry serviceRegistry;
+    private final ServiceInfo serviceInfo;
+    private final long interval;
+    private final ScheduledExecutorService scheduler;
+
+    private LatencyHistogram.Snapshot windowStart;
+    private long failuresAtWindowStart;
+    private boolean pushPending;
+
+    private static Logger logger = LoggerFactory.getLogger(UpstreamTuningRefresher.class);
+
+    /**
+     * Creates new refresher.
+     *
+     * @param tuning          the upstream tuning.
+     * @param requests        the requests of the service, recording the response times into a histogram.
+     * @param serviceRegistry the registry to push the service definition to.
+     * @param serviceInfo     the service.
+     * @param interval        the time (in milliseconds) between two refreshes.
+     */
+    public UpstreamTuningRefresher(UpstreamTuning tuning, InFlightRequests requests, ServiceRegistry serviceRegistry,
+                                   ServiceInfo serviceInfo, long interval) {
+        if (requests.getHistogram() == null) {
+            throw new IllegalArgumentException("the response times of the requests are not recorded");
+        }
+        this.tuning = tuning;
+        this.requests = requests;
+        this.serviceRegistry = serviceRegistry;
+        this.serviceInfo = serviceInfo;
+        this.interval = interval;
+        this.windowStart = requests.getHistogram().snapshot();
+        this.failuresAtWindowStart = requests.getFailed();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "upstream-tuning");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts refreshing the service definition periodically. Called once the service is registered.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to update the upstream settings of service {}: {}", serviceInfo.getName(),
+                        e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies the recommended values to the service definition, without pushing it to the API Gateway. Called before
+     * the service is registered.
+     *
+     * @return true if the service definition changed.
+     */
+    public synchronized boolean tune() {
+        LatencyHistogram.Snapshot now = requests.getHistogram().snapshot();
+        long failures = requests.getFailed();
+        UpstreamTuning.Recommendation recommendation = tuning.recommend(now.since(windowStart),
+                failures - failuresAtWindowStart);
+        if (recommendation == null) {
+            return false;
+        }
+        windowStart = now;
+        failuresAtWindowStart = failures;
+        if (!readTimeoutChanged(serviceInfo.getProperties().get(READ_TIMEOUT), recommendation.getReadTimeout())
+                && Objects.equals(serviceInfo.getProperties().get(RETRIES), recommendation.getRetries())) {
+            return false;
+        }
+        serviceInfo.getProperties().put(READ_TIMEOUT, recommendation.getReadTimeout());
+        serviceInfo.getProperties().put(RETRIES, recommendation.getRetries());
+        logger.info("Service {}: {}", serviceInfo.getName(), recommendation);
+        return true;
+    }
+
+    private static boolean readTimeoutChanged(Object current, int recommended) {
+        if (!(current instanceof Integer)) {
+            return true;
+        }
+        // small changes are not worth an update of the gateway
+        return Math.abs(recommended - (Integer) current) > (Integer) current * MIN_CHANGE;
+    }
+
+    /**
+     * Applies the recommended values and pushes them to the API Gateway if they changed.
+     *
+     * @return true if the service definition was updated.
+     */
+    public synchronized boolean refresh() {
+        if (!tune() && !pushPending) {
+            return false;
+        }
+        // pushed again on the next refresh if it fails
+        pushPending = true;
+        serviceRegistry.updateUpstreamSettings(serviceInfo);
+        pushPending = false;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,106 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.mashape.unirest.http.HttpMethod;
+import com.microkubes.tools.gateway.ServiceWarmUp;
+import com.microkubes.tools.gateway.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.AbstractEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Warm-up of the service endpoints before the service is registered on the API Gateway.
+ * <p>
+ * The warm-up requests are configured with properties in the form of
+ * <code>com.microkubes.service.warm-up.requests.&lt;name&gt;.&lt;attribute&gt;</code>, where the attribute is one of
+ * <code>method</code>, <code>path</code>, <code>body</code>, <code>content-type</code> or
+ * <code>header.&lt;header-name&gt;</code>.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "com.microkubes.service.warm-up", name = "enabled", havingValue = "true")
+public class WarmUpConfig {
+
+    static final String REQUESTS_PREFIX = "com.microkubes.service.warm-up.requests.";
+
+    @Value("${com.microkubes.service.port}")
+    private Integer servicePort;
+    @Value("${com.microkubes.service.warm-up.host:localhost}")
+    private String host;
+    @Value("${com.microkubes.service.warm-up.iterations:100}")
+    private Integer iterations;
+    @Value("${com.microkubes.service.warm-up.duration:0}")
+    private Long duration;
+
+    @Bean
+    public ServiceWarmUp getServiceWarmUp(Environment environment) throws ValidationException {
+        List<ServiceWarmUp.Request> requests = getWarmUpRequests(environment);
+        if (requests.isEmpty()) {
+            throw new ValidationException("no warm-up requests configured (" + REQUESTS_PREFIX + "<name>.path)");
+        }
+        return new ServiceWarmUp(String.format("http://%s:%d", host, servicePort), requests, iterations, duration);
+    }
+
+    /**
+     * Reads the warm-up requests from the environment, ordered by name.
+     *
+     * @param env the environment.
+     * @return the configured warm-up requests.
+     * @throws ValidationException if a request has no path or an unknown HTTP method.
+     */
+    static List<ServiceWarmUp.Request> getWarmUpRequests(Environment env) throws ValidationException {
+        Map<String, Map<String, String>> attributes = new TreeMap<>();
+        if (env instanceof AbstractEnvironment) {
+            for (PropertySource<?> propertySource : ((AbstractEnvironment) env).getPropertySources()) {
+                if (!(propertySource instanceof MapPropertySource)) {
+                    continue;
+                }
+                for (String name : ((MapPropertySource) propertySource).getSource().keySet()) {
+                    if (!name.startsWith(REQUESTS_PREFIX)) {
+                        continue;
+                    }
+                    String key = name.substring(REQUESTS_PREFIX.length());
+                    int separator = key.indexOf('.');
+                    if (separator > 0) {
+                        attributes.computeIfAbsent(key.substring(0, separator), k -> new TreeMap<>())
+                                .putIfAbsent(key.substring(separator + 1), env.getProperty(name));
+                    }
+                }
+            }
+        }
+        List<ServiceWarmUp.Request> requests = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> entry : attributes.entrySet()) {
+            Map<String, String> attrs = entry.getValue();
+            String path = attrs.get("path");
+            if (path == null || "".equals(path)) {
+                throw new ValidationException("warm-up request " + entry.getKey() + " has no path");
+            }
+            String method = attrs.getOrDefault("method", "GET");
+            try {
+                HttpMethod.valueOf(method.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException(REQUESTS_PREFIX + entry.getKey() + ".method: unknown HTTP method " +
+                        method);
+            }
+            ServiceWarmUp.Request request = new ServiceWarmUp.Request(entry.getKey(), method, path, attrs.get("body"));
+            if (request.getBody() != null) {
+                request.header("Content-Type", attrs.getOrDefault("content-type", "application/json"));
+            }
+            for (Map.Entry<String, String> attribute : attrs.entrySet()) {
+                if (attribute.getKey().startsWith("header.")) {
+                    request.header(attribute.getKey().substring("header.".length()), attribute.getValue());
+                }
+            }
+            requests.add(request);
+        }
+        return requests;
+    }
+}
@@ -1,5 +1,6 @@
 package com.microkubes.tools.security;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
 
@@ -8,7 +9,9 @@ import java.util.Objects;
  * Holds the data for the authenticated and authorized user on the platform.
  * The data is extracted usually from the JWT by the security chain mechanism.
  */
-public class Auth {
+public class Auth implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String email;
     private String userId;
     private List<String> roles;
@@ -0,0 +1,275 @@
+package com.microkubes.tools.security;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary codec for {@link Auth}, for storing the authentication in session caches or passing it between
+ * services.
+ * <p>
+ * The fields are written with the {@link CompactEncoding} primitives. Roles present in the role dictionary are written
+ * as their index in the dictionary instead of the role name. The encoder and the decoder must use the same dictionary;
+ * new roles can be appended to the end of the dictionary without breaking the already encoded data.
+ * <p>
+ * An encoded value starts with a header byte holding the format version and flags. If compression is enabled, bodies
+ * longer than the compression threshold are compressed with Deflate, but only kept compressed if that makes them
+ * smaller.
+ * <p>
+ * The codec is thread-safe.
+ */
+public class AuthCodec {
+
+    /**
+     * The format version written in the header.
+     */
+    public static final int VERSION = 1;
+
+    private static final int FLAG_DEFLATED = 0x01;
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 256;
+    private static final int MAX_INFLATED_SIZE = 1 << 20;
+
+    private final List<String> roleDictionary;
+    private final Map<String, Integer> roleIds;
+    private final boolean compress;
+    private final int compressionThreshold;
+
+    /**
+     * Creates new codec without a role dictionary and without compression.
+     */
+    public AuthCodec() {
+        this(Collections.emptyList(), false);
+    }
+
+    /**
+     * Creates new codec.
+     *
+     * @param roleDictionary the well-known roles, written as their index in this list.
+     * @param compress       whether to compress larger values.
+     */
+    public AuthCodec(Collection<String> roleDictionary, boolean compress) {
+        this(roleDictionary, compress, DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * Creates new codec.
+     *
+     * @param roleDictionary       the well-known roles, written as their index in this list.
+     * @param compress             whether to compress larger values.
+     * @param compressionThreshold the minimal size of the body (in bytes) to try to compress.
+     */
+    public AuthCodec(Collection<String> roleDictionary, boolean compress, int compressionThreshold) {
+        this.roleDictionary = Collections.unmodifiableList(new ArrayList<>(roleDictionary));
+        this.roleIds = new HashMap<>();
+        for (int i = 0; i < this.roleDictionary.size(); i++) {
+            roleIds.putIfAbsent(this.roleDictionary.get(i), i);
+        }
+        this.compress = compress;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * Encodes the {@link Auth} object.
+     *
+     * @param auth the auth to encode.
+     * @return the encoded bytes.
+     */
+    public byte[] encode(Auth auth) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        write(auth, out);
+        return frame(out.toByteArray());
+    }
+
+    /**
+     * Decodes an {@link Auth} object.
+     *
+     * @param data the encoded bytes.
+     * @return the decoded auth.
+     * @throws IllegalArgumentException if the data is not a valid encoded Auth.
+     */
+    public Auth decode(byte[] data) {
+        ByteBuffer in = unframe(data);
+        Auth auth = read(in);
+        checkFullyRead(in);
+        return auth;
+    }
+
+    /**
+     * Writes the fields of the {@link Auth} object, without the header. Used to embed the Auth in other encoded
+     * values.
+     *
+     * @param auth the auth to write.
+     * @param out  the output.
+     */
+    public void write(Auth auth, ByteArrayOutputStream out) {
+        CompactEncoding.writeString(out, auth.getEmail());
+        CompactEncoding.writeString(out, auth.getUserId());
+        writeRoles(out, auth.getRoles());
+        CompactEncoding.writeStrings(out, auth.getOrganizations());
+        CompactEncoding.writeStrings(out, auth.getNamespaces());
+    }
+
+    /**
+     * Reads the fields of an {@link Auth} object written by {@link #write(Auth, ByteArrayOutputStream)}.
+     *
+     * @param in the input.
+     * @return the auth read.
+     */
+    public Auth read(ByteBuffer in) {
+        String email = CompactEncoding.readString(in);
+        String userId = CompactEncoding.readString(in);
+        List<String> roles = readRoles(in);
+        List<String> organizations = CompactEncoding.readStrings(in);
+        List<String> namespaces = CompactEncoding.readStrings(in);
+        return new Auth(email, userId, roles, organizations, namespaces);
+    }
+
+    /**
+     * Writes a collection of roles, replacing the roles in the dictionary with their index.
+     *
+     * @param out   the output.
+     * @param roles the roles (possibly null).
+     */
+    public void writeRoles(ByteArrayOutputStream out, Collection<String> roles) {
+        if (roles == null) {
+            out.write(0);
+            return;
+        }
+        CompactEncoding.writeVarint(out, roles.size() + 1);
+        for (String role : roles) {
+            Integer id = role == null ? null : roleIds.get(role);
+            if (id != null) {
+                CompactEncoding.writeVarint(out, id + 1);
+            } else {
+                out.write(0);
+                CompactEncoding.writeString(out, role);
+            }
+        }
+    }
+
+    /**
+     * Reads a list of roles written by {@link #writeRoles(ByteArrayOutputStream, Collection)}.
+     *
+     * @param in the input.
+     * @return the roles (possibly null).
+     */
+    public List<String> readRoles(ByteBuffer in) {
+        int size = CompactEncoding.readSize(in);
+        if (size < 0) {
+            return null;
+        }
+        List<String> roles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int id = CompactEncoding.readVarint(in) - 1;
+            if (id < 0) {
+                roles.add(CompactEncoding.readString(in));
+            } else if (id < roleDictionary.size()) {
+                roles.add(roleDictionary.get(id));
+            } else {
+                throw new IllegalArgumentException("Unknown role ID " + id);
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * Prepends the header to the encoded body, compressing the body if enabled and worthwhile.
+     *
+     * @param body the encoded body.
+     * @return the header and the (possibly compressed) body.
+     */
+    public byte[] frame(byte[] body) {
+        int flags = 0;
+        if (compress && body.length >= compressionThreshold) {
+            byte[] deflated = deflate(body);
+            if (deflated.length < body.length) {
+                body = deflated;
+                flags |= FLAG_DEFLATED;
+            }
+        }
+        byte[] framed = new byte[body.length + 1];
+        framed[0] = (byte) (VERSION << 4 | flags);
+        System.arraycopy(body, 0, framed, 1, body.length);
+        return framed;
+    }
+
+    /**
+     * Checks the header and returns the (decompressed) body.
+     *
+     * @param data the data written by {@link #frame(byte[])}.
+     * @return the body.
+     */
+    public ByteBuffer unframe(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Empty input");
+        }
+        int version = (data[0] & 0xFF) >>> 4;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported format version " + version);
+        }
+        if ((data[0] & FLAG_DEFLATED) != 0) {
+            return ByteBuffer.wrap(inflate(data, 1, data.length - 1));
+        }
+        return ByteBuffer.wrap(data, 1, data.length - 1).slice();
+    }
+
+    /**
+     * Checks that the whole input was consumed.
+     *
+     * @param in the input.
+     */
+    public static void checkFullyRead(ByteBuffer in) {
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException("Unexpected trailing bytes");
+        }
+    }
+
+    private static byte[] deflate(byte[] body) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(body);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+            byte[] buffer = new byte[512];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length * 3);
+            byte[] buffer = new byte[512];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed input");
+                }
+                out.write(buffer, 0, n);
+                if (out.size() > MAX_INFLATED_SIZE) {
+                    throw new IllegalArgumentException("Compressed input is too large");
+                }
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Malformed compressed input", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
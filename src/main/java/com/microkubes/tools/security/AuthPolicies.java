@@ -0,0 +1,107 @@
+package com.microkubes.tools.security;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates {@link AuthPolicy} expressions, caching the compiled policies and the decisions.
+ * <p>
+ * Policy expressions usually come from annotations, so each one is parsed only once. Decisions are cached in a bounded
+ * cache keyed by the policy and the attributes of the {@link Auth} that policies check (user ID, roles, organizations
+ * and namespaces). A decision is a pure function of these, so cached decisions never go stale. Caching pays off for
+ * larger policies evaluated repeatedly for the same users; a single membership check is cheaper than the cache lookup
+ * and can be evaluated directly with {@link AuthPolicy#allows(Auth)}.
+ */
+public class AuthPolicies {
+
+    private final Map<String, AuthPolicy> policies = new ConcurrentHashMap<>();
+    private final ExpiringCache<DecisionKey, Boolean> decisions;
+
+    /**
+     * Creates new policy evaluator.
+     *
+     * @param decisionCacheSize the maximal number of cached decisions.
+     */
+    public AuthPolicies(int decisionCacheSize) {
+        this.decisions = new ExpiringCache<>(decisionCacheSize, decision -> Long.MAX_VALUE);
+    }
+
+    /**
+     * Gets the compiled policy for the expression.
+     *
+     * @param expression the policy expression.
+     * @return the compiled policy.
+     * @throws IllegalArgumentException if the expression is not valid.
+     */
+    public AuthPolicy policy(String expression) {
+        AuthPolicy policy = policies.get(expression);
+        if (policy == null) {
+            policy = AuthPolicy.parse(expression);
+            policies.putIfAbsent(expression, policy);
+        }
+        return policy;
+    }
+
+    /**
+     * Checks if the policy expression allows access for the given Auth.
+     *
+     * @param auth       the Auth object of the user (possibly null).
+     * @param expression the policy expression.
+     * @return true if access is allowed.
+     */
+    public boolean allows(Auth auth, String expression) {
+        return allows(auth, policy(expression));
+    }
+
+    /**
+     * Checks if the policy allows access for the given Auth.
+     *
+     * @param auth   the Auth object of the user (possibly null).
+     * @param policy the policy.
+     * @return true if access is allowed.
+     */
+    public boolean allows(Auth auth, AuthPolicy policy) {
+        if (auth == null) {
+            return false;
+        }
+        return decisions.get(new DecisionKey(policy, auth), key -> policy.allows(auth));
+    }
+
+    private static final class DecisionKey {
+        private final AuthPolicy policy;
+        private final String userId;
+        private final List<String> roles;
+        private final List<String> organizations;
+        private final List<String> namespaces;
+        private final int hash;
+
+        private DecisionKey(AuthPolicy policy, Auth auth) {
+            this.policy = policy;
+            this.userId = auth.getUserId();
+            this.roles = auth.getRoles();
+            this.organizations = auth.getOrganizations();
+            this.namespaces = auth.getNamespaces();
+            this.hash = Objects.hash(policy, userId, roles, organizations, namespaces);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DecisionKey)) return false;
+            DecisionKey other = (DecisionKey) o;
+            return hash == other.hash &&
+                    policy.equals(other.policy) &&
+                    Objects.equals(userId, other.userId) &&
+                    Objects.equals(roles, other.roles) &&
+                    Objects.equals(organizations, other.organizations) &&
+                    Objects.equals(namespaces, other.namespaces);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
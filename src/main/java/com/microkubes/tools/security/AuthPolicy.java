@@ -0,0 +1,274 @@
+package com.microkubes.tools.security;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Authorization policy over the {@link Auth} object.
+ * <p>
+ * Policies are composed from membership checks on the user ID, roles, organizations and namespaces, combined with
+ * <code>and</code>, <code>or</code> and <code>not</code>. They can be built in code:
+ * <pre>
+ * AuthPolicy policy = AuthPolicy.namespace("payments").and(AuthPolicy.role("admin").or(AuthPolicy.organization("acme")));
+ * </pre>
+ * or parsed from an expression with {@link #parse(String)}:
+ * <pre>
+ * AuthPolicy policy = AuthPolicy.parse("namespace:payments and (role:admin or organization:acme)");
+ * </pre>
+ * A policy compiles into a tree of predicates evaluated without any allocation. Alternatives that check the same
+ * attribute, like <code>role:admin or role:system</code>, are merged into a single check against a set of values.
+ * <p>
+ * Policies are immutable and thread-safe. Two policies are equal if their expressions are equal.
+ */
+public final class AuthPolicy {
+
+    /**
+     * The attributes of {@link Auth} that policies can check.
+     */
+    public enum Attribute {
+        // single-valued, compared directly with the accepted values
+        USER(null),
+        ROLE(Auth::getRoles),
+        ORGANIZATION(Auth::getOrganizations),
+        NAMESPACE(Auth::getNamespaces);
+
+        private final Function<Auth, List<String>> values;
+
+        Attribute(Function<Auth, List<String>> values) {
+            this.values = values;
+        }
+
+        /**
+         * The name of the attribute in policy expressions.
+         *
+         * @return the attribute name.
+         */
+        public String getName() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final AuthPolicy ALLOW_ALL = new AuthPolicy("all", auth -> true, null, null);
+
+    private final String expression;
+    private final Predicate<Auth> predicate;
+    // set for membership checks only, used to merge alternatives
+    private final Attribute attribute;
+    private final Set<String> values;
+
+    private AuthPolicy(String expression, Predicate<Auth> predicate, Attribute attribute, Set<String> values) {
+        this.expression = expression;
+        this.predicate = predicate;
+        this.attribute = attribute;
+        this.values = values;
+    }
+
+    /**
+     * Parses a policy expression.
+     * <p>
+     * The expression consists of checks in the form <code>attribute:value</code>, where the attribute is one of
+     * <code>user</code>, <code>role</code>, <code>organization</code> or <code>namespace</code>, combined with
+     * <code>and</code>, <code>or</code>, <code>not</code> and parentheses. <code>and</code> binds stronger than
+     * <code>or</code>. Values containing whitespace or parentheses must be quoted with single quotes. The expression
+     * <code>all</code> allows every authenticated user.
+     *
+     * @param expression the policy expression.
+     * @return the compiled policy.
+     * @throws IllegalArgumentException if the expression is not valid.
+     */
+    public static AuthPolicy parse(String expression) {
+        return new AuthPolicyParser(expression).parse();
+    }
+
+    /**
+     * Policy that allows every authenticated user.
+     *
+     * @return the policy.
+     */
+    public static AuthPolicy all() {
+        return ALLOW_ALL;
+    }
+
+    /**
+     * Policy that requires the user to have one of the given IDs.
+     *
+     * @param userIds the allowed user IDs.
+     * @return the policy.
+     */
+    public static AuthPolicy user(String... userIds) {
+        return anyOf(Attribute.USER, Arrays.asList(userIds));
+    }
+
+    /**
+     * Policy that requires the user to have at least one of the given roles.
+     *
+     * @param roles the roles.
+     * @return the policy.
+     */
+    public static AuthPolicy role(String... roles) {
+        return anyOf(Attribute.ROLE, Arrays.asList(roles));
+    }
+
+    /**
+     * Policy that requires the user to be a member of at least one of the given organizations.
+     *
+     * @param organizations the organizations.
+     * @return the policy.
+     */
+    public static AuthPolicy organization(String... organizations) {
+        return anyOf(Attribute.ORGANIZATION, Arrays.asList(organizations));
+    }
+
+    /**
+     * Policy that requires the user to belong to at least one of the given namespaces.
+     *
+     * @param namespaces the namespaces.
+     * @return the policy.
+     */
+    public static AuthPolicy namespace(String... namespaces) {
+        return anyOf(Attribute.NAMESPACE, Arrays.asList(namespaces));
+    }
+
+    /**
+     * Policy that requires the attribute to contain at least one of the given values.
+     *
+     * @param attribute the attribute to check.
+     * @param values    the accepted values.
+     * @return the policy.
+     */
+    public static AuthPolicy anyOf(Attribute attribute, Collection<String> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("At least one " + attribute.getName() + " is required");
+        }
+        Set<String> accepted = Collections.unmodifiableSet(new LinkedHashSet<>(values));
+        String expression = accepted.stream()
+                .map(value -> attribute.getName() + ":" + quote(value))
+                .collect(Collectors.joining(" or "));
+        if (accepted.size() > 1) {
+            expression = "(" + expression + ")";
+        }
+        Function<Auth, List<String>> extractor = attribute.values;
+        Predicate<Auth> predicate;
+        if (attribute == Attribute.USER) {
+            if (accepted.size() == 1) {
+                String value = accepted.iterator().next();
+                predicate = auth -> value.equals(auth.getUserId());
+            } else {
+                predicate = auth -> auth.getUserId() != null && accepted.contains(auth.getUserId());
+            }
+        } else if (accepted.size() == 1) {
+            String value = accepted.iterator().next();
+            predicate = auth -> {
+                List<String> actual = extractor.apply(auth);
+                return actual != null && actual.contains(value);
+            };
+        } else {
+            predicate = auth -> {
+                List<String> actual = extractor.apply(auth);
+                if (actual != null) {
+                    for (int i = 0; i < actual.size(); i++) {
+                        if (accepted.contains(actual.get(i))) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            };
+        }
+        return new AuthPolicy(expression, predicate, attribute, accepted);
+    }
+
+    /**
+     * Combines this policy with another one, requiring both.
+     *
+     * @param other the other policy.
+     * @return the combined policy.
+     */
+    public AuthPolicy and(AuthPolicy other) {
+        Predicate<Auth> left = predicate;
+        Predicate<Auth> right = other.predicate;
+        return new AuthPolicy("(" + expression + " and " + other.expression + ")",
+                auth -> left.test(auth) && right.test(auth), null, null);
+    }
+
+    /**
+     * Combines this policy with another one, requiring either.
+     *
+     * @param other the other policy.
+     * @return the combined policy.
+     */
+    public AuthPolicy or(AuthPolicy other) {
+        if (attribute != null && attribute == other.attribute) {
+            Set<String> merged = new LinkedHashSet<>(values);
+            merged.addAll(other.values);
+            return anyOf(attribute, merged);
+        }
+        Predicate<Auth> left = predicate;
+        Predicate<Auth> right = other.predicate;
+        return new AuthPolicy("(" + expression + " or " + other.expression + ")",
+                auth -> left.test(auth) || right.test(auth), null, null);
+    }
+
+    /**
+     * Negates this policy.
+     *
+     * @return the negated policy.
+     */
+    public AuthPolicy negate() {
+        Predicate<Auth> inner = predicate;
+        return new AuthPolicy("not " + expression, auth -> !inner.test(auth), null, null);
+    }
+
+    /**
+     * Evaluates the policy.
+     *
+     * @param auth the Auth object of the user (possibly null).
+     * @return true if the policy allows access. Always false for a null Auth.
+     */
+    public boolean allows(Auth auth) {
+        return auth != null && predicate.test(auth);
+    }
+
+    /**
+     * The canonical expression of this policy, which can be parsed back with {@link #parse(String)}. Composite
+     * expressions are fully parenthesized.
+     *
+     * @return the policy expression.
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return expression.equals(((AuthPolicy) o).expression);
+    }
+
+    @Override
+    public int hashCode() {
+        return expression.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static String quote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!AuthPolicyParser.isValueChar(value.charAt(i))) {
+                return "'" + value.replace("'", "''") + "'";
+            }
+        }
+        return value;
+    }
+}
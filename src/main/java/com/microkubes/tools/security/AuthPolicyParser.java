@@ -0,0 +1,146 @@
+package com.microkubes.tools.security;
+
+import java.util.Collections;
+
+/**
+ * Recursive descent parser for {@link AuthPolicy} expressions.
+ * <pre>
+ * expression := term ("or" term)*
+ * term       := factor ("and" factor)*
+ * factor     := "not" factor | "(" expression ")" | "all" | attribute ":" value
+ * </pre>
+ */
+class AuthPolicyParser {
+
+    private final String input;
+    private int position;
+
+    AuthPolicyParser(String input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Policy expression is required");
+        }
+        this.input = input;
+    }
+
+    AuthPolicy parse() {
+        AuthPolicy policy = expression();
+        skipWhitespace();
+        if (position < input.length()) {
+            throw error("Unexpected '" + input.charAt(position) + "'");
+        }
+        return policy;
+    }
+
+    static boolean isValueChar(char c) {
+        return !Character.isWhitespace(c) && c != '(' && c != ')' && c != '\'' && c != ':';
+    }
+
+    private AuthPolicy expression() {
+        AuthPolicy policy = term();
+        while (keyword("or")) {
+            policy = policy.or(term());
+        }
+        return policy;
+    }
+
+    private AuthPolicy term() {
+        AuthPolicy policy = factor();
+        while (keyword("and")) {
+            policy = policy.and(factor());
+        }
+        return policy;
+    }
+
+    private AuthPolicy factor() {
+        skipWhitespace();
+        if (keyword("not")) {
+            return factor().negate();
+        }
+        if (peek() == '(') {
+            position++;
+            AuthPolicy policy = expression();
+            skipWhitespace();
+            if (peek() != ')') {
+                throw error("Expected ')'");
+            }
+            position++;
+            return policy;
+        }
+        String name = word();
+        if ("all".equals(name) && peek() != ':') {
+            return AuthPolicy.all();
+        }
+        AuthPolicy.Attribute attribute = attribute(name);
+        if (peek() != ':') {
+            throw error("Expected ':' after '" + name + "'");
+        }
+        position++;
+        return AuthPolicy.anyOf(attribute, Collections.singletonList(value()));
+    }
+
+    private AuthPolicy.Attribute attribute(String name) {
+        for (AuthPolicy.Attribute attribute : AuthPolicy.Attribute.values()) {
+            if (attribute.getName().equals(name)) {
+                return attribute;
+            }
+        }
+        throw error("Unknown attribute '" + name + "'");
+    }
+
+    private String value() {
+        if (peek() != '\'') {
+            String value = word();
+            if (value.isEmpty()) {
+                throw error("Expected a value");
+            }
+            return value;
+        }
+        StringBuilder value = new StringBuilder();
+        position++;
+        while (position < input.length()) {
+            char c = input.charAt(position++);
+            if (c == '\'') {
+                if (peek() != '\'') {
+                    return value.toString();
+                }
+                position++;
+            }
+            value.append(c);
+        }
+        throw error("Unterminated quoted value");
+    }
+
+    private String word() {
+        skipWhitespace();
+        int start = position;
+        while (position < input.length() && isValueChar(input.charAt(position))) {
+            position++;
+        }
+        return input.substring(start, position);
+    }
+
+    private boolean keyword(String keyword) {
+        skipWhitespace();
+        int end = position + keyword.length();
+        if (input.startsWith(keyword, position) && (end == input.length() ||
+                (!isValueChar(input.charAt(end)) && input.charAt(end) != ':'))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private char peek() {
+        return position < input.length() ? input.charAt(position) : 0;
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " in policy '" + input + "'");
+    }
+}
@@ -0,0 +1,154 @@
+package com.microkubes.tools.security;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Primitives of the compact binary encoding used by {@link AuthCodec}.
+ * <p>
+ * Integers are written as unsigned variable-length integers (7 bits per byte, least significant group first).
+ * Strings are written as the varint of the UTF-8 length plus one, followed by the UTF-8 bytes; <code>0</code> stands
+ * for <code>null</code>. Collections are written the same way: the varint of the size plus one, followed by the
+ * elements.
+ */
+public final class CompactEncoding {
+
+    private CompactEncoding() {
+    }
+
+    /**
+     * Writes a non-negative integer as varint.
+     *
+     * @param out   the output.
+     * @param value the value to write.
+     */
+    public static void writeVarint(ByteArrayOutputStream out, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads a varint.
+     *
+     * @param in the input.
+     * @return the value read.
+     */
+    public static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = get(in);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Writes a nullable string.
+     *
+     * @param out   the output.
+     * @param value the string to write (possibly null).
+     */
+    public static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads a nullable string.
+     *
+     * @param in the input.
+     * @return the string read (possibly null).
+     */
+    public static String readString(ByteBuffer in) {
+        int length = readVarint(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("String length exceeds the input");
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    /**
+     * Writes a nullable collection of strings.
+     *
+     * @param out    the output.
+     * @param values the strings to write (possibly null).
+     */
+    public static void writeStrings(ByteArrayOutputStream out, Collection<String> values) {
+        if (values == null) {
+            out.write(0);
+            return;
+        }
+        writeVarint(out, values.size() + 1);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    /**
+     * Reads a nullable list of strings.
+     *
+     * @param in the input.
+     * @return the strings read (possibly null).
+     */
+    public static List<String> readStrings(ByteBuffer in) {
+        int size = readSize(in);
+        if (size < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    /**
+     * Reads the size of a nullable collection, checking that it does not exceed the remaining input.
+     *
+     * @param in the input.
+     * @return the size, or -1 for a null collection.
+     */
+    public static int readSize(ByteBuffer in) {
+        int size = readVarint(in) - 1;
+        if (size > in.remaining()) {
+            // every element takes at least one byte
+            throw new IllegalArgumentException("Collection size exceeds the input");
+        }
+        return size;
+    }
+
+    private static byte get(ByteBuffer in) {
+        try {
+            return in.get();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Unexpected end of input", e);
+        }
+    }
+}
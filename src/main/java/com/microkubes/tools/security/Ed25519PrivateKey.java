@@ -0,0 +1,117 @@
+package com.microkubes.tools.security;
+
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+
+import java.io.IOException;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Ed25519 private key, usable on all supported Java versions.
+ * <p>
+ * The signatures are computed with the Bouncy Castle Ed25519 implementation. The public key is derived once, when the
+ * key is created, so it is not recomputed for every signature.
+ */
+public final class Ed25519PrivateKey implements PrivateKey {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] rawKey;
+    private final Ed25519PublicKey publicKey;
+
+    private Ed25519PrivateKey(byte[] rawKey) {
+        if (rawKey.length != Ed25519.SECRET_KEY_SIZE) {
+            throw new IllegalArgumentException("Invalid Ed25519 private key length " + rawKey.length);
+        }
+        this.rawKey = rawKey.clone();
+        byte[] rawPublicKey = new byte[Ed25519.PUBLIC_KEY_SIZE];
+        Ed25519.generatePublicKey(this.rawKey, 0, rawPublicKey, 0);
+        this.publicKey = Ed25519PublicKey.fromRawKey(rawPublicKey);
+    }
+
+    /**
+     * Generates new random private key.
+     *
+     * @param random the source of randomness.
+     * @return the generated key.
+     */
+    public static Ed25519PrivateKey generate(SecureRandom random) {
+        byte[] rawKey = new byte[Ed25519.SECRET_KEY_SIZE];
+        random.nextBytes(rawKey);
+        return new Ed25519PrivateKey(rawKey);
+    }
+
+    /**
+     * Creates the private key from its PKCS#8 encoding.
+     *
+     * @param pkcs8 the PKCS#8 encoded key.
+     * @return the private key.
+     */
+    public static Ed25519PrivateKey fromEncoded(byte[] pkcs8) {
+        try {
+            PrivateKeyInfo info = PrivateKeyInfo.getInstance(pkcs8);
+            if (!Ed25519PublicKey.OID.equals(info.getPrivateKeyAlgorithm().getAlgorithm())) {
+                throw new IllegalArgumentException("Not an Ed25519 private key");
+            }
+            return new Ed25519PrivateKey(ASN1OctetString.getInstance(info.parsePrivateKey()).getOctets());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid Ed25519 private key", e);
+        }
+    }
+
+    /**
+     * Signs the message.
+     *
+     * @param message the message.
+     * @return the 64 bytes signature.
+     */
+    public byte[] sign(byte[] message) {
+        byte[] signature = new byte[Ed25519.SIGNATURE_SIZE];
+        Ed25519.sign(rawKey, 0, publicKey.getRawKey(), 0, message, 0, message.length, signature, 0);
+        return signature;
+    }
+
+    /**
+     * The public key matching this private key.
+     *
+     * @return the public key.
+     */
+    public Ed25519PublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return "Ed25519";
+    }
+
+    @Override
+    public String getFormat() {
+        return "PKCS#8";
+    }
+
+    @Override
+    public byte[] getEncoded() {
+        try {
+            return new PrivateKeyInfo(new AlgorithmIdentifier(Ed25519PublicKey.OID), new DEROctetString(rawKey))
+                    .getEncoded();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Ed25519PrivateKey && Arrays.equals(rawKey, ((Ed25519PrivateKey) o).rawKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(rawKey);
+    }
+}
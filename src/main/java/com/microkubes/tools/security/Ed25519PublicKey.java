@@ -0,0 +1,95 @@
+package com.microkubes.tools.security;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+
+import java.io.IOException;
+import java.security.PublicKey;
+import java.util.Arrays;
+
+/**
+ * Ed25519 public key, usable on all supported Java versions.
+ */
+public final class Ed25519PublicKey implements PublicKey {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The object identifier of the Ed25519 algorithm (RFC 8410).
+     */
+    public static final ASN1ObjectIdentifier OID = new ASN1ObjectIdentifier("1.3.101.112");
+
+    private final byte[] rawKey;
+
+    private Ed25519PublicKey(byte[] rawKey) {
+        if (rawKey.length != Ed25519.PUBLIC_KEY_SIZE) {
+            throw new IllegalArgumentException("Invalid Ed25519 public key length " + rawKey.length);
+        }
+        this.rawKey = rawKey;
+    }
+
+    static Ed25519PublicKey fromRawKey(byte[] rawKey) {
+        return new Ed25519PublicKey(rawKey.clone());
+    }
+
+    /**
+     * Creates the public key from its X.509 encoding.
+     *
+     * @param x509 the X.509 (SubjectPublicKeyInfo) encoded key.
+     * @return the public key.
+     */
+    public static Ed25519PublicKey fromEncoded(byte[] x509) {
+        SubjectPublicKeyInfo info = SubjectPublicKeyInfo.getInstance(x509);
+        if (!OID.equals(info.getAlgorithm().getAlgorithm())) {
+            throw new IllegalArgumentException("Not an Ed25519 public key");
+        }
+        return new Ed25519PublicKey(info.getPublicKeyData().getBytes());
+    }
+
+    /**
+     * Verifies the signature of the message.
+     *
+     * @param message   the message.
+     * @param signature the signature.
+     * @return true if the signature is valid.
+     */
+    public boolean verify(byte[] message, byte[] signature) {
+        return signature.length == Ed25519.SIGNATURE_SIZE &&
+                Ed25519.verify(signature, 0, rawKey, 0, message, 0, message.length);
+    }
+
+    byte[] getRawKey() {
+        return rawKey;
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return "Ed25519";
+    }
+
+    @Override
+    public String getFormat() {
+        return "X.509";
+    }
+
+    @Override
+    public byte[] getEncoded() {
+        try {
+            return new SubjectPublicKeyInfo(new AlgorithmIdentifier(OID), rawKey).getEncoded();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Ed25519PublicKey && Arrays.equals(rawKey, ((Ed25519PublicKey) o).rawKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(rawKey);
+    }
+}
@@ -0,0 +1,165 @@
+package com.microkubes.tools.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded, thread-safe cache where every value has its own expiry time.
+ * <p>
+ * Concurrent lookups of the same missing key are coalesced: only one caller runs the loader, the others wait for its
+ * result. Failed loads are not cached.
+ * <p>
+ * When the cache grows over its maximum size, expired entries are dropped first. If that is not enough, arbitrary
+ * entries are evicted until the cache is 10% under the maximum size, which keeps the eviction cost amortized without
+ * tracking the access order on every lookup.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final ToLongFunction<V> expiresAt;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Creates new cache.
+     *
+     * @param maxSize   the maximum number of entries.
+     * @param expiresAt computes the expiry time of a value, in milliseconds since the epoch.
+     */
+    public ExpiringCache(int maxSize, ToLongFunction<V> expiresAt) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Gets the cached value for the key, loading it if missing or expired.
+     *
+     * @param key    the key.
+     * @param loader loads the value for the key. Must not return null.
+     * @return the cached or loaded value.
+     */
+    public V get(K key, Function<K, V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> pending = loading.putIfAbsent(key, future);
+        if (pending != null) {
+            return await(pending);
+        }
+        try {
+            value = getIfPresent(key);
+            if (value == null) {
+                value = loader.apply(key);
+                put(key, value);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * Gets the cached value for the key.
+     *
+     * @param key the key.
+     * @return the value, or null if not cached or expired.
+     */
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Caches the value for the key. Values that have already expired are not cached.
+     *
+     * @param key   the key.
+     * @param value the value.
+     */
+    public void put(K key, V value) {
+        long expiry = expiresAt.applyAsLong(value);
+        if (expiry <= System.currentTimeMillis()) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, expiry));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Removes the cached value for the key.
+     *
+     * @param key the key.
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * The number of cached entries, including the expired entries not yet removed.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private synchronized void evict() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        int target = maxSize - maxSize / 10;
+        Iterator<K> keys = entries.keySet().iterator();
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.microkubes.tools.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RevocationFeed} that reads revoked token IDs from a local file.
+ * <p>
+ * The file contains one revoked token per line: the token ID, optionally followed by the token expiry time in seconds
+ * since the epoch, separated by whitespace or a comma. Empty lines and lines starting with <code>#</code> are ignored.
+ * <p>
+ * The file is polled periodically. Lines appended since the last poll are applied incrementally; if the file was
+ * truncated or replaced, it is read again from the start. Revocations are never dropped while the file is being read,
+ * so entries removed from the file stay revoked until the token expires.
+ */
+public class FileRevocationFeed implements RevocationFeed {
+
+    private final File file;
+    private final long refreshInterval;
+
+    private ScheduledExecutorService scheduler;
+    private RevocationList revocationList;
+    private long offset;
+    private long lastModified;
+
+    private static Logger logger = LoggerFactory.getLogger(FileRevocationFeed.class);
+
+    /**
+     * Creates new file revocation feed.
+     *
+     * @param file            the file with revoked token IDs.
+     * @param refreshInterval how often (in milliseconds) to check the file for changes.
+     */
+    public FileRevocationFeed(File file, long refreshInterval) {
+        this.file = file;
+        this.refreshInterval = refreshInterval;
+    }
+
+    @Override
+    public synchronized void start(RevocationList revocationList) {
+        this.revocationList = revocationList;
+        refresh();
+        if (refreshInterval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "revocation-feed");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::refresh, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Applies the changes in the file since the last refresh.
+     */
+    public synchronized void refresh() {
+        try {
+            if (!file.exists()) {
+                return;
+            }
+            long length = file.length();
+            if (length < offset || (length == offset && file.lastModified() != lastModified)) {
+                logger.info("Revocation file {} was replaced, reloading.", file);
+                offset = 0;
+            }
+            if (length > offset) {
+                int count = readFrom(offset);
+                logger.debug("Loaded {} revoked tokens from {}.", count, file);
+            }
+            lastModified = file.lastModified();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to refresh revoked tokens from {}: {}", file, e.getMessage());
+        }
+    }
+
+    private int readFrom(long position) throws IOException {
+        int count = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024)) {
+            long skipped = 0;
+            while (skipped < position) {
+                long n = in.skip(position - skipped);
+                if (n <= 0) {
+                    // truncated since the length check, handled on the next refresh
+                    return 0;
+                }
+                skipped += n;
+            }
+            ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+            long read = position;
+            long lineEnd = position;
+            int b;
+            while ((b = in.read()) >= 0) {
+                read++;
+                if (b == '\n') {
+                    if (parseLine(new String(line.toByteArray(), StandardCharsets.UTF_8))) {
+                        count++;
+                    }
+                    line.reset();
+                    lineEnd = read;
+                } else {
+                    line.write(b);
+                }
+            }
+            // an incomplete last line is read again on the next refresh
+            offset = lineEnd;
+        }
+        return count;
+    }
+
+    private boolean parseLine(String line) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+            return false;
+        }
+        String[] parts = line.split("[\\s,]+");
+        long expiresAt = 0;
+        if (parts.length > 1) {
+            try {
+                expiresAt = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                logger.debug("Invalid expiry time for revoked token {}", parts[0]);
+            }
+        }
+        revocationList.revoke(parts[0], expiresAt);
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.microkubes.tools.security;
+
+import java.security.Key;
+import java.security.interfaces.ECKey;
+
+/**
+ * The JWT signature algorithms supported for signing and verifying tokens, with the mapping to the Java (JCA)
+ * signature algorithms.
+ */
+public enum JwsAlgorithm {
+
+    RS256("SHA256withRSA", 0),
+    ES256("SHA256withECDSA", 32),
+    ES384("SHA384withECDSA", 48),
+    ES512("SHA512withECDSA", 66),
+    /**
+     * Ed25519 signatures (RFC 8037).
+     */
+    EdDSA("Ed25519", 0);
+
+    private final String javaName;
+    private final int ecComponentSize;
+
+    JwsAlgorithm(String javaName, int ecComponentSize) {
+        this.javaName = javaName;
+        this.ecComponentSize = ecComponentSize;
+    }
+
+    /**
+     * Detects the algorithm to use with the given key.
+     *
+     * @param key the public or private key.
+     * @return the signature algorithm.
+     * @throws IllegalArgumentException if the key type is not supported.
+     */
+    public static JwsAlgorithm forKey(Key key) {
+        String algorithm = key.getAlgorithm();
+        if ("RSA".equals(algorithm)) {
+            return RS256;
+        }
+        if (key instanceof ECKey) {
+            int fieldSize = ((ECKey) key).getParams().getCurve().getField().getFieldSize();
+            switch (fieldSize) {
+                case 256:
+                    return ES256;
+                case 384:
+                    return ES384;
+                case 521:
+                    return ES512;
+                default:
+                    throw new IllegalArgumentException("Unsupported elliptic curve with field size " + fieldSize);
+            }
+        }
+        if ("Ed25519".equals(algorithm) || "EdDSA".equals(algorithm)) {
+            return EdDSA;
+        }
+        throw new IllegalArgumentException("Unsupported key algorithm: " + algorithm);
+    }
+
+    /**
+     * The name of the signature algorithm in the Java Cryptography Architecture.
+     *
+     * @return the JCA algorithm name.
+     */
+    public String getJavaName() {
+        return javaName;
+    }
+
+    /**
+     * Whether this is an ECDSA algorithm, where the JCA (DER encoded) signature differs from the JWS signature.
+     *
+     * @return true for the ECDSA algorithms.
+     */
+    public boolean isEcdsa() {
+        return ecComponentSize > 0;
+    }
+
+    /**
+     * Converts a DER encoded ECDSA signature, as produced by the JCA, to the JWS format (the fixed size R and S values
+     * concatenated).
+     *
+     * @param der the DER encoded signature.
+     * @return the JWS signature.
+     */
+    public byte[] derToJws(byte[] der) {
+        if (der.length < 8 || der[0] != 0x30) {
+            throw new IllegalArgumentException("Invalid DER encoded ECDSA signature");
+        }
+        int offset = (der[1] & 0x80) != 0 ? 2 + (der[1] & 0x7F) : 2;
+        byte[] jws = new byte[ecComponentSize * 2];
+        offset = copyInteger(der, offset, jws, 0);
+        offset = copyInteger(der, offset, jws, ecComponentSize);
+        if (offset != der.length) {
+            throw new IllegalArgumentException("Invalid DER encoded ECDSA signature");
+        }
+        return jws;
+    }
+
+    /**
+     * Converts a JWS ECDSA signature (the fixed size R and S values concatenated) to the DER encoding expected by
+     * the JCA.
+     *
+     * @param jws the JWS signature.
+     * @return the DER encoded signature.
+     */
+    public byte[] jwsToDer(byte[] jws) {
+        if (jws.length != ecComponentSize * 2) {
+            throw new IllegalArgumentException("Invalid ECDSA signature length " + jws.length);
+        }
+        byte[] r = derInteger(jws, 0, ecComponentSize);
+        byte[] s = derInteger(jws, ecComponentSize, ecComponentSize);
+        int length = r.length + s.length;
+        int header = length > 127 ? 3 : 2;
+        byte[] der = new byte[header + length];
+        der[0] = 0x30;
+        if (length > 127) {
+            der[1] = (byte) 0x81;
+            der[2] = (byte) length;
+        } else {
+            der[1] = (byte) length;
+        }
+        System.arraycopy(r, 0, der, header, r.length);
+        System.arraycopy(s, 0, der, header + r.length, s.length);
+        return der;
+    }
+
+    private int copyInteger(byte[] der, int offset, byte[] jws, int jwsOffset) {
+        if (offset + 2 > der.length || der[offset] != 0x02) {
+            throw new IllegalArgumentException("Invalid DER encoded ECDSA signature");
+        }
+        int length = der[offset + 1] & 0xFF;
+        int start = offset + 2;
+        if (start + length > der.length) {
+            throw new IllegalArgumentException("Invalid DER encoded ECDSA signature");
+        }
+        int skip = 0;
+        while (length - skip > ecComponentSize && der[start + skip] == 0) {
+            skip++;
+        }
+        int significant = length - skip;
+        if (significant > ecComponentSize) {
+            throw new IllegalArgumentException("Invalid DER encoded ECDSA signature");
+        }
+        System.arraycopy(der, start + skip, jws, jwsOffset + ecComponentSize - significant, significant);
+        return start + length;
+    }
+
+    private static byte[] derInteger(byte[] jws, int offset, int size) {
+        int start = offset;
+        int end = offset + size;
+        while (start < end - 1 && jws[start] == 0) {
+            start++;
+        }
+        boolean pad = (jws[start] & 0x80) != 0;
+        int length = end - start + (pad ? 1 : 0);
+        byte[] integer = new byte[length + 2];
+        integer[0] = 0x02;
+        integer[1] = (byte) length;
+        System.arraycopy(jws, start, integer, pad ? 3 : 2, end - start);
+        return integer;
+    }
+}
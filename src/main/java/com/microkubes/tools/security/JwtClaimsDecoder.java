@@ -0,0 +1,184 @@
+package com.microkubes.tools.security;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Streaming decoder for the JWT payload.
+ * <p>
+ * The base64url encoded payload is decoded in a single pass straight from the token string, and the resulting JSON is
+ * read with a streaming parser. Only the configured claims are materialized, into a map pre-sized for the claim set;
+ * all other claims are skipped without building any objects for them. Parsing stops as soon as all configured claims
+ * have been read.
+ * <p>
+ * When no claim set is given, all claims are decoded. The decoded values have the same types as when the payload is
+ * parsed with Jackson's <code>ObjectMapper</code> into a {@link Map}.
+ * <p>
+ * This decoder does not verify the token signature. Instances are thread-safe.
+ */
+public class JwtClaimsDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final byte[] BASE64URL = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final Set<String> claims;
+    private final int mapCapacity;
+
+    /**
+     * Creates decoder that decodes all claims in the payload.
+     */
+    public JwtClaimsDecoder() {
+        this.claims = null;
+        this.mapCapacity = 16;
+    }
+
+    /**
+     * Creates decoder that decodes only the given claims.
+     *
+     * @param claims the names of the claims to decode.
+     */
+    public JwtClaimsDecoder(Collection<String> claims) {
+        this.claims = Collections.unmodifiableSet(new HashSet<>(claims));
+        this.mapCapacity = (int) (this.claims.size() / 0.75f) + 1;
+    }
+
+    /**
+     * The set of claims decoded by this decoder.
+     *
+     * @return the claim names, or null if all claims are decoded.
+     */
+    public Set<String> getClaims() {
+        return claims;
+    }
+
+    /**
+     * Decodes the claims from the payload of the given JWT.
+     *
+     * @param token the encoded JWT (<code>header.payload.signature</code>).
+     * @return the decoded claims.
+     * @throws IllegalArgumentException if the token is malformed or the payload is not a JSON object.
+     */
+    public Map<String, Object> decode(String token) {
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (second < 0) {
+            throw new IllegalArgumentException("JWT must have header, payload and signature");
+        }
+        return decodePayload(token, first + 1, second);
+    }
+
+    /**
+     * Decodes the claims from the base64url encoded payload found in the given range of the token.
+     *
+     * @param token the encoded JWT.
+     * @param start the index of the first character of the payload.
+     * @param end   the index after the last character of the payload.
+     * @return the decoded claims.
+     */
+    public Map<String, Object> decodePayload(String token, int start, int end) {
+        byte[] json = base64UrlDecode(token, start, end);
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("JWT payload is not a JSON object");
+            }
+            return readClaims(parser);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot parse JWT payload", e);
+        }
+    }
+
+    private Map<String, Object> readClaims(JsonParser parser) throws IOException {
+        Map<String, Object> result = new HashMap<>(mapCapacity);
+        int remaining = claims == null ? Integer.MAX_VALUE : claims.size();
+        while (remaining > 0 && parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (claims == null || claims.contains(name)) {
+                result.put(name, readValue(parser, token));
+                remaining--;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case START_ARRAY:
+                List<Object> list = new ArrayList<>();
+                for (JsonToken t = parser.nextToken(); t != JsonToken.END_ARRAY; t = parser.nextToken()) {
+                    list.add(readValue(parser, t));
+                }
+                return list;
+            case START_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    map.put(name, readValue(parser, parser.nextToken()));
+                }
+                return map;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Decodes base64url (with or without padding) directly from the characters of the given string range.
+     *
+     * @param value the string containing the encoded data.
+     * @param start the index of the first character to decode.
+     * @param end   the index after the last character to decode.
+     * @return the decoded bytes.
+     */
+    public static byte[] base64UrlDecode(String value, int start, int end) {
+        while (end > start && value.charAt(end - 1) == '=') {
+            end--;
+        }
+        int length = end - start;
+        if (length % 4 == 1) {
+            throw new IllegalArgumentException("Invalid base64url length");
+        }
+        byte[] out = new byte[length / 4 * 3 + Math.max(0, length % 4 - 1)];
+        int bits = 0;
+        int bitCount = 0;
+        int pos = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            int v = c < 128 ? BASE64URL[c] : -1;
+            if (v < 0) {
+                throw new IllegalArgumentException("Invalid base64url character: " + c);
+            }
+            bits = (bits << 6) | v;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[pos++] = (byte) (bits >> bitCount);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,120 @@
+package com.microkubes.tools.security;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.asn1.x9.X9ObjectIdentifiers;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemReader;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * Reads PEM encoded keys, detecting the key algorithm from the encoded key.
+ * <p>
+ * Private keys must be PKCS#8 encoded, and public keys X.509 (SubjectPublicKeyInfo) encoded. RSA, EC (NIST P-256,
+ * P-384 and P-521 curves) and Ed25519 keys are supported.
+ */
+public final class PemKeys {
+
+    private PemKeys() {
+    }
+
+    /**
+     * Loads the key pair from the given PEM files.
+     *
+     * @param privateKeyPath path to the PEM encoded PKCS#8 private key.
+     * @param publicKeyPath  path to the PEM encoded X.509 public key.
+     * @return the key pair.
+     * @throws IOException              if a file cannot be read.
+     * @throws GeneralSecurityException if a key is not valid.
+     */
+    public static KeyPair loadKeyPair(String privateKeyPath, String publicKeyPath)
+            throws IOException, GeneralSecurityException {
+        PublicKey publicKey;
+        try (Reader reader = new FileReader(publicKeyPath)) {
+            publicKey = readPublicKey(reader);
+        }
+        PrivateKey privateKey;
+        try (Reader reader = new FileReader(privateKeyPath)) {
+            privateKey = readPrivateKey(reader);
+        }
+        if (!publicKey.getAlgorithm().equals(privateKey.getAlgorithm())) {
+            throw new GeneralSecurityException("The public key (" + publicKey.getAlgorithm() +
+                    ") and the private key (" + privateKey.getAlgorithm() + ") do not match");
+        }
+        return new KeyPair(publicKey, privateKey);
+    }
+
+    /**
+     * Reads a PEM encoded PKCS#8 private key.
+     *
+     * @param reader the PEM source.
+     * @return the private key.
+     * @throws IOException              if the PEM cannot be read.
+     * @throws GeneralSecurityException if the key is not valid or not supported.
+     */
+    public static PrivateKey readPrivateKey(Reader reader) throws IOException, GeneralSecurityException {
+        byte[] encoded = readPem(reader);
+        ASN1ObjectIdentifier algorithm;
+        try {
+            algorithm = PrivateKeyInfo.getInstance(encoded).getPrivateKeyAlgorithm().getAlgorithm();
+        } catch (RuntimeException e) {
+            throw new GeneralSecurityException("Private key is not PKCS#8 encoded", e);
+        }
+        if (Ed25519PublicKey.OID.equals(algorithm)) {
+            return Ed25519PrivateKey.fromEncoded(encoded);
+        }
+        return KeyFactory.getInstance(keyAlgorithm(algorithm)).generatePrivate(new PKCS8EncodedKeySpec(encoded));
+    }
+
+    /**
+     * Reads a PEM encoded X.509 public key.
+     *
+     * @param reader the PEM source.
+     * @return the public key.
+     * @throws IOException              if the PEM cannot be read.
+     * @throws GeneralSecurityException if the key is not valid or not supported.
+     */
+    public static PublicKey readPublicKey(Reader reader) throws IOException, GeneralSecurityException {
+        byte[] encoded = readPem(reader);
+        ASN1ObjectIdentifier algorithm;
+        try {
+            algorithm = SubjectPublicKeyInfo.getInstance(encoded).getAlgorithm().getAlgorithm();
+        } catch (RuntimeException e) {
+            throw new GeneralSecurityException("Public key is not X.509 encoded", e);
+        }
+        if (Ed25519PublicKey.OID.equals(algorithm)) {
+            return Ed25519PublicKey.fromEncoded(encoded);
+        }
+        return KeyFactory.getInstance(keyAlgorithm(algorithm)).generatePublic(new X509EncodedKeySpec(encoded));
+    }
+
+    private static byte[] readPem(Reader reader) throws IOException {
+        PemObject pem = new PemReader(reader).readPemObject();
+        if (pem == null) {
+            throw new IOException("No PEM encoded key found");
+        }
+        return pem.getContent();
+    }
+
+    private static String keyAlgorithm(ASN1ObjectIdentifier algorithm) throws GeneralSecurityException {
+        if (PKCSObjectIdentifiers.rsaEncryption.equals(algorithm)) {
+            return "RSA";
+        }
+        if (X9ObjectIdentifiers.id_ecPublicKey.equals(algorithm)) {
+            return "EC";
+        }
+        throw new GeneralSecurityException("Unsupported key algorithm " + algorithm);
+    }
+}
@@ -0,0 +1,22 @@
+package com.microkubes.tools.security;
+
+import java.io.Closeable;
+
+/**
+ * Source of token revocations.
+ * <p>
+ * A feed delivers revoked token IDs into a {@link RevocationList}, initially and then incrementally as new
+ * revocations arrive. Implementations usually poll a file or subscribe to a message topic in the background.
+ * <p>
+ * Feeds only add revocations: the {@link RevocationList} removes the expired ones itself.
+ */
+public interface RevocationFeed extends Closeable {
+
+    /**
+     * Starts delivering revocations into the given revocation list.
+     *
+     * @param revocationList the revocation list to populate.
+     */
+    void start(RevocationList revocationList);
+
+}
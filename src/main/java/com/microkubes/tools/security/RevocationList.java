@@ -0,0 +1,142 @@
+package com.microkubes.tools.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deny-list of revoked tokens, identified by their <code>jti</code> (token ID) claim.
+ * <p>
+ * Lookups go through a compact Bloom filter first, so checking a token that was not revoked costs a few hash
+ * computations and memory reads. Only positive hits in the filter are confirmed against the exact set of revoked IDs.
+ * <p>
+ * Each revoked ID is kept until the revoked token itself expires, after which the token is rejected anyway. This keeps
+ * the memory bounded by the number of revoked tokens that are still valid, regardless of how many revocations were
+ * received over time. Expired entries are dropped by {@link #removeExpired()}, which the list runs itself when a
+ * revocation arrives and the cleanup interval has passed, so the feeds only add revocations. Without new revocations
+ * the list does not grow, and the expired entries left in it only affect tokens that are rejected anyway.
+ */
+public class RevocationList {
+
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final long defaultTtl;
+    private long cleanupInterval = 60;
+    private volatile long nextCleanup;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    /**
+     * Creates new revocation list.
+     *
+     * @param expectedEntries   the expected number of revoked, not yet expired tokens.
+     * @param falsePositiveRate the false positive rate of the Bloom filter.
+     * @param defaultTtl        how long (in seconds) to keep a revoked ID for which no expiry time is known.
+     */
+    public RevocationList(int expectedEntries, double falsePositiveRate, long defaultTtl) {
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.defaultTtl = defaultTtl;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.nextCleanup = now() + cleanupInterval;
+    }
+
+    /**
+     * Sets how often (in seconds) the expired revocations are removed. Default 60 seconds.
+     *
+     * @param cleanupInterval the cleanup interval.
+     */
+    public void setCleanupInterval(long cleanupInterval) {
+        this.cleanupInterval = cleanupInterval;
+        this.nextCleanup = now() + cleanupInterval;
+    }
+
+    /**
+     * Revokes the token with the given ID.
+     *
+     * @param jti       the token ID.
+     * @param expiresAt the expiry time of the token in seconds since the epoch, or 0 if not known.
+     */
+    public void revoke(String jti, long expiresAt) {
+        if (jti == null || jti.isEmpty()) {
+            return;
+        }
+        long now = now();
+        if (expiresAt <= 0) {
+            expiresAt = now + defaultTtl;
+        }
+        revoked.merge(jti, expiresAt, Math::max);
+        filter.add(jti);
+        if (now >= nextCleanup) {
+            removeExpired();
+        }
+    }
+
+    /**
+     * Checks if the token with the given ID has been revoked.
+     *
+     * @param jti the token ID.
+     * @return true if the token is revoked.
+     */
+    public boolean isRevoked(String jti) {
+        return jti != null && filter.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    /**
+     * Drops the revoked IDs of tokens that have already expired and rebuilds the Bloom filter from the remaining ones.
+     * The filter is resized if the number of entries has outgrown the expected number of entries. When nothing was
+     * dropped and the filter is large enough, the filter is kept as it is.
+     *
+     * @return the number of dropped IDs.
+     */
+    public synchronized int removeExpired() {
+        long now = now();
+        nextCleanup = now + cleanupInterval;
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+        int removed = before - revoked.size();
+        if (removed <= 0 && revoked.size() <= filter.getExpectedEntries()) {
+            return 0;
+        }
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2), falsePositiveRate);
+        for (String jti : revoked.keySet()) {
+            rebuilt.add(jti);
+        }
+        filter = rebuilt;
+        // pick up entries revoked while the filter was being rebuilt
+        for (String jti : revoked.keySet()) {
+            rebuilt.add(jti);
+        }
+        return Math.max(removed, 0);
+    }
+
+    /**
+     * Removes all revoked IDs.
+     */
+    public synchronized void clear() {
+        filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        revoked.clear();
+    }
+
+    /**
+     * The number of revoked IDs currently held.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * The size of the Bloom filter in bytes.
+     *
+     * @return the size of the Bloom filter.
+     */
+    public long filterSizeInBytes() {
+        return filter.sizeInBytes();
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
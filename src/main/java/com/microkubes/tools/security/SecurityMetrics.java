@@ -0,0 +1,104 @@
+package com.microkubes.tools.security;
+
+/**
+ * Records timings and rejections on the token handling path.
+ * <p>
+ * Implementations must be cheap and thread-safe, as they are called for every request. Callers check
+ * {@link #isEnabled()} before reading the clock, so the {@link #NOOP} metrics cost a single virtual call.
+ */
+public interface SecurityMetrics {
+
+    /**
+     * The stages of token handling that are timed.
+     */
+    enum Stage {
+        /**
+         * Verifying the JWT signature.
+         */
+        VERIFY,
+        /**
+         * Decoding the JWT payload into a claims map.
+         */
+        DECODE,
+        /**
+         * Converting the claims into a Spring authentication, not counting {@link #AUTH}.
+         */
+        CONVERT,
+        /**
+         * Constructing the {@link Auth} object from the claims.
+         */
+        AUTH
+    }
+
+    /**
+     * The reasons for rejecting a token.
+     */
+    enum Rejection {
+        /**
+         * The token has expired.
+         */
+        EXPIRED,
+        /**
+         * The token signature is not valid.
+         */
+        BAD_SIGNATURE,
+        /**
+         * The token could not be parsed.
+         */
+        MALFORMED,
+        /**
+         * The claims were rejected by the claims verifier, for example because the token was revoked.
+         */
+        INVALID_CLAIMS
+    }
+
+    /**
+     * Metrics that record nothing.
+     */
+    SecurityMetrics NOOP = new SecurityMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void record(Stage stage, long nanos) {
+        }
+
+        @Override
+        public void reject(Rejection reason) {
+        }
+
+        @Override
+        public void missingClaims() {
+        }
+    };
+
+    /**
+     * Whether the metrics are recorded at all.
+     *
+     * @return true if recording is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Records the time spent in a stage.
+     *
+     * @param stage the stage.
+     * @param nanos the duration in nanoseconds.
+     */
+    void record(Stage stage, long nanos);
+
+    /**
+     * Counts a rejected token.
+     *
+     * @param reason the reason for rejecting the token.
+     */
+    void reject(Rejection reason);
+
+    /**
+     * Counts an accepted token that lacks the Microkubes user claims, so the {@link Auth} built from it is empty.
+     */
+    void missingClaims();
+
+}
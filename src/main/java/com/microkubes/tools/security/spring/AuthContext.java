@@ -0,0 +1,144 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Auth;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Access to the {@link Auth} of the current request, and its propagation to other threads.
+ * <p>
+ * {@link #current()} returns the Auth bound to the current thread by one of the <code>runWith</code>/
+ * <code>callWith</code> methods, or otherwise the Auth of the authentication in Spring's
+ * {@link SecurityContextHolder}.
+ * <p>
+ * The Auth is only bound for the duration of a scope, and the previous binding is always restored when the scope ends,
+ * so nothing leaks into pooled threads. Tasks wrapped by {@link #wrap(Runnable)} and the related methods capture the
+ * current Auth when they are created and run in a scope bound to it. Only the reference to the immutable Auth is
+ * carried over: the token is not decoded again, and the Spring security context is not copied. Because the bindings
+ * are strictly scoped, they behave the same on virtual threads and map directly to scoped values.
+ */
+public final class AuthContext {
+
+    private static final ThreadLocal<Auth> CURRENT = new ThreadLocal<>();
+
+    private AuthContext() {
+    }
+
+    /**
+     * The Auth of the current request.
+     *
+     * @return the Auth, or null if there is no authenticated Microkubes user.
+     */
+    public static Auth current() {
+        Auth auth = CURRENT.get();
+        if (auth != null) {
+            return auth;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof AuthenticationHolder) {
+            return ((AuthenticationHolder) authentication).getAuth();
+        }
+        return null;
+    }
+
+    /**
+     * Runs the task with the given Auth bound to the current thread.
+     *
+     * @param auth the Auth to bind (possibly null).
+     * @param task the task to run.
+     */
+    public static void runWith(Auth auth, Runnable task) {
+        Auth previous = CURRENT.get();
+        CURRENT.set(auth);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Calls the task with the given Auth bound to the current thread.
+     *
+     * @param auth the Auth to bind (possibly null).
+     * @param task the task to call.
+     * @param <T>  the type of the result.
+     * @return the result of the task.
+     * @throws Exception if the task fails.
+     */
+    public static <T> T callWith(Auth auth, Callable<T> task) throws Exception {
+        Auth previous = CURRENT.get();
+        CURRENT.set(auth);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Wraps the task to run with the current Auth.
+     *
+     * @param task the task.
+     * @return the wrapped task.
+     */
+    public static Runnable wrap(Runnable task) {
+        Auth auth = current();
+        return () -> runWith(auth, task);
+    }
+
+    /**
+     * Wraps the task to be called with the current Auth.
+     *
+     * @param task the task.
+     * @param <T>  the type of the result.
+     * @return the wrapped task.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Auth auth = current();
+        return () -> callWith(auth, task);
+    }
+
+    /**
+     * Wraps the supplier to be called with the current Auth, e.g. for
+     * {@link java.util.concurrent.CompletableFuture#supplyAsync(Supplier, Executor)}.
+     *
+     * @param supplier the supplier.
+     * @param <T>      the type of the result.
+     * @return the wrapped supplier.
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        Auth auth = current();
+        return () -> {
+            Auth previous = CURRENT.get();
+            CURRENT.set(auth);
+            try {
+                return supplier.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps the executor so that every task runs with the Auth that was current when the task was submitted.
+     *
+     * @param executor the executor.
+     * @return the wrapped executor.
+     */
+    public static Executor wrap(Executor executor) {
+        return task -> executor.execute(wrap(task));
+    }
+
+    private static void restore(Auth previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.microkubes.tools.security.spring;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * {@link TaskDecorator} that runs the tasks with the {@link com.microkubes.tools.security.Auth} of the submitting
+ * thread. Set it on the task executor used for <code>@Async</code> methods to keep the Auth available there.
+ */
+public class AuthContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return AuthContext.wrap(runnable);
+    }
+}
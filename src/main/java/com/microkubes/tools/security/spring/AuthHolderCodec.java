@@ -0,0 +1,153 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Auth;
+import com.microkubes.tools.security.AuthCodec;
+import com.microkubes.tools.security.CompactEncoding;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary codec for {@link SpringOauth2AuthHolder}, as an alternative to the Java serialization inherited from
+ * {@link org.springframework.security.oauth2.provider.OAuth2Authentication}.
+ * <p>
+ * Only the data restored from the JWT claims is written: the client ID, scope, resource IDs, authorities and request
+ * parameters of the OAuth2 request, the name and authorities of the user, and the {@link Auth} object. The
+ * authorities are written as roles, so the well-known ones are interned through the role dictionary of the
+ * {@link AuthCodec}. The request details, such as the token value, are not written.
+ */
+public class AuthHolderCodec {
+
+    private static final String NO_CREDENTIALS = "N/A";
+
+    private final AuthCodec authCodec;
+
+    /**
+     * Creates new holder codec.
+     *
+     * @param authCodec the codec for the Auth object, also providing the role dictionary and the compression.
+     */
+    public AuthHolderCodec(AuthCodec authCodec) {
+        this.authCodec = authCodec;
+    }
+
+    /**
+     * Encodes the authentication holder.
+     *
+     * @param holder the holder to encode.
+     * @return the encoded bytes.
+     */
+    public byte[] encode(SpringOauth2AuthHolder holder) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        OAuth2Request request = holder.getOAuth2Request();
+        CompactEncoding.writeString(out, request.getClientId());
+        out.write(request.isApproved() ? 1 : 0);
+        CompactEncoding.writeStrings(out, request.getScope());
+        CompactEncoding.writeStrings(out, request.getResourceIds());
+        authCodec.writeRoles(out, AuthorityUtils.authorityListToSet(request.getAuthorities()));
+        writeParameters(out, request.getRequestParameters());
+
+        Authentication user = holder.getUserAuthentication();
+        if (user == null) {
+            out.write(0);
+        } else {
+            out.write(1);
+            CompactEncoding.writeString(out, user.getName());
+            authCodec.writeRoles(out, AuthorityUtils.authorityListToSet(user.getAuthorities()));
+        }
+
+        Auth auth = holder.getAuth();
+        if (auth == null) {
+            out.write(0);
+        } else {
+            out.write(1);
+            authCodec.write(auth, out);
+        }
+        return authCodec.frame(out.toByteArray());
+    }
+
+    /**
+     * Decodes an authentication holder.
+     *
+     * @param data the encoded bytes.
+     * @return the decoded holder.
+     * @throws IllegalArgumentException if the data is not a valid encoded holder.
+     */
+    public SpringOauth2AuthHolder decode(byte[] data) {
+        try {
+            return read(authCodec.unframe(data));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Unexpected end of input", e);
+        }
+    }
+
+    private SpringOauth2AuthHolder read(ByteBuffer in) {
+        String clientId = CompactEncoding.readString(in);
+        boolean approved = in.get() != 0;
+        List<String> scope = CompactEncoding.readStrings(in);
+        List<String> resourceIds = CompactEncoding.readStrings(in);
+        List<GrantedAuthority> authorities = readAuthorities(in);
+        Map<String, String> parameters = readParameters(in);
+        OAuth2Request request = new OAuth2Request(parameters, clientId, authorities, approved,
+                scope == null ? null : new LinkedHashSet<>(scope),
+                resourceIds == null ? null : new LinkedHashSet<>(resourceIds), null, null, null);
+
+        Authentication user = null;
+        if (in.get() != 0) {
+            String name = CompactEncoding.readString(in);
+            user = new UsernamePasswordAuthenticationToken(name, NO_CREDENTIALS, readAuthorities(in));
+        }
+
+        Auth auth = in.get() != 0 ? authCodec.read(in) : null;
+        AuthCodec.checkFullyRead(in);
+        return new SpringOauth2AuthHolder(request, user, auth);
+    }
+
+    private List<GrantedAuthority> readAuthorities(ByteBuffer in) {
+        List<String> roles = authCodec.readRoles(in);
+        if (roles == null) {
+            return null;
+        }
+        return AuthorityUtils.createAuthorityList(roles.toArray(new String[0]));
+    }
+
+    private static void writeParameters(ByteArrayOutputStream out, Map<String, String> parameters) {
+        if (parameters == null) {
+            out.write(0);
+            return;
+        }
+        Collection<String> flat = new ArrayList<>(parameters.size() * 2);
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            flat.add(parameter.getKey());
+            flat.add(parameter.getValue());
+        }
+        CompactEncoding.writeStrings(out, flat);
+    }
+
+    private static Map<String, String> readParameters(ByteBuffer in) {
+        List<String> flat = CompactEncoding.readStrings(in);
+        if (flat == null) {
+            return null;
+        }
+        if (flat.size() % 2 != 0) {
+            throw new IllegalArgumentException("Malformed request parameters");
+        }
+        Map<String, String> parameters = new HashMap<>();
+        for (int i = 0; i < flat.size(); i += 2) {
+            parameters.put(flat.get(i), flat.get(i + 1));
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,31 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.AuthPolicies;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Provides the evaluation of {@link com.microkubes.tools.security.AuthPolicy} expressions.
+ * <p>
+ * The <code>authPolicies</code> bean can be used in method security expressions, e.g.
+ * <code>@PreAuthorize("@authPolicies.allows(authentication.auth, 'namespace:payments and role:admin')")</code>, and
+ * the {@link AuthPolicyVoter} can be added to the access decision manager to support <code>POLICY:</code> attributes
+ * in <code>@Secured</code>.
+ */
+@Configuration
+public class AuthPolicyConfig {
+
+    @Value("${com.microkubes.security.policy.cache_size:10000}")
+    private Integer decisionCacheSize;
+
+    @Bean(name = "authPolicies")
+    public AuthPolicies getAuthPolicies() {
+        return new AuthPolicies(decisionCacheSize);
+    }
+
+    @Bean
+    public AuthPolicyVoter getAuthPolicyVoter(AuthPolicies authPolicies) {
+        return new AuthPolicyVoter(authPolicies);
+    }
+}
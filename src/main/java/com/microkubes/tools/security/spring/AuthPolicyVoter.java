@@ -0,0 +1,62 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.AuthPolicies;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.core.Authentication;
+
+import java.util.Collection;
+
+/**
+ * {@link AccessDecisionVoter} for {@link com.microkubes.tools.security.AuthPolicy} expressions.
+ * <p>
+ * Votes on the configuration attributes prefixed with <code>POLICY:</code>, for example
+ * <code>@Secured("POLICY:namespace:payments and role:admin")</code>. Access is granted if the {@link
+ * com.microkubes.tools.security.Auth} of the authentication satisfies all policy attributes, and denied otherwise.
+ * The voter abstains when there are no policy attributes.
+ */
+public class AuthPolicyVoter implements AccessDecisionVoter<Object> {
+
+    /**
+     * The prefix of the policy configuration attributes.
+     */
+    public static final String POLICY_PREFIX = "POLICY:";
+
+    private final AuthPolicies policies;
+
+    /**
+     * Creates new voter.
+     *
+     * @param policies evaluates the policies.
+     */
+    public AuthPolicyVoter(AuthPolicies policies) {
+        this.policies = policies;
+    }
+
+    @Override
+    public boolean supports(ConfigAttribute attribute) {
+        return attribute.getAttribute() != null && attribute.getAttribute().startsWith(POLICY_PREFIX);
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    public int vote(Authentication authentication, Object object, Collection<ConfigAttribute> attributes) {
+        int result = ACCESS_ABSTAIN;
+        for (ConfigAttribute attribute : attributes) {
+            if (!supports(attribute)) {
+                continue;
+            }
+            if (!(authentication instanceof AuthenticationHolder) ||
+                    !policies.allows(((AuthenticationHolder) authentication).getAuth(),
+                            attribute.getAttribute().substring(POLICY_PREFIX.length()))) {
+                return ACCESS_DENIED;
+            }
+            result = ACCESS_GRANTED;
+        }
+        return result;
+    }
+}
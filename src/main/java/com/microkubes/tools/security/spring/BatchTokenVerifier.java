@@ -0,0 +1,196 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Auth;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Verifies batches of JWTs, for example the user tokens carried by a batch of consumed messages.
+ * <p>
+ * Identical tokens in a batch are verified once. The distinct tokens are verified in parallel on a
+ * {@link ForkJoinPool}, unless the batch is small enough to be verified on the calling thread. Each token is decoded
+ * and verified once by the {@link MeteredJwtAccessTokenConverter}, checked for expiry, and its claims mapped to
+ * {@link Auth} by the converter's access token converter (usually {@link CustomClaimsTokenConverter}).
+ */
+public class BatchTokenVerifier {
+
+    /**
+     * The default number of tokens below which a batch is not split further.
+     */
+    public static final int DEFAULT_THRESHOLD = 8;
+
+    private final MeteredJwtAccessTokenConverter tokenConverter;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Creates new batch verifier that runs on the common fork-join pool.
+     *
+     * @param tokenConverter the converter used to decode and verify the tokens.
+     */
+    public BatchTokenVerifier(MeteredJwtAccessTokenConverter tokenConverter) {
+        this(tokenConverter, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates new batch verifier.
+     *
+     * @param tokenConverter the converter used to decode and verify the tokens.
+     * @param pool           the pool to verify the tokens on.
+     * @param threshold      the number of distinct tokens below which the tokens are verified on a single thread.
+     */
+    public BatchTokenVerifier(MeteredJwtAccessTokenConverter tokenConverter, ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        this.tokenConverter = tokenConverter;
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Verifies the given tokens.
+     *
+     * @param tokens the encoded JWTs.
+     * @return the verification results, in the order of the given tokens. Identical tokens share the same result.
+     */
+    public List<Result> verify(Collection<String> tokens) {
+        Map<String, Integer> distinctIndex = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        int[] positions = new int[tokens.size()];
+        int i = 0;
+        for (String token : tokens) {
+            Integer index = distinctIndex.get(token);
+            if (index == null) {
+                index = distinct.size();
+                distinctIndex.put(token, index);
+                distinct.add(token);
+            }
+            positions[i++] = index;
+        }
+
+        Result[] verified = new Result[distinct.size()];
+        VerifyTask task = new VerifyTask(distinct, verified, 0, verified.length);
+        if (verified.length <= threshold) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+
+        List<Result> results = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            results.add(verified[position]);
+        }
+        return results;
+    }
+
+    /**
+     * Verifies a single token on the calling thread.
+     *
+     * @param token the encoded JWT.
+     * @return the verification result.
+     */
+    public Result verify(String token) {
+        if (token == null) {
+            return new Result(null, new InvalidTokenException("Missing token"));
+        }
+        try {
+            Map<String, Object> claims = tokenConverter.decode(token);
+            Object exp = claims.get(AccessTokenConverter.EXP);
+            if (exp instanceof Number && ((Number) exp).longValue() * 1000 < System.currentTimeMillis()) {
+                throw new InvalidTokenException("Access token expired");
+            }
+            return new Result(tokenConverter.extractAuthentication(claims), null);
+        } catch (RuntimeException e) {
+            return new Result(null, e);
+        }
+    }
+
+    private class VerifyTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> tokens;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        VerifyTask(List<String> tokens, Result[] results, int from, int to) {
+            this.tokens = tokens;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    results[i] = verify(tokens.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new VerifyTask(tokens, results, from, middle), new VerifyTask(tokens, results, middle, to));
+        }
+    }
+
+    /**
+     * The result of verifying a single token: either the authentication or the reason the token was rejected.
+     */
+    public static class Result {
+
+        private final OAuth2Authentication authentication;
+        private final RuntimeException error;
+
+        Result(OAuth2Authentication authentication, RuntimeException error) {
+            this.authentication = authentication;
+            this.error = error;
+        }
+
+        /**
+         * Whether the token is valid.
+         *
+         * @return true if the token was verified.
+         */
+        public boolean isValid() {
+            return authentication != null;
+        }
+
+        /**
+         * The {@link Auth} decoded from a valid token.
+         *
+         * @return the Auth object, or null if the token was rejected.
+         */
+        public Auth getAuth() {
+            return authentication instanceof AuthenticationHolder ? ((AuthenticationHolder) authentication).getAuth() : null;
+        }
+
+        /**
+         * The authentication decoded from a valid token.
+         *
+         * @return the authentication, or null if the token was rejected.
+         */
+        public OAuth2Authentication getAuthentication() {
+            return authentication;
+        }
+
+        /**
+         * The reason the token was rejected, usually an {@link InvalidTokenException}.
+         *
+         * @return the error, or null if the token is valid.
+         */
+        public RuntimeException getError() {
+            return error;
+        }
+    }
+}
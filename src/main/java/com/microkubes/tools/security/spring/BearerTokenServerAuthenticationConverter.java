@@ -0,0 +1,32 @@
+package com.microkubes.tools.security.spring;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Extracts the bearer token from the <code>Authorization</code> header of the request.
+ * <p>
+ * The token is passed to the {@link ReactiveJwtAuthenticationManager} as the credentials of an unauthenticated
+ * {@link PreAuthenticatedAuthenticationToken}. Requests without a bearer token are not authenticated.
+ */
+public class BearerTokenServerAuthenticationConverter implements ServerAuthenticationConverter {
+
+    private static final String BEARER = "bearer ";
+
+    @Override
+    public Mono<Authentication> convert(ServerWebExchange exchange) {
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return Mono.empty();
+        }
+        String token = authorization.substring(BEARER.length()).trim();
+        if (token.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.just(new PreAuthenticatedAuthenticationToken(token, token));
+    }
+}
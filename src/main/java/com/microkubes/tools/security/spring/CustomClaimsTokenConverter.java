@@ -1,6 +1,7 @@
 package com.microkubes.tools.security.spring;
 
 import com.microkubes.tools.security.Auth;
+import com.microkubes.tools.security.SecurityMetrics;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
@@ -24,6 +25,7 @@ public class CustomClaimsTokenConverter extends DefaultAccessTokenConverter {
     private UserAuthenticationConverter userTokenConverter = new DefaultUserAuthenticationConverter();
     private boolean includeGrantType;
     private String clientIdAttribute = CLIENT_ID;
+    private SecurityMetrics metrics = SecurityMetrics.NOOP;
 
     public static final String CLAIM_ROLES = "roles";
     public static final String CLAIM_USERNAME = "username";
@@ -33,9 +35,25 @@ public class CustomClaimsTokenConverter extends DefaultAccessTokenConverter {
 
     @Override
     public OAuth2Authentication extractAuthentication(Map<String, ?> map) {
+        if (!map.containsKey(CLAIM_USER_ID)) {
+            metrics.missingClaims();
+        }
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        OAuth2Request request = extractRequest(map);
+        Authentication user = getUserTokenConverter().extractAuthentication(enhanceClaimsMap(map));
+        // the stages are timed separately, so CONVERT does not include AUTH
+        long converted = start != 0 ? System.nanoTime() : 0;
+        Auth auth = extractAuth(map);
+        if (start != 0) {
+            metrics.record(SecurityMetrics.Stage.CONVERT, converted - start);
+            metrics.record(SecurityMetrics.Stage.AUTH, System.nanoTime() - converted);
+        }
+        return new SpringOauth2AuthHolder(request, user, auth);
+    }
+
+    private OAuth2Request extractRequest(Map<String, ?> map) {
         Map<String, String> parameters = new HashMap<String, String>();
         Set<String> scope = extractScope(map);
-        Authentication user = getUserTokenConverter().extractAuthentication(enhanceClaimsMap(map));
         String clientId = (String) map.get(getClientIdAttribute());
         parameters.put(getClientIdAttribute(), clientId);
         if (isIncludeGrantType() && map.containsKey(GRANT_TYPE)) {
@@ -43,9 +61,8 @@ public class CustomClaimsTokenConverter extends DefaultAccessTokenConverter {
         }
         Set<String> resourceIds = new LinkedHashSet<String>(map.containsKey(AUD) ? getAudience(map)
                 : Collections.<String>emptySet());
-        OAuth2Request request = new OAuth2Request(parameters, clientId, extractAuthorities(map), true, scope, resourceIds, null, null,
+        return new OAuth2Request(parameters, clientId, extractAuthorities(map), true, scope, resourceIds, null, null,
                 null);
-        return new SpringOauth2AuthHolder(request, user, extractAuth(map));
     }
 
     /**
@@ -167,6 +184,18 @@ public class CustomClaimsTokenConverter extends DefaultAccessTokenConverter {
         this.includeGrantType = includeGrantType;
     }
 
+    public SecurityMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics to record the conversion timings to.
+     * @param metrics the security metrics (null disables recording).
+     */
+    public void setMetrics(SecurityMetrics metrics) {
+        this.metrics = metrics == null ? SecurityMetrics.NOOP : metrics;
+    }
+
     public String getClientIdAttribute() {
         return clientIdAttribute;
     }
@@ -0,0 +1,17 @@
+package com.microkubes.tools.security.spring;
+
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Enables the reactive (WebFlux) security configuration integrated with Microkubes platform.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Import(ReactiveJwtOauth2Config.class)
+public @interface EnableReactiveSecurity {
+}
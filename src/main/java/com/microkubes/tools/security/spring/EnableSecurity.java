@@ -12,6 +12,6 @@ import java.lang.annotation.Target;
  */
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
-@Import(JwtOauth2Config.class)
+@Import({JwtOauth2Config.class, IntrospectionConfig.class, AuthPolicyConfig.class})
 public @interface EnableSecurity {
 }
@@ -0,0 +1,45 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.SecurityMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+/**
+ * Security configuration for opaque access tokens, validated by the token introspection endpoint of the
+ * authorization server.
+ */
+@Configuration
+@ConditionalOnProperty(value = {"com.microkubes.security.oauth2_introspection"})
+@Import(SecurityMetricsConfig.class)
+public class IntrospectionConfig {
+
+    @Value("${com.microkubes.security.introspection.url}")
+    private String introspectionUrl;
+    @Value("${com.microkubes.security.introspection.client_id:}")
+    private String clientId;
+    @Value("${com.microkubes.security.introspection.client_secret:}")
+    private String clientSecret;
+    @Value("${com.microkubes.security.introspection.cache_size:10000}")
+    private Integer cacheSize;
+    @Value("${com.microkubes.security.introspection.cache_ttl:300}")
+    private Long cacheTtl;
+
+    @Autowired
+    private ObjectProvider<SecurityMetrics> securityMetrics;
+
+    @Bean
+    public ResourceServerTokenServices getIntrospectionTokenServices() {
+        IntrospectionTokenServices tokenServices = new IntrospectionTokenServices(introspectionUrl, clientId,
+                clientSecret, cacheSize, cacheTtl);
+        CustomClaimsTokenConverter claimsTokenConverter = new CustomClaimsTokenConverter();
+        claimsTokenConverter.setMetrics(securityMetrics.getIfAvailable(() -> SecurityMetrics.NOOP));
+        tokenServices.setAccessTokenConverter(claimsTokenConverter);
+        return tokenServices;
+    }
+}
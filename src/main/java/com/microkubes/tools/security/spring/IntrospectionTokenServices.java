@@ -0,0 +1,132 @@
+package com.microkubes.tools.security.spring;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.HttpRequestWithBody;
+import com.microkubes.tools.security.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.common.util.JsonParser;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import java.util.Map;
+
+/**
+ * Token services for opaque access tokens, validated by the OAuth2 token introspection endpoint (RFC 7662) of the
+ * authorization server.
+ * <p>
+ * The introspection response is mapped through the access token converter (by default
+ * {@link CustomClaimsTokenConverter}), so the authentication is a {@link SpringOauth2AuthHolder} carrying the
+ * Microkubes {@link com.microkubes.tools.security.Auth}, as for JWTs.
+ * <p>
+ * Introspection results are cached until the token expires, but for no longer than the configured TTL, so a revoked
+ * token is rejected at the latest after the TTL. Inactive tokens are cached for the TTL as well. Concurrent requests
+ * with the same token result in a single introspection call.
+ */
+public class IntrospectionTokenServices implements ResourceServerTokenServices {
+
+    private static final String ACTIVE = "active";
+
+    private final String introspectionUrl;
+    private final String clientId;
+    private final String clientSecret;
+    private final long cacheTtl;
+    private final ExpiringCache<String, Map<String, Object>> cache;
+    private final JsonParser jsonParser = JsonParserFactory.create();
+    private AccessTokenConverter accessTokenConverter = new CustomClaimsTokenConverter();
+
+    private static Logger logger = LoggerFactory.getLogger(IntrospectionTokenServices.class);
+
+    /**
+     * Creates new introspection token services.
+     *
+     * @param introspectionUrl the URL of the token introspection endpoint.
+     * @param clientId         the client ID used to authenticate to the introspection endpoint (possibly null).
+     * @param clientSecret     the client secret used to authenticate to the introspection endpoint.
+     * @param cacheSize        the maximal number of cached introspection results.
+     * @param cacheTtl         the maximal time (in seconds) to cache an introspection result.
+     */
+    public IntrospectionTokenServices(String introspectionUrl, String clientId, String clientSecret, int cacheSize,
+                                      long cacheTtl) {
+        this.introspectionUrl = introspectionUrl;
+        this.clientId = clientId == null || clientId.isEmpty() ? null : clientId;
+        this.clientSecret = clientSecret;
+        this.cacheTtl = cacheTtl * 1000;
+        this.cache = new ExpiringCache<>(cacheSize, this::expiresAt);
+    }
+
+    @Override
+    public OAuth2Authentication loadAuthentication(String accessToken) throws AuthenticationException,
+            InvalidTokenException {
+        return accessTokenConverter.extractAuthentication(activeClaims(accessToken));
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String accessToken) {
+        return accessTokenConverter.extractAccessToken(accessToken, activeClaims(accessToken));
+    }
+
+    private Map<String, Object> activeClaims(String accessToken) {
+        Map<String, Object> claims = cache.get(accessToken, this::introspect);
+        if (!Boolean.TRUE.equals(claims.get(ACTIVE))) {
+            throw new InvalidTokenException("Token is not active");
+        }
+        return claims;
+    }
+
+    /**
+     * Calls the introspection endpoint for the given token.
+     *
+     * @param accessToken the access token.
+     * @return the introspection response.
+     */
+    protected Map<String, Object> introspect(String accessToken) {
+        try {
+            HttpRequestWithBody request = Unirest.post(introspectionUrl)
+                    .header("Accept", "application/json");
+            if (clientId != null) {
+                request.basicAuth(clientId, clientSecret);
+            }
+            HttpResponse<String> response = request
+                    .field("token", accessToken)
+                    .field("token_type_hint", "access_token")
+                    .asString();
+            if (response.getStatus() != 200) {
+                logger.warn("Token introspection failed with status {}.", response.getStatus());
+                throw new AuthenticationServiceException("Token introspection failed: " + response.getStatus());
+            }
+            Map<String, Object> claims = jsonParser.parseMap(response.getBody());
+            if (claims.get(AccessTokenConverter.EXP) instanceof Integer) {
+                claims.put(AccessTokenConverter.EXP, ((Integer) claims.get(AccessTokenConverter.EXP)).longValue());
+            }
+            return claims;
+        } catch (UnirestException e) {
+            throw new AuthenticationServiceException("Token introspection failed", e);
+        }
+    }
+
+    private long expiresAt(Map<String, Object> claims) {
+        long expiresAt = System.currentTimeMillis() + cacheTtl;
+        Object exp = claims.get(AccessTokenConverter.EXP);
+        if (Boolean.TRUE.equals(claims.get(ACTIVE)) && exp instanceof Number) {
+            expiresAt = Math.min(expiresAt, ((Number) exp).longValue() * 1000);
+        }
+        return expiresAt;
+    }
+
+    public AccessTokenConverter getAccessTokenConverter() {
+        return accessTokenConverter;
+    }
+
+    public void setAccessTokenConverter(AccessTokenConverter accessTokenConverter) {
+        this.accessTokenConverter = accessTokenConverter;
+    }
+}
@@ -0,0 +1,74 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Ed25519PrivateKey;
+import com.microkubes.tools.security.JwsAlgorithm;
+import org.springframework.security.jwt.crypto.sign.Signer;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+
+/**
+ * {@link Signer} for RSA, ECDSA and Ed25519 keys, producing JWS signatures.
+ * <p>
+ * Each thread keeps its own {@link Signature} instance, initialized with the key once, so signing does not look up
+ * the provider and set up the key every time. ECDSA signatures are converted to the JWS format. Ed25519 signatures are
+ * computed with {@link Ed25519PrivateKey}.
+ */
+public class JwsSigner implements Signer {
+
+    private final JwsAlgorithm algorithm;
+    private final Ed25519PrivateKey ed25519Key;
+    private final ThreadLocal<Signature> signature;
+
+    /**
+     * Creates new signer for the given private key. The algorithm is detected from the key.
+     *
+     * @param privateKey the private key.
+     */
+    public JwsSigner(PrivateKey privateKey) {
+        this.algorithm = JwsAlgorithm.forKey(privateKey);
+        if (algorithm == JwsAlgorithm.EdDSA) {
+            this.ed25519Key = privateKey instanceof Ed25519PrivateKey ? (Ed25519PrivateKey) privateKey :
+                    Ed25519PrivateKey.fromEncoded(privateKey.getEncoded());
+            this.signature = null;
+        } else {
+            this.ed25519Key = null;
+            this.signature = ThreadLocal.withInitial(() -> {
+                try {
+                    Signature signature = Signature.getInstance(algorithm.getJavaName());
+                    signature.initSign(privateKey);
+                    return signature;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Cannot initialize " + algorithm + " signature", e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public byte[] sign(byte[] bytes) {
+        if (ed25519Key != null) {
+            return ed25519Key.sign(bytes);
+        }
+        Signature signer = signature.get();
+        try {
+            signer.update(bytes);
+            byte[] signed = signer.sign();
+            return algorithm.isEcdsa() ? algorithm.derToJws(signed) : signed;
+        } catch (GeneralSecurityException e) {
+            // the signature state is unknown after a failure, start with a new instance next time
+            signature.remove();
+            throw new IllegalStateException("Cannot sign with " + algorithm, e);
+        }
+    }
+
+    @Override
+    public String algorithm() {
+        return algorithm.getJavaName();
+    }
+
+    public JwsAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+}
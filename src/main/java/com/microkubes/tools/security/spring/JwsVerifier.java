@@ -0,0 +1,78 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Ed25519PublicKey;
+import com.microkubes.tools.security.JwsAlgorithm;
+import org.springframework.security.jwt.crypto.sign.InvalidSignatureException;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+
+/**
+ * {@link SignatureVerifier} for RSA, ECDSA and Ed25519 keys, verifying JWS signatures.
+ * <p>
+ * Each thread keeps its own {@link Signature} instance, initialized with the key once.
+ */
+public class JwsVerifier implements SignatureVerifier {
+
+    private final JwsAlgorithm algorithm;
+    private final Ed25519PublicKey ed25519Key;
+    private final ThreadLocal<Signature> signature;
+
+    /**
+     * Creates new verifier for the given public key. The algorithm is detected from the key.
+     *
+     * @param publicKey the public key.
+     */
+    public JwsVerifier(PublicKey publicKey) {
+        this.algorithm = JwsAlgorithm.forKey(publicKey);
+        if (algorithm == JwsAlgorithm.EdDSA) {
+            this.ed25519Key = publicKey instanceof Ed25519PublicKey ? (Ed25519PublicKey) publicKey :
+                    Ed25519PublicKey.fromEncoded(publicKey.getEncoded());
+            this.signature = null;
+        } else {
+            this.ed25519Key = null;
+            this.signature = ThreadLocal.withInitial(() -> {
+                try {
+                    Signature signature = Signature.getInstance(algorithm.getJavaName());
+                    signature.initVerify(publicKey);
+                    return signature;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Cannot initialize " + algorithm + " signature", e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void verify(byte[] content, byte[] sig) {
+        if (!isValid(content, sig)) {
+            throw new InvalidSignatureException(algorithm + " signature did not match content");
+        }
+    }
+
+    private boolean isValid(byte[] content, byte[] sig) {
+        if (ed25519Key != null) {
+            return ed25519Key.verify(content, sig);
+        }
+        Signature verifier = signature.get();
+        try {
+            verifier.update(content);
+            return verifier.verify(algorithm.isEcdsa() ? algorithm.jwsToDer(sig) : sig);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            // the signature state is unknown after a failure, start with a new instance next time
+            signature.remove();
+            return false;
+        }
+    }
+
+    @Override
+    public String algorithm() {
+        return algorithm.getJavaName();
+    }
+
+    public JwsAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+}
@@ -1,29 +1,32 @@
 package com.microkubes.tools.security.spring;
 
-import org.bouncycastle.util.io.pem.PemObject;
-import org.bouncycastle.util.io.pem.PemReader;
+import com.microkubes.tools.security.FileRevocationFeed;
+import com.microkubes.tools.security.JwtClaimsDecoder;
+import com.microkubes.tools.security.PemKeys;
+import com.microkubes.tools.security.RevocationFeed;
+import com.microkubes.tools.security.RevocationList;
+import com.microkubes.tools.security.SecurityMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.security.oauth2.provider.token.TokenStore;
-import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
-import java.security.KeyFactory;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
-import java.security.spec.KeySpec;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
 
 
 @Configuration
 @ConditionalOnProperty(value = {"com.microkubes.security.oauth2_jwt"})
+@Import(SecurityMetricsConfig.class)
 public class JwtOauth2Config {
 
     @Value("${com.microkubes.security.private_key.path}")
@@ -32,30 +35,140 @@ public class JwtOauth2Config {
     @Value("${com.microkubes.security.public_key.path}")
     private String publicKeyPath;
 
+    // Trusted API Gateway mode
+    @Value("${com.microkubes.security.trusted_gateway:disable}")
+    private String trustedGateway;
+    @Value("${com.microkubes.security.trusted_gateway.networks:}")
+    private String[] trustedNetworks;
+    @Value("${com.microkubes.security.trusted_gateway.client_cert:false}")
+    private Boolean requireClientCert;
+    @Value("${com.microkubes.security.trusted_gateway.client_cert_subject:}")
+    private String clientCertSubject;
+    @Value("${com.microkubes.security.trusted_gateway.claims_header:}")
+    private String claimsHeader;
+
+    // Streaming decoding of the JWT payload
+    @Value("${com.microkubes.security.streaming_claims:disable}")
+    private String streamingClaims;
+    @Value("${com.microkubes.security.streaming_claims.additional:}")
+    private String[] additionalClaims;
+
+    // Revoked tokens
+    @Value("${com.microkubes.security.revocation.path:}")
+    private String revocationPath;
+    @Value("${com.microkubes.security.revocation.refresh_interval:10000}")
+    private Long revocationRefreshInterval;
+    @Value("${com.microkubes.security.revocation.expected_entries:10000}")
+    private Integer revocationExpectedEntries;
+    @Value("${com.microkubes.security.revocation.false_positive_rate:0.01}")
+    private Double revocationFalsePositiveRate;
+    @Value("${com.microkubes.security.revocation.default_ttl:86400}")
+    private Long revocationDefaultTtl;
+
+    @Autowired
+    private ObjectProvider<RevocationFeed> revocationFeed;
+
+    @Autowired
+    private ObjectProvider<SecurityMetrics> securityMetrics;
+
+    private MeteredJwtAccessTokenConverter accessTokenConverter;
+
     @Bean
     public TokenStore getTokenStore() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
-        JwtAccessTokenConverter jwtAccessTokenConverter = new JwtAccessTokenConverter();
-        jwtAccessTokenConverter.setAccessTokenConverter(new CustomClaimsTokenConverter());
-        jwtAccessTokenConverter.setKeyPair(loadKeyPair());
-        return new JwtTokenStore(jwtAccessTokenConverter);
+        return new JwtTokenStore(getAccessTokenConverter());
     }
 
-    public KeyPair loadKeyPair() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
-        KeyFactory kf = KeyFactory.getInstance("RSA");
-        return  new KeyPair(kf.generatePublic(readPublicKey()), kf.generatePrivate(readPrivateKey()));
+    /**
+     * Verifies batches of tokens in parallel, with the same keys and revocation list as the token store.
+     * <p>
+     * The tokens of a batch are not the token of the current request, so the batch verifier always verifies their
+     * signatures, even in trusted API Gateway mode.
+     *
+     * @return the batch token verifier.
+     * @throws IOException              if a key file cannot be read.
+     * @throws NoSuchAlgorithmException if the key algorithm is not available.
+     * @throws InvalidKeySpecException  if a key is not valid or not supported.
+     */
+    @Bean
+    public BatchTokenVerifier getBatchTokenVerifier() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        return new BatchTokenVerifier(newAccessTokenConverter(false));
     }
 
+    private synchronized MeteredJwtAccessTokenConverter getAccessTokenConverter()
+            throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        if (accessTokenConverter == null) {
+            accessTokenConverter = newAccessTokenConverter("enable".equalsIgnoreCase(trustedGateway));
+        }
+        return accessTokenConverter;
+    }
 
-    private KeySpec readPrivateKey() throws IOException{
-        PemReader reader = new PemReader(new FileReader(privateKeyPath));
-        PKCS8EncodedKeySpec privateKey = new PKCS8EncodedKeySpec(reader.readPemObject().getContent());
-        return  privateKey;
+    private MeteredJwtAccessTokenConverter newAccessTokenConverter(boolean trusted)
+            throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        SecurityMetrics metrics = securityMetrics.getIfAvailable(() -> SecurityMetrics.NOOP);
+        MeteredJwtAccessTokenConverter jwtAccessTokenConverter = createAccessTokenConverter(metrics, trusted);
+        CustomClaimsTokenConverter claimsTokenConverter = new CustomClaimsTokenConverter();
+        claimsTokenConverter.setMetrics(metrics);
+        jwtAccessTokenConverter.setAccessTokenConverter(claimsTokenConverter);
+        jwtAccessTokenConverter.setSigningKeyPair(loadKeyPair());
+        jwtAccessTokenConverter.setJwtClaimsSetVerifier(new RevokedTokenVerifier(getRevocationList()));
+        return jwtAccessTokenConverter;
     }
 
-    private KeySpec readPublicKey() throws IOException {
-        PemReader reader = new PemReader(new FileReader(publicKeyPath));
-        X509EncodedKeySpec pubKeySpec = new X509EncodedKeySpec(reader.readPemObject().getContent());
-        return pubKeySpec;
+    /**
+     * The list of revoked tokens. Revocations can be added to it directly, or delivered by a {@link RevocationFeed}.
+     *
+     * @return the revocation list.
+     */
+    @Bean
+    public RevocationList getRevocationList() {
+        RevocationList revocationList = new RevocationList(revocationExpectedEntries, revocationFalsePositiveRate,
+                revocationDefaultTtl);
+        RevocationFeed feed = revocationFeed.getIfAvailable();
+        if (feed != null) {
+            feed.start(revocationList);
+        }
+        return revocationList;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(value = "com.microkubes.security.revocation.path")
+    public RevocationFeed getFileRevocationFeed() {
+        return new FileRevocationFeed(new File(revocationPath), revocationRefreshInterval);
+    }
+
+    private MeteredJwtAccessTokenConverter createAccessTokenConverter(SecurityMetrics metrics, boolean trusted) {
+        MeteredJwtAccessTokenConverter converter;
+        boolean streaming = "enable".equalsIgnoreCase(streamingClaims);
+        if (trusted) {
+            TrustedGatewayGuard guard = new TrustedGatewayGuard(trustedNetworks, requireClientCert, clientCertSubject);
+            JwtClaimsDecoder claimsDecoder = streaming ?
+                    StreamingJwtAccessTokenConverter.claimsDecoder(additionalClaims) : new JwtClaimsDecoder();
+            converter = new TrustedGatewayTokenConverter(guard, claimsHeader, claimsDecoder);
+        } else if (streaming) {
+            converter = new StreamingJwtAccessTokenConverter(StreamingJwtAccessTokenConverter.claimsDecoder(additionalClaims));
+        } else {
+            converter = new MeteredJwtAccessTokenConverter();
+        }
+        converter.setMetrics(metrics);
+        return converter;
+    }
+
+    /**
+     * Loads the signing key pair. RSA, EC and Ed25519 keys are supported, the algorithm is detected from the keys.
+     *
+     * @return the key pair.
+     * @throws IOException              if a key file cannot be read.
+     * @throws NoSuchAlgorithmException if the key algorithm is not available.
+     * @throws InvalidKeySpecException  if a key is not valid or not supported.
+     */
+    public KeyPair loadKeyPair() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        try {
+            return PemKeys.loadKeyPair(privateKeyPath, publicKeyPath);
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw e;
+        } catch (GeneralSecurityException e) {
+            throw new InvalidKeySpecException(e.getMessage(), e);
+        }
     }
 
 }
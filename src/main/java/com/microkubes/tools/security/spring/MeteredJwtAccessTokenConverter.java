@@ -0,0 +1,217 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.JwsAlgorithm;
+import com.microkubes.tools.security.JwtClaimsDecoder;
+import com.microkubes.tools.security.SecurityMetrics;
+import com.microkubes.tools.security.SecurityMetrics.Rejection;
+import com.microkubes.tools.security.SecurityMetrics.Stage;
+import org.springframework.security.jwt.crypto.sign.InvalidSignatureException;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.common.util.JsonParser;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JWT token converter that verifies the signature and decodes the payload as separate, timed steps.
+ * <p>
+ * Decodes the tokens exactly as {@link JwtAccessTokenConverter} does, but records the time spent verifying the
+ * signature and decoding the payload, and the reason for rejecting a token, to the configured
+ * {@link SecurityMetrics}. With the default {@link SecurityMetrics#NOOP} metrics the clock is never read.
+ * <p>
+ * When configured with {@link #setSigningKeyPair(KeyPair)}, tokens are signed and verified with {@link JwsSigner} and
+ * {@link JwsVerifier}, which support RSA, ECDSA and Ed25519 keys.
+ */
+public class MeteredJwtAccessTokenConverter extends JwtAccessTokenConverter {
+
+    private final JsonParser jsonParser = JsonParserFactory.create();
+    private SignatureVerifier verifier;
+    private JwsSigner signer;
+    private String publicKey;
+    private SecurityMetrics metrics = SecurityMetrics.NOOP;
+
+    /**
+     * Sets the key pair used to sign and verify the tokens. Unlike {@link #setKeyPair(KeyPair)}, which accepts only
+     * RSA keys, the signature algorithm is detected from the keys (see {@link JwsAlgorithm#forKey}).
+     *
+     * @param keyPair the signing key pair.
+     */
+    public void setSigningKeyPair(KeyPair keyPair) {
+        JwsSigner jwsSigner = new JwsSigner(keyPair.getPrivate());
+        JwsVerifier jwsVerifier = new JwsVerifier(keyPair.getPublic());
+        if (jwsSigner.getAlgorithm() != jwsVerifier.getAlgorithm()) {
+            throw new IllegalArgumentException("The private key (" + jwsSigner.getAlgorithm() +
+                    ") and the public key (" + jwsVerifier.getAlgorithm() + ") do not match");
+        }
+        setSigner(jwsSigner);
+        setVerifier(jwsVerifier);
+        this.signer = jwsSigner;
+        this.publicKey = toPem(keyPair.getPublic().getEncoded());
+    }
+
+    @Override
+    public void setKeyPair(KeyPair keyPair) {
+        super.setKeyPair(keyPair);
+        this.verifier = new RsaVerifier((RSAPublicKey) keyPair.getPublic());
+    }
+
+    @Override
+    public void setVerifier(SignatureVerifier verifier) {
+        super.setVerifier(verifier);
+        this.verifier = verifier;
+    }
+
+    @Override
+    protected String encode(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+        if (signer == null) {
+            return super.encode(accessToken, authentication);
+        }
+        String content;
+        try {
+            content = jsonParser.formatMap(getAccessTokenConverter().convertAccessToken(accessToken, authentication));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot convert access token to JSON", e);
+        }
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = "{\"alg\":\"" + signer.getAlgorithm().name() + "\",\"typ\":\"JWT\"}";
+        String signingInput = encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + '.' +
+                encoder.encodeToString(content.getBytes(StandardCharsets.UTF_8));
+        byte[] signature = signer.sign(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + '.' + encoder.encodeToString(signature);
+    }
+
+    @Override
+    public Map<String, String> getKey() {
+        if (signer == null) {
+            return super.getKey();
+        }
+        Map<String, String> key = new HashMap<>();
+        key.put("alg", signer.getAlgorithm().name());
+        key.put("value", publicKey);
+        return key;
+    }
+
+    private static String toPem(byte[] encodedPublicKey) {
+        StringWriter pem = new StringWriter();
+        try (PemWriter writer = new PemWriter(pem)) {
+            writer.writeObject(new PemObject("PUBLIC KEY", encodedPublicKey));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return pem.toString().trim();
+    }
+
+    @Override
+    protected Map<String, Object> decode(String token) {
+        if (verifier == null) {
+            // verifier configured through a verifier key, let the base converter handle it.
+            long start = metrics.isEnabled() ? System.nanoTime() : 0;
+            Map<String, Object> claims = super.decode(token);
+            if (start != 0) {
+                metrics.record(Stage.DECODE, System.nanoTime() - start);
+            }
+            return claims;
+        }
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (second < 0 || token.indexOf('.', second + 1) >= 0) {
+            metrics.reject(Rejection.MALFORMED);
+            throw new InvalidTokenException("Cannot convert access token to JSON",
+                    new IllegalArgumentException("JWT must have header, payload and signature"));
+        }
+        Map<String, Object> claims;
+        try {
+            verifySignature(token, second);
+        } catch (InvalidSignatureException e) {
+            metrics.reject(Rejection.BAD_SIGNATURE);
+            throw new InvalidTokenException("Cannot convert access token to JSON", e);
+        } catch (Exception e) {
+            metrics.reject(Rejection.MALFORMED);
+            throw new InvalidTokenException("Cannot convert access token to JSON", e);
+        }
+        try {
+            long start = metrics.isEnabled() ? System.nanoTime() : 0;
+            claims = decodeClaims(token, first + 1, second);
+            if (start != 0) {
+                metrics.record(Stage.DECODE, System.nanoTime() - start);
+            }
+        } catch (Exception e) {
+            metrics.reject(Rejection.MALFORMED);
+            throw new InvalidTokenException("Cannot convert access token to JSON", e);
+        }
+        try {
+            return verifiedClaims(claims);
+        } catch (Exception e) {
+            throw new InvalidTokenException("Cannot convert access token to JSON", e);
+        }
+    }
+
+    private void verifySignature(String token, int signatureSeparator) {
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        byte[] content = token.substring(0, signatureSeparator).getBytes(StandardCharsets.US_ASCII);
+        byte[] signature = JwtClaimsDecoder.base64UrlDecode(token, signatureSeparator + 1, token.length());
+        verifier.verify(content, signature);
+        if (start != 0) {
+            metrics.record(Stage.VERIFY, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Decodes the claims from the base64url encoded JWT payload.
+     *
+     * @param token the encoded JWT.
+     * @param start the index of the first character of the payload.
+     * @param end   the index after the last character of the payload.
+     * @return the decoded claims.
+     */
+    protected Map<String, Object> decodeClaims(String token, int start, int end) {
+        return jsonParser.parseMap(new String(JwtClaimsDecoder.base64UrlDecode(token, start, end),
+                StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Normalizes the decoded claims and runs them through the configured claims verifier.
+     *
+     * @param claims the decoded claims.
+     * @return the same claims map.
+     */
+    protected Map<String, Object> verifiedClaims(Map<String, Object> claims) {
+        if (claims.get(EXP) instanceof Integer) {
+            claims.put(EXP, ((Integer) claims.get(EXP)).longValue());
+        }
+        if (claims.get(EXP) instanceof Long && (Long) claims.get(EXP) * 1000 < System.currentTimeMillis()) {
+            // rejected later by the token services, counted here where the claims are at hand
+            metrics.reject(Rejection.EXPIRED);
+        }
+        try {
+            getJwtClaimsSetVerifier().verify(claims);
+        } catch (InvalidTokenException e) {
+            metrics.reject(Rejection.INVALID_CLAIMS);
+            throw e;
+        }
+        return claims;
+    }
+
+    public SecurityMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(SecurityMetrics metrics) {
+        this.metrics = metrics == null ? SecurityMetrics.NOOP : metrics;
+    }
+}
@@ -0,0 +1,73 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.SecurityMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SecurityMetrics} backed by a Micrometer {@link MeterRegistry}.
+ * <p>
+ * Registers the timer <code>microkubes.security.token</code> tagged with the <code>stage</code> and the counter
+ * <code>microkubes.security.token.rejected</code> tagged with the <code>reason</code>. Accepted tokens without the
+ * Microkubes user claims are counted by <code>microkubes.security.token.missing_claims</code>. All meters are
+ * registered up front, so recording does not look anything up in the registry.
+ */
+public class MicrometerSecurityMetrics implements SecurityMetrics {
+
+    public static final String TIMER_NAME = "microkubes.security.token";
+    public static final String REJECTED_NAME = "microkubes.security.token.rejected";
+    public static final String MISSING_CLAIMS_NAME = "microkubes.security.token.missing_claims";
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+    private final Map<Rejection, Counter> rejections = new EnumMap<>(Rejection.class);
+    private final Counter missingClaims;
+
+    /**
+     * Creates new metrics and registers the meters with the given registry.
+     *
+     * @param registry the meter registry.
+     */
+    public MicrometerSecurityMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder(TIMER_NAME)
+                    .description("Time spent handling the access token")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        for (Rejection reason : Rejection.values()) {
+            rejections.put(reason, Counter.builder(REJECTED_NAME)
+                    .description("Rejected access tokens")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        missingClaims = Counter.builder(MISSING_CLAIMS_NAME)
+                .description("Accepted access tokens without the user claims")
+                .register(registry);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void record(Stage stage, long nanos) {
+        timers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void reject(Rejection reason) {
+        rejections.get(reason).increment();
+    }
+
+    @Override
+    public void missingClaims() {
+        missingClaims.increment();
+    }
+}
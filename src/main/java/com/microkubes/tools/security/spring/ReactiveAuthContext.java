@@ -0,0 +1,26 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Auth;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Access to the Microkubes {@link Auth} in reactive (WebFlux) applications.
+ */
+public final class ReactiveAuthContext {
+
+    private ReactiveAuthContext() {
+    }
+
+    /**
+     * The {@link Auth} of the current request, taken from the reactive security context.
+     *
+     * @return the current Auth, or empty if the request is not authenticated with a Microkubes token.
+     */
+    public static Mono<Auth> currentAuth() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(context -> context.getAuthentication())
+                .filter(authentication -> authentication instanceof AuthenticationHolder)
+                .flatMap(authentication -> Mono.justOrEmpty(((AuthenticationHolder) authentication).getAuth()));
+    }
+}
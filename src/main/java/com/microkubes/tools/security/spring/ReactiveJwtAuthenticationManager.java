@@ -0,0 +1,61 @@
+package com.microkubes.tools.security.spring;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ReactiveAuthenticationManager} that authenticates Microkubes JWTs for WebFlux applications.
+ * <p>
+ * The token is decoded and verified by the same {@link TokenStore} used by the servlet integration, so the claims are
+ * mapped to {@link com.microkubes.tools.security.Auth} by {@link CustomClaimsTokenConverter} and the resulting
+ * {@link Authentication} is a {@link SpringOauth2AuthHolder}.
+ * <p>
+ * The keys are loaded once, when the token store is created, so verifying a token is pure computation and never
+ * blocks. It runs on the subscribing thread instead of being handed off to another scheduler.
+ */
+public class ReactiveJwtAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final ResourceServerTokenServices tokenServices;
+
+    /**
+     * Creates new authentication manager that reads the tokens from the given token store.
+     *
+     * @param tokenStore the JWT token store.
+     */
+    public ReactiveJwtAuthenticationManager(TokenStore tokenStore) {
+        this(createTokenServices(tokenStore));
+    }
+
+    /**
+     * Creates new authentication manager backed by the given token services. The token services must not do any
+     * blocking I/O.
+     *
+     * @param tokenServices the token services used to load the authentication.
+     */
+    public ReactiveJwtAuthenticationManager(ResourceServerTokenServices tokenServices) {
+        this.tokenServices = tokenServices;
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        Object credentials = authentication.getCredentials();
+        if (!(credentials instanceof String)) {
+            return Mono.empty();
+        }
+        String token = (String) credentials;
+        return Mono.fromCallable(() -> (Authentication) tokenServices.loadAuthentication(token))
+                .onErrorMap(InvalidTokenException.class, e -> new BadCredentialsException(e.getMessage(), e));
+    }
+
+    private static ResourceServerTokenServices createTokenServices(TokenStore tokenStore) {
+        DefaultTokenServices tokenServices = new DefaultTokenServices();
+        tokenServices.setTokenStore(tokenStore);
+        return tokenServices;
+    }
+}
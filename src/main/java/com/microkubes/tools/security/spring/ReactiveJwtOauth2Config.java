@@ -0,0 +1,53 @@
+package com.microkubes.tools.security.spring;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+
+/**
+ * Reactive (WebFlux) security configuration integrated with Microkubes platform.
+ * <p>
+ * Uses the {@link TokenStore} from {@link JwtOauth2Config}, so the keys, the claims mapping and the revoked tokens are
+ * the same as in the servlet integration. The trusted API Gateway mode is servlet-only and is ignored here.
+ */
+@Configuration
+@ConditionalOnProperty(value = {"com.microkubes.security.oauth2_jwt"})
+@Import(JwtOauth2Config.class)
+public class ReactiveJwtOauth2Config {
+
+    @Bean
+    public ReactiveAuthenticationManager getReactiveAuthenticationManager(TokenStore tokenStore) {
+        return new ReactiveJwtAuthenticationManager(tokenStore);
+    }
+
+    @Bean
+    public ServerAuthenticationConverter getServerAuthenticationConverter() {
+        return new BearerTokenServerAuthenticationConverter();
+    }
+
+    /**
+     * Creates an authentication filter for the Spring Security WebFlux filter chain. Requests with a bearer token are
+     * authenticated with the given authentication manager; invalid tokens are rejected with
+     * <code>401 Unauthorized</code>.
+     *
+     * @param authenticationManager the Microkubes reactive authentication manager.
+     * @param converter             extracts the bearer token from the request.
+     * @return the authentication web filter.
+     */
+    public static AuthenticationWebFilter authenticationWebFilter(ReactiveAuthenticationManager authenticationManager,
+                                                                  ServerAuthenticationConverter converter) {
+        AuthenticationWebFilter filter = new AuthenticationWebFilter(authenticationManager);
+        filter.setServerAuthenticationConverter(converter);
+        filter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(
+                new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)));
+        return filter;
+    }
+}
@@ -0,0 +1,35 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.RevocationList;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtClaimsSetVerifier;
+
+import java.util.Map;
+
+/**
+ * Rejects tokens whose <code>jti</code> claim is in the {@link RevocationList}.
+ * <p>
+ * The check runs in memory on every decoded token; tokens without a <code>jti</code> claim cannot be revoked.
+ */
+public class RevokedTokenVerifier implements JwtClaimsSetVerifier {
+
+    private final RevocationList revocationList;
+
+    /**
+     * Creates new verifier backed by the given revocation list.
+     *
+     * @param revocationList the list of revoked tokens.
+     */
+    public RevokedTokenVerifier(RevocationList revocationList) {
+        this.revocationList = revocationList;
+    }
+
+    @Override
+    public void verify(Map<String, Object> claims) throws InvalidTokenException {
+        Object jti = claims.get(AccessTokenConverter.JTI);
+        if (jti instanceof String && revocationList.isRevoked((String) jti)) {
+            throw new InvalidTokenException("Token has been revoked");
+        }
+    }
+}
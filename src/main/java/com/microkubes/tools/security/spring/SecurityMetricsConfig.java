@@ -0,0 +1,30 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.SecurityMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes the token handling metrics to the application's Micrometer registry.
+ * <p>
+ * Active only when Micrometer is on the classpath and <code>com.microkubes.security.metrics</code> is set to
+ * <code>enable</code>.
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+@ConditionalOnProperty(value = "com.microkubes.security.metrics", havingValue = "enable")
+public class SecurityMetricsConfig {
+
+    @Bean
+    public SecurityMetrics getSecurityMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return SecurityMetrics.NOOP;
+        }
+        return new MicrometerSecurityMetrics(registry);
+    }
+}
@@ -0,0 +1,90 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.JwtClaimsDecoder;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.UserAuthenticationConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JWT token converter that decodes the token payload with the streaming {@link JwtClaimsDecoder}.
+ * <p>
+ * The signature is verified over the raw token bytes, and the payload is then decoded in a single pass, materializing
+ * only the claims known to the decoder. The claims are checked by the configured claims verifier and mapped through
+ * the access token converter (usually {@link CustomClaimsTokenConverter}), exactly as in
+ * {@link JwtAccessTokenConverter}.
+ */
+public class StreamingJwtAccessTokenConverter extends MeteredJwtAccessTokenConverter {
+
+    /**
+     * The claims used by the Microkubes and Spring OAuth2 token converters.
+     */
+    public static final List<String> DEFAULT_CLAIMS = Arrays.asList(
+            CustomClaimsTokenConverter.CLAIM_USERNAME,
+            CustomClaimsTokenConverter.CLAIM_USER_ID,
+            CustomClaimsTokenConverter.CLAIM_ROLES,
+            CustomClaimsTokenConverter.CLAIM_ORGANIZATIONS,
+            CustomClaimsTokenConverter.CLAIM_NAMESPACES,
+            AccessTokenConverter.SCOPE,
+            AccessTokenConverter.AUD,
+            AccessTokenConverter.CLIENT_ID,
+            AccessTokenConverter.EXP,
+            AccessTokenConverter.JTI,
+            AccessTokenConverter.ATI,
+            AccessTokenConverter.GRANT_TYPE,
+            AccessTokenConverter.AUTHORITIES,
+            UserAuthenticationConverter.USERNAME);
+
+    private final JwtClaimsDecoder claimsDecoder;
+
+    /**
+     * Creates new claims decoder for the {@link #DEFAULT_CLAIMS} and the given additional claims.
+     *
+     * @param additionalClaims names of additional claims to decode (possibly null or empty).
+     * @return new claims decoder.
+     */
+    public static JwtClaimsDecoder claimsDecoder(String[] additionalClaims) {
+        Set<String> claims = new LinkedHashSet<>(DEFAULT_CLAIMS);
+        if (additionalClaims != null) {
+            for (String claim : additionalClaims) {
+                if (claim != null && !claim.trim().isEmpty()) {
+                    claims.add(claim.trim());
+                }
+            }
+        }
+        return new JwtClaimsDecoder(claims);
+    }
+
+    /**
+     * Creates new converter with the given claims decoder.
+     *
+     * @param claimsDecoder the decoder for the JWT payload.
+     */
+    public StreamingJwtAccessTokenConverter(JwtClaimsDecoder claimsDecoder) {
+        this.claimsDecoder = claimsDecoder;
+    }
+
+    @Override
+    protected Map<String, Object> decodeClaims(String token, int start, int end) {
+        return claimsDecoder.decodePayload(token, start, end);
+    }
+
+    /**
+     * Decodes the claims without verifying the token signature.
+     *
+     * @param token the encoded JWT.
+     * @return the decoded claims.
+     */
+    protected Map<String, Object> decodeUnverified(String token) {
+        return claimsDecoder.decode(token);
+    }
+
+    public JwtClaimsDecoder getClaimsDecoder() {
+        return claimsDecoder;
+    }
+}
@@ -0,0 +1,89 @@
+package com.microkubes.tools.security.spring;
+
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import javax.servlet.http.HttpServletRequest;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether an incoming request has been proxied by a trusted API Gateway.
+ * <p>
+ * A request is trusted when it originates from one of the configured source networks (if any are configured) and,
+ * when client certificates are required, it was sent over mutual TLS with a client certificate whose subject matches
+ * the configured pattern.
+ */
+public class TrustedGatewayGuard {
+
+    /**
+     * The request attribute under which the servlet container exposes the client certificate chain.
+     */
+    public static final String CLIENT_CERTIFICATE_ATTRIBUTE = "javax.servlet.request.X509Certificate";
+
+    private final List<IpAddressMatcher> networks = new ArrayList<>();
+    private final boolean requireClientCertificate;
+    private final Pattern clientCertificateSubject;
+
+    /**
+     * Creates new guard.
+     *
+     * @param networks                 list of trusted source networks in CIDR notation (or plain IP addresses).
+     * @param requireClientCertificate whether the gateway must present a TLS client certificate.
+     * @param clientCertificateSubject regular expression that the client certificate subject DN must match
+     *                                 (possibly null or empty to accept any client certificate).
+     */
+    public TrustedGatewayGuard(String[] networks, boolean requireClientCertificate, String clientCertificateSubject) {
+        if (networks != null) {
+            for (String network : networks) {
+                if (network != null && !network.trim().isEmpty()) {
+                    this.networks.add(new IpAddressMatcher(network.trim()));
+                }
+            }
+        }
+        if (this.networks.isEmpty() && !requireClientCertificate) {
+            throw new IllegalStateException("Trusted gateway mode requires trusted networks or a client certificate.");
+        }
+        this.requireClientCertificate = requireClientCertificate;
+        this.clientCertificateSubject = clientCertificateSubject == null || clientCertificateSubject.isEmpty() ?
+                null : Pattern.compile(clientCertificateSubject);
+    }
+
+    /**
+     * Checks if the request comes from the trusted gateway.
+     *
+     * @param request the current HTTP request.
+     * @return true if the request passes all configured guards.
+     */
+    public boolean isTrusted(HttpServletRequest request) {
+        if (!networks.isEmpty() && !fromTrustedNetwork(request.getRemoteAddr())) {
+            return false;
+        }
+        return !requireClientCertificate || hasTrustedClientCertificate(request);
+    }
+
+    private boolean fromTrustedNetwork(String remoteAddress) {
+        if (remoteAddress == null) {
+            return false;
+        }
+        for (IpAddressMatcher network : networks) {
+            if (network.matches(remoteAddress)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasTrustedClientCertificate(HttpServletRequest request) {
+        Object chain = request.getAttribute(CLIENT_CERTIFICATE_ATTRIBUTE);
+        if (!(chain instanceof X509Certificate[]) || ((X509Certificate[]) chain).length == 0) {
+            return false;
+        }
+        if (clientCertificateSubject == null) {
+            return true;
+        }
+        String subject = ((X509Certificate[]) chain)[0].getSubjectX500Principal().getName();
+        return clientCertificateSubject.matcher(subject).matches();
+    }
+}
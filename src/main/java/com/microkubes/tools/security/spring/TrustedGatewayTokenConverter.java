@@ -0,0 +1,108 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.JwtClaimsDecoder;
+import com.microkubes.tools.security.SecurityMetrics;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.common.util.JsonParser;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * JWT token converter that trusts the API Gateway to have already verified the token signature.
+ * <p>
+ * When the current request passes the {@link TrustedGatewayGuard}, the claims are taken straight from the
+ * gateway-provided claims header (if configured and present), or decoded from the JWT payload without verifying the
+ * signature. Requests that do not pass the guard are verified as usual.
+ * <p>
+ * The claims obtained in trusted mode are still checked by the configured claims verifier and mapped through the
+ * same access token converter (usually {@link CustomClaimsTokenConverter}).
+ */
+public class TrustedGatewayTokenConverter extends StreamingJwtAccessTokenConverter {
+
+    private final TrustedGatewayGuard guard;
+    private final String claimsHeader;
+    private final JsonParser jsonParser = JsonParserFactory.create();
+
+    /**
+     * Creates new trusted gateway token converter that decodes all claims from the JWT payload.
+     *
+     * @param guard        the guard that decides if a request came through the trusted gateway.
+     * @param claimsHeader the name of the header carrying the JWT claims set by the gateway (possibly null).
+     */
+    public TrustedGatewayTokenConverter(TrustedGatewayGuard guard, String claimsHeader) {
+        this(guard, claimsHeader, new JwtClaimsDecoder());
+    }
+
+    /**
+     * Creates new trusted gateway token converter.
+     *
+     * @param guard         the guard that decides if a request came through the trusted gateway.
+     * @param claimsHeader  the name of the header carrying the JWT claims set by the gateway (possibly null).
+     * @param claimsDecoder the decoder for the JWT payload.
+     */
+    public TrustedGatewayTokenConverter(TrustedGatewayGuard guard, String claimsHeader, JwtClaimsDecoder claimsDecoder) {
+        super(claimsDecoder);
+        this.guard = guard;
+        this.claimsHeader = claimsHeader == null || claimsHeader.isEmpty() ? null : claimsHeader;
+    }
+
+    @Override
+    protected Map<String, Object> decode(String token) {
+        HttpServletRequest request = currentRequest();
+        if (request == null || !guard.isTrusted(request)) {
+            return super.decode(token);
+        }
+        long start = getMetrics().isEnabled() ? System.nanoTime() : 0;
+        Map<String, Object> claims;
+        try {
+            claims = claimsFromHeader(request);
+            if (claims == null) {
+                claims = decodeUnverified(token);
+            }
+        } catch (IllegalArgumentException e) {
+            // malformed base64url or JSON
+            throw new InvalidTokenException("Cannot convert access token to JSON", e);
+        }
+        if (start != 0) {
+            getMetrics().record(SecurityMetrics.Stage.DECODE, System.nanoTime() - start);
+        }
+        // the revocation and expiry errors of the claims verifier are passed on as they are
+        return verifiedClaims(claims);
+    }
+
+    /**
+     * Reads the claims from the gateway-provided header. The header value may be plain JSON or base64url encoded JSON.
+     *
+     * @param request the current request.
+     * @return the claims map, or null if no claims header is configured or present.
+     */
+    protected Map<String, Object> claimsFromHeader(HttpServletRequest request) {
+        if (claimsHeader == null) {
+            return null;
+        }
+        String value = request.getHeader(claimsHeader);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        value = value.trim();
+        if (!value.startsWith("{")) {
+            value = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        }
+        return jsonParser.parseMap(value);
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) attributes).getRequest();
+        }
+        return null;
+    }
+}
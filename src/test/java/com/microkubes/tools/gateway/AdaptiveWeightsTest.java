@@ -0,0 +1,63 @@
+package com.microkubes.tools.gateway;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveWeightsTest extends Assert {
+
+    private static final double MS = 1e6;
+
+    @Test
+    public void testWeightFollowsLoadWithinBounds() {
+        AdaptiveWeights weights = new AdaptiveWeights(10, 100);
+        weights.setCooldown(1000);
+
+        assertEquals(100, weights.next(load(10 * MS, 0), 0));
+        // CPU fully saturated: the desired weight is the minimum, reached in steps of at most 20
+        assertEquals(80, weights.next(load(10 * MS, 1.0), 1000));
+        assertEquals(80, weights.next(load(10 * MS, 1.0), 1500));
+        assertEquals(60, weights.next(load(10 * MS, 1.0), 2000));
+        assertEquals(40, weights.next(load(10 * MS, 1.0), 3000));
+        assertEquals(20, weights.next(load(10 * MS, 1.0), 4000));
+        assertEquals(10, weights.next(load(10 * MS, 1.0), 5000));
+        // back to normal
+        assertEquals(30, weights.next(load(10 * MS, 0.2), 6000));
+    }
+
+    @Test
+    public void testHysteresis() {
+        AdaptiveWeights weights = new AdaptiveWeights(10, 100);
+        weights.setCooldown(0);
+
+        weights.next(load(10 * MS, 0), 0);
+        // 14 ms is within the latency tolerance of the 10 ms baseline
+        assertEquals(100, weights.next(load(14 * MS, 0), 1));
+        // 16 ms: desired weight 94, a change smaller than the hysteresis
+        assertEquals(100, weights.next(load(16 * MS, 0), 2));
+        // 30 ms: desired weight 55
+        assertEquals(80, weights.next(load(30 * MS, 0), 3));
+    }
+
+    @Test
+    public void testSamplerAveragesLatency() {
+        InFlightRequests requests = new InFlightRequests();
+        LoadSampler sampler = new LoadSampler(requests, 0.5);
+
+        long start = requests.begin();
+        requests.end(start - 10_000_000L);
+        LoadSampler.Sample first = sampler.sample();
+        assertTrue(first.getLatency() >= 10 * MS);
+
+        start = requests.begin();
+        requests.end(start - 30_000_000L);
+        requests.begin();
+        LoadSampler.Sample second = sampler.sample();
+        assertEquals(1, second.getInFlight());
+        assertEquals((first.getLatency() + 30 * MS) / 2, second.getLatency(), MS);
+        assertTrue(second.getCpuLoad() >= 0 && second.getCpuLoad() <= 1);
+    }
+
+    private static LoadSampler.Sample load(double latency, double cpu) {
+        return new LoadSampler.Sample(latency, 1, cpu, 0);
+    }
+}
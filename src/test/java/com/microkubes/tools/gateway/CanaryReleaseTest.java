@@ -0,0 +1,76 @@
+package com.microkubes.tools.gateway;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CanaryReleaseTest extends Assert {
+
+    @Test
+    public void testScale() {
+        Map<String, Integer> instances = new HashMap<>();
+        instances.put("1.0", 10);
+        instances.put("1.1", 1);
+        Map<String, Integer> split = Collections.singletonMap("1.1", 10);
+
+        // 1 instance with weight 110 and 10 with weight 99: 10% of the requests
+        assertEquals(1.1, CanaryRelease.scale(split, instances, "1.1"), 1e-9);
+        assertEquals(0.99, CanaryRelease.scale(split, instances, "1.0"), 1e-9);
+        assertEquals(1, CanaryRelease.scale(Collections.emptyMap(), instances, "1.1"), 1e-9);
+        assertEquals(0, CanaryRelease.scale(Collections.singletonMap("1.1", 100), instances, "1.0"), 1e-9);
+        // the first instance of the canary, not on the API Gateway yet: 20% of the requests of 12 instances
+        assertEquals(2.4, CanaryRelease.scale(Collections.singletonMap("1.2", 20), instances, "1.2"), 1e-9);
+    }
+
+    @Test
+    public void testSplit() throws ValidationException {
+        Map<String, Integer> stored = new HashMap<>();
+        ServiceRegistry registry = new ServiceRegistry() {
+            @Override
+            public void register(ServiceInfo service) {
+            }
+
+            @Override
+            public Map<String, Integer> getTrafficSplit(ServiceInfo service) {
+                return new HashMap<>(stored);
+            }
+
+            @Override
+            public void setTrafficSplit(ServiceInfo service, Map<String, Integer> split) {
+                stored.clear();
+                stored.putAll(split);
+            }
+
+            @Override
+            public Map<String, Integer> getTargetVersions(ServiceInfo service) {
+                Map<String, Integer> versions = new HashMap<>();
+                versions.put("1.0", 3);
+                versions.put("1.1", 1);
+                return versions;
+            }
+        };
+        ServiceInfo serviceInfo = ServiceInfo.NewService("test").host("10.0.0.1").port(8080).addPath("/")
+                .upstream("test.upstream").version("1.1").getServiceInfo();
+        CanaryRelease canary = new CanaryRelease(registry, serviceInfo);
+
+        canary.promote("1.0");
+        canary.setTraffic("1.1", 25);
+        assertEquals(Integer.valueOf(75), stored.get("1.0"));
+        assertEquals(Integer.valueOf(25), stored.get("1.1"));
+        // 25% for 1 of 4 instances is the same share as without the split
+        assertFalse(canary.refresh());
+        assertEquals(100, canary.scaledWeight(100));
+
+        canary.rollback("1.1");
+        assertEquals(Collections.singletonMap("1.1", 0), stored);
+        assertTrue(canary.refresh());
+        assertEquals(0, canary.scaledWeight(100));
+
+        canary.setTraffic("1.1", 50);
+        assertTrue(canary.refresh());
+        assertEquals(200, canary.scaledWeight(100));
+    }
+}
@@ -0,0 +1,122 @@
+package com.microkubes.tools.gateway;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConsulServiceRegistryTest {
+
+    @Rule
+    public WireMockRule rule = new WireMockRule(options().dynamicPort());
+
+    @Test
+    public void testRegister() throws ValidationException {
+        stubFor(put(urlEqualTo("/v1/agent/service/register")).willReturn(ok()));
+        stubFor(put(urlEqualTo("/v1/agent/check/pass/service:todo-10.0.0.5-8080")).willReturn(ok()));
+        stubFor(put(urlEqualTo("/v1/agent/service/deregister/todo-10.0.0.5-8080")).willReturn(ok()));
+
+        ConsulServiceRegistry serviceRegistry = new ConsulServiceRegistry("http://localhost:" + rule.port());
+        serviceRegistry.setCheckTtl(15000);
+        ServiceInfo service = ServiceInfo.NewService("todo").host("10.0.0.5").port(8080).addPath("/todo")
+                .version("1.2").getServiceInfo();
+
+        serviceRegistry.register(service);
+        verify(putRequestedFor(urlEqualTo("/v1/agent/service/register"))
+                .withRequestBody(equalToJson("{\"ID\": \"todo-10.0.0.5-8080\", \"Name\": \"todo\", " +
+                        "\"Address\": \"10.0.0.5\", \"Port\": 8080, \"Tags\": [\"version:1.2\"], " +
+                        "\"Meta\": {\"protocol\": \"http\", \"paths\": \"/todo\", \"version\": \"1.2\"}, " +
+                        "\"Check\": {\"CheckID\": \"service:todo-10.0.0.5-8080\", \"TTL\": \"15000ms\", " +
+                        "\"DeregisterCriticalServiceAfter\": \"60000ms\"}}", true, true)));
+        verify(putRequestedFor(urlEqualTo("/v1/agent/check/pass/service:todo-10.0.0.5-8080")));
+
+        serviceRegistry.close();
+        verify(putRequestedFor(urlEqualTo("/v1/agent/service/deregister/todo-10.0.0.5-8080")));
+    }
+
+    @Test
+    public void testDrain() throws ValidationException {
+        stubFor(put(urlEqualTo("/v1/agent/service/register")).willReturn(ok()));
+        stubFor(put(urlEqualTo("/v1/agent/check/pass/service:todo-10.0.0.5-8080")).willReturn(ok()));
+        stubFor(put(urlPathEqualTo("/v1/agent/service/maintenance/todo-10.0.0.5-8080")).willReturn(ok()));
+        stubFor(put(urlEqualTo("/v1/agent/service/deregister/todo-10.0.0.5-8080")).willReturn(ok()));
+
+        ConsulServiceRegistry serviceRegistry = new ConsulServiceRegistry("http://localhost:" + rule.port());
+        ServiceInfo service = ServiceInfo.NewService("todo").host("10.0.0.5").port(8080).addPath("/todo")
+                .getServiceInfo();
+
+        serviceRegistry.setTargetWeight(service, 10);
+        serviceRegistry.register(service);
+        verify(putRequestedFor(urlEqualTo("/v1/agent/service/register"))
+                .withRequestBody(equalToJson("{\"Weights\": {\"Passing\": 10}}", true, true)));
+
+        serviceRegistry.setTargetWeight(service, 0);
+        verify(putRequestedFor(urlPathEqualTo("/v1/agent/service/maintenance/todo-10.0.0.5-8080"))
+                .withQueryParam("enable", equalTo("true")));
+
+        serviceRegistry.removeTarget(service);
+        serviceRegistry.close();
+        verify(1, putRequestedFor(urlEqualTo("/v1/agent/service/deregister/todo-10.0.0.5-8080")));
+    }
+
+    @Test
+    public void testWatch() throws Exception {
+        String first = "[{\"Node\": {\"Address\": \"10.0.1.1\"}, " +
+                "\"Service\": {\"ID\": \"todo-1\", \"Address\": \"\", \"Port\": 8080, \"Tags\": [\"version:1.2\"]}}]";
+        String second = "[{\"Node\": {\"Address\": \"10.0.1.1\"}, " +
+                "\"Service\": {\"ID\": \"todo-1\", \"Address\": \"\", \"Port\": 8080}}, " +
+                "{\"Node\": {\"Address\": \"10.0.1.2\"}, " +
+                "\"Service\": {\"ID\": \"todo-2\", \"Address\": \"10.0.0.6\", \"Port\": 8080}}]";
+        stubFor(get(urlPathEqualTo("/v1/health/service/todo")).withQueryParam("index", equalTo("0"))
+                .willReturn(okJson(first).withHeader("X-Consul-Index", "10")));
+        stubFor(get(urlPathEqualTo("/v1/health/service/todo")).withQueryParam("index", equalTo("10"))
+                .willReturn(okJson(second).withHeader("X-Consul-Index", "11").withFixedDelay(100)));
+        // no change until the wait time passes
+        stubFor(get(urlPathEqualTo("/v1/health/service/todo")).withQueryParam("index", equalTo("11"))
+                .willReturn(okJson(second).withHeader("X-Consul-Index", "11").withFixedDelay(500)));
+
+        BlockingQueue<List<ServiceEndpoint>> updates = new LinkedBlockingQueue<>();
+        ConsulServiceRegistry serviceRegistry = new ConsulServiceRegistry("http://localhost:" + rule.port());
+        serviceRegistry.watch("todo", updates::add);
+
+        List<ServiceEndpoint> endpoints = updates.poll(5, TimeUnit.SECONDS);
+        assertEquals(1, endpoints.size());
+        assertEquals("10.0.1.1", endpoints.get(0).getAddress());
+        assertEquals("version:1.2", endpoints.get(0).getTags()[0]);
+
+        endpoints = updates.poll(5, TimeUnit.SECONDS);
+        assertEquals(2, endpoints.size());
+        assertEquals("10.0.0.6", endpoints.get(1).getAddress());
+
+        assertNull(updates.poll(1200, TimeUnit.MILLISECONDS));
+        verify(getRequestedFor(urlPathEqualTo("/v1/health/service/todo")).withQueryParam("passing", equalTo("true"))
+                .withQueryParam("wait", equalTo("30000ms")));
+        serviceRegistry.close();
+    }
+
+    @Test
+    public void testWatch_missingIndex() throws Exception {
+        stubFor(get(urlPathEqualTo("/v1/health/service/todo")).willReturn(okJson("[]")));
+
+        BlockingQueue<List<ServiceEndpoint>> updates = new LinkedBlockingQueue<>();
+        ConsulWatch watch = new ConsulWatch("http://localhost:" + rule.port(), "todo", updates::add);
+        watch.setRetryDelay(500);
+        watch.start();
+
+        // without an index the query does not block: the watch backs off instead of querying in a loop
+        assertNull(updates.poll(1200, TimeUnit.MILLISECONDS));
+        watch.close();
+        int queries = findAll(getRequestedFor(urlPathEqualTo("/v1/health/service/todo"))).size();
+        assertTrue("queried " + queries + " times", queries >= 2 && queries <= 4);
+    }
+}
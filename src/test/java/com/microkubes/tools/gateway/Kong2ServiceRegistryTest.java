@@ -4,7 +4,14 @@ import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class Kong2ServiceRegistryTest {
 
@@ -22,6 +29,8 @@ public class Kong2ServiceRegistryTest {
         stubFor(post(urlEqualTo("/services/test/routes"))
                 .willReturn(okJson("{\"data\": []}").withStatus(201)));
 
+        stubFor(get(urlEqualTo("/services/test/plugins")).willReturn(okJson("{\"data\": []}")));
+
         Kong2ServiceRegistry serviceRegistry = new Kong2ServiceRegistry(rule.url("/"));
         ServiceInfo service = ServiceInfo.NewService("test").host("local").port(80).addPath("/")
                 .getServiceInfo();
@@ -44,6 +53,8 @@ public class Kong2ServiceRegistryTest {
         stubFor(post(urlEqualTo("/services/test/routes"))
                 .willReturn(okJson("{\"data\": []}").withStatus(201)));
 
+        stubFor(get(urlEqualTo("/services/test/plugins")).willReturn(okJson("{\"data\": []}")));
+
         Kong2ServiceRegistry serviceRegistry = new Kong2ServiceRegistry(rule.url("/"));
         ServiceInfo service = ServiceInfo.NewService("test").host("local").port(80).addPath("/")
                 .getServiceInfo();
@@ -51,4 +62,226 @@ public class Kong2ServiceRegistryTest {
 
         serviceRegistry.register(service);
     }
+
+    @Test
+    public void testUpdateUpstreamSettings() throws ValidationException {
+        stubFor(get(urlEqualTo("/services/test")).willReturn(aResponse().withStatus(200)));
+        stubFor(patch(urlEqualTo("/services/test")).willReturn(okJson("{}")));
+        stubFor(get(urlEqualTo("/services/test/routes")).willReturn(okJson("{\"data\": []}")));
+        stubFor(post(urlEqualTo("/services/test/routes")).willReturn(okJson("{}").withStatus(201)));
+        stubFor(get(urlEqualTo("/services/test/plugins")).willReturn(okJson("{\"data\": []}")));
+
+        Kong2ServiceRegistry serviceRegistry = new Kong2ServiceRegistry(rule.url("/"));
+        ServiceInfo service = ServiceInfo.NewService("test").host("local").port(80).addPath("/")
+                .setProperty("https_only", false).setProperty("upstream_read_timeout", 60000)
+                .setProperty("retries", 5).getServiceInfo();
+        serviceRegistry.register(service);
+        rule.resetRequests();
+
+        service.getProperties().put("upstream_read_timeout", 4000);
+        service.getProperties().put("retries", 2);
+        serviceRegistry.updateUpstreamSettings(service);
+
+        verify(1, patchRequestedFor(urlEqualTo("/services/test"))
+                .withRequestBody(equalToJson("{\"read_timeout\": 4000, \"retries\": 2}")));
+        verify(0, anyRequestedFor(urlMatching("/services/test/.*")));
+    }
+
+    @Test
+    public void testInstallPlugin() throws ValidationException {
+        stubFor(get(urlEqualTo("/services/test/plugins")).willReturn(okJson("{" +
+                "\"data\": [{\"id\": \"test-plug-id\", \"name\": \"test-plug\"}," +
+                "{\"id\": \"old-plug-id\", \"name\": \"old-plug\"}]" +
+                "}")));
+
+        stubFor(put(urlEqualTo("/services/test/plugins/test-plug-id"))
+                .withRequestBody(equalToJson("{\"name\": \"test-plug\", \"config\": {\"test_prop\": \"test_val\"}}", true, true))
+                .willReturn(okJson("{}")));
+        stubFor(post(urlEqualTo("/services/test/plugins"))
+                .withRequestBody(equalToJson("{\"name\": \"new-plug\"}", true, true))
+                .willReturn(okJson("{}").withStatus(201)));
+        stubFor(delete(urlEqualTo("/plugins/old-plug-id")).willReturn(noContent()));
+
+        Kong2ServiceRegistry serviceRegistry = new Kong2ServiceRegistry(rule.url("/"));
+
+        ServicePlugin plugin = new ServicePlugin("test-plug");
+        plugin.setProperty("config.test_prop", "test_val");
+
+        ServiceInfo serviceInfo = ServiceInfo.NewService("test").host("local")
+                .port(80)
+                .addPath("/")
+                .addPlugin(plugin)
+                .addPlugin(new ServicePlugin("new-plug"))
+                .getServiceInfo();
+
+        serviceRegistry.registerPlugins(serviceInfo);
+
+        // installed plugins are replaced in place, never deleted and added again
+        verify(putRequestedFor(urlEqualTo("/services/test/plugins/test-plug-id")));
+        verify(postRequestedFor(urlEqualTo("/services/test/plugins")));
+        verify(0, deleteRequestedFor(urlEqualTo("/plugins/test-plug-id")));
+        verify(deleteRequestedFor(urlEqualTo("/plugins/old-plug-id")));
+    }
+
+    @Test
+    public void testUpdatePlugins() throws ValidationException {
+        stubFor(get(urlEqualTo("/services/test/plugins")).willReturn(okJson("{\"data\": [" +
+                "{\"id\": \"cors-id\", \"name\": \"cors\"}," +
+                "{\"id\": \"rate-limiting-id\", \"name\": \"rate-limiting\"}," +
+                "{\"id\": \"jwt-id\", \"name\": \"jwt\"}]}")));
+        stubFor(put(urlEqualTo("/services/test/plugins/cors-id"))
+                .withRequestBody(equalToJson("{\"name\": \"cors\", \"config\": {\"origins\": \"example.com\"}}"))
+                .willReturn(okJson("{}")));
+        stubFor(post(urlEqualTo("/services/test/plugins")).willReturn(okJson("{}").withStatus(201)));
+        stubFor(delete(urlEqualTo("/plugins/rate-limiting-id")).willReturn(noContent()));
+
+        ServicePlugin cors = new ServicePlugin("cors");
+        cors.setProperty("config.origins", "example.com");
+        ServicePlugin acl = new ServicePlugin("acl");
+        acl.setProperty("config.whitelist", "admins");
+        ServiceInfo serviceInfo = ServiceInfo.NewService("test").host("local").port(80).addPath("/")
+                .addPlugin(cors).addPlugin(acl).getServiceInfo();
+
+        new Kong2ServiceRegistry(rule.url("/")).updatePlugins(serviceInfo,
+                new PluginsDelta(Arrays.asList(cors, acl), Collections.singletonList("rate-limiting")));
+
+        verify(putRequestedFor(urlEqualTo("/services/test/plugins/cors-id")));
+        verify(postRequestedFor(urlEqualTo("/services/test/plugins"))
+                .withRequestBody(equalToJson("{\"name\": \"acl\", \"config\": {\"whitelist\": \"admins\"}}")));
+        verify(deleteRequestedFor(urlEqualTo("/plugins/rate-limiting-id")));
+        verify(0, deleteRequestedFor(urlEqualTo("/plugins/jwt-id")));
+    }
+
+    @Test
+    public void testSetTargetWeight() throws ValidationException {
+        stubFor(get(urlEqualTo("/upstreams/test.upstream")).willReturn(aResponse().withStatus(404)));
+        stubFor(post(urlEqualTo("/upstreams")).willReturn(okJson("{}").withStatus(201)));
+        stubFor(patch(urlEqualTo("/upstreams/test.upstream/targets/10.0.0.1:8080"))
+                .willReturn(aResponse().withStatus(404)));
+        stubFor(post(urlEqualTo("/upstreams/test.upstream/targets")).willReturn(okJson("{}").withStatus(201)));
+        stubFor(delete(urlEqualTo("/upstreams/test.upstream/targets/10.0.0.1:8080")).willReturn(noContent()));
+
+        ServiceInfo serviceInfo = ServiceInfo.NewService("test").host("10.0.0.1").port(8080).addPath("/")
+                .upstream("test.upstream").getServiceInfo();
+        Kong2ServiceRegistry serviceRegistry = new Kong2ServiceRegistry(rule.url("/"));
+
+        serviceRegistry.setTargetWeight(serviceInfo, 10);
+        serviceRegistry.removeTarget(serviceInfo);
+
+        verify(postRequestedFor(urlEqualTo("/upstreams"))
+                .withRequestBody(equalToJson("{\"name\": \"test.upstream\"}")));
+        verify(postRequestedFor(urlEqualTo("/upstreams/test.upstream/targets"))
+                .withRequestBody(equalToJson("{\"target\": \"10.0.0.1:8080\", \"weight\": 10}")));
+        verify(deleteRequestedFor(urlEqualTo("/upstreams/test.upstream/targets/10.0.0.1:8080")));
+        // the service is routed through the upstream
+        assertTrue(serviceRegistry.getServiceBody(serviceInfo).contains("\"url\":\"http://test.upstream:8080\""));
+    }
+
+    @Test
+    public void testGrpcService() throws ValidationException {
+        ServiceInfo serviceInfo = ServiceInfo.NewService("test").host("local").port(9090)
+                .addPath("/todo.TodoService").protocol("grpc").getServiceInfo();
+        serviceInfo.getProperties().put("https_only", false);
+        serviceInfo.getProperties().put("strip_uri", true);
+        Kong2ServiceRegistry serviceRegistry = new Kong2ServiceRegistry(rule.url("/"));
+
+        assertTrue(serviceRegistry.getServiceBody(serviceInfo).contains("\"url\":\"grpc://local:9090\""));
+        String route = serviceRegistry.getRouteBody(serviceInfo);
+        assertTrue(route.contains("\"protocols\":[\"grpcs\",\"grpc\"]"));
+        assertTrue(route.contains("\"strip_path\":false"));
+
+        serviceInfo.getProperties().put("https_only", true);
+        assertFalse(serviceRegistry.getRouteBody(serviceInfo).contains("\"grpc\""));
+    }
+
+    @Test
+    public void testCachedRoutes() throws ValidationException {
+        stubFor(get(urlEqualTo("/services/test")).willReturn(aResponse().withStatus(200)));
+        stubFor(patch(urlEqualTo("/services/test")).willReturn(okJson("{}")));
+        stubFor(get(urlEqualTo("/services/test/routes")).willReturn(okJson("{\"data\": [" +
+                "{\"id\": \"stale-id\", \"name\": \"test-cache-TodoController.old\"}," +
+                "{\"id\": \"route-id\", \"name\": null}]}")));
+        stubFor(patch(urlEqualTo("/services/test/routes/route-id")).willReturn(okJson("{}")));
+        stubFor(get(urlEqualTo("/services/test/plugins")).willReturn(okJson("{\"data\": []}")));
+        stubFor(put(urlEqualTo("/services/test/routes/test-cache-TodoController.get")).willReturn(okJson("{}")));
+        stubFor(get(urlEqualTo("/routes/test-cache-TodoController.get/plugins"))
+                .willReturn(okJson("{\"data\": []}")));
+        stubFor(post(urlEqualTo("/routes/test-cache-TodoController.get/plugins"))
+                .willReturn(okJson("{}").withStatus(201)));
+        stubFor(delete(urlEqualTo("/routes/stale-id")).willReturn(noContent()));
+
+        ServiceInfo service = ServiceInfo.NewService("test").host("local").port(80).addPath("/todo")
+                .addCachedRoute(new CachedRoute("TodoController.get", new String[]{"/todos/[^/]+/?"}, 60,
+                        new String[]{"application/json"}, new String[]{"Accept-Language"}, new String[0]))
+                .setProperty("https_only", false).setProperty("strip_uri", true).getServiceInfo();
+        new Kong2ServiceRegistry(rule.url("/")).register(service);
+
+        verify(putRequestedFor(urlEqualTo("/services/test/routes/test-cache-TodoController.get"))
+                .withRequestBody(equalToJson("{\"name\": \"test-cache-TodoController.get\", " +
+                        "\"paths\": [\"/todo(?=/todos/[^/]+/?$)\"], \"methods\": [\"GET\", \"HEAD\"], " +
+                        "\"strip_path\": true, \"protocols\": [\"https\", \"http\"]}", true, true)));
+        verify(postRequestedFor(urlEqualTo("/routes/test-cache-TodoController.get/plugins"))
+                .withRequestBody(equalToJson("{\"name\": \"proxy-cache\", \"config\": {\"strategy\": \"memory\", " +
+                        "\"cache_ttl\": 60, \"content_type\": [\"application/json\"], " +
+                        "\"vary_headers\": [\"Authorization\", \"Accept-Language\"]}}", false, true)));
+        verify(deleteRequestedFor(urlEqualTo("/routes/stale-id")));
+        // the route of the whole service is updated, not the cached route
+        verify(patchRequestedFor(urlEqualTo("/services/test/routes/route-id")));
+    }
+
+    @Test
+    public void testRoutes() throws ValidationException {
+        stubFor(get(urlEqualTo("/services/test")).willReturn(aResponse().withStatus(200)));
+        stubFor(patch(urlEqualTo("/services/test")).willReturn(okJson("{}")));
+        stubFor(get(urlEqualTo("/services/test/routes")).willReturn(okJson("{\"data\": [" +
+                "{\"id\": \"route-id\", \"name\": null}," +
+                "{\"id\": \"cached-id\", \"name\": \"test-cache-TodoController.get\"}]}")));
+        stubFor(get(urlEqualTo("/services/test/plugins")).willReturn(okJson("{\"data\": []}")));
+        stubFor(put(urlEqualTo("/services/test/routes/test-routes-get-head-options")).willReturn(okJson("{}")));
+        stubFor(delete(urlMatching("/routes/.*")).willReturn(noContent()));
+
+        ServiceInfo service = ServiceInfo.NewService("test").host("local").port(80).addPath("/todo")
+                .addRoute(new ServiceRoute("get-head-options", new String[]{"/todos/?"},
+                        new String[]{"GET", "HEAD", "OPTIONS"}))
+                .setProperty("https_only", false).setProperty("strip_uri", true).getServiceInfo();
+        new Kong2ServiceRegistry(rule.url("/")).register(service);
+
+        verify(putRequestedFor(urlEqualTo("/services/test/routes/test-routes-get-head-options"))
+                .withRequestBody(equalToJson("{\"name\": \"test-routes-get-head-options\", " +
+                        "\"paths\": [\"/todo(?=/todos/?$)\"], \"methods\": [\"GET\", \"HEAD\", \"OPTIONS\"]}",
+                        false, true)));
+        // the route of the whole service is replaced, the cached route is removed as no longer cached
+        verify(deleteRequestedFor(urlEqualTo("/routes/route-id")));
+        verify(deleteRequestedFor(urlEqualTo("/routes/cached-id")));
+        verify(0, patchRequestedFor(urlMatching("/services/test/routes/.*")));
+    }
+
+    @Test
+    public void testTrafficSplit() throws ValidationException {
+        stubFor(get(urlEqualTo("/upstreams/test.upstream"))
+                .willReturn(okJson("{\"name\": \"test.upstream\", \"tags\": [\"team-a\", \"canary:1.0=90\"]}")));
+        stubFor(patch(urlEqualTo("/upstreams/test.upstream")).willReturn(okJson("{}")));
+        stubFor(get(urlEqualTo("/upstreams/test.upstream/targets?size=1000")).willReturn(okJson("{\"data\": [" +
+                "{\"target\": \"10.0.0.1:8080\", \"weight\": 100, \"tags\": [\"version:1.0\"]}," +
+                "{\"target\": \"10.0.0.2:8080\", \"weight\": 100, \"tags\": [\"version:1.0\"]}," +
+                "{\"target\": \"10.0.0.3:8080\", \"weight\": 0, \"tags\": [\"version:1.0\"]}," +
+                "{\"target\": \"10.0.0.4:8080\", \"weight\": 50, \"tags\": [\"version:1.1\"]}]}")));
+        stubFor(patch(urlEqualTo("/upstreams/test.upstream/targets/10.0.0.4:8080")).willReturn(okJson("{}")));
+
+        ServiceInfo serviceInfo = ServiceInfo.NewService("test").host("10.0.0.4").port(8080).addPath("/")
+                .upstream("test.upstream").version("1.1").getServiceInfo();
+        Kong2ServiceRegistry serviceRegistry = new Kong2ServiceRegistry(rule.url("/"));
+
+        assertEquals(Collections.singletonMap("1.0", 90), serviceRegistry.getTrafficSplit(serviceInfo));
+        Map<String, Integer> versions = serviceRegistry.getTargetVersions(serviceInfo);
+        assertEquals(Integer.valueOf(2), versions.get("1.0"));
+        assertEquals(Integer.valueOf(1), versions.get("1.1"));
+
+        serviceRegistry.setTrafficSplit(serviceInfo, Collections.singletonMap("1.1", 10));
+        verify(patchRequestedFor(urlEqualTo("/upstreams/test.upstream"))
+                .withRequestBody(equalToJson("{\"tags\": [\"team-a\", \"canary:1.1=10\"]}")));
+        serviceRegistry.setTargetWeight(serviceInfo, 110);
+        verify(patchRequestedFor(urlEqualTo("/upstreams/test.upstream/targets/10.0.0.4:8080"))
+                .withRequestBody(equalToJson("{\"weight\": 110, \"tags\": [\"version:1.1\"]}")));
+    }
 }
@@ -0,0 +1,71 @@
+package com.microkubes.tools.gateway;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+public class KongJwtProvisionerTest {
+
+    private static final String PUBLIC_KEY = "-----BEGIN PUBLIC KEY-----\nMFkwEwYHKoZIzj0CAQ==\n-----END PUBLIC KEY-----\n";
+
+    @Rule
+    public WireMockRule rule = new WireMockRule();
+
+    @Test
+    public void testProvision_newConsumerAndCredential() {
+        stubFor(get(urlEqualTo("/consumers/microkubes"))
+                .willReturn(aResponse().withStatus(404)));
+        stubFor(post(urlEqualTo("/consumers"))
+                .withRequestBody(equalToJson("{\"username\": \"microkubes\"}"))
+                .willReturn(okJson("{}").withStatus(201)));
+        stubFor(get(urlEqualTo("/consumers/microkubes/jwt"))
+                .willReturn(okJson("{\"data\": []}")));
+        stubFor(post(urlEqualTo("/consumers/microkubes/jwt"))
+                .withRequestBody(equalToJson("{\"key\": \"issuer\", \"algorithm\": \"RS256\"}", true, true))
+                .willReturn(okJson("{}").withStatus(201)));
+
+        new KongJwtProvisioner(rule.url("/"))
+                .provision(new JwtCredential("microkubes", "issuer", "RS256", PUBLIC_KEY));
+
+        verify(postRequestedFor(urlEqualTo("/consumers")));
+        verify(postRequestedFor(urlEqualTo("/consumers/microkubes/jwt")));
+    }
+
+    @Test
+    public void testProvision_credentialUpToDate() {
+        stubFor(get(urlEqualTo("/consumers/microkubes"))
+                .willReturn(okJson("{}")));
+        stubFor(get(urlEqualTo("/consumers/microkubes/jwt"))
+                .willReturn(okJson("{\"data\": [{\"id\": \"cred-id\", \"key\": \"issuer\", \"algorithm\": \"RS256\"," +
+                        "\"rsa_public_key\": \"-----BEGIN PUBLIC KEY-----\\r\\nMFkwEwYHKoZIzj0CAQ==\\r\\n-----END PUBLIC KEY-----\"}]}")));
+
+        new KongJwtProvisioner(rule.url("/"))
+                .provision(new JwtCredential("microkubes", "issuer", "RS256", PUBLIC_KEY));
+
+        verify(0, deleteRequestedFor(urlMatching("/consumers/microkubes/jwt/.*")));
+        verify(0, postRequestedFor(urlEqualTo("/consumers/microkubes/jwt")));
+    }
+
+    @Test
+    public void testProvision_updateOutdatedCredential() {
+        stubFor(get(urlEqualTo("/consumers/microkubes"))
+                .willReturn(okJson("{}")));
+        stubFor(get(urlEqualTo("/consumers/microkubes/jwt"))
+                .willReturn(okJson("{\"data\": [{\"id\": \"cred-id\", \"key\": \"issuer\", \"algorithm\": \"RS256\"," +
+                        "\"rsa_public_key\": \"old-key\"}]}")));
+        stubFor(patch(urlEqualTo("/consumers/microkubes/jwt/cred-id"))
+                .willReturn(okJson("{}")));
+
+        new KongJwtProvisioner(rule.url("/"))
+                .provision(new JwtCredential("microkubes", "issuer", "RS256", PUBLIC_KEY));
+
+        // the credential is never missing: the outdated one is updated in place
+        verify(patchRequestedFor(urlEqualTo("/consumers/microkubes/jwt/cred-id"))
+                .withRequestBody(equalToJson("{\"algorithm\": \"RS256\", \"rsa_public_key\": \"" +
+                        PUBLIC_KEY.replace("\n", "\\n") + "\"}")));
+        verify(0, deleteRequestedFor(urlMatching("/consumers/microkubes/jwt/.*")));
+        verify(0, postRequestedFor(urlEqualTo("/consumers/microkubes/jwt")));
+    }
+}
@@ -64,6 +64,7 @@ public class KongServiceRegistryTest {
 
         stubFor(delete(urlEqualTo("/apis/test-service/plugins/test-plug-id")).willReturn(noContent()));
         stubFor(post(urlEqualTo("/apis/test-service/plugins")).withRequestBody(equalToJson("{\"name\": \"test-plug\", \"config\": {\"test_prop\": \"test_val\"}}", true, true)));
+        stubFor(put(urlEqualTo("/apis/test-service/plugins")).withRequestBody(equalToJson("{\"id\": \"test-plug-id\", \"name\": \"test-plug\", \"config\": {\"test_prop\": \"test_val\"}}", true, true)));
 
 
         KongServiceRegistry serviceRegistry = new KongServiceRegistry(rule.url("/"));
@@ -80,6 +81,17 @@ public class KongServiceRegistryTest {
 
         serviceRegistry.registerPlugins(serviceInfo);
 
+        verify(putRequestedFor(urlEqualTo("/apis/test-service/plugins")));
+        verify(0, deleteRequestedFor(urlEqualTo("/apis/test-service/plugins/test-plug-id")));
+    }
 
+    @Test(expected = ValidationException.class)
+    public void testGrpcNotSupported() throws ValidationException {
+        new KongServiceRegistry(rule.url("/")).toKongAPIBody(ServiceInfo.NewService("test-service")
+                .host("test-service.local")
+                .port(9090)
+                .addPath("/test")
+                .protocol("grpc")
+                .getServiceInfo());
     }
 }
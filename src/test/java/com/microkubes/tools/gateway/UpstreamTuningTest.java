@@ -0,0 +1,113 @@
+package com.microkubes.tools.gateway;
+
+import com.microkubes.tools.gateway.spring.UpstreamTuningRefresher;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class UpstreamTuningTest extends Assert {
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(-1, histogram.snapshot().getPercentile(99));
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000_000L); // 1 ms .. 1000 ms
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertBetween(500_000, 500_000 * 1.125, snapshot.getPercentile(50));
+        assertBetween(990_000, 990_000 * 1.125, snapshot.getPercentile(99));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long micros = (long) Math.abs(random.nextGaussian() * 1e6);
+            long bound = LatencyHistogram.upperBound(LatencyHistogram.index(micros));
+            assertTrue(micros + " -> " + bound, bound >= micros && bound <= Math.max(micros * 1.125, micros + 1));
+        }
+    }
+
+    @Test
+    public void testRecommendation() {
+        UpstreamTuning tuning = new UpstreamTuning(60000, 5);
+        tuning.setMinSamples(100);
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(20_000_000L);
+        }
+        assertNull(tuning.recommend(histogram.snapshot(), 0));
+
+        histogram.record(20_000_000L);
+        for (int i = 0; i < 900; i++) {
+            histogram.record(20_000_000L);
+        }
+        UpstreamTuning.Recommendation recommendation = tuning.recommend(histogram.snapshot(), 0);
+        // 20 ms at p99.9 with 2x headroom is below the minimal read timeout
+        assertEquals(1000, recommendation.getReadTimeout());
+        assertEquals(5, recommendation.getRetries());
+
+        for (int i = 0; i < 10; i++) {
+            histogram.record(3_000_000_000L);
+        }
+        assertBetween(6000, 6000 * 1.125, tuning.recommend(histogram.snapshot(), 0).getReadTimeout());
+        // 5% failures: every retry fits in the 10% budget; 20% failures: a single retry already exceeds it
+        assertEquals(5, tuning.retriesWithinBudget(0.05));
+        assertEquals(1, tuning.retriesWithinBudget(0.095));
+        assertEquals(0, tuning.retriesWithinBudget(0.2));
+    }
+
+    @Test
+    public void testRefresherPushesChangedValues() throws ValidationException {
+        List<Object> pushed = new ArrayList<>();
+        ServiceRegistry registry = new ServiceRegistry() {
+            @Override
+            public void register(ServiceInfo service) {
+            }
+
+            @Override
+            public void updateUpstreamSettings(ServiceInfo service) {
+                pushed.add(service.getProperties().get("upstream_read_timeout"));
+            }
+        };
+        ServiceInfo serviceInfo = ServiceInfo.NewService("test").host("local").port(80).addPath("/")
+                .setProperty("upstream_read_timeout", 60000).setProperty("retries", 5).getServiceInfo();
+        InFlightRequests requests = new InFlightRequests(new LatencyHistogram());
+        UpstreamTuning tuning = new UpstreamTuning(60000, 5);
+        tuning.setMinSamples(10);
+        UpstreamTuningRefresher refresher = new UpstreamTuningRefresher(tuning, requests, registry, serviceInfo, 1000);
+
+        assertFalse(refresher.refresh());
+        for (int i = 0; i < 10; i++) {
+            long start = requests.begin();
+            requests.end(start - 2_000_000_000L, i == 0);
+        }
+        assertTrue(refresher.refresh());
+        assertEquals(1, serviceInfo.getProperties().get("retries"));
+
+        // no failures: the retries are restored
+        for (int i = 0; i < 10; i++) {
+            long start = requests.begin();
+            requests.end(start - 2_000_000_000L);
+        }
+        assertTrue(refresher.refresh());
+        assertEquals(5, serviceInfo.getProperties().get("retries"));
+
+        // about the same response times: nothing to push
+        for (int i = 0; i < 10; i++) {
+            long start = requests.begin();
+            requests.end(start - 2_100_000_000L);
+        }
+        assertFalse(refresher.refresh());
+        assertEquals(2, pushed.size());
+        assertBetween(4000, 4500, ((Integer) pushed.get(0)).longValue());
+        refresher.close();
+    }
+
+    private static void assertBetween(double min, double max, long value) {
+        assertTrue(value + " not in [" + min + ", " + max + "]", value >= min && value <= max);
+    }
+}
@@ -0,0 +1,112 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.ConsulServiceRegistry;
+import com.microkubes.tools.gateway.GatewayAdapterProvider;
+import com.microkubes.tools.gateway.Kong2ServiceRegistry;
+import com.microkubes.tools.gateway.KongServiceRegistry;
+import com.microkubes.tools.gateway.ServiceInfo;
+import com.microkubes.tools.gateway.ServiceRegistry;
+import com.microkubes.tools.gateway.ServiceRegistryException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.ClassUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class GatewayAutoConfigurationTest extends Assert {
+
+    @Test
+    public void testAutoConfiguration() {
+        assertTrue(SpringFactoriesLoader.loadFactoryNames(EnableAutoConfiguration.class, getClass().getClassLoader())
+                .contains(AutoRegister.class.getName()));
+    }
+
+    @Test
+    public void testAdapterProviders() {
+        assertTrue(GatewayAdapterProvider.forName("kong-v0").create("http://kong:8001") instanceof KongServiceRegistry);
+        assertTrue(GatewayAdapterProvider.forName("kong-v2").create("http://kong:8001") instanceof Kong2ServiceRegistry);
+        assertTrue(GatewayAdapterProvider.forName("consul").create("http://consul:8500") instanceof ConsulServiceRegistry);
+        try {
+            GatewayAdapterProvider.forName("kong-v3");
+            fail("expected an unsupported adapter");
+        } catch (ServiceRegistryException e) {
+            assertEquals("Gateway adapter [kong-v3] is not supported", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testAdapterSettings() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            Map<String, Object> properties = serviceProperties();
+            properties.put("com.microkubes.gateway.adapter", "consul");
+            properties.put("com.microkubes.gateway.consul-check-ttl", "3000");
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+            context.register(ServiceRegistryConfig.class);
+            context.refresh();
+
+            ConsulServiceRegistry registry = (ConsulServiceRegistry) context.getBean(ServiceRegistry.class);
+            assertEquals(3000, registry.getCheckTtl());
+            assertEquals(60000, registry.getDeregisterAfter());
+        }
+    }
+
+    @Test
+    public void testSameBeansAsComponentScan() {
+        Set<String> scanned;
+        try (AnnotationConfigApplicationContext context = newContext()) {
+            context.scan("com.microkubes.tools.gateway.spring");
+            context.refresh();
+            scanned = configurationBeans(context);
+        }
+        assertTrue(scanned.contains(ServicePluginsConfig.class.getName()));
+        assertTrue(scanned.contains(RequestMappingScanner.class.getName()));
+        try (AnnotationConfigApplicationContext context = newContext()) {
+            context.register(AutoRegister.class);
+            context.refresh();
+            assertEquals(scanned, configurationBeans(context));
+            assertEquals("todo", context.getBean(ServiceInfo.class).getName());
+        }
+    }
+
+    private static AnnotationConfigApplicationContext newContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", serviceProperties()));
+
+        ServiceRegistry registry = service -> {
+        };
+        context.registerBean(ServiceRegistry.class, () -> registry);
+        return context;
+    }
+
+    private static Map<String, Object> serviceProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("com.microkubes.gateway.gateway-url", "http://kong:8001");
+        properties.put("com.microkubes.service.name", "todo");
+        properties.put("com.microkubes.service.host", "todo.services.consul");
+        properties.put("com.microkubes.service.port", "8080");
+        properties.put("com.microkubes.service.paths", "/todo");
+        return properties;
+    }
+
+    /**
+     * @return the types of the beans defined by the library, leaving out the test classes in the same package.
+     */
+    private static Set<String> configurationBeans(AnnotationConfigApplicationContext context) {
+        Set<String> types = new TreeSet<>();
+        for (String name : context.getBeanDefinitionNames()) {
+            Class<?> type = ClassUtils.getUserClass(context.getType(name));
+            if (type.getName().startsWith("com.microkubes.") && type.getProtectionDomain().getCodeSource()
+                    .equals(AutoRegister.class.getProtectionDomain().getCodeSource())) {
+                types.add(type.getName());
+            }
+        }
+        return types;
+    }
+}
@@ -0,0 +1,125 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.PluginsDelta;
+import com.microkubes.tools.gateway.ServiceInfo;
+import com.microkubes.tools.gateway.ServicePlugin;
+import com.microkubes.tools.gateway.ServiceRegistry;
+import com.microkubes.tools.gateway.ValidationException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class PluginsRefresherTest extends Assert {
+
+    private final Map<String, Object> properties = new HashMap<>();
+    private final List<PluginsDelta> updates = new ArrayList<>();
+    private ServicePluginsConfig servicePlugins;
+    private ServiceInfo serviceInfo;
+
+    @Before
+    public void setUp() throws ValidationException {
+        properties.put("com.microkubes.service.plugins.cors.config.origins", "*");
+        properties.put("com.microkubes.service.plugins.rate-limiting.config.minute", "100");
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+        servicePlugins = new ServicePluginsConfig();
+        servicePlugins.setApplicationContext(context);
+
+        ServicePlugin jwt = new ServicePlugin("jwt");
+        jwt.setProperty("config.claims_to_verify", "exp");
+        ServiceInfo.ServiceInfoBuilder builder = ServiceInfo.NewService("test").host("local").port(80).addPath("/")
+                .addPlugin(jwt);
+        for (ServicePlugin plugin : servicePlugins.getPlugins().values()) {
+            builder.addPlugin(plugin);
+        }
+        serviceInfo = builder.getServiceInfo();
+    }
+
+    @Test
+    public void testPushOnlyChangedPlugins() {
+        PluginsRefresher refresher = new PluginsRefresher(servicePlugins, registry(), serviceInfo, 0);
+        refresher.enable();
+
+        properties.put("com.microkubes.service.plugins.cors.config.origins", "example.com");
+        properties.remove("com.microkubes.service.plugins.rate-limiting.config.minute");
+        PluginsDelta delta = refresher.refresh();
+
+        assertEquals(1, delta.getChanged().size());
+        assertEquals("example.com", delta.getChanged().get(0).getProperties().get("config.origins"));
+        assertEquals(1, delta.getRemoved().size());
+        assertEquals("rate-limiting", delta.getRemoved().get(0));
+        assertEquals(2, serviceInfo.getPlugins().length);
+        assertEquals("jwt", serviceInfo.getPlugins()[0].getName());
+        assertEquals(delta.getChanged().get(0), serviceInfo.getPlugins()[1]);
+
+        assertTrue(refresher.refresh().isEmpty());
+        assertEquals(1, updates.size());
+        refresher.close();
+    }
+
+    @Test
+    public void testDebounceBurstOfChanges() throws InterruptedException {
+        PluginsRefresher refresher = new PluginsRefresher(servicePlugins, registry(), serviceInfo, 200);
+        refresher.enable();
+
+        for (int i = 0; i < 5; i++) {
+            properties.put("com.microkubes.service.plugins.cors.config.max_age", String.valueOf(i));
+            refresher.requestRefresh();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        synchronized (updates) {
+            while (updates.isEmpty() && System.nanoTime() < deadline) {
+                updates.wait(100);
+            }
+        }
+        Thread.sleep(300);
+
+        assertEquals(1, updates.size());
+        assertEquals("4", updates.get(0).getChanged().get(0).getProperties().get("config.max_age"));
+        refresher.close();
+    }
+
+    @Test
+    public void testDeferUntilRegistered() {
+        PluginsRefresher refresher = new PluginsRefresher(servicePlugins, registry(), serviceInfo, 0);
+
+        properties.put("com.microkubes.service.plugins.cors.config.origins", "example.com");
+        assertTrue(refresher.refresh().isEmpty());
+        assertTrue(updates.isEmpty());
+        for (ServicePlugin plugin : serviceInfo.getPlugins()) {
+            if ("cors".equals(plugin.getName())) {
+                assertEquals("*", plugin.getProperties().get("config.origins"));
+            }
+        }
+
+        refresher.enable();
+        assertEquals(1, updates.size());
+        assertEquals("example.com", updates.get(0).getChanged().get(0).getProperties().get("config.origins"));
+        refresher.close();
+    }
+
+    private ServiceRegistry registry() {
+        return new ServiceRegistry() {
+            @Override
+            public void register(ServiceInfo service) {
+                fail("the service must not be registered again");
+            }
+
+            @Override
+            public void updatePlugins(ServiceInfo service, PluginsDelta delta) {
+                synchronized (updates) {
+                    updates.add(delta);
+                    updates.notifyAll();
+                }
+            }
+        };
+    }
+}
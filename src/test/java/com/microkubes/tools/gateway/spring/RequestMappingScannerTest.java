@@ -0,0 +1,120 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.CachedRoute;
+import com.microkubes.tools.gateway.ServiceRoute;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.function.server.support.RouterFunctionMapping;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+public class RequestMappingScannerTest extends Assert {
+
+    @RestController
+    @RequestMapping("/todos")
+    public static class TodoController {
+
+        @GatewayCacheable(ttl = 60, varyHeaders = "Accept-Language")
+        @GetMapping
+        public String list() {
+            return "[]";
+        }
+
+        @GatewayCacheable
+        @GetMapping({"/{id}", "/by-name/{name:[a-z]+}.json"})
+        public String get(@PathVariable String id) {
+            return "{}";
+        }
+
+        @GatewayCacheable
+        @PostMapping
+        public String create() {
+            return "{}";
+        }
+
+        // not public, but mapped all the same
+        @GetMapping("/uncached")
+        String uncached() {
+            return "{}";
+        }
+    }
+
+    @Test
+    public void testToRegex() {
+        assertEquals("/todos/[^/]+/?", RequestMappingScanner.toRegex("/todos/{id}"));
+        assertEquals("/todos/(?:\\d+)/?", RequestMappingScanner.toRegex("/todos/{id:\\d+}"));
+        assertEquals("/files/.*", RequestMappingScanner.toRegex("/files/**"));
+        assertEquals("/", RequestMappingScanner.toRegex("/"));
+        assertTrue("/favicon.ico".matches(RequestMappingScanner.toRegex("/**/favicon.ico")));
+        assertTrue("/static/img/favicon.ico".matches(RequestMappingScanner.toRegex("/**/favicon.ico")));
+        assertTrue("/todos/42/".matches(RequestMappingScanner.toRegex("/todos/{id:\\d{2}}")));
+        assertFalse("/todos/1/2".matches(RequestMappingScanner.toRegex("/todos/{id}")));
+    }
+
+    @Test
+    public void testScanControllers() {
+        CachedRoute[] routes = new RequestMappingScanner(newContext(TodoController.class)).scanCachedRoutes();
+        Arrays.sort(routes, Comparator.comparing(CachedRoute::getName));
+
+        assertEquals(2, routes.length);
+        assertEquals("TodoController.get", routes[0].getName());
+        String[] paths = routes[0].getPaths().clone();
+        Arrays.sort(paths);
+        assertArrayEquals(new String[]{"/todos/[^/]+/?", "/todos/by-name/(?:[a-z]+)\\.json/?"}, paths);
+        assertEquals(300, routes[0].getTtl());
+        assertEquals("TodoController.list", routes[1].getName());
+        assertArrayEquals(new String[]{"/todos/?"}, routes[1].getPaths());
+        assertEquals(60, routes[1].getTtl());
+        assertArrayEquals(new String[]{"Accept-Language"}, routes[1].getVaryHeaders());
+    }
+
+    @Test
+    public void testScanRoutes() {
+        ServiceRoute[] routes = new RequestMappingScanner(newContext(TodoController.class)).scanRoutes(TodoController.class);
+        Arrays.sort(routes, Comparator.comparing(ServiceRoute::getName));
+
+        // the paths accepting the same methods share a route
+        assertEquals(2, routes.length);
+        assertEquals("get-head-options", routes[0].getName());
+        assertArrayEquals(new String[]{"GET", "HEAD", "OPTIONS"}, routes[0].getMethods());
+        String[] paths = routes[0].getPaths().clone();
+        Arrays.sort(paths);
+        assertArrayEquals(new String[]{"/todos/[^/]+/?", "/todos/by-name/(?:[a-z]+)\\.json/?", "/todos/uncached/?"},
+                paths);
+        assertEquals("get-head-options-post", routes[1].getName());
+        assertArrayEquals(new String[]{"/todos/?"}, routes[1].getPaths());
+    }
+
+    @Test
+    public void testOpaqueHandlerMappings() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(RequestMappingHandlerMapping.class);
+        // defined by WebFlux even without router functions
+        context.registerBean(RouterFunctionMapping.class);
+        context.registerBean("customMapping", HandlerMapping.class, () -> exchange -> Mono.empty());
+        context.registerBean(TodoController.class);
+        context.refresh();
+
+        assertEquals(Collections.singletonList("customMapping"),
+                new RequestMappingScanner(context).findOpaqueHandlerMappings());
+    }
+
+    private static GenericApplicationContext newContext(Class<?> controller) {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(RequestMappingHandlerMapping.class);
+        context.registerBean(controller);
+        context.refresh();
+        return context;
+    }
+}
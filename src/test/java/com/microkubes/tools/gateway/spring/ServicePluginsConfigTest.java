@@ -3,9 +3,12 @@ package com.microkubes.tools.gateway.spring;
 import com.microkubes.tools.gateway.ServicePlugin;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 //@RunWith(SpringRunner.class)
 //@ContextConfiguration(classes = {ServicePluginsConfig.class, ServicePluginsConfigTest.class})
@@ -88,4 +91,40 @@ public class ServicePluginsConfigTest extends Assert {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testNormalizePropertyNameMatchesRegularExpressions() {
+        String[] parts = {"a", "b", "_", "_", "__", "-", ".", "\uD83D\uDE00", "\uD83D", "\uDE00"};
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                name.append(parts[random.nextInt(parts.length)]);
+            }
+            String value = name.toString();
+            String dotNotation = value.replaceAll("([^_])(_)([^_])", "$1.$3").replaceAll("([^_])(__)([^_])", "$1_$3");
+            assertEquals(value, dotNotation, ServicePluginsConfig.underscoreCaseToDotNotation(value));
+            assertEquals(value, dotNotation.replaceAll("-", "_"), ServicePluginsConfig.normalizePropertyName(value));
+        }
+        assertEquals("a.b_c", ServicePluginsConfig.underscoreCaseToDotNotation("a_b_c"));
+    }
+
+    @Test
+    public void testLoadPluginProperties() {
+        Map<String, Object> source = new HashMap<>();
+        source.put("com_microkubes_service_plugins_cors_config_max__age", "3600");
+        source.put("com.microkubes.service.plugins.cors.config.origins", "*");
+        source.put("com_microkubes_service_name", "todo");
+        source.put("com.microkubes.service.plugin", "none");
+        source.put("PATH", "/usr/bin");
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", source));
+
+        Map<String, String> properties = ServicePluginsConfig.getNormalizedPluginsProperties(environment);
+
+        assertEquals("3600", properties.get("com.microkubes.service.plugins.cors.config.max_age"));
+        assertEquals("*", properties.get("com.microkubes.service.plugins.cors.config.origins"));
+        assertEquals(2, properties.size());
+    }
+
+}
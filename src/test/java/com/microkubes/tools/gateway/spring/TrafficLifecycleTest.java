@@ -0,0 +1,103 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.microkubes.tools.gateway.CanaryRelease;
+import com.microkubes.tools.gateway.InFlightRequests;
+import com.microkubes.tools.gateway.ServiceInfo;
+import com.microkubes.tools.gateway.ServiceRegistry;
+import com.microkubes.tools.gateway.ValidationException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TrafficLifecycleTest extends Assert {
+
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    private final InFlightRequests inFlightRequests = new InFlightRequests();
+    private ServiceInfo serviceInfo;
+
+    @Before
+    public void setUp() throws ValidationException {
+        serviceInfo = ServiceInfo.NewService("test").host("10.0.0.1").port(8080).addPath("/")
+                .upstream("test.upstream").getServiceInfo();
+    }
+
+    @Test
+    public void testSlowStart() throws InterruptedException {
+        TrafficLifecycle lifecycle = new TrafficLifecycle(registry(), serviceInfo, inFlightRequests);
+        lifecycle.setWeight(100);
+        lifecycle.setSlowStart(10, 200, 3);
+
+        lifecycle.start();
+        assertEquals(Arrays.asList("weight 10", "register"), new ArrayList<>(calls));
+
+        Thread.sleep(600);
+        assertEquals(Arrays.asList("weight 10", "register", "weight 40", "weight 70", "weight 100"),
+                new ArrayList<>(calls));
+        lifecycle.close();
+    }
+
+    @Test
+    public void testCanaryWithoutVersionSupport() {
+        ServiceRegistry registry = registry();
+        TrafficLifecycle lifecycle = new TrafficLifecycle(registry, serviceInfo, inFlightRequests);
+        lifecycle.setSlowStart(10, 0, 0);
+        lifecycle.setCanary(new CanaryRelease(registry, serviceInfo), 1000, 10);
+
+        lifecycle.start();
+
+        assertEquals(Arrays.asList("weight 100", "register"), new ArrayList<>(calls));
+        lifecycle.close();
+    }
+
+    @Test
+    public void testDrainWaitsForRequestsInFlight() throws InterruptedException {
+        TrafficLifecycle lifecycle = new TrafficLifecycle(registry(), serviceInfo, inFlightRequests);
+        lifecycle.setSlowStart(10, 0, 0);
+        lifecycle.setDrain(50, 5000);
+        lifecycle.start();
+
+        long start = inFlightRequests.begin();
+        Thread request = new Thread(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            calls.add("request completed");
+            inFlightRequests.end(start);
+        });
+        request.start();
+
+        lifecycle.drain();
+        lifecycle.drain();
+        request.join();
+
+        assertEquals(Arrays.asList("weight 100", "register", "weight 0", "request completed", "remove target"),
+                new ArrayList<>(calls));
+        assertEquals("test.upstream", serviceInfo.getUpstream());
+    }
+
+    private ServiceRegistry registry() {
+        return new ServiceRegistry() {
+            @Override
+            public void register(ServiceInfo service) {
+                calls.add("register");
+            }
+
+            @Override
+            public void setTargetWeight(ServiceInfo service, int weight) {
+                calls.add("weight " + weight);
+            }
+
+            @Override
+            public void removeTarget(ServiceInfo service) {
+                calls.add("remove target");
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.microkubes.tools.gateway.spring;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.microkubes.tools.gateway.ServiceWarmUp;
+import com.microkubes.tools.gateway.ValidationException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+public class WarmUpConfigTest extends Assert {
+
+    @Rule
+    public WireMockRule rule = new WireMockRule(options().dynamicPort());
+
+    @Test
+    public void testWarmUpRequests() throws ValidationException {
+        stubFor(get(urlEqualTo("/users?page=1")).willReturn(okJson("[]")));
+        stubFor(post(urlEqualTo("/users")).willReturn(aResponse().withStatus(400)));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("com.microkubes.service.warm-up.requests.list.path", "/users?page=1");
+        properties.put("com.microkubes.service.warm-up.requests.create.method", "post");
+        properties.put("com.microkubes.service.warm-up.requests.create.path", "users");
+        properties.put("com.microkubes.service.warm-up.requests.create.body", "{\"name\": \"warm-up\"}");
+        properties.put("com.microkubes.service.warm-up.requests.create.header.Authorization", "Bearer token");
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", properties));
+
+        List<ServiceWarmUp.Request> requests = WarmUpConfig.getWarmUpRequests(environment);
+        assertEquals(2, requests.size());
+        assertEquals("create", requests.get(0).getName());
+        assertEquals("POST", requests.get(0).getMethod());
+        assertEquals("/users", requests.get(0).getPath());
+        assertEquals("application/json", requests.get(0).getHeaders().get("Content-Type"));
+
+        ServiceWarmUp.Report report = new ServiceWarmUp(rule.baseUrl(), requests, 5, 0).run();
+
+        assertEquals(5, report.getIterations());
+        assertEquals(5, report.getTimings().get(0).getCount());
+        assertEquals(5, report.getTimings().get(0).getFailures());
+        assertEquals(0, report.getTimings().get(1).getFailures());
+        verify(5, getRequestedFor(urlEqualTo("/users?page=1")));
+        verify(5, postRequestedFor(urlEqualTo("/users"))
+                .withHeader("Authorization", equalTo("Bearer token"))
+                .withRequestBody(equalToJson("{\"name\": \"warm-up\"}")));
+    }
+
+    @Test
+    public void testRejectUnknownMethod() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("com.microkubes.service.warm-up.requests.list.method", "GTE");
+        properties.put("com.microkubes.service.warm-up.requests.list.path", "/users");
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", properties));
+
+        try {
+            WarmUpConfig.getWarmUpRequests(environment);
+            fail("expected an unknown method");
+        } catch (ValidationException e) {
+            assertEquals("com.microkubes.service.warm-up.requests.list.method: unknown HTTP method GTE",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStopsWhenServiceIsNotReachable() {
+        ServiceWarmUp warmUp = new ServiceWarmUp("http://localhost:1",
+                Collections.singletonList(new ServiceWarmUp.Request("ping", "GET", "/", null)), 100, 0);
+
+        assertEquals(1, warmUp.run().getIterations());
+    }
+}
@@ -0,0 +1,87 @@
+package com.microkubes.tools.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class AuthCodecTest extends Assert {
+
+    private static final List<String> ROLES = Arrays.asList("user", "admin", "system");
+
+    @Test
+    public void testRoundTrip() {
+        Auth auth = new Auth("john.doe@example.com", "abcdef", Arrays.asList("user", "custom"),
+                Arrays.asList("testorg"), null);
+        AuthCodec codec = new AuthCodec(ROLES, false);
+
+        Auth decoded = codec.decode(codec.encode(auth));
+
+        assertEquals("john.doe@example.com", decoded.getEmail());
+        assertEquals("abcdef", decoded.getUserId());
+        assertEquals(Arrays.asList("user", "custom"), decoded.getRoles());
+        assertEquals(Arrays.asList("testorg"), decoded.getOrganizations());
+        assertNull(decoded.getNamespaces());
+    }
+
+    @Test
+    public void testInternedRolesAndCompression() {
+        List<String> namespaces = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            namespaces.add("namespace-" + i);
+        }
+        Auth auth = new Auth("john.doe@example.com", "abcdef", Arrays.asList("user", "admin"), null, namespaces);
+
+        byte[] plain = new AuthCodec().encode(auth);
+        byte[] interned = new AuthCodec(ROLES, false).encode(auth);
+        AuthCodec compressing = new AuthCodec(ROLES, true);
+        byte[] compressed = compressing.encode(auth);
+
+        // a literal role takes a marker, the length and the name, an interned role a single byte
+        assertEquals(plain.length - ("user".length() + 1) - ("admin".length() + 1), interned.length);
+        assertTrue(compressed.length < interned.length / 2);
+        assertEquals(namespaces, compressing.decode(compressed).getNamespaces());
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws IOException {
+        Auth auth = new Auth("john.doe@example.com", "abcdef", Arrays.asList("user", "admin"),
+                Arrays.asList("testorg"), Arrays.asList("testns"));
+
+        byte[] compact = new AuthCodec(ROLES, false).encode(auth);
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(auth);
+        }
+        assertTrue(compact.length * 5 < serialized.size());
+    }
+
+    @Test
+    public void testRejectMalformedInput() {
+        AuthCodec codec = new AuthCodec(ROLES, false);
+        byte[] encoded = codec.encode(new Auth("john.doe@example.com", "abcdef", Arrays.asList("user"), null, null));
+
+        for (byte[] malformed : new byte[][]{new byte[0], new byte[]{0x70}, Arrays.copyOf(encoded, encoded.length - 2),
+                Arrays.copyOf(encoded, encoded.length + 1)}) {
+            try {
+                codec.decode(malformed);
+                fail("malformed input must be rejected: " + Arrays.toString(malformed));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            new AuthCodec(Arrays.asList("user"), false).decode(codec.encode(
+                    new Auth(null, "abcdef", Arrays.asList("system"), null, null)));
+            fail("unknown role ID must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
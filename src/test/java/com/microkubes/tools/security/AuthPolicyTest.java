@@ -0,0 +1,92 @@
+package com.microkubes.tools.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class AuthPolicyTest extends Assert {
+
+    private static final Auth ADMIN = new Auth("john.doe@example.com", "abcdef", Arrays.asList("user", "admin"),
+            Arrays.asList("acme"), Arrays.asList("payments", "billing"));
+    private static final Auth USER = new Auth("jane.doe@example.com", "123456", Arrays.asList("user"),
+            Arrays.asList("other"), Arrays.asList("payments"));
+
+    @Test
+    public void testParseAndEvaluate() {
+        AuthPolicy policy = AuthPolicy.parse("namespace:payments and (role:admin or organization:acme)");
+
+        assertTrue(policy.allows(ADMIN));
+        assertFalse(policy.allows(USER));
+        assertFalse(policy.allows(null));
+        assertFalse(policy.allows(new Auth(null, null, null, null, null)));
+
+        assertTrue(AuthPolicy.parse("not role:admin").allows(USER));
+        assertTrue(AuthPolicy.parse("role:admin or namespace:payments and user:123456").allows(USER));
+        assertTrue(AuthPolicy.parse("all").allows(USER));
+        assertTrue(AuthPolicy.parse("role:'user'").allows(USER));
+    }
+
+    @Test
+    public void testBuilderMatchesParser() {
+        AuthPolicy built = AuthPolicy.namespace("payments")
+                .and(AuthPolicy.role("admin").or(AuthPolicy.organization("acme")));
+        AuthPolicy parsed = AuthPolicy.parse("namespace:payments and (role:admin or organization:acme)");
+
+        assertEquals(built, parsed);
+        assertEquals(parsed, AuthPolicy.parse(parsed.getExpression()));
+    }
+
+    @Test
+    public void testMergeAlternatives() {
+        AuthPolicy policy = AuthPolicy.parse("role:admin or role:system or role:admin");
+
+        assertEquals(AuthPolicy.role("admin", "system"), policy);
+        assertEquals("(role:admin or role:system)", policy.getExpression());
+    }
+
+    @Test
+    public void testQuotedValues() {
+        Auth auth = new Auth(null, "abcdef", Collections.singletonList("team lead's"), null, null);
+        AuthPolicy policy = AuthPolicy.role("team lead's");
+
+        assertTrue(policy.allows(auth));
+        assertEquals(policy, AuthPolicy.parse(policy.getExpression()));
+    }
+
+    @Test
+    public void testUserPolicy() {
+        assertTrue(AuthPolicy.user("123456").allows(USER));
+        assertFalse(AuthPolicy.user("abcdef").allows(USER));
+        assertTrue(AuthPolicy.user("abcdef", "123456").allows(USER));
+        assertFalse(AuthPolicy.user("abcdef", "123456").allows(new Auth(null, null, null, null, null)));
+        assertFalse(AuthPolicy.user("123456").allows(new Auth(null, null, null, null, null)));
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        for (String expression : new String[]{"", "role", "role:", "group:x", "role:a and", "(role:a", "role:a)",
+                "role:'a", "role:a role:b"}) {
+            try {
+                AuthPolicy.parse(expression);
+                fail("expected invalid expression: " + expression);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testDecisionCacheKeyedByAllAttributes() {
+        AuthPolicies policies = new AuthPolicies(100);
+        Auth inBilling = new Auth(null, "abcdef", Arrays.asList("user"), null, Arrays.asList("billing"));
+        Auth inPayments = new Auth(null, "abcdef", Arrays.asList("user"), null, Arrays.asList("payments"));
+
+        // equal Auth objects (same user ID and roles) with different namespaces
+        assertEquals(inBilling, inPayments);
+        assertFalse(policies.allows(inBilling, "namespace:payments"));
+        assertTrue(policies.allows(inPayments, "namespace:payments"));
+        assertSame(policies.policy("namespace:payments"), policies.policy("namespace:payments"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.microkubes.tools.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+
+public class JwtClaimsDecoderTest extends Assert {
+
+    private static final String PAYLOAD = "{\"username\":\"john.doe@example.com\",\"userId\":\"abcdef\"," +
+            "\"roles\":\"user,admin\",\"exp\":1600000000,\"big\":12345678901," +
+            "\"custom\":{\"nested\":[1,2,{\"deep\":true}],\"other\":null},\"aud\":[\"a\",\"b\"],\"ratio\":0.5}";
+
+    @Test
+    public void testDecodeAllClaims() throws IOException {
+        Map<String, Object> claims = new JwtClaimsDecoder().decode(token(PAYLOAD));
+
+        assertEquals(new ObjectMapper().readValue(PAYLOAD, Map.class), claims);
+        assertEquals(Integer.class, claims.get("exp").getClass());
+        assertEquals(Long.class, claims.get("big").getClass());
+    }
+
+    @Test
+    public void testDecodeOnlyConfiguredClaims() {
+        Map<String, Object> claims = new JwtClaimsDecoder(Arrays.asList("userId", "aud", "missing"))
+                .decode(token(PAYLOAD));
+
+        assertEquals(2, claims.size());
+        assertEquals("abcdef", claims.get("userId"));
+        assertEquals(Arrays.asList("a", "b"), claims.get("aud"));
+    }
+
+    @Test
+    public void testBase64UrlDecode() {
+        Random random = new Random(42);
+        for (int length = 0; length < 64; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String encoded = "x" + Base64.getUrlEncoder().withoutPadding().encodeToString(data) + "y";
+            assertArrayEquals(data, JwtClaimsDecoder.base64UrlDecode(encoded, 1, encoded.length() - 1));
+        }
+        assertArrayEquals("ab".getBytes(), JwtClaimsDecoder.base64UrlDecode("YWI=", 0, 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidToken() {
+        new JwtClaimsDecoder().decode("not-a-token");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBase64Character() {
+        new JwtClaimsDecoder().decode("header.e30+.signature");
+    }
+
+    private static String token(String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "." +
+                encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".c2ln";
+    }
+}
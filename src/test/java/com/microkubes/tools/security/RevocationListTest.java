@@ -0,0 +1,94 @@
+package com.microkubes.tools.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+public class RevocationListTest extends Assert {
+
+    private static final long IN_AN_HOUR = System.currentTimeMillis() / 1000 + 3600;
+
+    @Test
+    public void testRevoke() {
+        RevocationList revocationList = new RevocationList(1000, 0.01, 3600);
+        revocationList.revoke("revoked-jti", IN_AN_HOUR);
+
+        assertTrue(revocationList.isRevoked("revoked-jti"));
+        assertFalse(revocationList.isRevoked("other-jti"));
+        assertFalse(revocationList.isRevoked(null));
+    }
+
+    @Test
+    public void testRemoveExpired() {
+        RevocationList revocationList = new RevocationList(1000, 0.01, 3600);
+        revocationList.revoke("expired", 1000);
+        revocationList.revoke("valid", IN_AN_HOUR);
+        revocationList.revoke("no-expiry", 0);
+
+        assertEquals(1, revocationList.removeExpired());
+
+        assertEquals(2, revocationList.size());
+        assertFalse(revocationList.isRevoked("expired"));
+        assertTrue(revocationList.isRevoked("valid"));
+        assertTrue(revocationList.isRevoked("no-expiry"));
+        assertEquals(0, revocationList.removeExpired());
+    }
+
+    @Test
+    public void testRemoveExpiredOnRevoke() {
+        RevocationList revocationList = new RevocationList(1000, 0.01, 3600);
+        revocationList.setCleanupInterval(0);
+        revocationList.revoke("expired", 1000);
+        revocationList.revoke("valid", IN_AN_HOUR);
+
+        assertEquals(1, revocationList.size());
+        assertFalse(revocationList.isRevoked("expired"));
+        assertTrue(revocationList.isRevoked("valid"));
+    }
+
+    @Test
+    public void testBloomFilterFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(100000, 0.01);
+        for (int i = 0; i < 100000; i++) {
+            filter.add("revoked-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(filter.mightContain("revoked-" + i));
+            if (filter.mightContain("valid-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 2000);
+    }
+
+    @Test
+    public void testFileFeedAppliesAppendedLines() throws IOException {
+        File file = File.createTempFile("revoked", ".txt");
+        file.deleteOnExit();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("# revoked tokens\n");
+            writer.write("first " + IN_AN_HOUR + "\n");
+        }
+
+        RevocationList revocationList = new RevocationList(1000, 0.01, 3600);
+        FileRevocationFeed feed = new FileRevocationFeed(file, 0);
+        feed.start(revocationList);
+
+        assertTrue(revocationList.isRevoked("first"));
+        assertFalse(revocationList.isRevoked("second"));
+
+        try (Writer writer = new FileWriter(file, true)) {
+            writer.write("second," + IN_AN_HOUR + "\nincomplete");
+        }
+        feed.refresh();
+
+        assertTrue(revocationList.isRevoked("second"));
+        assertFalse(revocationList.isRevoked("incomplete"));
+        feed.close();
+    }
+}
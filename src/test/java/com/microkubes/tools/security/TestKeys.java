@@ -0,0 +1,63 @@
+package com.microkubes.tools.security;
+
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.RsaSigner;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+
+/**
+ * Keys and signed tokens shared by the security tests.
+ */
+public final class TestKeys {
+
+    private TestKeys() {
+    }
+
+    /**
+     * Generates a new 1024-bit RSA key pair.
+     *
+     * @return the key pair.
+     * @throws NoSuchAlgorithmException if RSA is not available.
+     */
+    public static KeyPair generateKeyPair() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * Signs the claims into a JWT with the RSA private key of the key pair.
+     *
+     * @param claims  the claims as JSON.
+     * @param keyPair the RSA key pair.
+     * @return the encoded token.
+     */
+    public static String sign(String claims, KeyPair keyPair) {
+        return JwtHelper.encode(claims, new RsaSigner((RSAPrivateKey) keyPair.getPrivate())).getEncoded();
+    }
+
+    /**
+     * Writes the content to a temporary PEM file, deleted when the JVM exits.
+     *
+     * @param type    the PEM type, like <code>PRIVATE KEY</code>.
+     * @param content the encoded key.
+     * @return the file.
+     * @throws IOException if the file cannot be written.
+     */
+    public static File writePem(String type, byte[] content) throws IOException {
+        File file = File.createTempFile("key", ".pem");
+        file.deleteOnExit();
+        try (PemWriter writer = new PemWriter(new FileWriter(file))) {
+            writer.writeObject(new PemObject(type, content));
+        }
+        return file;
+    }
+}
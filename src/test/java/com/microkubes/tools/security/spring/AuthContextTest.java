@@ -0,0 +1,68 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Auth;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class AuthContextTest extends Assert {
+
+    private static final Auth AUTH = new Auth("john.doe@example.com", "abcdef", Arrays.asList("user"), null, null);
+
+    @After
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testCurrentFromSecurityContext() {
+        assertNull(AuthContext.current());
+
+        SecurityContextHolder.getContext().setAuthentication(new SpringOauth2AuthHolder(
+                new OAuth2Request(null, "test", null, true, null, null, null, null, null), null, AUTH));
+
+        assertSame(AUTH, AuthContext.current());
+    }
+
+    @Test
+    public void testScopedBinding() throws Exception {
+        Auth other = new Auth(null, "123456", null, null, null);
+
+        AuthContext.runWith(AUTH, () -> {
+            assertSame(AUTH, AuthContext.current());
+            AuthContext.runWith(other, () -> assertSame(other, AuthContext.current()));
+            assertSame(AUTH, AuthContext.current());
+        });
+        assertEquals("abcdef", AuthContext.callWith(AUTH, () -> AuthContext.current().getUserId()));
+        assertNull(AuthContext.current());
+    }
+
+    @Test
+    public void testPropagateToExecutor() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Executor executor = AuthContext.wrap((Executor) pool);
+
+            CompletableFuture<Auth> propagated = AuthContext.callWith(AUTH,
+                    () -> CompletableFuture.supplyAsync(AuthContext::current, executor));
+            assertSame(AUTH, propagated.get());
+
+            // the pooled thread does not keep the Auth after the task
+            assertNull(pool.submit(AuthContext::current).get());
+
+            Runnable decorated = AuthContext.callWith(AUTH, () -> new AuthContextTaskDecorator().decorate(
+                    () -> assertSame(AUTH, AuthContext.current())));
+            pool.submit(decorated).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
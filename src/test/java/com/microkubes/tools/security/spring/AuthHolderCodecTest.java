@@ -0,0 +1,86 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.AuthCodec;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class AuthHolderCodecTest extends Assert {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("username", "john.doe@example.com");
+        claims.put("userId", "abcdef");
+        claims.put("roles", "user,admin");
+        claims.put("namespaces", "testns");
+        claims.put("scope", "api:read api:write");
+        claims.put("client_id", "test");
+        claims.put("aud", "microkubes");
+        SpringOauth2AuthHolder holder = (SpringOauth2AuthHolder) new CustomClaimsTokenConverter()
+                .extractAuthentication(claims);
+        AuthHolderCodec codec = new AuthHolderCodec(new AuthCodec(Arrays.asList("user", "admin"), true));
+
+        byte[] encoded = codec.encode(holder);
+        SpringOauth2AuthHolder decoded = codec.decode(encoded);
+
+        assertEquals(holder.getAuth().getEmail(), decoded.getAuth().getEmail());
+        assertEquals(holder.getAuth().getUserId(), decoded.getAuth().getUserId());
+        assertEquals(holder.getAuth().getRoles(), decoded.getAuth().getRoles());
+        assertEquals(holder.getAuth().getNamespaces(), decoded.getAuth().getNamespaces());
+        assertEquals("john.doe@example.com", decoded.getName());
+        assertEquals("test", decoded.getOAuth2Request().getClientId());
+        assertEquals(holder.getOAuth2Request().getScope(), decoded.getOAuth2Request().getScope());
+        assertEquals(holder.getOAuth2Request().getResourceIds(), decoded.getOAuth2Request().getResourceIds());
+        assertEquals(AuthorityUtils.authorityListToSet(holder.getAuthorities()),
+                AuthorityUtils.authorityListToSet(decoded.getAuthorities()));
+        assertTrue(decoded.isAuthenticated());
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(holder);
+        }
+        assertTrue(encoded.length * 10 < serialized.size());
+    }
+
+    /**
+     * The sizes compared by AuthCodecBenchmark.
+     */
+    @Test
+    public void testEncodedSizes() throws IOException {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("username", "john.doe@example.com");
+        claims.put("userId", "5c8a2b9e1f4d3a0012345678");
+        claims.put("roles", "user,admin");
+        claims.put("organizations", "microkubes");
+        claims.put("namespaces", "default,staging");
+        claims.put("scope", "api:read api:write");
+        claims.put("client_id", "microkubes-client");
+        SpringOauth2AuthHolder holder = (SpringOauth2AuthHolder) new CustomClaimsTokenConverter()
+                .extractAuthentication(claims);
+        AuthCodec authCodec = new AuthCodec(Arrays.asList("user", "admin", "system"), false);
+
+        byte[] compactAuth = authCodec.encode(holder.getAuth());
+        byte[] compactHolder = new AuthHolderCodec(authCodec).encode(holder);
+        // about 180 bytes against 2.3 KB of Java serialization, as documented
+        assertTrue(compactAuth.length < 100);
+        assertTrue(compactAuth.length * 4 < serialize(holder.getAuth()).length);
+        assertTrue(compactHolder.length < 200);
+        assertTrue(compactHolder.length * 10 < serialize(holder).length);
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+}
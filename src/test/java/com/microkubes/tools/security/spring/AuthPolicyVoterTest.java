@@ -0,0 +1,34 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Auth;
+import com.microkubes.tools.security.AuthPolicies;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class AuthPolicyVoterTest extends Assert {
+
+    private final AuthPolicyVoter voter = new AuthPolicyVoter(new AuthPolicies(100));
+
+    @Test
+    public void testVote() {
+        SpringOauth2AuthHolder authentication = new SpringOauth2AuthHolder(
+                new OAuth2Request(null, "test", null, true, null, null, null, null, null), null,
+                new Auth(null, "abcdef", Arrays.asList("admin"), null, Arrays.asList("payments")));
+
+        assertEquals(AccessDecisionVoter.ACCESS_GRANTED, voter.vote(authentication, null,
+                SecurityConfig.createList("POLICY:namespace:payments and role:admin", "ROLE_USER")));
+        assertEquals(AccessDecisionVoter.ACCESS_DENIED, voter.vote(authentication, null,
+                SecurityConfig.createList("POLICY:namespace:payments", "POLICY:role:system")));
+        assertEquals(AccessDecisionVoter.ACCESS_ABSTAIN, voter.vote(authentication, null,
+                SecurityConfig.createList("ROLE_USER")));
+        assertEquals(AccessDecisionVoter.ACCESS_DENIED, voter.vote(new TestingAuthenticationToken("user", null),
+                null, Collections.singletonList(new SecurityConfig("POLICY:all"))));
+    }
+}
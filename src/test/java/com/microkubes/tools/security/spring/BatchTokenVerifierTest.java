@@ -0,0 +1,126 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.RevocationFeed;
+import com.microkubes.tools.security.SecurityMetrics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.microkubes.tools.security.TestKeys.generateKeyPair;
+import static com.microkubes.tools.security.TestKeys.sign;
+import static com.microkubes.tools.security.TestKeys.writePem;
+
+public class BatchTokenVerifierTest extends Assert {
+
+    private final AtomicInteger decoded = new AtomicInteger();
+    private KeyPair keyPair;
+    private MeteredJwtAccessTokenConverter converter;
+
+    @Before
+    public void setUp() throws NoSuchAlgorithmException {
+        keyPair = generateKeyPair();
+        converter = new MeteredJwtAccessTokenConverter() {
+            @Override
+            protected Map<String, Object> decode(String token) {
+                decoded.incrementAndGet();
+                return super.decode(token);
+            }
+        };
+        converter.setAccessTokenConverter(new CustomClaimsTokenConverter());
+        converter.setKeyPair(keyPair);
+    }
+
+    @Test
+    public void testResultsAlignedWithTokens() throws NoSuchAlgorithmException {
+        String first = sign("{\"userId\":\"first\",\"roles\":\"user\"}", keyPair);
+        String second = sign("{\"userId\":\"second\",\"roles\":\"user\"}", keyPair);
+        String expired = sign("{\"userId\":\"expired\",\"exp\":1000}", keyPair);
+        String foreign = sign("{\"userId\":\"foreign\"}", generateKeyPair());
+
+        List<BatchTokenVerifier.Result> results = new BatchTokenVerifier(converter)
+                .verify(Arrays.asList(first, second, expired, first, foreign, null));
+
+        assertEquals(6, results.size());
+        assertEquals("first", results.get(0).getAuth().getUserId());
+        assertEquals("second", results.get(1).getAuth().getUserId());
+        assertFalse(results.get(2).isValid());
+        assertTrue(results.get(2).getError() instanceof InvalidTokenException);
+        assertFalse(results.get(2).getError().getMessage().contains(expired));
+        assertSame(results.get(0), results.get(3));
+        assertFalse(results.get(4).isValid());
+        assertNull(results.get(4).getAuth());
+        assertFalse(results.get(5).isValid());
+        assertEquals(4, decoded.get());
+    }
+
+    @Test
+    public void testVerifyInParallel() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tokens.add(sign("{\"userId\":\"user-" + (i % 50) + "\"}", keyPair));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<BatchTokenVerifier.Result> results = new BatchTokenVerifier(converter, pool, 2).verify(tokens);
+        pool.shutdown();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals("user-" + (i % 50), results.get(i).getAuth().getUserId());
+        }
+        assertEquals(50, decoded.get());
+    }
+
+    @Test
+    public void testSignaturesVerifiedInTrustedRequest() throws Exception {
+        JwtOauth2Config config = trustedGatewayConfig();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.5");
+        request.addHeader("X-Jwt-Claims", "{\"userId\":\"caller\"}");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            List<BatchTokenVerifier.Result> results = config.getBatchTokenVerifier().verify(Arrays.asList(
+                    sign("{\"userId\":\"first\"}", keyPair), sign("{\"userId\":\"foreign\"}", generateKeyPair())));
+
+            assertEquals("first", results.get(0).getAuth().getUserId());
+            assertFalse(results.get(1).isValid());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private JwtOauth2Config trustedGatewayConfig() throws IOException {
+        JwtOauth2Config config = new JwtOauth2Config();
+        File privateKey = writePem("PRIVATE KEY", keyPair.getPrivate().getEncoded());
+        File publicKey = writePem("PUBLIC KEY", keyPair.getPublic().getEncoded());
+        ReflectionTestUtils.setField(config, "privateKeyPath", privateKey.getPath());
+        ReflectionTestUtils.setField(config, "publicKeyPath", publicKey.getPath());
+        ReflectionTestUtils.setField(config, "trustedGateway", "enable");
+        ReflectionTestUtils.setField(config, "trustedNetworks", new String[]{"10.0.0.0/8"});
+        ReflectionTestUtils.setField(config, "requireClientCert", false);
+        ReflectionTestUtils.setField(config, "claimsHeader", "X-Jwt-Claims");
+        ReflectionTestUtils.setField(config, "revocationExpectedEntries", 100);
+        ReflectionTestUtils.setField(config, "revocationFalsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(config, "revocationDefaultTtl", 3600L);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        ReflectionTestUtils.setField(config, "revocationFeed", beanFactory.getBeanProvider(RevocationFeed.class));
+        ReflectionTestUtils.setField(config, "securityMetrics", beanFactory.getBeanProvider(SecurityMetrics.class));
+        return config;
+    }
+}
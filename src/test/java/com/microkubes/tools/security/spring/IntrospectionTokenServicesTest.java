@@ -0,0 +1,87 @@
+package com.microkubes.tools.security.spring;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.microkubes.tools.security.Auth;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+public class IntrospectionTokenServicesTest extends Assert {
+
+    private static final String ACTIVE = "{\"active\": true, \"client_id\": \"test\", \"scope\": \"api:read\"," +
+            "\"username\": \"john.doe@example.com\", \"userId\": \"abcdef\", \"roles\": \"user,admin\", \"exp\": " +
+            (System.currentTimeMillis() / 1000 + 3600) + "}";
+
+    @Rule
+    public WireMockRule rule = new WireMockRule(options().dynamicPort());
+
+    @Test
+    public void testLoadAuthenticationIsCached() {
+        stubFor(post(urlEqualTo("/introspect"))
+                .withBasicAuth("resource", "secret")
+                .withRequestBody(containing("token=opaque-token"))
+                .willReturn(okJson(ACTIVE)));
+        IntrospectionTokenServices tokenServices = newTokenServices();
+
+        OAuth2Authentication authentication = tokenServices.loadAuthentication("opaque-token");
+        tokenServices.loadAuthentication("opaque-token");
+
+        Auth auth = ((SpringOauth2AuthHolder) authentication).getAuth();
+        assertEquals("abcdef", auth.getUserId());
+        assertEquals("john.doe@example.com", auth.getEmail());
+        assertTrue(auth.getRoles().contains("admin"));
+        assertEquals("test", authentication.getOAuth2Request().getClientId());
+        verify(1, postRequestedFor(urlEqualTo("/introspect")));
+    }
+
+    @Test
+    public void testInactiveToken() {
+        stubFor(post(urlEqualTo("/introspect"))
+                .willReturn(okJson("{\"active\": false}")));
+        IntrospectionTokenServices tokenServices = newTokenServices();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                tokenServices.loadAuthentication("inactive-token");
+                fail("inactive token must be rejected");
+            } catch (InvalidTokenException e) {
+                // expected
+            }
+        }
+        verify(1, postRequestedFor(urlEqualTo("/introspect")));
+    }
+
+    @Test
+    public void testConcurrentRequestsAreCoalesced() throws Exception {
+        stubFor(post(urlEqualTo("/introspect"))
+                .willReturn(okJson(ACTIVE).withFixedDelay(300)));
+        IntrospectionTokenServices tokenServices = newTokenServices();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<OAuth2Authentication>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> tokenServices.loadAuthentication("opaque-token")));
+        }
+        for (Future<OAuth2Authentication> result : results) {
+            assertEquals("abcdef", ((SpringOauth2AuthHolder) result.get()).getAuth().getUserId());
+        }
+        executor.shutdown();
+
+        verify(1, postRequestedFor(urlEqualTo("/introspect")));
+    }
+
+    private IntrospectionTokenServices newTokenServices() {
+        return new IntrospectionTokenServices(rule.url("/introspect"), "resource", "secret", 100, 300);
+    }
+}
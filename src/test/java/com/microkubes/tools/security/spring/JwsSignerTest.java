@@ -0,0 +1,134 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Auth;
+import com.microkubes.tools.security.Ed25519PrivateKey;
+import com.microkubes.tools.security.JwsAlgorithm;
+import com.microkubes.tools.security.PemKeys;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.jwt.crypto.sign.InvalidSignatureException;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.microkubes.tools.security.TestKeys.writePem;
+
+public class JwsSignerTest extends Assert {
+
+    @Test
+    public void testLoadKeyPairDetectsAlgorithm() throws Exception {
+        assertEquals(JwsAlgorithm.RS256, loadFromPem(generate("RSA", 2048)));
+        assertEquals(JwsAlgorithm.ES256, loadFromPem(generate("EC", 256)));
+        assertEquals(JwsAlgorithm.ES384, loadFromPem(generate("EC", 384)));
+        assertEquals(JwsAlgorithm.EdDSA, loadFromPem(ed25519()));
+    }
+
+    @Test
+    public void testSignAndVerify() throws Exception {
+        byte[] content = "header.payload".getBytes(StandardCharsets.US_ASCII);
+        for (KeyPair keyPair : new KeyPair[]{generate("RSA", 2048), generate("EC", 256), generate("EC", 521), ed25519()}) {
+            JwsSigner signer = new JwsSigner(keyPair.getPrivate());
+            JwsVerifier verifier = new JwsVerifier(keyPair.getPublic());
+
+            byte[] signature = signer.sign(content);
+            // the same instances are reused for consecutive signatures
+            verifier.verify(content, signer.sign(content));
+            verifier.verify(content, signature);
+
+            signature[signature.length / 2] ^= 1;
+            try {
+                verifier.verify(content, signature);
+                fail(signer.getAlgorithm() + ": tampered signature must be rejected");
+            } catch (InvalidSignatureException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testEcdsaSignatureConversion() {
+        byte[] der = {0x30, 0x07, 0x02, 0x02, 0x00, (byte) 0x80, 0x02, 0x01, 0x01};
+
+        byte[] jws = JwsAlgorithm.ES256.derToJws(der);
+
+        assertEquals(64, jws.length);
+        assertEquals((byte) 0x80, jws[31]);
+        assertEquals(1, jws[63]);
+        assertArrayEquals(der, JwsAlgorithm.ES256.jwsToDer(jws));
+    }
+
+    @Test
+    public void testTokenRoundTrip() throws Exception {
+        for (KeyPair keyPair : new KeyPair[]{generate("EC", 256), ed25519()}) {
+            MeteredJwtAccessTokenConverter converter = new MeteredJwtAccessTokenConverter();
+            converter.setAccessTokenConverter(new CustomClaimsTokenConverter());
+            converter.setSigningKeyPair(keyPair);
+            JwtTokenStore tokenStore = new JwtTokenStore(converter);
+
+            String token = converter.encode(accessToken(), clientAuthentication());
+
+            Auth auth = ((AuthenticationHolder) tokenStore.readAuthentication(token)).getAuth();
+            assertEquals("abcdef", auth.getUserId());
+            assertEquals(JwsAlgorithm.forKey(keyPair.getPublic()).name(), converter.getKey().get("alg"));
+
+            MeteredJwtAccessTokenConverter other = new MeteredJwtAccessTokenConverter();
+            other.setSigningKeyPair(ed25519());
+            try {
+                new JwtTokenStore(other).readAuthentication(token);
+                fail("token signed with another key must be rejected");
+            } catch (InvalidTokenException e) {
+                // expected
+            }
+        }
+    }
+
+    private static DefaultOAuth2AccessToken accessToken() {
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken("token");
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CustomClaimsTokenConverter.CLAIM_USER_ID, "abcdef");
+        claims.put(CustomClaimsTokenConverter.CLAIM_USERNAME, "john.doe@example.com");
+        claims.put(CustomClaimsTokenConverter.CLAIM_ROLES, "user");
+        accessToken.setAdditionalInformation(claims);
+        return accessToken;
+    }
+
+    private static OAuth2Authentication clientAuthentication() {
+        OAuth2Request request = new OAuth2Request(Collections.emptyMap(), "client", Collections.emptyList(), true,
+                Collections.singleton("api"), null, null, null, null);
+        return new OAuth2Authentication(request, null);
+    }
+
+    private static JwsAlgorithm loadFromPem(KeyPair keyPair) throws Exception {
+        File privateKey = writePem("PRIVATE KEY", keyPair.getPrivate().getEncoded());
+        File publicKey = writePem("PUBLIC KEY", keyPair.getPublic().getEncoded());
+
+        KeyPair loaded = PemKeys.loadKeyPair(privateKey.getPath(), publicKey.getPath());
+
+        assertEquals(keyPair.getPrivate(), loaded.getPrivate());
+        assertArrayEquals(keyPair.getPublic().getEncoded(), loaded.getPublic().getEncoded());
+        return new JwsSigner(loaded.getPrivate()).getAlgorithm();
+    }
+
+    private static KeyPair generate(String algorithm, int size) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        generator.initialize(size);
+        return generator.generateKeyPair();
+    }
+
+    private static KeyPair ed25519() {
+        Ed25519PrivateKey privateKey = Ed25519PrivateKey.generate(new SecureRandom());
+        return new KeyPair(privateKey.getPublicKey(), privateKey);
+    }
+}
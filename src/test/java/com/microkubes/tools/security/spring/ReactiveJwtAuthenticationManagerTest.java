@@ -0,0 +1,70 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Auth;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+
+import static com.microkubes.tools.security.TestKeys.generateKeyPair;
+import static com.microkubes.tools.security.TestKeys.sign;
+
+public class ReactiveJwtAuthenticationManagerTest extends Assert {
+
+    private static final String CLAIMS = "{\"username\":\"john.doe@example.com\",\"userId\":\"abcdef\"," +
+            "\"roles\":\"user,admin\",\"scope\":\"api:read\",\"client_id\":\"test\",\"exp\":" +
+            (System.currentTimeMillis() / 1000 + 3600) + "}";
+
+    @Test
+    public void testAuthenticate() throws NoSuchAlgorithmException {
+        KeyPair keyPair = generateKeyPair();
+        ReactiveJwtAuthenticationManager manager = newManager(keyPair);
+        String token = sign(CLAIMS, keyPair);
+
+        Authentication authentication = new BearerTokenServerAuthenticationConverter()
+                .convert(exchangeWithAuthorization("Bearer " + token))
+                .flatMap(manager::authenticate)
+                .block();
+
+        assertTrue(authentication instanceof AuthenticationHolder);
+        Auth auth = ((AuthenticationHolder) authentication).getAuth();
+        assertEquals("abcdef", auth.getUserId());
+        assertEquals("john.doe@example.com", auth.getEmail());
+        assertTrue(auth.getRoles().contains("admin"));
+    }
+
+    @Test(expected = BadCredentialsException.class)
+    public void testInvalidSignature() throws NoSuchAlgorithmException {
+        ReactiveJwtAuthenticationManager manager = newManager(generateKeyPair());
+        String token = sign(CLAIMS, generateKeyPair());
+
+        manager.authenticate(new BearerTokenServerAuthenticationConverter()
+                .convert(exchangeWithAuthorization("Bearer " + token)).block()).block();
+    }
+
+    @Test
+    public void testNoBearerToken() {
+        BearerTokenServerAuthenticationConverter converter = new BearerTokenServerAuthenticationConverter();
+
+        assertNull(converter.convert(exchangeWithAuthorization("Basic dXNlcjpwYXNz")).block());
+        assertNull(converter.convert(MockServerWebExchange.from(MockServerHttpRequest.get("/"))).block());
+    }
+
+    private static ReactiveJwtAuthenticationManager newManager(KeyPair keyPair) {
+        JwtAccessTokenConverter converter = new JwtAccessTokenConverter();
+        converter.setAccessTokenConverter(new CustomClaimsTokenConverter());
+        converter.setKeyPair(keyPair);
+        return new ReactiveJwtAuthenticationManager(new JwtTokenStore(converter));
+    }
+
+    private static MockServerWebExchange exchangeWithAuthorization(String authorization) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/").header("Authorization", authorization));
+    }
+}
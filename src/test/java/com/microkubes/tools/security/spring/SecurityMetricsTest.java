@@ -0,0 +1,100 @@
+package com.microkubes.tools.security.spring;
+
+import com.microkubes.tools.security.Auth;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+
+import static com.microkubes.tools.security.TestKeys.generateKeyPair;
+import static com.microkubes.tools.security.TestKeys.sign;
+
+public class SecurityMetricsTest extends Assert {
+
+    private MeterRegistry registry;
+    private KeyPair keyPair;
+    private JwtTokenStore tokenStore;
+
+    @Before
+    public void setUp() throws NoSuchAlgorithmException {
+        registry = new SimpleMeterRegistry();
+        MicrometerSecurityMetrics metrics = new MicrometerSecurityMetrics(registry);
+        keyPair = generateKeyPair();
+
+        CustomClaimsTokenConverter claimsTokenConverter = new CustomClaimsTokenConverter();
+        claimsTokenConverter.setMetrics(metrics);
+        MeteredJwtAccessTokenConverter converter = new MeteredJwtAccessTokenConverter();
+        converter.setMetrics(metrics);
+        converter.setAccessTokenConverter(claimsTokenConverter);
+        converter.setKeyPair(keyPair);
+        tokenStore = new JwtTokenStore(converter);
+    }
+
+    @Test
+    public void testRecordStages() {
+        String token = sign("{\"username\":\"john.doe@example.com\",\"userId\":\"abcdef\",\"roles\":\"user\"}", keyPair);
+
+        OAuth2Authentication authentication = tokenStore.readAuthentication(token);
+
+        Auth auth = ((AuthenticationHolder) authentication).getAuth();
+        assertEquals("abcdef", auth.getUserId());
+        for (String stage : new String[]{"verify", "decode", "convert", "auth"}) {
+            assertEquals(stage, 1, timerCount(stage));
+        }
+        assertEquals(0, missingClaims(), 0);
+    }
+
+    @Test
+    public void testCountRejections() throws NoSuchAlgorithmException {
+        try {
+            tokenStore.readAuthentication(sign("{\"userId\":\"abcdef\"}", generateKeyPair()));
+            fail("token signed with another key must be rejected");
+        } catch (InvalidTokenException e) {
+            // expected
+        }
+        try {
+            tokenStore.readAuthentication("not-a-token");
+            fail("malformed token must be rejected");
+        } catch (InvalidTokenException e) {
+            // expected
+        }
+        tokenStore.readAuthentication(sign("{\"client_id\":\"test\",\"exp\":1000}", keyPair));
+
+        assertEquals(1, rejected("bad_signature"), 0);
+        assertEquals(1, rejected("malformed"), 0);
+        assertEquals(1, rejected("expired"), 0);
+        assertEquals(1, timerCount("verify"));
+    }
+
+    @Test
+    public void testCountMissingClaims() {
+        OAuth2Authentication authentication = tokenStore.readAuthentication(sign("{\"client_id\":\"test\"}", keyPair));
+
+        assertNotNull(authentication);
+        assertEquals(1, missingClaims(), 0);
+        assertEquals(0, registry.get(MicrometerSecurityMetrics.REJECTED_NAME).counters().stream()
+                .mapToDouble(Counter::count).sum(), 0);
+        assertEquals(1, timerCount("convert"));
+        assertEquals(1, timerCount("auth"));
+    }
+
+    private long timerCount(String stage) {
+        return registry.get(MicrometerSecurityMetrics.TIMER_NAME).tag("stage", stage).timer().count();
+    }
+
+    private double rejected(String reason) {
+        return registry.get(MicrometerSecurityMetrics.REJECTED_NAME).tag("reason", reason).counter().count();
+    }
+
+    private double missingClaims() {
+        return registry.get(MicrometerSecurityMetrics.MISSING_CLAIMS_NAME).counter().count();
+    }
+}
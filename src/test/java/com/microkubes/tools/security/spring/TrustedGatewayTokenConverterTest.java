@@ -0,0 +1,126 @@
+package com.microkubes.tools.security.spring;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+
+import static com.microkubes.tools.security.TestKeys.generateKeyPair;
+import static com.microkubes.tools.security.TestKeys.sign;
+
+public class TrustedGatewayTokenConverterTest extends Assert {
+
+    private static final String CLAIMS = "{\"username\":\"john.doe@example.com\",\"userId\":\"abcdef\",\"exp\":1600000000}";
+
+    @After
+    public void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testDecodeWithoutVerificationFromTrustedNetwork() throws NoSuchAlgorithmException {
+        TrustedGatewayTokenConverter converter = newConverter(null);
+        converter.setKeyPair(generateKeyPair());
+        setRequest("10.0.0.5");
+
+        Map<String, Object> claims = converter.decode(sign(CLAIMS, generateKeyPair()));
+
+        assertEquals("abcdef", claims.get("userId"));
+        assertEquals(1600000000L, claims.get("exp"));
+    }
+
+    @Test(expected = InvalidTokenException.class)
+    public void testVerifySignatureFromUntrustedNetwork() throws NoSuchAlgorithmException {
+        TrustedGatewayTokenConverter converter = newConverter(null);
+        converter.setKeyPair(generateKeyPair());
+        setRequest("192.168.1.10");
+
+        converter.decode(sign(CLAIMS, generateKeyPair()));
+    }
+
+    @Test
+    public void testVerifiedDecodeFromUntrustedNetwork() throws NoSuchAlgorithmException {
+        KeyPair keyPair = generateKeyPair();
+        TrustedGatewayTokenConverter converter = newConverter(null);
+        converter.setKeyPair(keyPair);
+        setRequest("192.168.1.10");
+
+        Map<String, Object> claims = converter.decode(sign(CLAIMS, keyPair));
+
+        assertEquals("john.doe@example.com", claims.get("username"));
+        assertEquals(1600000000L, claims.get("exp"));
+    }
+
+    @Test
+    public void testClaimsFromGatewayHeader() throws NoSuchAlgorithmException {
+        TrustedGatewayTokenConverter converter = newConverter("X-Jwt-Claims");
+        converter.setKeyPair(generateKeyPair());
+        MockHttpServletRequest request = setRequest("10.1.2.3");
+        request.addHeader("X-Jwt-Claims", Base64.getUrlEncoder().encodeToString(
+                "{\"userId\":\"from-header\"}".getBytes()));
+
+        Map<String, Object> claims = converter.decode(sign(CLAIMS, generateKeyPair()));
+
+        assertEquals("from-header", claims.get("userId"));
+    }
+
+    @Test
+    public void testClaimsVerifierErrorNotWrapped() throws NoSuchAlgorithmException {
+        TrustedGatewayTokenConverter converter = newConverter(null);
+        converter.setKeyPair(generateKeyPair());
+        converter.setJwtClaimsSetVerifier(claims -> {
+            throw new InvalidTokenException("Token has been revoked");
+        });
+        setRequest("10.0.0.5");
+
+        try {
+            converter.decode(sign(CLAIMS, generateKeyPair()));
+            fail("revoked token must be rejected");
+        } catch (InvalidTokenException e) {
+            assertEquals("Token has been revoked", e.getMessage());
+        }
+    }
+
+    @Test(expected = InvalidTokenException.class)
+    public void testMalformedClaimsHeader() throws NoSuchAlgorithmException {
+        TrustedGatewayTokenConverter converter = newConverter("X-Jwt-Claims");
+        converter.setKeyPair(generateKeyPair());
+        setRequest("10.1.2.3").addHeader("X-Jwt-Claims", "not base64!");
+
+        converter.decode(sign(CLAIMS, generateKeyPair()));
+    }
+
+    @Test
+    public void testClientCertificateRequired() {
+        TrustedGatewayGuard guard = new TrustedGatewayGuard(new String[]{"10.0.0.0/8"}, true, null);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.5");
+
+        assertFalse(guard.isTrusted(request));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGuardRequiresNetworksOrClientCertificate() {
+        new TrustedGatewayGuard(new String[]{}, false, null);
+    }
+
+    private TrustedGatewayTokenConverter newConverter(String claimsHeader) {
+        TrustedGatewayGuard guard = new TrustedGatewayGuard(new String[]{"10.0.0.0/8"}, false, null);
+        return new TrustedGatewayTokenConverter(guard, claimsHeader);
+    }
+
+    private MockHttpServletRequest setRequest(String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return request;
+    }
+}